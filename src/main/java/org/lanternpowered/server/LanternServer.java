@@ -181,6 +181,15 @@ public LanternGame getGame() {
         return this.game;
     }
 
+    /**
+     * Gets the {@link NetworkManager}.
+     *
+     * @return The network manager
+     */
+    public NetworkManager getNetworkManager() {
+        return this.networkManager;
+    }
+
     void initialize() {
         // First initialize the console manager, but don't start to read anything yet
         this.consoleManager.init();
@@ -26,24 +26,33 @@
 package org.lanternpowered.server.block;
 
 import com.google.common.base.MoreObjects;
-import org.lanternpowered.server.game.LanternGame;
+import org.lanternpowered.server.world.ScheduledBlockUpdateWheel;
+import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.block.ScheduledBlockUpdate;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
-public class LanternScheduledBlockUpdate implements ScheduledBlockUpdate, Comparable<LanternScheduledBlockUpdate> {
+public final class LanternScheduledBlockUpdate implements ScheduledBlockUpdate, Comparable<LanternScheduledBlockUpdate> {
 
+    private final ScheduledBlockUpdateWheel wheel;
     private final Location<World> location;
+    private final BlockType blockType;
+    private final int entryId;
 
-    private long endTicks;
+    // The following fields are guarded by the wheel
+    private long endTick;
     private int priority;
-    private int entryId;
+    private int slot = -1;
+    private boolean removed;
 
-    public LanternScheduledBlockUpdate(int entryId, Location<World> location, int ticks, int priority) {
-        this.setTicks(ticks);
-        this.priority = priority;
-        this.location = location;
+    public LanternScheduledBlockUpdate(ScheduledBlockUpdateWheel wheel, int entryId, Location<World> location,
+            BlockType blockType, long endTick, int priority) {
+        this.wheel = wheel;
         this.entryId = entryId;
+        this.location = location;
+        this.blockType = blockType;
+        this.endTick = endTick;
+        this.priority = priority;
     }
 
     @Override
@@ -51,32 +60,74 @@ public Location<World> getLocation() {
         return this.location;
     }
 
+    /**
+     * Gets the {@link BlockType} the update was scheduled for, the
+     * update will be ignored if the block type was changed.
+     *
+     * @return The block type
+     */
+    public BlockType getBlockType() {
+        return this.blockType;
+    }
+
     @Override
     public int getTicks() {
-        return (int) (this.endTicks - LanternGame.currentTimeTicks());
+        return this.wheel.getRemainingTicks(this);
     }
 
     @Override
     public void setTicks(int ticks) {
-        this.endTicks = LanternGame.currentTimeTicks() + ticks;
+        this.wheel.reschedule(this, ticks);
     }
 
     @Override
     public int getPriority() {
-        return this.priority;
+        return this.wheel.getPriority(this);
     }
 
     @Override
     public void setPriority(int priority) {
+        this.wheel.setPriority(this, priority);
+    }
+
+    public int getPriority0() {
+        return this.priority;
+    }
+
+    public void setPriority0(int priority) {
         this.priority = priority;
     }
 
+    public long getEndTick() {
+        return this.endTick;
+    }
+
+    public void setEndTick(long endTick) {
+        this.endTick = endTick;
+    }
+
+    public int getSlot() {
+        return this.slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    public boolean isRemoved() {
+        return this.removed;
+    }
+
+    public void setRemoved(boolean removed) {
+        this.removed = removed;
+    }
+
     @Override
     public int compareTo(LanternScheduledBlockUpdate o) {
-        if (this.endTicks < o.endTicks) {
+        if (this.endTick < o.endTick) {
             return -1;
         }
-        if (this.endTicks > o.endTicks) {
+        if (this.endTick > o.endTick) {
             return 1;
         }
         if (this.priority != o.priority) {
@@ -96,6 +147,7 @@ public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("entryId", this.entryId)
                 .add("location", this.location)
+                .add("blockType", this.blockType.getKey())
                 .add("ticks", this.getTicks())
                 .add("priority", this.priority)
                 .toString();
@@ -52,6 +52,7 @@
 import org.lanternpowered.server.block.property.BlockSoundGroupProperty;
 import org.lanternpowered.server.block.property.FlameInfo;
 import org.lanternpowered.server.block.property.FlameInfoProperty;
+import org.lanternpowered.server.block.property.LightOpacityProperty;
 import org.lanternpowered.server.block.property.SolidMaterialProperty;
 import org.lanternpowered.server.block.property.SolidSideProperty;
 import org.lanternpowered.server.block.provider.ObjectProvider;
@@ -166,6 +167,20 @@ public static PropertyProviderCollection lightEmission(ObjectProvider<Integer> p
                 .build();
     }
 
+    public static PropertyProviderCollection lightOpacity(int constant) {
+        final LightOpacityProperty property = new LightOpacityProperty(constant);
+        return PropertyProviderCollection.builder()
+                .add(LightOpacityProperty.class, new ConstantPropertyProvider<>(property))
+                .build();
+    }
+
+    public static PropertyProviderCollection lightOpacity(ObjectProvider<Integer> provider) {
+        return PropertyProviderCollection.builder()
+                .add(LightOpacityProperty.class, (blockState, location, face) ->
+                        new LightOpacityProperty(provider.get(blockState, location, face)))
+                .build();
+    }
+
     public static PropertyProviderCollection replaceable(boolean constant) {
         final ReplaceableProperty property = constant ? REPLACEABLE_PROPERTY_TRUE : REPLACEABLE_PROPERTY_FALSE;
         return PropertyProviderCollection.builder()
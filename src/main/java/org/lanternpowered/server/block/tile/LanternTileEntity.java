@@ -27,6 +27,7 @@
 
 import static java.util.Objects.requireNonNull;
 
+import com.flowpowered.math.vector.Vector3i;
 import org.lanternpowered.server.data.AdditionalContainerCollection;
 import org.lanternpowered.server.data.DataHelper;
 import org.lanternpowered.server.data.DataQueries;
@@ -36,6 +37,8 @@
 import org.lanternpowered.server.game.registry.type.block.TileEntityTypeRegistryModule;
 import org.lanternpowered.server.network.tile.AbstractTileEntityProtocol;
 import org.lanternpowered.server.network.tile.TileEntityProtocolType;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.tileentity.TileEntity;
 import org.spongepowered.api.block.tileentity.TileEntityArchetype;
@@ -57,6 +60,17 @@
 @SuppressWarnings({"ConstantConditions", "unchecked"})
 public abstract class LanternTileEntity implements TileEntity, IAdditionalDataHolder, AbstractPropertyHolder {
 
+    private static final ClassValue<Boolean> TICKING = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("pulse").getDeclaringClass() != LanternTileEntity.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
     private LanternTileEntityType tileEntityType;
     private final ValueCollection valueCollection = ValueCollection.create();
     private final AdditionalContainerCollection<DataManipulator<?, ?>> additionalContainers = AdditionalContainerCollection.createConcurrent();
@@ -80,6 +94,16 @@ protected void registerKeys() {
     public void pulse() {
     }
 
+    /**
+     * Gets whether this {@link LanternTileEntity} needs to be pulsed,
+     * which is the case if the {@link #pulse()} method is overridden.
+     *
+     * @return Whether this tile entity needs to be pulsed
+     */
+    public boolean isTicking() {
+        return TICKING.get(getClass());
+    }
+
     @Override
     public ValueCollection getValueCollection() {
         return this.valueCollection;
@@ -169,6 +193,28 @@ public LocatableBlock getLocatableBlock() {
         return LocatableBlock.builder().location(getLocation()).build();
     }
 
+    @Override
+    public void onValuesChanged() {
+        markChunkDirty();
+    }
+
+    /**
+     * Marks the chunk this tile entity is located in as dirty,
+     * this should be called when the tile entity data changed.
+     */
+    public void markChunkDirty() {
+        final Location<World> location = this.location;
+        if (location == null) {
+            return;
+        }
+        final Vector3i pos = location.getBlockPosition();
+        final LanternChunk chunk = ((LanternWorld) location.getExtent()).getChunkManager()
+                .getChunkIfLoaded(pos.getX() >> 4, pos.getZ() >> 4);
+        if (chunk != null) {
+            chunk.markDirty();
+        }
+    }
+
     /**
      * Sets the {@link Location} of this tile entity.
      *
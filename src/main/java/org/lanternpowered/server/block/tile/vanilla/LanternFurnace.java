@@ -39,7 +39,9 @@
 import org.lanternpowered.server.inventory.vanilla.block.FurnaceInventory;
 import org.lanternpowered.server.item.recipe.IIngredient;
 import org.lanternpowered.server.item.recipe.fuel.IFuel;
+import org.lanternpowered.server.item.recipe.fuel.IFuelRegistry;
 import org.lanternpowered.server.item.recipe.smelting.ISmeltingRecipe;
+import org.lanternpowered.server.item.recipe.smelting.LanternSmeltingRecipeRegistry;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.block.BlockTypes;
@@ -56,6 +58,9 @@
 
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
 
 public class LanternFurnace extends LanternTileEntity implements Furnace, ITileEntityRefreshBehavior, ITileEntityCarrier {
 
@@ -65,10 +70,37 @@ public class LanternFurnace extends LanternTileEntity implements Furnace, ITileE
     // The tick since the last pulse
     private long lastTick = -1;
 
+    // The last recipe lookups, the input of a furnace
+    // usually stays the same for many ticks
+    private final CachedLookup<SmeltingRecipe> smeltingRecipeLookup = new CachedLookup<>();
+    private final CachedLookup<IFuel> fuelLookup = new CachedLookup<>();
+
+    /**
+     * The result of the last lookup for a specific input item.
+     *
+     * @param <R> The type of the result
+     */
+    private static final class CachedLookup<R> {
+
+        private int version = -1;
+        @Nullable private ItemStackSnapshot input;
+        private Optional<R> result = Optional.empty();
+
+        Optional<R> get(ItemStackSnapshot input, int version, Function<ItemStackSnapshot, Optional<R>> lookup) {
+            if (this.version != version || this.input == null || !this.input.equals(input)) {
+                this.result = lookup.apply(input);
+                this.version = version;
+                this.input = input;
+            }
+            return this.result;
+        }
+    }
+
     public LanternFurnace() {
         this.inventory = VanillaInventoryArchetypes.FURNACE.builder()
                 .withCarrier(this).build(Lantern.getMinecraftPlugin());
         this.inventory.enableCachedProgress();
+        this.inventory.addChangeListener(slot -> markChunkDirty());
     }
 
     @Override
@@ -120,8 +152,7 @@ public void pulse() {
             if (!inputSlotItemSnapshot.isEmpty()) {
                 // Check if the item can be smelted, this means finding a compatible
                 // recipe and the output has to be empty.
-                smeltingRecipe = Lantern.getRegistry().getSmeltingRecipeRegistry()
-                        .findMatchingRecipe(inputSlotItemSnapshot);
+                smeltingRecipe = findSmeltingRecipe(inputSlotItemSnapshot);
                 if (smeltingRecipe.isPresent()) {
                     final int quantity = ((ISmeltingRecipe) smeltingRecipe.get()).getIngredient().getQuantity(inputSlotItemSnapshot);
                     if (inputSlotItemSnapshot.getQuantity() >= quantity) {
@@ -168,7 +199,7 @@ public void pulse() {
                 if (itemStack.isFilled() && maxCookTime > 0) {
                     // Check for the next fuel item
                     final ItemStackSnapshot itemStackSnapshot = itemStack.createSnapshot();
-                    final Optional<IFuel> result = Lantern.getRegistry().getFuelRegistry().findMatching(itemStackSnapshot);
+                    final Optional<IFuel> result = findFuel(itemStackSnapshot);
                     if (result.isPresent()) {
                         final OptionalInt optBurnTime = result.get().getBurnTime(itemStackSnapshot);
                         // We have a next matching burn item, check if we can poll one and then continue burning
@@ -246,6 +277,16 @@ public void pulse() {
         }
     }
 
+    private Optional<SmeltingRecipe> findSmeltingRecipe(ItemStackSnapshot input) {
+        final LanternSmeltingRecipeRegistry registry = Lantern.getRegistry().getSmeltingRecipeRegistry();
+        return this.smeltingRecipeLookup.get(input, registry.getVersion(), registry::findMatchingRecipe);
+    }
+
+    private Optional<IFuel> findFuel(ItemStackSnapshot input) {
+        final IFuelRegistry registry = Lantern.getRegistry().getFuelRegistry();
+        return this.fuelLookup.get(input, registry.getVersion(), registry::findMatching);
+    }
+
     @Override
     public boolean smelt() {
         final LanternItemStack itemStack = this.inventory.getInputSlot().getRawItemStack();
@@ -253,8 +294,7 @@ public boolean smelt() {
             // Check if the item can be smelted, this means finding a compatible
             // recipe and the output has to be empty.
             final ItemStackSnapshot itemStackSnapshot = itemStack.createSnapshot();
-            final Optional<SmeltingRecipe> smeltingRecipe = Lantern.getRegistry().getSmeltingRecipeRegistry()
-                    .findMatchingRecipe(itemStackSnapshot);
+            final Optional<SmeltingRecipe> smeltingRecipe = findSmeltingRecipe(itemStackSnapshot);
             final Optional<SmeltingResult> smeltingResult = smeltingRecipe.flatMap(recipe -> recipe.getResult(itemStackSnapshot));
             // Check if the item can be smelted
             if (smeltingResult.isPresent()) {
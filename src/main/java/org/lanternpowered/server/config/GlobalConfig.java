@@ -45,6 +45,7 @@
 import org.lanternpowered.server.config.world.chunk.GlobalChunkLoading;
 import org.lanternpowered.server.game.DirectoryKeys;
 import org.lanternpowered.server.network.ProxyType;
+import org.lanternpowered.server.network.protocol.ProtocolState;
 import org.lanternpowered.server.util.IpSet;
 import org.lanternpowered.server.util.function.Predicates;
 import org.spongepowered.api.text.Text;
@@ -59,6 +60,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.zip.Deflater;
 
 import javax.annotation.Nullable;
 
@@ -173,6 +175,23 @@ private static final class Server {
         @Setting(value = "network-compression-threshold")
         private int networkCompressionThreshold = 256;
 
+        @Setting(value = "network-compression-levels", comment =
+                "The compression levels that are used for the messages, a level must be\n " +
+                "between 0 and 9 or -1 for the default level. Lower levels are faster\n " +
+                "but produce larger messages.")
+        private NetworkCompressionLevels networkCompressionLevels = new NetworkCompressionLevels();
+
+        @Setting(value = "network-write-batching", comment =
+                "Enable to only write the messages that are sent to players during a\n " +
+                "tick and to flush them once at the end of the tick. This reduces the\n " +
+                "amount of system calls at the cost of a slightly higher latency.")
+        private boolean networkWriteBatching = false;
+
+        @Setting(value = "network-batch-flush-threshold", comment =
+                "The amount of bytes that may be pending in a batch\n " +
+                "before it will be flushed before the end of the tick.")
+        private int networkBatchFlushThreshold = 65536;
+
         @Setting(value = "chat-spam-threshold", comment =
                 "The minimum time between messages (in milliseconds) when they will be considered spam.")
         private int chatSpamThreshold = 200;
@@ -278,6 +297,38 @@ private static final class World {
                         + "\nThe value must be greater than or equal to " + MIN_VIEW_DISTANCE + " and less than or equal to " + MAX_VIEW_DISTANCE
         )
         private int viewDistance = 10;
+
+        @Setting(value = "chunk-streaming", comment = "Configuration for the streaming of chunks to the players.")
+        private ChunkStreaming chunkStreaming = new ChunkStreaming();
+
+        @Setting(value = "parallel-chunk-pre-generation", comment =
+                "Whether chunk pre generation should generate the chunks in parallel,\n" +
+                "in region sized batches on the chunk loading threads instead of\n" +
+                "on the main thread.")
+        private boolean parallelChunkPreGeneration = false;
+    }
+
+    @ConfigSerializable
+    public static final class ChunkStreaming {
+
+        @Setting(value = "chunks-per-tick", comment =
+                "The maximum amount of chunks that will be requested for\n" +
+                "a single player each tick.")
+        private int chunksPerTick = 8;
+
+        @Setting(value = "bytes-per-tick", comment =
+                "The maximum amount of (uncompressed) chunk data in bytes that\n" +
+                "will be sent to a single player each tick. Chunks that exceed\n" +
+                "the budget are delayed until enough ticks passed.")
+        private int bytesPerTick = 262144;
+
+        public int getChunksPerTick() {
+            return Math.max(1, this.chunksPerTick);
+        }
+
+        public int getBytesPerTick() {
+            return Math.max(1, this.bytesPerTick);
+        }
     }
 
     @ConfigSerializable
@@ -298,6 +349,56 @@ public boolean allowsKQueue() {
         }
     }
 
+    @ConfigSerializable
+    public static final class NetworkCompressionLevels {
+
+        @Setting(value = "login", comment = "The compression level of messages in the login state.")
+        private int login = Deflater.DEFAULT_COMPRESSION;
+
+        @Setting(value = "forge-handshake", comment = "The compression level of messages in the forge handshake state.")
+        private int forgeHandshake = Deflater.DEFAULT_COMPRESSION;
+
+        @Setting(value = "play", comment = "The compression level of messages in the play state.")
+        private int play = Deflater.DEFAULT_COMPRESSION;
+
+        @Setting(value = "chunk-data", comment =
+                "The compression level of chunk data messages, these are\n " +
+                "the largest messages that are sent in the play state.")
+        private int chunkData = Deflater.DEFAULT_COMPRESSION;
+
+        /**
+         * Gets the compression level for the given {@link ProtocolState}.
+         *
+         * @param state The protocol state
+         * @return The compression level
+         */
+        public int getLevel(ProtocolState state) {
+            switch (state) {
+                case LOGIN:
+                    return clampLevel(this.login);
+                case FORGE_HANDSHAKE:
+                    return clampLevel(this.forgeHandshake);
+                case PLAY:
+                    return clampLevel(this.play);
+                default:
+                    return Deflater.DEFAULT_COMPRESSION;
+            }
+        }
+
+        /**
+         * Gets the compression level for chunk data messages.
+         *
+         * @return The compression level
+         */
+        public int getChunkDataLevel() {
+            return clampLevel(this.chunkData);
+        }
+
+        private static int clampLevel(int level) {
+            return GenericMath.clamp(level, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION);
+        }
+    }
+
     @Setting(value = "metrics")
     private MetricsCategory metricsCategory = new MetricsCategory();
 
@@ -367,6 +468,14 @@ public Text getShutdownMessage() {
         return this.server.shutdownMessage;
     }
 
+    public ChunkStreaming getChunkStreaming() {
+        return this.worlds.chunkStreaming;
+    }
+
+    public boolean isParallelChunkPreGeneration() {
+        return this.worlds.parallelChunkPreGeneration;
+    }
+
     public int getPlayerTicketCount() {
         return this.worlds.chunkLoading.getPlayerTicketCount();
     }
@@ -383,6 +492,18 @@ public int getNetworkCompressionThreshold() {
         return this.server.networkCompressionThreshold;
     }
 
+    public NetworkCompressionLevels getNetworkCompressionLevels() {
+        return this.server.networkCompressionLevels;
+    }
+
+    public boolean isNetworkWriteBatching() {
+        return this.server.networkWriteBatching;
+    }
+
+    public int getNetworkBatchFlushThreshold() {
+        return this.server.networkBatchFlushThreshold;
+    }
+
     public int getRconPort() {
         return this.rcon.port;
     }
@@ -88,6 +88,23 @@ private static class Chunks {
     @Setting(value = "low-horizon", comment = "Lower the horizon of a world from y = 63 to y = 0")
     private boolean lowHorizon = false;
 
+    @Setting(value = "regionized-ticking", comment =
+            "Enable to pulse the entities and tile entities of independent\n " +
+            "groups of loaded chunks in parallel. Chunks are only independent\n " +
+            "when they are separated by unloaded chunks.")
+    private boolean regionizedTicking = false;
+
+    @Setting(value = "chunk-save-interval", comment =
+            "The amount of ticks between the background saves of\n " +
+            "loaded chunks that contain unsaved changes. Set to 0 to\n " +
+            "only save chunks when they unload or when the world is saved.")
+    private int chunkSaveInterval = 6000;
+
+    @Setting(value = "max-chunk-saves-per-tick", comment =
+            "The maximum amount of chunks that will be saved in the background\n " +
+            "every tick, this spreads the saving of all the chunks over multiple ticks.")
+    private int maxChunkSavesPerTick = 8;
+
     @Setting(value = "difficulty", comment = "The difficulty of this world.")
     private Difficulty difficulty = Difficulties.NORMAL;
 
@@ -246,6 +263,30 @@ public void setHardcore(boolean hardcore) {
         this.hardcore = hardcore;
     }
 
+    public boolean isRegionizedTicking() {
+        return this.regionizedTicking;
+    }
+
+    public void setRegionizedTicking(boolean regionizedTicking) {
+        this.regionizedTicking = regionizedTicking;
+    }
+
+    public int getChunkSaveInterval() {
+        return this.chunkSaveInterval;
+    }
+
+    public void setChunkSaveInterval(int chunkSaveInterval) {
+        this.chunkSaveInterval = chunkSaveInterval;
+    }
+
+    public int getMaxChunkSavesPerTick() {
+        return this.maxChunkSavesPerTick;
+    }
+
+    public void setMaxChunkSavesPerTick(int maxChunkSavesPerTick) {
+        this.maxChunkSavesPerTick = maxChunkSavesPerTick;
+    }
+
     public boolean isLowHorizon() {
         return this.lowHorizon;
     }
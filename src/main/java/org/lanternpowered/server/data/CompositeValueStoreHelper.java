@@ -87,6 +87,9 @@ protected static boolean hasListeners(ICompositeValueStore store, Iterable<Key<?
 
     protected static DataTransactionResult processDataTransactionResult(ICompositeValueStore store,
             DataTransactionResult result, BooleanSupplier hasListeners) {
+        if (result.isSuccessful()) {
+            store.onValuesChanged();
+        }
         if (!(store instanceof DataHolder) || !result.isSuccessful() || !hasListeners.getAsBoolean()) {
             return result;
         }
@@ -129,7 +132,7 @@ protected static <E, H extends ValueContainer<?>> boolean offerFast(ICompositeVa
         if (hasListeners) {
             return offer(store, key, element, () -> true).isSuccessful();
         }
-        return store.offerFastNoEvents(key, element);
+        return notifyChanged(store, store.offerFastNoEvents(key, element));
     }
 
     protected static <E, H extends ValueContainer<?>> DataTransactionResult offer(ICompositeValueStore<?, H> store,
@@ -147,7 +150,7 @@ protected static <E, H extends ValueContainer<?>> boolean offerFast(ICompositeVa
         if (hasListeners) {
             return offer(store, value, () -> true).isSuccessful();
         }
-        return store.offerFastNoEvents(value);
+        return notifyChanged(store, store.offerFastNoEvents(value));
     }
 
     protected static <E, H extends ValueContainer<?>> DataTransactionResult offer(ICompositeValueStore<?, H> store, BaseValue<E> value) {
@@ -164,7 +167,7 @@ protected static <H extends ValueContainer<?>> boolean removeFast(ICompositeValu
         if (hasListeners) {
             return remove(store, key, () -> true).isSuccessful();
         }
-        return store.removeFastNoEvents(key);
+        return notifyChanged(store, store.removeFastNoEvents(key));
     }
 
     protected static <H extends ValueContainer<?>> DataTransactionResult remove(ICompositeValueStore<?, H> store, Key<?> key) {
@@ -181,7 +184,7 @@ protected static <H extends ValueContainer<?>> boolean undoFast(ICompositeValueS
         if (hasListeners) {
             return undo(store, result, () -> true).isSuccessful();
         }
-        return store.undoFastNoEvents(result);
+        return notifyChanged(store, store.undoFastNoEvents(result));
     }
 
     protected static <H extends ValueContainer<?>> DataTransactionResult undo(ICompositeValueStore<?, H> store, DataTransactionResult result) {
@@ -201,7 +204,7 @@ protected static <H extends ValueContainer<?>> boolean offerFast(ICompositeValue
                 return offer(store, valueContainer, function, () -> true).isSuccessful();
             }
         }
-        return store.offerFastNoEvents(valueContainer, function);
+        return notifyChanged(store, store.offerFastNoEvents(valueContainer, function));
     }
 
     protected static <H extends ValueContainer<?>> DataTransactionResult offer(ICompositeValueStore<?, H> store,
@@ -227,7 +230,7 @@ protected static <H extends ValueContainer<?>> boolean offerFast(ICompositeValue
                 return offer(store, valueContainers, function, () -> true).isSuccessful();
             }
         }
-        return store.offerFastNoEvents(valueContainers, function);
+        return notifyChanged(store, store.offerFastNoEvents(valueContainers, function));
     }
 
     protected static <H extends ValueContainer<?>> DataTransactionResult offer(ICompositeValueStore<?, H> store,
@@ -262,7 +265,14 @@ protected static <H extends ValueContainer<?>> DataTransactionResult offer(IComp
         if (hasListeners) {
             return processDataTransactionResult(store, store.copyFromNoEvents(that, function), () -> true).isSuccessful();
         }
-        return store.copyFromFastNoEvents(that, function);
+        return notifyChanged(store, store.copyFromFastNoEvents(that, function));
+    }
+
+    private static boolean notifyChanged(ICompositeValueStore<?, ?> store, boolean success) {
+        if (success) {
+            store.onValuesChanged();
+        }
+        return success;
     }
 
     private CompositeValueStoreHelper() {
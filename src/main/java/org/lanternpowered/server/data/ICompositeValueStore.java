@@ -56,6 +56,14 @@
 public interface ICompositeValueStore<S extends CompositeValueStore<S, H>, H extends ValueContainer<?>>
         extends IValueContainer<S>, CompositeValueStore<S, H> {
 
+    /**
+     * Is called after values of this store were successfully modified
+     * through one of the offer, remove, undo or copy methods that
+     * aren't suffixed with {@code NoEvents}.
+     */
+    default void onValuesChanged() {
+    }
+
     /**
      * A fast equivalent of {@link #transform(Key, Function)} which
      * avoids the construction of {@link DataTransactionResult}s.
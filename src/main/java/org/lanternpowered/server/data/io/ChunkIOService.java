@@ -52,6 +52,8 @@
 import org.spongepowered.api.world.storage.WorldStorage;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface ChunkIOService extends WorldStorage {
 
@@ -72,6 +74,19 @@ public interface ChunkIOService extends WorldStorage {
      */
     void write(LanternChunk chunk) throws IOException;
 
+    /**
+     * Writes a single chunk asynchronously. The data of the chunk is
+     * captured on the current thread, encoding, compressing and the actual
+     * file i/o are performed by the given {@link Executor}. Reads that are
+     * issued before the returned future completes will already see the
+     * written data.
+     *
+     * @param chunk The chunk to write from
+     * @param executor The executor to perform the i/o with
+     * @return The future that completes once the chunk is written
+     */
+    CompletableFuture<Void> writeAsync(LanternChunk chunk, Executor executor);
+
     /**
      * Unload the service, performing any cleanup necessary.
      * 
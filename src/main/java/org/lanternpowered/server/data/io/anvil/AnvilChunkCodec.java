@@ -0,0 +1,766 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_AREA;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+import static org.lanternpowered.server.world.chunk.LanternChunk.fixEntityYSection;
+
+import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
+import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
+import org.lanternpowered.server.block.tile.LanternTileEntity;
+import org.lanternpowered.server.data.DataQueries;
+import org.lanternpowered.server.data.io.store.ObjectSerializer;
+import org.lanternpowered.server.data.io.store.ObjectSerializerRegistry;
+import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerInputStream;
+import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerOutputStream;
+import org.lanternpowered.server.entity.LanternEntity;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.util.collect.array.NibbleArray;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.ScheduledBlockUpdateWheel;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSectionSnapshot;
+import org.lanternpowered.server.world.chunk.PalettedBlockArray;
+import org.slf4j.Logger;
+import org.spongepowered.api.CatalogKey;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.persistence.InvalidDataException;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+/**
+ * A codec that streams the anvil chunk format directly from and into
+ * {@link LanternChunk}s. Only the tile entities, entities and sponge
+ * data are converted into {@link DataView}s, all the other (large)
+ * arrays are read and written without intermediate data structures.
+ */
+final class AnvilChunkCodec {
+
+    // The nbt type ids that are used by the chunk format
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_SHORT = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_COMPOUND = 10;
+    private static final int TAG_INT_ARRAY = 11;
+
+    private static final String LEVEL = "Level"; // compound
+    private static final String VERSION = "V"; // byte
+    private static final String SECTIONS = "Sections"; // array
+    private static final String X = "xPos"; // int
+    private static final String Z = "zPos"; // int
+    private static final String Y = "Y"; // byte
+    private static final String BLOCKS = "Blocks"; // byte array
+    private static final String BLOCKS_EXTRA = "Add"; // (nibble) byte array
+    private static final String DATA = "Data"; // (nibble) byte array
+    private static final String BLOCK_LIGHT = "BlockLight"; // (nibble) byte array
+    private static final String SKY_LIGHT = "SkyLight"; // (nibble) byte array
+    private static final String TERRAIN_POPULATED = "TerrainPopulated"; // (boolean) byte
+    private static final String LIGHT_POPULATED = "LightPopulated"; // (boolean) byte
+    private static final String BIOMES = "Biomes"; // byte array
+    // A extra tag for the biomes to support the custom biomes
+    private static final String BIOMES_EXTRA = "BiomesE"; // byte array
+    private static final String HEIGHT_MAP = "HeightMap"; // int array
+    private static final String LAST_UPDATE = "LastUpdate"; // long
+    private static final String TILE_ENTITIES = "TileEntities";
+    private static final String TILE_TICKS = "TileTicks";
+    private static final String INHABITED_TIME = "InhabitedTime";
+    private static final String ENTITIES = "Entities";
+    private static final String SPONGE_DATA = DataQueries.SPONGE_DATA.asString('.');
+
+    private static final DataQuery TRACKER_DATA_TABLE = DataQuery.of("BlockPosTable");
+    private static final DataQuery TRACKER_BLOCK_POS = DataQuery.of("pos");
+    private static final DataQuery TRACKER_ENTRY_CREATOR = DataQuery.of("owner");
+    private static final DataQuery TRACKER_ENTRY_NOTIFIER = DataQuery.of("notifier");
+    private static final DataQuery TILE_ENTITY_X = DataQuery.of("x");
+    private static final DataQuery TILE_ENTITY_Y = DataQuery.of("y");
+    private static final DataQuery TILE_ENTITY_Z = DataQuery.of("z");
+    private static final DataQuery TILE_TICK_BLOCK = DataQuery.of("i");
+    private static final DataQuery TILE_TICK_X = DataQuery.of("x");
+    private static final DataQuery TILE_TICK_Y = DataQuery.of("y");
+    private static final DataQuery TILE_TICK_Z = DataQuery.of("z");
+    private static final DataQuery TILE_TICK_DELAY = DataQuery.of("t");
+    private static final DataQuery TILE_TICK_PRIORITY = DataQuery.of("p");
+
+    private static final int NIBBLE_ARRAY_SIZE = CHUNK_SECTION_VOLUME / 2;
+
+    private final World world;
+    private final Logger logger;
+
+    AnvilChunkCodec(World world, Logger logger) {
+        this.world = world;
+        this.logger = logger;
+    }
+
+    /**
+     * Reads the chunk data from the input stream into the
+     * chunk. The provided chunk must not yet be initialized.
+     *
+     * @param dis The (uncompressed) input stream
+     * @param chunk The chunk to read into
+     * @throws IOException If an i/o error occurs or the data is invalid
+     */
+    void read(DataInputStream dis, LanternChunk chunk) throws IOException {
+        final NbtDataContainerInputStream nbt = new NbtDataContainerInputStream(dis);
+        if (dis.readByte() != TAG_COMPOUND) {
+            throw new IOException("The root tag of the chunk data must be a compound.");
+        }
+        dis.readUTF();
+
+        boolean foundLevel = false;
+        int type;
+        while ((type = dis.readByte()) != TAG_END) {
+            final String name = dis.readUTF();
+            if (type == TAG_COMPOUND && name.equals(LEVEL)) {
+                readLevel(dis, nbt, chunk);
+                foundLevel = true;
+            } else {
+                nbt.skipPayload(type);
+            }
+        }
+        if (!foundLevel) {
+            throw new IOException("The chunk data is missing the level compound.");
+        }
+    }
+
+    private void readLevel(DataInputStream dis, NbtDataContainerInputStream nbt, LanternChunk chunk) throws IOException {
+        final ChunkSection[] sections = new ChunkSection[CHUNK_SECTIONS];
+        final PalettedBlockArray[] blockTypes = new PalettedBlockArray[CHUNK_SECTIONS];
+        //noinspection unchecked
+        final Short2ObjectOpenHashMap<LanternTileEntity>[] tileEntitySections = new Short2ObjectOpenHashMap[CHUNK_SECTIONS];
+
+        boolean populated = false;
+        boolean lightPopulated = false;
+        long inhabitedTime = -1;
+        byte[] biomes = null;
+        byte[] biomesExtra = null;
+        int[] heightMap = null;
+        List<DataView> tileEntityViews = null;
+        List<DataView> tileTickViews = null;
+        List<DataView> entityViews = null;
+        DataView spongeDataView = null;
+
+        int type;
+        while ((type = dis.readByte()) != TAG_END) {
+            final String name = dis.readUTF();
+            switch (name) {
+                case TERRAIN_POPULATED:
+                    populated = readNumber(dis, nbt, type) > 0;
+                    break;
+                case LIGHT_POPULATED:
+                    lightPopulated = readNumber(dis, nbt, type) > 0;
+                    break;
+                case INHABITED_TIME:
+                    inhabitedTime = readNumber(dis, nbt, type);
+                    break;
+                case BIOMES:
+                    biomes = readByteArray(dis, nbt, type);
+                    break;
+                case BIOMES_EXTRA:
+                    biomesExtra = readByteArray(dis, nbt, type);
+                    break;
+                case HEIGHT_MAP:
+                    heightMap = readIntArray(dis, nbt, type);
+                    break;
+                case SECTIONS:
+                    if (type != TAG_LIST) {
+                        nbt.skipPayload(type);
+                        break;
+                    }
+                    final int elementType = dis.readByte();
+                    final int size = dis.readInt();
+                    if (elementType == TAG_COMPOUND) {
+                        // The types are decoded into a shared array, they
+                        // are copied into the paletted storage anyway
+                        final short[] types = new short[CHUNK_SECTION_VOLUME];
+                        for (int i = 0; i < size; i++) {
+                            readSection(dis, nbt, types, blockTypes, sections, tileEntitySections);
+                        }
+                    } else {
+                        for (int i = 0; i < size; i++) {
+                            nbt.skipPayload(elementType);
+                        }
+                    }
+                    break;
+                case TILE_ENTITIES:
+                    tileEntityViews = readCompoundList(dis, nbt, type);
+                    break;
+                case TILE_TICKS:
+                    tileTickViews = readCompoundList(dis, nbt, type);
+                    break;
+                case ENTITIES:
+                    entityViews = readCompoundList(dis, nbt, type);
+                    break;
+                default:
+                    if (type == TAG_COMPOUND && name.equals(SPONGE_DATA)) {
+                        spongeDataView = nbt.readCompoundPayload();
+                    } else {
+                        nbt.skipPayload(type);
+                    }
+                    break;
+            }
+        }
+
+        final int x = chunk.getX();
+        final int z = chunk.getZ();
+
+        if (tileEntityViews != null) {
+            final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
+            for (DataView tileEntityView : tileEntityViews) {
+                final int tileY = tileEntityView.getInt(TILE_ENTITY_Y).get();
+                final int section = tileY >> 4;
+                if (section < 0 || section >= CHUNK_SECTIONS || tileEntitySections[section] == null) {
+                    continue;
+                }
+                final int tileZ = tileEntityView.getInt(TILE_ENTITY_Z).get();
+                final int tileX = tileEntityView.getInt(TILE_ENTITY_X).get();
+                try {
+                    final LanternTileEntity tileEntity = tileEntitySerializer.deserialize(tileEntityView);
+                    tileEntity.setLocation(new Location<>(this.world, tileX, tileY, tileZ));
+                    final short index = (short) ChunkSection.index(tileX & 0xf, tileY & 0xf, tileZ & 0xf);
+                    tileEntity.setBlock(BlockRegistryModule.get().getStateByInternalIdAndData(blockTypes[section].get(index)).get());
+                    tileEntity.setValid(true);
+                    tileEntitySections[section].put(index, tileEntity);
+                } catch (InvalidDataException e) {
+                    this.logger.warn("Error loading tile entity at ({};{};{}) in the chunk ({},{}) in the world {}",
+                            tileX & 0xf, tileY & 0xf, tileZ & 0xf, x, z, this.world.getName(), e);
+                }
+            }
+        }
+
+        final List<DataView> trackerDataViews = spongeDataView == null ? null : spongeDataView.getViewList(TRACKER_DATA_TABLE).orElse(null);
+        if (trackerDataViews != null) {
+            //noinspection unchecked
+            final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
+            for (DataView dataView : trackerDataViews) {
+                final Optional<Short> optIndex = dataView.getShort(TRACKER_BLOCK_POS);
+                if (!optIndex.isPresent()) {
+                    continue;
+                }
+                final int creatorId = dataView.getInt(TRACKER_ENTRY_CREATOR).orElse(-1);
+                final int notifierId = dataView.getInt(TRACKER_ENTRY_NOTIFIER).orElse(-1);
+                // index = z << 12 | y << 4 | x
+                int index = optIndex.get() & 0xffff;
+                final int section = (index >> 8) & 0xf;
+                // Convert the index to the section based system
+                // index = y << 8 | z << 4 | x
+                index = ChunkSection.index(index & 0xf, (index >> 4) & 0xf, index >> 12);
+                trackerData[section].put((short) index, new LanternChunk.TrackerData(creatorId, notifierId));
+            }
+        }
+
+        // initialize the chunk
+        chunk.initializeSections(sections);
+        chunk.setPopulated(populated);
+
+        if (biomes != null && biomes.length == CHUNK_AREA) {
+            final short[] newBiomes = new short[biomes.length];
+            final boolean extra = biomesExtra != null && biomesExtra.length == biomes.length;
+            for (int i = 0; i < biomes.length; i++) {
+                newBiomes[i] = (short) ((extra ? (biomesExtra[i] & 0xff) << 8 : 0) | biomes[i] & 0xff);
+            }
+            chunk.initializeBiomes(newBiomes);
+        }
+
+        chunk.initializeHeightMap(heightMap);
+
+        if (inhabitedTime != -1) {
+            chunk.setInhabitedTime(inhabitedTime);
+        }
+        chunk.setLightPopulated(lightPopulated);
+
+        if (tileTickViews != null) {
+            final ScheduledBlockUpdateWheel scheduledBlockUpdates = ((LanternWorld) this.world).getScheduledBlockUpdates();
+            for (DataView tileTickView : tileTickViews) {
+                final Optional<BlockType> blockType = tileTickView.getString(TILE_TICK_BLOCK)
+                        .flatMap(id -> BlockRegistryModule.get().get(CatalogKey.resolve(id)));
+                if (!blockType.isPresent()) {
+                    this.logger.warn("Unknown block type {} for a scheduled update in the chunk ({},{}) in the world {}",
+                            tileTickView.getString(TILE_TICK_BLOCK).orElse(null), x, z, this.world.getName());
+                    continue;
+                }
+                final int tickX = tileTickView.getInt(TILE_TICK_X).get();
+                final int tickY = tileTickView.getInt(TILE_TICK_Y).get();
+                final int tickZ = tileTickView.getInt(TILE_TICK_Z).get();
+                final int delay = tileTickView.getInt(TILE_TICK_DELAY).orElse(0);
+                final int priority = tileTickView.getInt(TILE_TICK_PRIORITY).orElse(0);
+                // The updates of detached chunks are only scheduled once the chunk is attached
+                if (chunk.isDetached()) {
+                    scheduledBlockUpdates.park(tickX, tickY, tickZ, blockType.get(), priority, delay);
+                } else {
+                    scheduledBlockUpdates.add(tickX, tickY, tickZ, blockType.get(), priority, delay);
+                }
+            }
+        }
+
+        if (entityViews != null) {
+            final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
+            for (DataView entityView : entityViews) {
+                try {
+                    final LanternEntity entity = entitySerializer.deserialize(entityView);
+                    final int ySection = fixEntityYSection(entity.getPosition().getFloorY() >> 4);
+                    chunk.addEntity(entity, ySection);
+                } catch (InvalidDataException e) {
+                    this.logger.warn("Error loading entity in the chunk ({},{}) in the world {}",
+                            x, z, this.world.getName(), e);
+                }
+            }
+        }
+    }
+
+    private static void readSection(DataInputStream dis, NbtDataContainerInputStream nbt, short[] types,
+            PalettedBlockArray[] blockTypes, ChunkSection[] sections, Short2ObjectOpenHashMap<LanternTileEntity>[] tileEntitySections) throws IOException {
+        int y = -1;
+        byte[] blocks = null;
+        byte[] blocksExtra = null;
+        byte[] data = null;
+        byte[] blockLight = null;
+        byte[] skyLight = null;
+
+        int type;
+        while ((type = dis.readByte()) != TAG_END) {
+            final String name = dis.readUTF();
+            switch (name) {
+                case Y:
+                    y = (int) readNumber(dis, nbt, type);
+                    break;
+                case BLOCKS:
+                    blocks = readByteArray(dis, nbt, type);
+                    break;
+                case BLOCKS_EXTRA:
+                    blocksExtra = readByteArray(dis, nbt, type);
+                    break;
+                case DATA:
+                    data = readByteArray(dis, nbt, type);
+                    break;
+                case BLOCK_LIGHT:
+                    blockLight = readByteArray(dis, nbt, type);
+                    break;
+                case SKY_LIGHT:
+                    skyLight = readByteArray(dis, nbt, type);
+                    break;
+                default:
+                    nbt.skipPayload(type);
+                    break;
+            }
+        }
+
+        if (y < 0 || y >= CHUNK_SECTIONS) {
+            throw new IOException("Invalid chunk section y coordinate: " + y);
+        }
+        if (blocks == null || blocks.length != CHUNK_SECTION_VOLUME) {
+            throw new IOException("Invalid or missing blocks array in chunk section " + y);
+        }
+        if (data == null || data.length != NIBBLE_ARRAY_SIZE) {
+            throw new IOException("Invalid or missing data array in chunk section " + y);
+        }
+        if (blockLight == null || blockLight.length != NIBBLE_ARRAY_SIZE) {
+            throw new IOException("Invalid or missing block light array in chunk section " + y);
+        }
+        if (blocksExtra != null && blocksExtra.length != NIBBLE_ARRAY_SIZE) {
+            blocksExtra = null;
+        }
+
+        for (int i = 0; i < CHUNK_SECTION_VOLUME; i++) {
+            final int extra = blocksExtra == null ? 0 : nibble(blocksExtra, i);
+            types[i] = (short) (extra << 12 | (blocks[i] & 0xff) << 4 | nibble(data, i));
+        }
+
+        blockTypes[y] = new PalettedBlockArray(types);
+        tileEntitySections[y] = new Short2ObjectOpenHashMap<>();
+        final NibbleArray skyLightArray = skyLight == null || skyLight.length != NIBBLE_ARRAY_SIZE ?
+                new NibbleArray(CHUNK_SECTION_VOLUME) : new NibbleArray(CHUNK_SECTION_VOLUME, skyLight, true);
+        sections[y] = new ChunkSection(blockTypes[y], skyLightArray,
+                new NibbleArray(CHUNK_SECTION_VOLUME, blockLight, true), tileEntitySections[y]);
+    }
+
+    /**
+     * The data of a chunk that was captured to be written. Everything that can
+     * only be accessed safely from the world thread, like the (tile) entities,
+     * is already converted, the remaining conversion and encoding can be done
+     * by any thread.
+     */
+    static final class Snapshot {
+
+        private final int x;
+        private final int z;
+        private final boolean populated;
+        private final boolean lightPopulated;
+        private final long inhabitedTime;
+        private final ChunkSectionSnapshot[] sections;
+        private final List<DataView> tileEntityViews;
+        private final List<DataView> tileTickViews;
+        private final int[] heightMap;
+        private final List<DataView> trackerDataViews;
+        private final short[] biomes;
+        private final List<DataView> entityViews;
+
+        private Snapshot(int x, int z, boolean populated, boolean lightPopulated, long inhabitedTime,
+                ChunkSectionSnapshot[] sections, List<DataView> tileEntityViews, List<DataView> tileTickViews, int[] heightMap,
+                List<DataView> trackerDataViews, short[] biomes, List<DataView> entityViews) {
+            this.x = x;
+            this.z = z;
+            this.populated = populated;
+            this.lightPopulated = lightPopulated;
+            this.inhabitedTime = inhabitedTime;
+            this.sections = sections;
+            this.tileEntityViews = tileEntityViews;
+            this.tileTickViews = tileTickViews;
+            this.heightMap = heightMap;
+            this.trackerDataViews = trackerDataViews;
+            this.biomes = biomes;
+            this.entityViews = entityViews;
+        }
+    }
+
+    /**
+     * Captures the data of the chunk that should be written. This
+     * must be called from the thread that owns the chunk.
+     *
+     * @param chunk The chunk to capture
+     * @return The snapshot
+     */
+    Snapshot snapshot(LanternChunk chunk) {
+        final int x = chunk.getX();
+        final int z = chunk.getZ();
+
+        // The block types and light are copied, the tile entities must be serialized now
+        final ChunkSectionSnapshot[] sections = chunk.getSectionSnapshots(true);
+        final List<DataView> tileEntityViews = new ArrayList<>();
+
+        //noinspection unchecked
+        final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
+        for (int i = 0; i < sections.length; ++i) {
+            final ChunkSectionSnapshot section = sections[i];
+            if (section == null) {
+                continue;
+            }
+            for (Short2ObjectMap.Entry<LanternTileEntity> tileEntityEntry : section.tileEntities.short2ObjectEntrySet()) {
+                if (!tileEntityEntry.getValue().isValid()) {
+                    continue;
+                }
+                final DataView dataView = tileEntitySerializer.serialize(tileEntityEntry.getValue());
+                final short pos = tileEntityEntry.getShortKey();
+                dataView.set(TILE_ENTITY_X, x * 16 + (pos & 0xf));
+                dataView.set(TILE_ENTITY_Y, (i << 4) | (pos >> 8));
+                dataView.set(TILE_ENTITY_Z, z * 16 + ((pos >> 4) & 0xf));
+                tileEntityViews.add(dataView);
+            }
+        }
+
+        final Collection<LanternScheduledBlockUpdate> scheduledUpdates =
+                ((LanternWorld) this.world).getScheduledBlockUpdates().getUpdatesInChunk(x, z);
+        final List<DataView> tileTickViews = new ArrayList<>(scheduledUpdates.size());
+        for (LanternScheduledBlockUpdate update : scheduledUpdates) {
+            final Location<World> location = update.getLocation();
+            final DataView dataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+            dataView.set(TILE_TICK_BLOCK, update.getBlockType().getKey().toString());
+            dataView.set(TILE_TICK_X, location.getBlockX());
+            dataView.set(TILE_TICK_Y, location.getBlockY());
+            dataView.set(TILE_TICK_Z, location.getBlockZ());
+            dataView.set(TILE_TICK_DELAY, update.getTicks());
+            dataView.set(TILE_TICK_PRIORITY, update.getPriority());
+            tileTickViews.add(dataView);
+        }
+
+        //noinspection unchecked
+        final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
+        final List<DataView> trackerDataViews = new ArrayList<>();
+
+        for (int i = 0; i < trackerData.length; i++) {
+            final Short2ObjectMap<LanternChunk.TrackerData> trackerDataSection = trackerData[i];
+            for (Short2ObjectMap.Entry<LanternChunk.TrackerData> entry : trackerDataSection.short2ObjectEntrySet()) {
+                // index = y << 8 | z << 4 | x
+                int index = entry.getShortKey() & 0xffff;
+                // Convert the index to the column based system
+                // index = z << 12 | y << 4 | x
+                index = ((index >> 4) & 0xf) << 12 | i << 8 | (index >> 4) & 0xf0 | index & 0xf;
+                final DataView trackerDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+                trackerDataView.set(TRACKER_BLOCK_POS, (short) index);
+                trackerDataView.set(TRACKER_ENTRY_NOTIFIER, entry.getValue().getNotifierId());
+                trackerDataView.set(TRACKER_ENTRY_CREATOR, entry.getValue().getCreatorId());
+                trackerDataViews.add(trackerDataView);
+            }
+        }
+
+        //noinspection unchecked
+        final Collection<LanternEntity> entities = (Collection) chunk.getEntities(entity -> !(entity instanceof Player));
+        final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
+
+        final List<DataView> entityViews = new ArrayList<>();
+        for (LanternEntity entity : entities) {
+            if (entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
+                continue;
+            }
+            entityViews.add(entitySerializer.serialize(entity));
+        }
+
+        return new Snapshot(x, z, chunk.isPopulated(), chunk.isLightPopulated(), chunk.getLongInhabitedTime(),
+                sections, tileEntityViews, tileTickViews, chunk.getHeightMap(), trackerDataViews, chunk.getBiomes(), entityViews);
+    }
+
+    /**
+     * Writes the captured chunk data to the output stream. Unlike
+     * {@link #snapshot(LanternChunk)}, this may be called from any thread.
+     *
+     * @param dos The (uncompressed) output stream
+     * @param snapshot The snapshot to write
+     * @throws IOException If an i/o error occurs
+     */
+    void write(DataOutputStream dos, Snapshot snapshot) throws IOException {
+        final NbtDataContainerOutputStream nbt = new NbtDataContainerOutputStream(dos);
+
+        // The root compound
+        writeHeader(dos, TAG_COMPOUND, "");
+        writeHeader(dos, TAG_COMPOUND, LEVEL);
+
+        // Core properties
+        writeHeader(dos, TAG_BYTE, VERSION);
+        dos.writeByte(1);
+        writeHeader(dos, TAG_INT, X);
+        dos.writeInt(snapshot.x);
+        writeHeader(dos, TAG_INT, Z);
+        dos.writeInt(snapshot.z);
+        writeHeader(dos, TAG_BYTE, TERRAIN_POPULATED);
+        dos.writeByte(snapshot.populated ? 1 : 0);
+        writeHeader(dos, TAG_BYTE, LIGHT_POPULATED);
+        dos.writeByte(snapshot.lightPopulated ? 1 : 0);
+        writeHeader(dos, TAG_LONG, LAST_UPDATE);
+        dos.writeLong(0L);
+        writeHeader(dos, TAG_LONG, INHABITED_TIME);
+        dos.writeLong(snapshot.inhabitedTime);
+
+        // Chunk sections
+        final ChunkSectionSnapshot[] sections = snapshot.sections;
+
+        int sectionCount = 0;
+        for (ChunkSectionSnapshot section : sections) {
+            if (section != null) {
+                sectionCount++;
+            }
+        }
+
+        writeHeader(dos, TAG_LIST, SECTIONS);
+        dos.writeByte(sectionCount == 0 ? TAG_END : TAG_COMPOUND);
+        dos.writeInt(sectionCount);
+
+        final byte[] blocks = new byte[CHUNK_SECTION_VOLUME];
+        final byte[] blocksExtra = new byte[NIBBLE_ARRAY_SIZE];
+        final byte[] data = new byte[NIBBLE_ARRAY_SIZE];
+
+        for (int i = 0; i < sections.length; ++i) {
+            final ChunkSectionSnapshot section = sections[i];
+            if (section == null) {
+                continue;
+            }
+
+            boolean hasExtra = false;
+            for (int j = 0; j < NIBBLE_ARRAY_SIZE; j++) {
+                final int type0 = section.types.get(j << 1) & 0xffff;
+                final int type1 = section.types.get((j << 1) | 1) & 0xffff;
+                blocks[j << 1] = (byte) (type0 >> 4);
+                blocks[(j << 1) | 1] = (byte) (type1 >> 4);
+                data[j] = (byte) ((type1 & 0xf) << 4 | type0 & 0xf);
+                final byte extra = (byte) ((type1 >> 12) << 4 | type0 >> 12);
+                blocksExtra[j] = extra;
+                hasExtra |= extra != 0;
+            }
+
+            writeHeader(dos, TAG_BYTE, Y);
+            dos.writeByte(i);
+            writeByteArray(dos, BLOCKS, blocks);
+            if (hasExtra) {
+                writeByteArray(dos, BLOCKS_EXTRA, blocksExtra);
+            }
+            writeByteArray(dos, DATA, data);
+            writeByteArray(dos, BLOCK_LIGHT, section.lightFromBlock);
+            if (section.lightFromSky != null) {
+                writeByteArray(dos, SKY_LIGHT, section.lightFromSky);
+            }
+            dos.writeByte(TAG_END);
+        }
+
+        writeCompoundList(dos, nbt, TILE_ENTITIES, snapshot.tileEntityViews);
+        if (!snapshot.tileTickViews.isEmpty()) {
+            writeCompoundList(dos, nbt, TILE_TICKS, snapshot.tileTickViews);
+        }
+
+        final int[] heightMap = snapshot.heightMap;
+        writeHeader(dos, TAG_INT_ARRAY, HEIGHT_MAP);
+        dos.writeInt(heightMap.length);
+        for (int value : heightMap) {
+            dos.writeInt(value);
+        }
+
+        if (!snapshot.trackerDataViews.isEmpty()) {
+            final DataView spongeDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+            spongeDataView.set(TRACKER_DATA_TABLE, snapshot.trackerDataViews);
+            writeHeader(dos, TAG_COMPOUND, SPONGE_DATA);
+            nbt.writeCompoundPayload(spongeDataView);
+        }
+
+        final short[] biomes = snapshot.biomes;
+        final byte[] biomes0 = new byte[biomes.length];
+        byte[] biomes1 = null;
+
+        for (int i = 0; i < biomes.length; i++) {
+            biomes0[i] = (byte) (biomes[i] & 0xff);
+            final byte value = (byte) ((biomes[i] >> 8) & 0xff);
+            if (value != 0) {
+                if (biomes1 == null) {
+                    biomes1 = new byte[biomes0.length];
+                }
+                biomes1[i] = value;
+            }
+        }
+
+        writeByteArray(dos, BIOMES, biomes0);
+        if (biomes1 != null) {
+            writeByteArray(dos, BIOMES_EXTRA, biomes1);
+        }
+
+        writeCompoundList(dos, nbt, ENTITIES, snapshot.entityViews);
+
+        // End of the level compound
+        dos.writeByte(TAG_END);
+        // End of the root compound
+        dos.writeByte(TAG_END);
+    }
+
+    private static int nibble(byte[] array, int index) {
+        final int value = array[index >> 1];
+        return (index & 0x1) == 0 ? value & 0xf : (value >> 4) & 0xf;
+    }
+
+    private static long readNumber(DataInputStream dis, NbtDataContainerInputStream nbt, int type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                return dis.readByte();
+            case TAG_SHORT:
+                return dis.readShort();
+            case TAG_INT:
+                return dis.readInt();
+            case TAG_LONG:
+                return dis.readLong();
+            case TAG_FLOAT:
+                return (long) dis.readFloat();
+            case TAG_DOUBLE:
+                return (long) dis.readDouble();
+            default:
+                nbt.skipPayload(type);
+                return 0;
+        }
+    }
+
+    @Nullable
+    private static byte[] readByteArray(DataInputStream dis, NbtDataContainerInputStream nbt, int type) throws IOException {
+        if (type != TAG_BYTE_ARRAY) {
+            nbt.skipPayload(type);
+            return null;
+        }
+        final byte[] array = new byte[dis.readInt()];
+        dis.readFully(array);
+        return array;
+    }
+
+    @Nullable
+    private static int[] readIntArray(DataInputStream dis, NbtDataContainerInputStream nbt, int type) throws IOException {
+        if (type != TAG_INT_ARRAY) {
+            nbt.skipPayload(type);
+            return null;
+        }
+        final int[] array = new int[dis.readInt()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = dis.readInt();
+        }
+        return array;
+    }
+
+    @Nullable
+    private static List<DataView> readCompoundList(DataInputStream dis, NbtDataContainerInputStream nbt, int type) throws IOException {
+        if (type != TAG_LIST) {
+            nbt.skipPayload(type);
+            return null;
+        }
+        final int elementType = dis.readByte();
+        final int size = dis.readInt();
+        final List<DataView> list = new ArrayList<>(size);
+        if (elementType == TAG_COMPOUND) {
+            for (int i = 0; i < size; i++) {
+                list.add(nbt.readCompoundPayload());
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                nbt.skipPayload(elementType);
+            }
+        }
+        return list;
+    }
+
+    private static void writeHeader(DataOutputStream dos, int type, String name) throws IOException {
+        dos.writeByte(type);
+        dos.writeUTF(name);
+    }
+
+    private static void writeByteArray(DataOutputStream dos, String name, byte[] array) throws IOException {
+        writeHeader(dos, TAG_BYTE_ARRAY, name);
+        dos.writeInt(array.length);
+        dos.write(array);
+    }
+
+    private static void writeCompoundList(DataOutputStream dos, NbtDataContainerOutputStream nbt,
+            String name, List<DataView> dataViews) throws IOException {
+        writeHeader(dos, TAG_LIST, name);
+        dos.writeByte(dataViews.isEmpty() ? TAG_END : TAG_COMPOUND);
+        dos.writeInt(dataViews.size());
+        for (DataView dataView : dataViews) {
+            nbt.writeCompoundPayload(dataView);
+        }
+    }
+}
@@ -51,97 +51,65 @@
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_MASK;
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_SIZE;
 import static org.lanternpowered.server.util.UncheckedThrowables.throwUnchecked;
-import static org.lanternpowered.server.world.chunk.LanternChunk.fixEntityYSection;
 
 import com.flowpowered.math.vector.Vector3i;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
-import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
-import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import org.lanternpowered.server.block.tile.LanternTileEntity;
-import org.lanternpowered.server.data.DataQueries;
 import org.lanternpowered.server.data.io.ChunkIOService;
-import org.lanternpowered.server.data.io.store.ObjectSerializer;
-import org.lanternpowered.server.data.io.store.ObjectSerializerRegistry;
 import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerInputStream;
-import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerOutputStream;
-import org.lanternpowered.server.entity.LanternEntity;
 import org.lanternpowered.server.game.DirectoryKeys;
-import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
 import org.lanternpowered.server.scheduler.LanternScheduler;
-import org.lanternpowered.server.util.UncheckedThrowables;
-import org.lanternpowered.server.util.collect.array.NibbleArray;
 import org.lanternpowered.server.world.chunk.LanternChunk;
-import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
-import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSectionSnapshot;
 import org.slf4j.Logger;
 import org.spongepowered.api.data.DataContainer;
-import org.spongepowered.api.data.DataQuery;
-import org.spongepowered.api.data.DataView;
-import org.spongepowered.api.data.persistence.InvalidDataException;
-import org.spongepowered.api.entity.living.player.Player;
-import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.storage.ChunkDataStream;
 import org.spongepowered.api.world.storage.WorldProperties;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Matcher;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import javax.annotation.Nullable;
 
 @Singleton
 public class AnvilChunkIOService implements ChunkIOService {
 
-    private static final DataQuery VERSION = DataQuery.of("V"); // byte
-    private static final DataQuery LEVEL = DataQuery.of("Level"); // compound
-    private static final DataQuery SECTIONS = DataQuery.of("Sections"); // array
-    private static final DataQuery X = DataQuery.of("xPos"); // int
-    private static final DataQuery Z = DataQuery.of("zPos"); // int
-    private static final DataQuery Y = DataQuery.of("Y"); // byte
-    private static final DataQuery BLOCKS = DataQuery.of("Blocks"); // byte array
-    private static final DataQuery BLOCKS_EXTRA = DataQuery.of("Add"); // (nibble) byte array
-    private static final DataQuery DATA = DataQuery.of("Data"); // (nibble) byte array
-    private static final DataQuery BLOCK_LIGHT = DataQuery.of("BlockLight"); // (nibble) byte array
-    private static final DataQuery SKY_LIGHT = DataQuery.of("SkyLight"); // (nibble) byte array
-    private static final DataQuery TERRAIN_POPULATED = DataQuery.of("TerrainPopulated"); // (boolean) byte
-    private static final DataQuery LIGHT_POPULATED = DataQuery.of("LightPopulated"); // (boolean) byte
-    private static final DataQuery BIOMES = DataQuery.of("Biomes"); // byte array
-    // A extra tag for the biomes to support the custom biomes
-    private static final DataQuery BIOMES_EXTRA = DataQuery.of("BiomesE"); // byte array
-    private static final DataQuery HEIGHT_MAP = DataQuery.of("HeightMap");  // int array
-    private static final DataQuery LAST_UPDATE = DataQuery.of("LastUpdate"); // long
-    private static final DataQuery TRACKER_DATA_TABLE = DataQuery.of("BlockPosTable");
-    private static final DataQuery TRACKER_BLOCK_POS = DataQuery.of("pos");
-    private static final DataQuery TRACKER_ENTRY_CREATOR = DataQuery.of("owner");
-    private static final DataQuery TRACKER_ENTRY_NOTIFIER = DataQuery.of("notifier");
-    private static final DataQuery TILE_ENTITY_X = DataQuery.of("x");
-    private static final DataQuery TILE_ENTITY_Y = DataQuery.of("y");
-    private static final DataQuery TILE_ENTITY_Z = DataQuery.of("z");
-    private static final DataQuery TILE_ENTITIES = DataQuery.of("TileEntities");
-    private static final DataQuery INHABITED_TIME = DataQuery.of("InhabitedTime");
-    private static final DataQuery ENTITIES = DataQuery.of("Entities");
-
     private final World world;
     private final Logger logger;
     private final LanternScheduler scheduler;
     private final RegionFileCache cache;
+    private final AnvilChunkCodec codec;
     private final Path baseDir;
 
+    // The chunk data that is still waiting to be written, mapped by the chunk key
+    private final Map<Long, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+
     // TODO: Consider the session.lock file
 
     @Inject
     public AnvilChunkIOService(@Named(DirectoryKeys.WORLD) Path baseDir, World world, Logger logger, LanternScheduler scheduler) {
         this.cache = new RegionFileCache(baseDir);
+        this.codec = new AnvilChunkCodec(world, logger);
         this.scheduler = scheduler;
         this.baseDir = baseDir;
         this.logger = logger;
@@ -150,6 +118,10 @@ public AnvilChunkIOService(@Named(DirectoryKeys.WORLD) Path baseDir, World world
 
     @Override
     public boolean exists(int x, int z) throws IOException {
+        if (this.pendingWrites.containsKey(LanternChunk.key(x, z))) {
+            return true;
+        }
+
         final RegionFile region = this.cache.getRegionFileByChunk(x, z);
 
         final int regionX = x & REGION_MASK;
@@ -160,299 +132,148 @@ public boolean exists(int x, int z) throws IOException {
 
     @Override
     public boolean read(LanternChunk chunk) throws IOException {
-        final int x = chunk.getX();
-        final int z = chunk.getZ();
-
-        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
-        final int regionX = x & REGION_MASK;
-        final int regionZ = z & REGION_MASK;
-
-        final DataInputStream is = region.getChunkDataInputStream(regionX, regionZ);
+        final DataInputStream is = getChunkDataInputStream(chunk.getX(), chunk.getZ());
         if (is == null) {
             return false;
         }
 
-        final DataView levelDataView;
-        try (NbtDataContainerInputStream nbt = new NbtDataContainerInputStream(is)) {
-            levelDataView = nbt.read().getView(LEVEL).get();
+        try (DataInputStream dis = is) {
+            this.codec.read(dis, chunk);
         }
+        return true;
+    }
 
-        // read the vertical sections
-        final List<DataView> sectionList = levelDataView.getViewList(SECTIONS).get();
-        final ChunkSection[] sections = new ChunkSection[16];
-        final short[][] blockTypes = new short[16][];
-        //noinspection unchecked
-        final Short2ObjectOpenHashMap<LanternTileEntity>[] tileEntitySections = new Short2ObjectOpenHashMap[sections.length];
-
-        for (DataView sectionTag : sectionList) {
-            final int y = sectionTag.getInt(Y).get();
-            final byte[] rawTypes = (byte[]) sectionTag.get(BLOCKS).get();
-
-            final byte[] extTypes = sectionTag.contains(BLOCKS_EXTRA) ? (byte[]) sectionTag.get(BLOCKS_EXTRA).get() : null;
-            final byte[] data = (byte[]) sectionTag.get(DATA).get();
-            final byte[] blockLight = (byte[]) sectionTag.get(BLOCK_LIGHT).get();
-            final byte[] skyLight = (byte[]) sectionTag.get(SKY_LIGHT).get();
-
-            final NibbleArray dataArray = new NibbleArray(rawTypes.length, data, true);
-            final NibbleArray extTypesArray = extTypes == null ? null : new NibbleArray(rawTypes.length, extTypes, true);
-
-            blockTypes[y] = new short[rawTypes.length];
-            for (int i = 0; i < rawTypes.length; i++) {
-                blockTypes[y][i] = (short) ((extTypesArray == null ? 0 : extTypesArray.get(i)) << 12 | ((rawTypes[i] & 0xff) << 4) | dataArray.get(i));
-            }
-
-            tileEntitySections[y] = new Short2ObjectOpenHashMap<>();
-            sections[y] = new ChunkSection(blockTypes[y], new NibbleArray(rawTypes.length, skyLight, true),
-                    new NibbleArray(rawTypes.length, blockLight, true), tileEntitySections[y]);
-        }
-
-        levelDataView.getViewList(TILE_ENTITIES).ifPresent(tileEntityViews -> {
-            final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
-            for (DataView tileEntityView : tileEntityViews) {
-                final int tileY = tileEntityView.getInt(TILE_ENTITY_Y).get();
-                final int section = tileY >> 4;
-                if (tileEntitySections[section] == null) {
-                    continue;
-                }
-                final int tileZ = tileEntityView.getInt(TILE_ENTITY_Z).get();
-                final int tileX = tileEntityView.getInt(TILE_ENTITY_X).get();
-                try {
-                    final LanternTileEntity tileEntity = tileEntitySerializer.deserialize(tileEntityView);
-                    tileEntity.setLocation(new Location<>(this.world, tileX, tileY, tileZ));
-                    final short index = (short) ChunkSection.index(tileX & 0xf, tileY & 0xf, tileZ & 0xf);
-                    tileEntity.setBlock(BlockRegistryModule.get().getStateByInternalIdAndData(blockTypes[section][index]).get());
-                    tileEntity.setValid(true);
-                    tileEntitySections[section].put(index, tileEntity);
-                } catch (InvalidDataException e) {
-                    this.logger.warn("Error loading tile entity at ({};{};{}) in the chunk ({},{}) in the world {}",
-                            tileX & 0xf, tileY & 0xf, tileZ & 0xf, x, z, getWorldProperties().getWorldName(), e);
-                }
-            }
-        });
-
-        final DataView spongeDataView = levelDataView.getView(DataQueries.SPONGE_DATA).orElse(null);
-        final List<DataView> trackerDataViews = spongeDataView == null ? null : levelDataView.getViewList(TRACKER_DATA_TABLE).orElse(null);
-
-        //noinspection unchecked
-        final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
-
-        if (trackerDataViews != null) {
-            for (DataView dataView : trackerDataViews) {
-                final Optional<Short> optIndex = dataView.getShort(TRACKER_BLOCK_POS);
-                if (!optIndex.isPresent()) {
-                    continue;
-                }
-                final int creatorId = dataView.getInt(TRACKER_ENTRY_CREATOR).orElse(-1);
-                final int notifierId = dataView.getInt(TRACKER_ENTRY_NOTIFIER).orElse(-1);
-                // index = z << 12 | y << 4 | x
-                int index = optIndex.get() & 0xffff;
-                final int section = (index >> 8) & 0xf;
-                // Convert the index to the section based system
-                // index = y << 8 | z << 4 | x
-                index = ChunkSection.index(index & 0xf, (index >> 4) & 0xf, index >> 12);
-                trackerData[section].put((short) index, new LanternChunk.TrackerData(creatorId, notifierId));
-            }
+    @Nullable
+    private DataInputStream getChunkDataInputStream(int x, int z) throws IOException {
+        // Data that is still waiting to be written is the most recent
+        final PendingWrite pendingWrite = this.pendingWrites.get(LanternChunk.key(x, z));
+        if (pendingWrite != null) {
+            return pendingWrite.toInputStream();
         }
 
-        // initialize the chunk
-        chunk.initializeSections(sections);
-        chunk.setPopulated(levelDataView.getInt(TERRAIN_POPULATED).orElse(0) > 0);
+        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
+        return region.getChunkDataInputStream(x & REGION_MASK, z & REGION_MASK);
+    }
 
-        if (levelDataView.contains(BIOMES)) {
-            final byte[] biomes = (byte[]) levelDataView.get(BIOMES).get();
-            final byte[] biomesExtra = (byte[]) (levelDataView.contains(BIOMES_EXTRA) ? levelDataView.get(BIOMES_EXTRA).get() : null);
-            final short[] newBiomes = new short[biomes.length];
-            for (int i = 0; i < biomes.length; i++) {
-                newBiomes[i] = (short) ((biomesExtra == null ? 0 : biomesExtra[i]) << 8 | biomes[i]);
+    @Override
+    public void write(LanternChunk chunk) throws IOException {
+        try {
+            writeAsync(chunk, Runnable::run).join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
-            chunk.initializeBiomes(newBiomes);
-        }
-
-        final Object heightMap;
-        if (levelDataView.contains(HEIGHT_MAP) && (heightMap = levelDataView.get(HEIGHT_MAP).get()) instanceof int[]) {
-            chunk.initializeHeightMap((int[]) heightMap);
-        } else {
-            chunk.initializeHeightMap(null);
+            throw throwUnchecked(cause);
         }
-
-        levelDataView.getLong(INHABITED_TIME).ifPresent(time -> chunk.setInhabitedTime(time.intValue()));
-        chunk.setLightPopulated(levelDataView.getInt(LIGHT_POPULATED).orElse(0) > 0);
-        chunk.initializeLight();
-
-        levelDataView.getViewList(ENTITIES).ifPresent(entityViews -> {
-            final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
-            for (DataView entityView : entityViews) {
-                try {
-                    final LanternEntity entity = entitySerializer.deserialize(entityView);
-                    final int ySection = fixEntityYSection(entity.getPosition().getFloorY() >> 4);
-                    chunk.addEntity(entity, ySection);
-                } catch (InvalidDataException e) {
-                    this.logger.warn("Error loading entity in the chunk ({},{}) in the world {}",
-                            x, z, getWorldProperties().getWorldName(), e);
-                }
-            }
-        });
-
-        return true;
     }
 
     @Override
-    public void write(LanternChunk chunk) throws IOException {
+    public CompletableFuture<Void> writeAsync(LanternChunk chunk, Executor executor) {
         final int x = chunk.getX();
         final int z = chunk.getZ();
 
-        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
-
-        final int regionX = x & REGION_MASK;
-        final int regionZ = z & REGION_MASK;
-
-        final DataContainer rootView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-        final DataView levelDataView = rootView.createView(LEVEL);
-
-        // Core properties
-        levelDataView.set(VERSION, (byte) 1);
-        levelDataView.set(X, chunk.getX());
-        levelDataView.set(Z, chunk.getZ());
-        levelDataView.set(TERRAIN_POPULATED, (byte) (chunk.isPopulated() ? 1 : 0));
-        levelDataView.set(LIGHT_POPULATED, (byte) (chunk.isLightPopulated() ? 1 : 0));
-        levelDataView.set(LAST_UPDATE, 0L);
-        levelDataView.set(INHABITED_TIME, chunk.getLongInhabitedTime());
-
-        // Chunk sections
-        final ChunkSectionSnapshot[] sections = chunk.getSectionSnapshots(true);
-        final List<DataView> sectionDataViews = new ArrayList<>();
-        final List<DataView> tileEntityDataViews = new ArrayList<>();
-
-        for (byte i = 0; i < sections.length; ++i) {
-            final ChunkSectionSnapshot section = sections[i];
-            if (section == null) {
-                continue;
+        // The chunk must be captured while the caller still holds it, encoding
+        // and compressing the captured data is left to the executor
+        final PendingWrite pendingWrite = new PendingWrite(this.codec.snapshot(chunk));
+
+        // Writes to the same chunk are chained so that they are
+        // applied in the order in which they were requested
+        final long key = LanternChunk.key(x, z);
+        final PendingWrite previous = this.pendingWrites.put(key, pendingWrite);
+        final CompletableFuture<Void> previousFuture = previous == null ?
+                CompletableFuture.completedFuture(null) : previous.future;
+        previousFuture.whenCompleteAsync((result, throwable) -> {
+            try {
+                final CompressedData data = pendingWrite.getData();
+                final RegionFile region = this.cache.getRegionFileByChunk(x, z);
+                region.write(x & REGION_MASK, z & REGION_MASK, data.getBuffer(), data.size());
+                this.pendingWrites.remove(key, pendingWrite);
+                pendingWrite.future.complete(null);
+            } catch (Throwable t) {
+                this.pendingWrites.remove(key, pendingWrite);
+                pendingWrite.future.completeExceptionally(t);
             }
-
-            final DataContainer sectionDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-            sectionDataView.set(Y, i);
-
-            final byte[] rawTypes = new byte[section.types.length];
-            final short[] types = section.types;
-
-            NibbleArray extTypes = null;
-            final NibbleArray data = new NibbleArray(rawTypes.length);
-
-            for (int j = 0; j < rawTypes.length; j++) {
-                rawTypes[j] = (byte) ((types[j] >> 4) & 0xff);
-                byte extType = (byte) (types[j] >> 12);
-                if (extType != 0) {
-                    if (extTypes == null) {
-                        extTypes = new NibbleArray(rawTypes.length);
-                    }
-                    extTypes.set(j, extType);
-                }
-                data.set(j, (byte) (types[j] & 0xf));
-            }
-            sectionDataView.set(BLOCKS, rawTypes);
-            if (extTypes != null) {
-                sectionDataView.set(BLOCKS_EXTRA, extTypes.getPackedArray());
+        }, task -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // The executor is shutting down, don't lose the data
+                task.run();
             }
-            sectionDataView.set(DATA, data.getPackedArray());
-            sectionDataView.set(BLOCK_LIGHT, section.lightFromBlock);
+        });
+        return pendingWrite.future;
+    }
 
-            final byte[] lightFromSky = section.lightFromSky;
-            if (lightFromSky != null) {
-                sectionDataView.set(SKY_LIGHT, lightFromSky);
+    @Override
+    public void unload() throws IOException {
+        // Wait for all the pending writes to complete
+        for (PendingWrite pendingWrite : this.pendingWrites.values()) {
+            try {
+                pendingWrite.future.join();
+            } catch (CompletionException e) {
+                this.logger.error("Failed to write chunk data in the world {}", getWorldProperties().getWorldName(), e.getCause());
             }
+        }
+        this.cache.clear();
+    }
 
-            sectionDataViews.add(sectionDataView);
+    /**
+     * The data of a chunk that is waiting to be written to its region file. The
+     * captured data is only encoded and compressed once, either by the thread that
+     * writes it or by a thread that attempts to read the chunk before that.
+     */
+    private final class PendingWrite {
 
-            //noinspection unchecked
-            final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
-            // Serialize the tile entities
-            for (Short2ObjectMap.Entry<LanternTileEntity> tileEntityEntry : section.tileEntities.short2ObjectEntrySet()) {
-                if (!tileEntityEntry.getValue().isValid()) {
-                    continue;
-                }
-                final DataView dataView = tileEntitySerializer.serialize(tileEntityEntry.getValue());
-                final short pos = tileEntityEntry.getShortKey();
-                dataView.set(TILE_ENTITY_X, x * 16 + (pos & 0xf));
-                dataView.set(TILE_ENTITY_Y, (i << 4) | (pos >> 8));
-                dataView.set(TILE_ENTITY_Z, z * 16 + ((pos >> 4) & 0xf));
-                tileEntityDataViews.add(dataView);
-            }
-        }
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
 
-        levelDataView.set(TILE_ENTITIES, tileEntityDataViews);
-        levelDataView.set(SECTIONS, sectionDataViews);
-        levelDataView.set(HEIGHT_MAP, chunk.getHeightMap());
-
-        //noinspection unchecked
-        final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
-        final List<DataView> trackerDataViews = new ArrayList<>();
-
-        for (int i = 0; i < trackerData.length; i++) {
-            final Short2ObjectMap<LanternChunk.TrackerData> trackerDataSection = trackerData[i];
-            for (Short2ObjectMap.Entry<LanternChunk.TrackerData> entry : trackerDataSection.short2ObjectEntrySet()) {
-                // index = y << 8 | z << 4 | x
-                int index = entry.getShortKey() & 0xffff;
-                // Convert the index to the column based system
-                // index = z << 12 | y << 4 | x
-                index = ((index >> 4) & 0xf) << 12 | i << 8 | (index >> 4) & 0xf0 | index & 0xf;
-                final DataView trackerDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-                trackerDataView.set(TRACKER_BLOCK_POS, (short) index);
-                trackerDataView.set(TRACKER_ENTRY_NOTIFIER, entry.getValue().getNotifierId());
-                trackerDataView.set(TRACKER_ENTRY_CREATOR, entry.getValue().getCreatorId());
-                trackerDataViews.add(trackerDataView);
-            }
-        }
+        @Nullable private AnvilChunkCodec.Snapshot snapshot;
+        @Nullable private CompressedData data;
 
-        if (!trackerDataViews.isEmpty()) {
-            levelDataView.createView(DataQueries.SPONGE_DATA).set(TRACKER_DATA_TABLE, trackerDataViews);
+        PendingWrite(AnvilChunkCodec.Snapshot snapshot) {
+            this.snapshot = snapshot;
         }
 
-        final short[] biomes = chunk.getBiomes();
-        final byte[] biomes0 = new byte[biomes.length];
-        byte[] biomes1 = null;
-
-        for (int i = 0; i < biomes.length; i++) {
-            biomes0[i] = (byte) (biomes[i] & 0xff);
-            byte value = (byte) ((biomes[i] >> 4) & 0xff);
-            if (value != 0) {
-                if (biomes1 == null) {
-                    biomes1 = new byte[biomes0.length];
+        synchronized CompressedData getData() throws IOException {
+            if (this.data == null) {
+                final CompressedData data = new CompressedData();
+                final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (DataOutputStream dos = new DataOutputStream(
+                        new BufferedOutputStream(new DeflaterOutputStream(data, deflater)))) {
+                    //noinspection ConstantConditions
+                    AnvilChunkIOService.this.codec.write(dos, this.snapshot);
+                    dos.flush();
+                } finally {
+                    deflater.end();
                 }
-                biomes1[i] = value;
+                this.data = data;
+                // The snapshot is no longer needed
+                this.snapshot = null;
             }
+            return this.data;
         }
 
-        levelDataView.set(BIOMES, biomes0);
-        if (biomes1 != null) {
-            levelDataView.set(BIOMES_EXTRA, biomes1);
+        DataInputStream toInputStream() throws IOException {
+            final CompressedData data = getData();
+            return new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                    new ByteArrayInputStream(data.getBuffer(), 0, data.size()))));
         }
+    }
 
-        //noinspection unchecked
-        final List<LanternEntity> entities = new ArrayList(chunk.getEntities(entity -> !(entity instanceof Player)));
-        final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
+    /**
+     * The compressed data of a chunk.
+     */
+    private static final class CompressedData extends ByteArrayOutputStream {
 
-        final List<DataView> entityViews = new ArrayList<>();
-        for (LanternEntity entity : entities) {
-            if (entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
-                continue;
-            }
-            final DataView entityView = entitySerializer.serialize(entity);
-            entityViews.add(entityView);
+        CompressedData() {
+            super(8096);
         }
 
-        levelDataView.set(ENTITIES, entityViews);
-
-        try (NbtDataContainerOutputStream nbt = new NbtDataContainerOutputStream(region.getChunkDataOutputStream(regionX, regionZ))) {
-            nbt.write(rootView);
-            nbt.flush();
+        byte[] getBuffer() {
+            return this.buf;
         }
     }
 
-    @Override
-    public void unload() throws IOException {
-        this.cache.clear();
-    }
-
     @Override
     public ChunkDataStream getGeneratedChunks() {
         return new ChunkDataStream() {
@@ -582,14 +403,7 @@ public CompletableFuture<Boolean> doesChunkExist(Vector3i chunkCoords) {
     @Override
     public CompletableFuture<Optional<DataContainer>> getChunkData(Vector3i chunkCoords) {
         return this.scheduler.submitAsyncTask(() -> {
-            final int x = chunkCoords.getX();
-            final int z = chunkCoords.getZ();
-
-            final RegionFile region = cache.getRegionFileByChunk(x, z);
-            final int regionX = x & REGION_MASK;
-            final int regionZ = z & REGION_MASK;
-
-            final DataInputStream is = region.getChunkDataInputStream(regionX, regionZ);
+            final DataInputStream is = getChunkDataInputStream(chunkCoords.getX(), chunkCoords.getZ());
             if (is == null) {
                 return Optional.empty();
             }
@@ -72,23 +72,34 @@
 import org.slf4j.MarkerFactory;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.BitSet;
-import java.util.zip.Deflater;
-import java.util.zip.DeflaterOutputStream;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
 import javax.annotation.Nullable;
 
+/**
+ * A region file that is backed by a {@link FileChannel}, all the
+ * reads and writes are positional so that multiple threads can
+ * access the file at the same time.
+ * <p>
+ * Chunk data is never overwritten in place, new data is always written
+ * to newly allocated sectors and the old sectors are only released once
+ * the offset table points to the new location. Readers don't acquire
+ * any lock, instead they verify through a per chunk version counter that
+ * the chunk wasn't relocated while they were reading it, and retry if
+ * this was the case.
+ */
 public final class RegionFile {
 
     private static final Marker REGION_FILE_MARKER = MarkerFactory.getMarker("REGION_FILE");
@@ -100,32 +111,36 @@ public final class RegionFile {
     private static final int SECTOR_INTS = SECTOR_BYTES / 4;
 
     private static final int CHUNK_HEADER_SIZE = 5;
-    private static final byte[] EMPTY_SECTOR = new byte[SECTOR_BYTES];
 
-    private final RandomAccessFile file;
-    private final int[] offsets;
+    private final FileChannel channel;
+    private final AtomicIntegerArray offsets;
+    // The amount of times that each chunk was relocated, used
+    // by readers to detect concurrent modifications
+    private final AtomicIntegerArray versions;
     private final BitSet usedSectors;
     private final int regionX;
     private final int regionZ;
 
-    private int sectorCount;
+    // The lock that guards the sector allocation and the offset table
+    private final Object allocationLock = new Object();
+
+    private volatile int sectorCount;
 
     RegionFile(Path path, int regionX, int regionZ) throws IOException {
         this.regionX = regionX;
         this.regionZ = regionZ;
-        this.offsets = new int[SECTOR_INTS];
+        this.offsets = new AtomicIntegerArray(SECTOR_INTS);
+        this.versions = new AtomicIntegerArray(SECTOR_INTS);
 
         long lastModified = 0;
         if (Files.isRegularFile(path)) {
             lastModified = Files.getLastModifiedTime(path).toMillis();
         }
 
-        this.file = new RandomAccessFile(path.toFile(), "rw");
-
-        long length = this.file.length();
-        // seek to the end to prepare size checking
-        this.file.seek(length);
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
 
+        long length = this.channel.size();
         // if the file size is under 8KB, grow it (4K chunk offset table, 4K timestamp table)
         if (length < 2 * SECTOR_BYTES) {
             if (lastModified != 0) {
@@ -133,31 +148,19 @@ public final class RegionFile {
                 Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\" under 8K: {} increasing by {}",
                         path, length, 2 * SECTOR_BYTES - length);
             }
-
-            if (length == 0) {
-                this.file.write(EMPTY_SECTOR);
-                this.file.write(EMPTY_SECTOR);
-            } else {
-                for (; length < 2 * SECTOR_BYTES; length++) {
-                    this.file.write(0);
-                }
-            }
+            writeFully(ByteBuffer.allocate((int) (2 * SECTOR_BYTES - length)), length);
         }
 
-        length = this.file.length();
+        length = this.channel.size();
         // if the file size is not a multiple of 4KB, grow it
         if ((length & 0xfff) != 0) {
             Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\" not aligned: {} increasing by {}",
                     path, length, SECTOR_BYTES - (length & 0xfff));
-
-            length = length & 0xfff;
-            for (; length < SECTOR_BYTES; length++) {
-                this.file.write(0);
-            }
+            writeFully(ByteBuffer.allocate((int) (SECTOR_BYTES - (length & 0xfff))), length);
         }
 
         // set up the available sector map
-        final int nSectors = (int) (this.file.length() / SECTOR_BYTES);
+        final int nSectors = (int) (this.channel.size() / SECTOR_BYTES);
         this.sectorCount = nSectors;
         this.usedSectors = new BitSet(nSectors);
         this.usedSectors.set(0, 2);
@@ -167,25 +170,24 @@ public final class RegionFile {
         // 1 - for the last modified
 
         // read offsets from offset table
-        this.file.seek(0);
+        final ByteBuffer table = ByteBuffer.allocate(SECTOR_BYTES);
+        readFully(table, 0);
+        table.flip();
         for (int i = 0; i < SECTOR_INTS; ++i) {
-            final int offset = this.file.readInt();
-            this.offsets[i] = offset;
+            final int offset = table.getInt();
 
             final int startSector = (offset >> 8);
             final int numSectors = (offset & 0xff);
 
-            if (offset != 0 && startSector >= 0 && startSector + numSectors <= nSectors) {
+            if (offset != 0 && startSector >= 2 && startSector + numSectors <= nSectors) {
+                this.offsets.set(i, offset);
                 this.usedSectors.set(startSector, startSector + numSectors);
             } else if (offset != 0) {
                 Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\": offsets[{}] = {} -> {},{} does not fit",
                         path, i, offset, startSector, numSectors);
             }
         }
-        // read timestamps from timestamp table -- the timestamps aren't used, so there is no need to read them
-        // for (int i = 0; i < SECTOR_INTS; ++i) {
-        //     this.file.readInt();
-        // }
+        // the timestamps aren't used, so there is no need to read them
     }
 
     /**
@@ -196,39 +198,15 @@ public final class RegionFile {
      * @param z the z coordinate
      * @return whether the chunk data exists
      */
-    public synchronized boolean hasChunk(int x, int z) {
+    public boolean hasChunk(int x, int z) {
         checkBounds(x, z);
 
         try {
-            final int offset = getOffset(x, z);
-            if (offset == 0) {
-                // Does not exist
-                return false;
-            }
-
-            final int sectorNumber = offset >> 8;
-            final int numSectors = offset & 0xff;
-            if (sectorNumber + numSectors > this.sectorCount) {
-                logWarning();
-                return false;
-            }
-
-            this.file.seek(sectorNumber * SECTOR_BYTES);
-            final int length = this.file.readInt();
-            if (length > SECTOR_BYTES * numSectors) {
-                logWarning();
-                return false;
-            }
-
-            final byte version = this.file.readByte();
-            if (version == VERSION_GZIP || version == VERSION_DEFLATE) {
-                return true;
-            }
+            return readChunk(index(x, z), true) != null;
         } catch (IOException ignored) {
+            logWarning();
+            return false;
         }
-
-        logWarning();
-        return false;
     }
 
     /*
@@ -236,11 +214,41 @@ public synchronized boolean hasChunk(int x, int z) {
      * the chunk is not found or an error occurs
      */
     @Nullable
-    public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
+    public DataInputStream getChunkDataInputStream(int x, int z) {
         checkBounds(x, z);
 
         try {
-            final int offset = getOffset(x, z);
+            final ByteBuffer data = readChunk(index(x, z), false);
+            if (data == null) {
+                return null;
+            }
+            final byte version = data.get();
+            final ByteArrayInputStream is = new ByteArrayInputStream(data.array(), data.position(), data.remaining());
+            if (version == VERSION_GZIP) {
+                return new DataInputStream(new BufferedInputStream(new GZIPInputStream(is)));
+            } else if (version == VERSION_DEFLATE) {
+                return new DataInputStream(new BufferedInputStream(new InflaterInputStream(is)));
+            }
+        } catch (IOException ignored) {
+        }
+        logWarning();
+        return null;
+    }
+
+    /**
+     * Reads the data of the chunk at the given index. The returned buffer will be
+     * positioned at the version byte and is limited to the end of the chunk data.
+     *
+     * @param index the index of the chunk
+     * @param headerOnly whether only the header should be read
+     * @return the buffer, or null if the chunk doesn't exist or is invalid
+     * @throws IOException if an i/o error occurred
+     */
+    @Nullable
+    private ByteBuffer readChunk(int index, boolean headerOnly) throws IOException {
+        while (true) {
+            final int version = this.versions.get(index);
+            final int offset = this.offsets.get(index);
             if (offset == 0) {
                 // Does not exist
                 return null;
@@ -249,31 +257,39 @@ public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
             final int sectorNumber = offset >> 8;
             final int numSectors = offset & 0xff;
             if (sectorNumber + numSectors > this.sectorCount) {
-                logWarning();
                 return null;
             }
 
-            this.file.seek(sectorNumber * SECTOR_BYTES);
-            final int length = this.file.readInt();
-            if (length > SECTOR_BYTES * numSectors) {
-                logWarning();
-                return null;
+            final ByteBuffer buf = ByteBuffer.allocate(headerOnly ? CHUNK_HEADER_SIZE : numSectors * SECTOR_BYTES);
+            try {
+                readFully(buf, (long) sectorNumber * SECTOR_BYTES);
+            } catch (EOFException e) {
+                // The sectors are allocated but not yet written
+                if (this.versions.get(index) != version) {
+                    continue;
+                }
+                throw e;
+            }
+            // The chunk was relocated while reading, the sectors
+            // may already be reused by a different chunk, try again
+            if (this.versions.get(index) != version) {
+                continue;
             }
 
-            final byte version = this.file.readByte();
-            if (version == VERSION_GZIP) {
-                final byte[] data = new byte[length - 1];
-                this.file.read(data);
-                return new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(data))));
-            } else if (version == VERSION_DEFLATE) {
-                final byte[] data = new byte[length - 1];
-                this.file.read(data);
-                return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(data))));
+            buf.flip();
+            final int length = buf.getInt();
+            if (length <= 0 || length > SECTOR_BYTES * numSectors - 4) {
+                return null;
             }
-        } catch (IOException ignored) {
+            final byte chunkVersion = buf.get(buf.position());
+            if (chunkVersion != VERSION_GZIP && chunkVersion != VERSION_DEFLATE) {
+                return null;
+            }
+            if (!headerOnly) {
+                buf.limit(buf.position() + length);
+            }
+            return buf;
         }
-        logWarning();
-        return null;
     }
 
     private void logWarning() {
@@ -284,107 +300,116 @@ private void logWarning() {
                 this.regionX, this.regionZ);
     }
 
-    public DataOutputStream getChunkDataOutputStream(int x, int z) {
-        checkBounds(x, z);
-        return new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
-                new ChunkBuffer(x, z), new Deflater(Deflater.BEST_SPEED))));
-    }
-
-    /*
-     * lets chunk writing be multithreaded by not locking the whole file as a
-     * chunk is serializing -- only writes when serialization is over
+    /**
+     * Writes the deflate compressed chunk data for the chunk at the
+     * coordinates (relative to the region coordinates).
+     * <p>
+     * Only the sector allocation and the offset table updates are
+     * guarded by a lock, the chunk data itself is written without
+     * blocking other readers or writers of the region.
+     *
+     * @param x the x coordinate
+     * @param z the z coordinate
+     * @param data the compressed chunk data
+     * @param length the length of the data
+     * @throws IOException if an i/o error occurred
      */
-    private class ChunkBuffer extends ByteArrayOutputStream {
-
-        private final int x;
-        private final int z;
-
-        ChunkBuffer(int x, int z) {
-            super(8096); // initialize to 8KB
-            this.x = x;
-            this.z = z;
-        }
-
-        @Override
-        public void close() throws IOException {
-            try {
-                RegionFile.this.write(this.x, this.z, this.buf, this.count);
-            } finally {
-                super.close();
-            }
-        }
-    }
-
-    // write a chunk at (x,z) with length bytes of data to disk
-    protected synchronized void write(int x, int z, byte[] data, int length) throws IOException {
-        final int offset = getOffset(x, z);
-        int sectorNumber = offset >> 8;
-        final int sectorsAllocated = offset & 0xff;
+    void write(int x, int z, byte[] data, int length) throws IOException {
+        checkBounds(x, z);
         final int sectorsNeeded = (length + CHUNK_HEADER_SIZE) / SECTOR_BYTES + 1;
 
         // maximum chunk size is 1MB
         if (sectorsNeeded >= 256) {
+            Lantern.getLogger().warn(REGION_FILE_MARKER, "Chunk ({};{}) in region ({};{}) exceeds the maximum size of 1MB",
+                    x, z, this.regionX, this.regionZ);
             return;
         }
 
-        if (sectorNumber != 0 && sectorsAllocated == sectorsNeeded) {
-            // we can simply overwrite the old sectors
-            write(sectorNumber, data, length);
-        } else {
-            // we need to allocate new sectors
-
-            // mark the sectors previously used for this chunk as free
-            this.usedSectors.clear(sectorNumber, sectorNumber + sectorsAllocated);
-
-            // scan for a free space large enough to store this chunk
-            int runStart = this.usedSectors.nextClearBit(2);
-            int runLength = 0;
-            if (runStart != -1 && runStart < this.sectorCount) {
-                for (int i = runStart; i < this.sectorCount; ++i) {
-                    if (runLength != 0) {
-                        if (!this.usedSectors.get(i)) {
-                            runLength++;
-                        } else {
-                            runLength = 0;
-                        }
-                    } else if (!this.usedSectors.get(i)) {
-                        runStart = i;
-                        runLength = 1;
-                    }
-                    if (runLength >= sectorsNeeded) {
-                        break;
-                    }
-                }
-            } else {
-                runStart = this.sectorCount;
+        // Reserve new sectors, the old ones stay in use until
+        // the offset table points to the new location
+        final int sectorNumber;
+        synchronized (this.allocationLock) {
+            sectorNumber = allocate(sectorsNeeded);
+        }
+
+        // Write the chunk data, the buffer is padded to the sector
+        // size so that the file stays aligned
+        final ByteBuffer buf = ByteBuffer.allocate(sectorsNeeded * SECTOR_BYTES);
+        buf.putInt(length + 1); // chunk length
+        buf.put((byte) VERSION_DEFLATE); // chunk version number
+        buf.put(data, 0, length); // chunk data
+        buf.clear();
+        try {
+            writeFully(buf, (long) sectorNumber * SECTOR_BYTES);
+        } catch (IOException e) {
+            synchronized (this.allocationLock) {
+                this.usedSectors.clear(sectorNumber, sectorNumber + sectorsNeeded);
             }
+            throw e;
+        }
 
-            sectorNumber = runStart;
-            if (runLength < sectorsNeeded) {
-                final int added = sectorsNeeded - runLength;
-                this.sectorCount += added;
-                this.file.seek(this.file.length());
-                for (int i = 0; i < added; i++) {
-                    this.file.write(EMPTY_SECTOR);
-                }
+        final int index = index(x, z);
+        synchronized (this.allocationLock) {
+            final int oldOffset = this.offsets.get(index);
+            this.offsets.set(index, (sectorNumber << 8) | sectorsNeeded);
+            // Notify readers that the old sectors are no longer valid
+            this.versions.incrementAndGet(index);
+            writeInt(index * 4, (sectorNumber << 8) | sectorsNeeded);
+            writeInt(SECTOR_BYTES + index * 4, (int) (System.currentTimeMillis() / 1000L));
+            // Release the sectors that were previously used by this chunk
+            if (oldOffset != 0) {
+                final int oldSectorNumber = oldOffset >> 8;
+                this.usedSectors.clear(oldSectorNumber, oldSectorNumber + (oldOffset & 0xff));
             }
+        }
+    }
 
-            // Clear the sectors to set them in use
-            this.usedSectors.set(sectorNumber, sectorNumber + sectorsNeeded);
+    /**
+     * Allocates a run of free sectors, the file will be
+     * extended if there isn't enough space available.
+     *
+     * @param sectorsNeeded the amount of sectors
+     * @return the first sector of the run
+     */
+    private int allocate(int sectorsNeeded) {
+        int runStart = this.usedSectors.nextClearBit(2);
+        while (runStart < this.sectorCount) {
+            final int runEnd = this.usedSectors.nextSetBit(runStart);
+            // The run continues until the end of the file, it
+            // will be extended if needed
+            if (runEnd == -1 || runEnd - runStart >= sectorsNeeded) {
+                break;
+            }
+            runStart = this.usedSectors.nextClearBit(runEnd);
+        }
+        this.usedSectors.set(runStart, runStart + sectorsNeeded);
+        if (runStart + sectorsNeeded > this.sectorCount) {
+            this.sectorCount = runStart + sectorsNeeded;
+        }
+        return runStart;
+    }
 
-            // Write chunk data and offset
-            write(sectorNumber, data, length);
-            setOffset(x, z, (sectorNumber << 8) | sectorsNeeded);
+    private void writeInt(long position, int value) throws IOException {
+        final ByteBuffer buf = ByteBuffer.allocate(4);
+        buf.putInt(value);
+        buf.flip();
+        writeFully(buf, position);
+    }
+
+    private void writeFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += this.channel.write(buf, position);
         }
-        setTimestamp(x, z, (int) (System.currentTimeMillis() / 1000L));
     }
 
-    // write a chunk data to the region file at specified sector number
-    private void write(int sectorNumber, byte[] data, int length) throws IOException {
-        this.file.seek(sectorNumber * SECTOR_BYTES);
-        this.file.writeInt(length + 1); // chunk length
-        this.file.writeByte(VERSION_DEFLATE); // chunk version number
-        this.file.write(data, 0, length); // chunk data
+    private void readFully(ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            final int read = this.channel.read(buf, position);
+            if (read == -1) {
+                throw new EOFException();
+            }
+            position += read;
+        }
     }
 
     // is this an invalid chunk coordinate?
@@ -394,23 +419,12 @@ private void checkBounds(int x, int z) {
         }
     }
 
-    private int getOffset(int x, int z) {
-        return this.offsets[x + z * 32];
-    }
-
-    private void setOffset(int x, int z, int offset) throws IOException {
-        this.offsets[x + z * 32] = offset;
-        this.file.seek((x + z * 32) * 4);
-        this.file.writeInt(offset);
-    }
-
-    private void setTimestamp(int x, int z, int value) throws IOException {
-        this.file.seek(SECTOR_BYTES + (x + z * 32) * 4);
-        this.file.writeInt(value);
+    private static int index(int x, int z) {
+        return x + z * 32;
     }
 
     public void close() throws IOException {
-        this.file.getChannel().force(true);
-        this.file.close();
+        this.channel.force(true);
+        this.channel.close();
     }
 }
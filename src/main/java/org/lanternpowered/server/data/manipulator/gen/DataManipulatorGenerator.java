@@ -34,10 +34,12 @@
 import org.lanternpowered.server.data.manipulator.DataManipulatorRegistration;
 import org.lanternpowered.server.data.manipulator.immutable.AbstractImmutableData;
 import org.lanternpowered.server.data.manipulator.mutable.AbstractData;
+import org.lanternpowered.server.game.StartupCache;
 import org.lanternpowered.server.util.DefineableClassLoader;
 import org.lanternpowered.server.util.UncheckedThrowables;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.manipulator.DataManipulator;
 import org.spongepowered.api.data.manipulator.ImmutableDataManipulator;
@@ -216,6 +218,33 @@ private Base(Supplier<DataManipulatorRegistration<M, I>> supplier, Class<? exten
         }
     }
 
+    /**
+     * Describes all the inputs that are used to generate the classes
+     * for a data manipulator, used to validate cached bytecode.
+     */
+    private static String describeInputs(TypeGenerator typeGenerator, Class<?> manipulatorType, Class<?> immutableManipulatorType,
+            @Nullable Class<?> mutableExpansion, @Nullable Class<?> immutableExpansion,
+            @Nullable List<Method> methods, @Nullable List<Method> immutableMethods) {
+        final StringBuilder builder = new StringBuilder()
+                .append(typeGenerator.getClass().getName())
+                .append(';').append(manipulatorType.getName())
+                .append(';').append(immutableManipulatorType.getName())
+                .append(';').append(mutableExpansion == null ? "" : mutableExpansion.getName())
+                .append(';').append(immutableExpansion == null ? "" : immutableExpansion.getName());
+        appendMethods(builder, methods);
+        appendMethods(builder, immutableMethods);
+        return builder.toString();
+    }
+
+    private static void appendMethods(StringBuilder builder, @Nullable List<Method> methods) {
+        builder.append(';');
+        if (methods != null) {
+            for (Method method : methods) {
+                builder.append(method.getDeclaringClass().getName()).append('#').append(method.getName()).append(',');
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private <M extends DataManipulator<M, I>, I extends ImmutableDataManipulator<I, M>> Base<M, I> generateBase(
             TypeGenerator typeGenerator,
@@ -224,31 +253,49 @@ private <M extends DataManipulator<M, I>, I extends ImmutableDataManipulator<I,
             @Nullable Class<? extends M> mutableExpansion, @Nullable Class<? extends I> immutableExpansion,
             @Nullable List<Method> methods,
             @Nullable List<Method> immutableMethods) {
-        final ClassWriter cwM = new ClassWriter(Opcodes.V1_8);
-        final ClassWriter cwI = new ClassWriter(Opcodes.V1_8);
-
         final String mutableImplTypeName = newInternalName(manipulatorType);
         final String immutableImplTypeName = newInternalName(immutableManipulatorType);
+        final String registrationTypeName = newInternalName(Type.getInternalName(manipulatorType) + "Registration");
 
         final String mutableImplClassName = mutableImplTypeName.replace('/', '.');
         final String immutableImplClassName = immutableImplTypeName.replace('/', '.');
+        final String registrationClassName = registrationTypeName.replace('/', '.');
+
+        // Try to reuse the bytecode that was generated during a previous startup
+        final StartupCache cache = StartupCache.get();
+        final String inputs = describeInputs(typeGenerator, manipulatorType, immutableManipulatorType,
+                mutableExpansion, immutableExpansion, methods, immutableMethods);
+
+        byte[] mutableBytes = cache.get(mutableImplClassName, inputs);
+        byte[] immutableBytes = cache.get(immutableImplClassName, inputs);
+        if (mutableBytes == null || immutableBytes == null) {
+            final ClassWriter cwM = new ClassWriter(Opcodes.V1_8);
+            final ClassWriter cwI = new ClassWriter(Opcodes.V1_8);
 
-        typeGenerator.generateClasses(cwM, cwI, mutableImplTypeName, immutableImplTypeName,
-                manipulatorType, immutableManipulatorType, mutableExpansion, immutableExpansion, methods, immutableMethods);
+            typeGenerator.generateClasses(cwM, cwI, mutableImplTypeName, immutableImplTypeName,
+                    manipulatorType, immutableManipulatorType, mutableExpansion, immutableExpansion, methods, immutableMethods);
 
-        cwM.visitEnd();
-        cwI.visitEnd();
+            cwM.visitEnd();
+            cwI.visitEnd();
 
-        byte[] bytes = cwM.toByteArray();
-        final Class<?> manipulatorTypeImpl = this.classLoader.defineClass(mutableImplClassName, bytes);
-        bytes = cwI.toByteArray();
-        final Class<?> immutableManipulatorTypeImpl = this.classLoader.defineClass(immutableImplClassName, bytes);
+            mutableBytes = cwM.toByteArray();
+            immutableBytes = cwI.toByteArray();
+            cache.put(mutableImplClassName, inputs, mutableBytes);
+            cache.put(immutableImplClassName, inputs, immutableBytes);
+        }
+
+        final Class<?> manipulatorTypeImpl = this.classLoader.defineClass(mutableImplClassName, mutableBytes);
+        final Class<?> immutableManipulatorTypeImpl = this.classLoader.defineClass(immutableImplClassName, immutableBytes);
 
-        final ClassWriter cw = new ClassWriter(Opcodes.V1_8);
-        final String className = this.registrationGenerator.generate(cw,
-                (Class) manipulatorType, (Class) manipulatorTypeImpl, (Class) immutableManipulatorType, (Class) immutableManipulatorTypeImpl);
-        bytes = cw.toByteArray();
-        final Class<?> registrationClass = this.classLoader.defineClass(className, bytes);
+        byte[] bytes = cache.get(registrationClassName, inputs);
+        if (bytes == null) {
+            final ClassWriter cw = new ClassWriter(Opcodes.V1_8);
+            this.registrationGenerator.generate(cw, registrationTypeName, (Class) manipulatorType, (Class) manipulatorTypeImpl,
+                    (Class) immutableManipulatorType, (Class) immutableManipulatorTypeImpl);
+            bytes = cw.toByteArray();
+            cache.put(registrationClassName, inputs, bytes);
+        }
+        final Class<?> registrationClass = this.classLoader.defineClass(registrationClassName, bytes);
         return new Base(() -> {
             try {
                 return registrationClass
@@ -26,7 +26,6 @@
 package org.lanternpowered.server.data.manipulator.gen;
 
 import static java.lang.String.format;
-import static org.lanternpowered.server.data.manipulator.gen.TypeGenerator.newInternalName;
 import static org.objectweb.asm.Opcodes.ACC_BRIDGE;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 import static org.objectweb.asm.Opcodes.ACC_SUPER;
@@ -56,7 +55,7 @@ final class DataManipulatorRegistrationGenerator {
     private static final String dDataManipulator = Type.getDescriptor(DataManipulator.class);
     private static final String dImmutableDataManipulator = Type.getDescriptor(ImmutableDataManipulator.class);
 
-    public <M extends DataManipulator<M, I>, I extends ImmutableDataManipulator<I, M>> String generate(ClassWriter cw,
+    public <M extends DataManipulator<M, I>, I extends ImmutableDataManipulator<I, M>> String generate(ClassWriter cw, String className,
             Class<M> manipulatorType, Class<? extends M> manipulatorImplType,
             Class<I> immutableManipulatorType, Class<? extends M> immutableManipulatorImplType) {
 
@@ -69,8 +68,6 @@ public <M extends DataManipulator<M, I>, I extends ImmutableDataManipulator<I, M
         final String nManipulatorImplType = Type.getInternalName(manipulatorImplType);
         final String nImmutableManipulatorImplType = Type.getInternalName(immutableManipulatorImplType);
 
-        final String className = newInternalName(nManipulatorType + "Registration");
-
         MethodVisitor mv;
 
         cw.visit(V1_8, ACC_PUBLIC + ACC_SUPER, className,
@@ -118,6 +118,109 @@ public DataContainer read() throws IOException, InvalidDataFormatException {
         return (DataContainer) readObject(null, entry, 0);
     }
 
+    /**
+     * Reads the payload of a compound tag, the type
+     * and name of the tag should already be consumed.
+     *
+     * @return the data container
+     * @throws IOException if an i/o error occurs
+     */
+    public DataContainer readCompoundPayload() throws IOException, InvalidDataFormatException {
+        return (DataContainer) readPayload(null, NbtType.COMPOUND, null, 0);
+    }
+
+    /**
+     * Skips the payload of a tag with the specified nbt type id, the
+     * type and name of the tag should already be consumed.
+     *
+     * @param type the nbt type id
+     * @throws IOException if an i/o error occurs
+     */
+    public void skipPayload(int type) throws IOException, InvalidDataFormatException {
+        skipPayload(type, 0);
+    }
+
+    private void skipPayload(int type, int depth) throws IOException {
+        if (depth > this.maximumDepth) {
+            throw new IOException("Attempted to skip a data container with too high complexity,"
+                    + " exceeded the maximum depth of " + this.maximumDepth);
+        }
+        final NbtType nbtType = NbtType.byIndex.get(type);
+        if (nbtType == null) {
+            throw new IOException("Unknown NBT Type with id: " + type);
+        }
+        // Only the official types can be found here, the
+        // lantern types are all encoded with one of those
+        switch (nbtType) {
+            case BYTE:
+                skipFully(1);
+                break;
+            case SHORT:
+                skipFully(2);
+                break;
+            case INT:
+            case FLOAT:
+                skipFully(4);
+                break;
+            case LONG:
+            case DOUBLE:
+                skipFully(8);
+                break;
+            case BYTE_ARRAY:
+                skipFully(this.dis.readInt());
+                break;
+            case INT_ARRAY:
+                skipFully(this.dis.readInt() * 4L);
+                break;
+            case LONG_ARRAY:
+                skipFully(this.dis.readInt() * 8L);
+                break;
+            case STRING:
+                skipFully(this.dis.readUnsignedShort());
+                break;
+            case LIST:
+                final byte listType = this.dis.readByte();
+                final int size = this.dis.readInt();
+                if (listType == NbtType.END.type) {
+                    if (size != 0) {
+                        throw new IllegalStateException("Got a list tag with end tags which isn't empty.");
+                    }
+                    break;
+                }
+                for (int i = 0; i < size; i++) {
+                    skipPayload(listType, depth + 1);
+                }
+                break;
+            case COMPOUND:
+                byte entryType;
+                while ((entryType = this.dis.readByte()) != NbtType.END.type) {
+                    // Skip the name of the entry
+                    skipFully(this.dis.readUnsignedShort());
+                    skipPayload(entryType, depth + 1);
+                }
+                break;
+            default:
+                throw new IOException("Unexpected NBT Type with id: " + type);
+        }
+    }
+
+    private void skipFully(long length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Got a negative length: " + length);
+        }
+        while (length > 0) {
+            final int skipped = this.dis.skipBytes((int) Math.min(length, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                // Reached the end of the stream, or the stream doesn't
+                // support skipping, reading will throw an EOFException
+                this.dis.readByte();
+                length--;
+            } else {
+                length -= skipped;
+            }
+        }
+    }
+
     private Object readObject(@Nullable DataView container, Entry entry, int depth)
             throws IOException, InvalidDataFormatException {
         return readPayload(container, entry.type, entry.listType, depth);
@@ -176,7 +279,7 @@ private Object readPayload(@Nullable DataView container, NbtType nbtType, @Nulla
                     return emptyByteArray;
                 }
                 final byte[] byteArray = new byte[length];
-                this.dis.read(byteArray);
+                this.dis.readFully(byteArray);
                 return byteArray;
             case SHORT:
                 return this.dis.readShort();
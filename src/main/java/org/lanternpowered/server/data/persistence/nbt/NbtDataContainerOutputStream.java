@@ -83,6 +83,17 @@ public void write(DataView dataView) throws IOException {
         writeEntry("", checkNotNull(dataView, "dataView"));
     }
 
+    /**
+     * Writes the payload of a compound tag, the type
+     * and name of the tag should already be written.
+     *
+     * @param dataView the data view to write
+     * @throws IOException if an i/o error occurs
+     */
+    public void writeCompoundPayload(DataView dataView) throws IOException {
+        writeCompound(checkNotNull(dataView, "dataView"));
+    }
+
     @SuppressWarnings("unchecked")
     private void writePayload(NbtType nbtType, Object object) throws IOException {
         switch (nbtType) {
@@ -51,6 +51,7 @@
 import org.lanternpowered.server.text.LanternTexts;
 import org.lanternpowered.server.util.Quaternions;
 import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.data.DataContainer;
 import org.spongepowered.api.data.DataHolder;
@@ -381,6 +382,7 @@ public UUID getUniqueId() {
     public void setBoundingBoxBase(@Nullable AABB boundingBox) {
         this.boundingBoxBase = boundingBox;
         this.boundingBox = null;
+        updateEntityIndex();
     }
 
     @Override
@@ -432,16 +434,51 @@ public LanternWorld getWorld() {
     }
 
     protected void setWorld(@Nullable LanternWorld world) {
+        if (this.world != null && this.world != world) {
+            this.world.getEntityIndex().remove(this);
+        }
         this.world = world;
     }
 
     protected void setRawPosition(Vector3d position) {
         this.position = checkNotNull(position, "position");
         this.boundingBox = null;
+        updateEntityIndex();
+        markChunkDirty();
+    }
+
+    private void updateEntityIndex() {
+        final LanternWorld world = this.world;
+        if (world != null) {
+            world.getEntityIndex().update(this);
+        }
     }
 
     protected void setRawRotation(Vector3d rotation) {
         this.rotation = checkNotNull(rotation, "rotation");
+        markChunkDirty();
+    }
+
+    @Override
+    public void onValuesChanged() {
+        markChunkDirty();
+    }
+
+    /**
+     * Marks the chunk this entity is stored in as dirty, this
+     * should be called when the entity moved or its data changed.
+     */
+    public void markChunkDirty() {
+        final LanternWorld world = this.world;
+        final Vector3i coords = this.lastChunkCoords;
+        // Players aren't stored in chunks
+        if (world == null || coords == null || this instanceof LanternPlayer) {
+            return;
+        }
+        final LanternChunk chunk = world.getChunkManager().getChunkIfLoaded(coords.getX(), coords.getZ());
+        if (chunk != null) {
+            chunk.markDirty();
+        }
     }
 
     public Vector3d getPosition() {
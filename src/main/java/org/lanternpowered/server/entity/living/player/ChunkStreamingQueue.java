@@ -0,0 +1,209 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.entity.living.player;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3d;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.lanternpowered.server.config.GlobalConfig;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.ChunkLoadingTicket;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the chunks within the view distance of a {@link LanternPlayer}
+ * gradually to the client, instead of forcing and sending all of them in
+ * a single tick. The chunks closest to the player and in the direction the
+ * player is looking at are requested first, the rest is limited by the
+ * chunks and bytes per tick budgets of the {@link GlobalConfig.ChunkStreaming}
+ * settings. Chunks that leave the view distance before they are requested
+ * are cancelled without ever being loaded.
+ */
+final class ChunkStreamingQueue {
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * The minimum yaw difference in degrees before the chunks are reordered.
+     */
+    private static final float REORDER_YAW_THRESHOLD = 45f;
+
+    private final LanternPlayer player;
+
+    /**
+     * All the chunk keys that are waiting to be requested.
+     */
+    private final LongSet pending = new LongOpenHashSet();
+
+    /**
+     * The pending chunks ordered by priority, this may contain chunks that
+     * were cancelled or already requested, those are skipped.
+     */
+    private long[] ordered = EMPTY;
+    private int orderedIndex;
+    private boolean reorder;
+
+    private int lastCenterX;
+    private int lastCenterZ;
+    private float lastYaw;
+
+    /**
+     * The amount of bytes that were sent but not yet covered by the bytes
+     * per tick budget. Chunk data may be sent from other threads.
+     */
+    private final AtomicLong sentBytes = new AtomicLong();
+
+    ChunkStreamingQueue(LanternPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * Queues the chunk with the given key to be requested.
+     *
+     * @param key The chunk key
+     */
+    void offer(long key) {
+        if (this.pending.add(key)) {
+            this.reorder = true;
+        }
+    }
+
+    /**
+     * Cancels the chunk with the given key if it
+     * wasn't requested yet.
+     *
+     * @param key The chunk key
+     * @return Whether the chunk was still pending
+     */
+    boolean cancel(long key) {
+        return this.pending.remove(key);
+    }
+
+    /**
+     * Removes all the pending chunks.
+     */
+    void clear() {
+        this.pending.clear();
+        this.ordered = EMPTY;
+        this.orderedIndex = 0;
+        this.reorder = false;
+        this.sentBytes.set(0);
+    }
+
+    /**
+     * Is called when the data of a complete chunk
+     * was sent to the player.
+     *
+     * @param bytes The (estimated) size of the chunk data
+     */
+    void onChunkSent(int bytes) {
+        this.sentBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Requests the next pending chunks, within the limits of the budgets.
+     *
+     * @param world The world of the player
+     * @param loadingTicket The loading ticket of the player
+     */
+    void pulse(LanternWorld world, ChunkLoadingTicket loadingTicket) {
+        final GlobalConfig.ChunkStreaming config = Lantern.getGame().getGlobalConfig().getChunkStreaming();
+        final int bytesPerTick = config.getBytesPerTick();
+        // Pay off the data that was sent during the previous ticks
+        final long sentBytes = this.sentBytes.updateAndGet(value -> Math.max(0, value - bytesPerTick));
+        if (this.pending.isEmpty() || sentBytes >= bytesPerTick) {
+            return;
+        }
+
+        final Vector3d position = this.player.getPosition();
+        final float yaw = (float) this.player.getRotation().getY();
+        final int centerX = position.getFloorX() >> 4;
+        final int centerZ = position.getFloorZ() >> 4;
+        if (this.reorder || centerX != this.lastCenterX || centerZ != this.lastCenterZ ||
+                getYawDifference(yaw, this.lastYaw) >= REORDER_YAW_THRESHOLD) {
+            reorder(position, yaw);
+            this.lastCenterX = centerX;
+            this.lastCenterZ = centerZ;
+            this.lastYaw = yaw;
+        }
+
+        final ObservedChunkManager observedChunkManager = world.getObservedChunkManager();
+        int chunks = config.getChunksPerTick();
+        while (this.orderedIndex < this.ordered.length) {
+            final long key = this.ordered[this.orderedIndex++];
+            if (!this.pending.remove(key)) {
+                continue;
+            }
+            // Already loaded chunks are sent directly, which counts
+            // immediately towards the bytes budget
+            observedChunkManager.addObserver(key, this.player);
+            loadingTicket.forceChunk(new Vector2i(LanternChunk.keyX(key), LanternChunk.keyZ(key)));
+            if (--chunks <= 0 || this.sentBytes.get() >= bytesPerTick) {
+                break;
+            }
+        }
+    }
+
+    private static float getYawDifference(float yaw, float otherYaw) {
+        final float difference = Math.abs(yaw - otherYaw) % 360f;
+        return difference > 180f ? 360f - difference : difference;
+    }
+
+    private void reorder(Vector3d position, float yaw) {
+        final double x = position.getX();
+        final double z = position.getZ();
+        final double yawRad = Math.toRadians(yaw);
+        final double lookX = -Math.sin(yawRad);
+        final double lookZ = Math.cos(yawRad);
+        final long[] ordered = this.pending.toLongArray();
+        LongArrays.quickSort(ordered, (a, b) -> Double.compare(
+                getPriority(a, x, z, lookX, lookZ), getPriority(b, x, z, lookX, lookZ)));
+        this.ordered = ordered;
+        this.orderedIndex = 0;
+        this.reorder = false;
+    }
+
+    /**
+     * Gets the priority of the chunk, lower values are requested first. Chunks
+     * in front of the player are weighted by their distance, the ones behind
+     * the player count up to three times as far away.
+     */
+    private static double getPriority(long key, double x, double z, double lookX, double lookZ) {
+        final double dx = (LanternChunk.keyX(key) << 4) + 8 - x;
+        final double dz = (LanternChunk.keyZ(key) << 4) + 8 - z;
+        final double distanceSquared = dx * dx + dz * dz;
+        if (distanceSquared < 1.0) {
+            return 0.0;
+        }
+        final double dot = (dx * lookX + dz * lookZ) / Math.sqrt(distanceSquared);
+        return distanceSquared * (2.0 - dot);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.entity.living.player;
+
+import org.lanternpowered.server.world.chunk.LanternChunk;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Tracks the square of chunks that is visible to a player. The chunks
+ * are represented by their packed {@link LanternChunk#key(int, int)}
+ * and only the strips of chunks that enter or leave the view are
+ * visited when the view moves.
+ */
+final class ChunkView {
+
+    private int centerX;
+    private int centerZ;
+
+    /**
+     * The radius of the view, {@code -1} if the view is empty.
+     */
+    private int radius = -1;
+
+    /**
+     * Gets whether the chunk at the given coordinates is within the view.
+     *
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @return Whether the chunk is visible
+     */
+    boolean contains(int x, int z) {
+        return this.radius >= 0 && Math.abs(x - this.centerX) <= this.radius && Math.abs(z - this.centerZ) <= this.radius;
+    }
+
+    /**
+     * Moves the view to the given center and radius.
+     *
+     * @param centerX The center chunk x coordinate
+     * @param centerZ The center chunk z coordinate
+     * @param radius The radius
+     * @param entering The consumer for the keys of the chunks that entered the view
+     * @param leaving The consumer for the keys of the chunks that left the view
+     * @return Whether the view was modified
+     */
+    boolean update(int centerX, int centerZ, int radius, LongConsumer entering, LongConsumer leaving) {
+        if (centerX == this.centerX && centerZ == this.centerZ && radius == this.radius) {
+            return false;
+        }
+        if (this.radius >= 0) {
+            forEachDifference(this.centerX, this.centerZ, this.radius, centerX, centerZ, radius, leaving);
+            forEachDifference(centerX, centerZ, radius, this.centerX, this.centerZ, this.radius, entering);
+        } else {
+            forEachDifference(centerX, centerZ, radius, 0, 0, -1, entering);
+        }
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        return true;
+    }
+
+    /**
+     * Empties the view.
+     *
+     * @param leaving The consumer for the keys of the chunks that left the view
+     */
+    void clear(LongConsumer leaving) {
+        if (this.radius >= 0) {
+            forEachDifference(this.centerX, this.centerZ, this.radius, 0, 0, -1, leaving);
+            this.radius = -1;
+        }
+    }
+
+    /**
+     * Visits all the chunks in square a that aren't in square b. Each column
+     * of square a is either completely outside square b or is split in at
+     * most two runs around it, so the overlapping chunks are never visited.
+     */
+    private static void forEachDifference(int aCenterX, int aCenterZ, int aRadius,
+            int bCenterX, int bCenterZ, int bRadius, LongConsumer consumer) {
+        final int aMinZ = aCenterZ - aRadius;
+        final int aMaxZ = aCenterZ + aRadius;
+        final int bMinX = bCenterX - bRadius;
+        final int bMaxX = bCenterX + bRadius;
+        final int bMinZ = bCenterZ - bRadius;
+        final int bMaxZ = bCenterZ + bRadius;
+        final boolean overlapZ = bRadius >= 0 && bMinZ <= aMaxZ && bMaxZ >= aMinZ;
+        for (int x = aCenterX - aRadius; x <= aCenterX + aRadius; x++) {
+            if (!overlapZ || x < bMinX || x > bMaxX) {
+                forEachInColumn(x, aMinZ, aMaxZ, consumer);
+            } else {
+                forEachInColumn(x, aMinZ, bMinZ - 1, consumer);
+                forEachInColumn(x, bMaxZ + 1, aMaxZ, consumer);
+            }
+        }
+    }
+
+    private static void forEachInColumn(int x, int minZ, int maxZ, LongConsumer consumer) {
+        for (int z = minZ; z <= maxZ; z++) {
+            consumer.accept(LanternChunk.key(x, z));
+        }
+    }
+}
@@ -95,6 +95,7 @@
 import org.lanternpowered.server.world.LanternWorld;
 import org.lanternpowered.server.world.LanternWorldBorder;
 import org.lanternpowered.server.world.chunk.ChunkLoadingTicket;
+import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.lanternpowered.server.world.difficulty.LanternDifficulty;
 import org.lanternpowered.server.world.dimension.LanternDimensionType;
 import org.lanternpowered.server.world.rules.RuleTypes;
@@ -220,20 +221,21 @@ public class LanternPlayer extends AbstractUser implements Player, AbstractViewe
     // Whether you should ignore this player when checking for sleeping players to reset the time
     private boolean sleepingIgnored;
 
-    // The chunks the client knows about
-    private final Set<Vector2i> knownChunks = new HashSet<>();
+    // The chunks within the view distance of the client, including
+    // the ones that are still pending in the chunk streaming queue
+    private final ChunkView chunkView = new ChunkView();
 
     // The interaction handler
     private final PlayerInteractionHandler interactionHandler;
 
-    // The chunk position since the last #pulseChunkChanges call
-    @Nullable private Vector2i lastChunkPos = null;
-
     // The loading ticket that will force the chunks to be loaded
     @Nullable private ChunkTicketManager.PlayerEntityLoadingTicket loadingTicket;
 
     private final ResourcePackSendQueue resourcePackSendQueue = new ResourcePackSendQueue(this);
 
+    // The queue of chunks that still need to be requested and sent to the client
+    private final ChunkStreamingQueue chunkStreamingQueue = new ChunkStreamingQueue(this);
+
     /**
      * The inventory of this {@link Player}.
      */
@@ -439,11 +441,8 @@ private void setWorld(@Nullable LanternWorld oldWorld, @Nullable LanternWorld wo
             // Remove the player from all the observed chunks, there is no need
             // to send unload messages because we will respawn in a different world
             final ObservedChunkManager observedChunkManager = oldWorld.getObservedChunkManager();
-            final Set<Vector2i> knownChunks = new HashSet<>(this.knownChunks);
-            knownChunks.forEach(coords -> observedChunkManager.removeObserver(coords, this, false));
-            this.knownChunks.clear();
-            // Clear the last chunk pos
-            this.lastChunkPos = null;
+            this.chunkView.clear(key -> observedChunkManager.removeObserver(key, this, false));
+            this.chunkStreamingQueue.clear();
             // Remove the player from the world
             oldWorld.removePlayer(this);
             if (this.worldBorder == null) {
@@ -820,22 +819,21 @@ public void pulseChunkChanges() {
             return;
         }
 
-        ChunkLoadingTicket loadingTicket = this.getChunkLoadingTicket();
-        Vector3d position = this.getPosition();
-
-        double xPos = position.getX();
-        double zPos = position.getZ();
+        final ChunkLoadingTicket loadingTicket = this.getChunkLoadingTicket();
+        updateKnownChunks(world, loadingTicket);
+        // Request the next chunks within the streaming budget
+        this.chunkStreamingQueue.pulse(world, loadingTicket);
+    }
 
-        int centralX = ((int) xPos) >> 4;
-        int centralZ = ((int) zPos) >> 4;
+    ChunkStreamingQueue getChunkStreamingQueue() {
+        return this.chunkStreamingQueue;
+    }
 
-        // Fail fast if the player hasn't moved a chunk
-        if (this.lastChunkPos != null && this.lastChunkPos.getX() == centralX &&
-                this.lastChunkPos.getY() == centralZ) {
-            return;
-        }
+    private void updateKnownChunks(LanternWorld world, ChunkLoadingTicket loadingTicket) {
+        final Vector3d position = this.getPosition();
 
-        this.lastChunkPos = new Vector2i(centralX, centralZ);
+        final int centralX = position.getFloorX() >> 4;
+        final int centralZ = position.getFloorZ() >> 4;
 
         // Get the radius of visible chunks
         int radius = world.getProperties().getConfig().getViewDistance();
@@ -846,49 +844,19 @@ public void pulseChunkChanges() {
             radius = Math.min(radius, this.viewDistance + 1);
         }
 
-        final Set<Vector2i> previousChunks = new HashSet<>(this.knownChunks);
-        final List<Vector2i> newChunks = new ArrayList<>();
-
-        for (int x = (centralX - radius); x <= (centralX + radius); x++) {
-            for (int z = (centralZ - radius); z <= (centralZ + radius); z++) {
-                final Vector2i coords = new Vector2i(x, z);
-                if (!previousChunks.remove(coords)) {
-                    newChunks.add(coords);
-                }
+        final ObservedChunkManager observedChunkManager = world.getObservedChunkManager();
+
+        // Only the chunks that enter or leave the view are visited, nothing
+        // happens if the player hasn't moved a chunk. The streaming queue will
+        // force the new chunks to be loaded and track the changes by priority
+        this.chunkView.update(centralX, centralZ, radius, this.chunkStreamingQueue::offer, key -> {
+            // Unforce old chunks so they can unload and untrack the chunk,
+            // chunks that weren't requested yet only need to be cancelled
+            if (!this.chunkStreamingQueue.cancel(key)) {
+                observedChunkManager.removeObserver(key, this, true);
+                loadingTicket.unforceChunk(new Vector2i(LanternChunk.keyX(key), LanternChunk.keyZ(key)));
             }
-        }
-
-        // Early end if there's no changes
-        if (newChunks.size() == 0 && previousChunks.size() == 0) {
-            return;
-        }
-
-        // Sort chunks by distance from player - closer chunks sent/forced first
-        newChunks.sort((a, b) -> {
-            double dx = 16 * a.getX() + 8 - xPos;
-            double dz = 16 * a.getY() + 8 - zPos;
-            double da = dx * dx + dz * dz;
-            dx = 16 * b.getX() + 8 - xPos;
-            dz = 16 * b.getY() + 8 - zPos;
-            double db = dx * dx + dz * dz;
-            return Double.compare(da, db);
         });
-
-        ObservedChunkManager observedChunkManager = world.getObservedChunkManager();
-
-        // Force all the new chunks to be loaded and track the changes
-        newChunks.forEach(coords -> {
-            observedChunkManager.addObserver(coords, this);
-            loadingTicket.forceChunk(coords);
-        });
-        // Unforce old chunks so they can unload and untrack the chunk
-        previousChunks.forEach(coords -> {
-            observedChunkManager.removeObserver(coords, this, true);
-            loadingTicket.unforceChunk(coords);
-        });
-
-        this.knownChunks.removeAll(previousChunks);
-        this.knownChunks.addAll(newChunks);
     }
 
     @Override
@@ -32,13 +32,13 @@
 import com.flowpowered.math.vector.Vector2i;
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Sets;
+import io.netty.util.ReferenceCountUtil;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.tile.LanternTileEntity;
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.network.message.CachedMessage;
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.tile.AbstractTileEntityProtocol;
 import org.lanternpowered.server.network.tile.TileEntityChunkProtocolData;
@@ -53,6 +53,7 @@
 import org.lanternpowered.server.util.collect.array.VariableValueArray;
 import org.lanternpowered.server.world.LanternWorld;
 import org.lanternpowered.server.world.WorldEventListener;
+import org.lanternpowered.server.world.chunk.ConcurrentChunkMap;
 import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
@@ -72,6 +73,8 @@
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 public final class ObservedChunkManager implements WorldEventListener {
 
     /**
@@ -82,14 +85,25 @@ public final class ObservedChunkManager implements WorldEventListener {
     /**
      * All the chunks that are being observed.
      */
-    private final Map<Long, ObservedChunk> observedChunks = new ConcurrentHashMap<>();
+    private final ConcurrentChunkMap<ObservedChunk> observedChunks = new ConcurrentChunkMap<>();
+
+    /**
+     * A reusable list to stream the changes of the observed chunks.
+     */
+    private final List<ObservedChunk> pulseChunks = new ArrayList<>();
 
     public ObservedChunkManager(LanternWorld world) {
         this.world = world;
     }
 
     public void pulse() {
-        this.observedChunks.values().forEach(ObservedChunkManager.ObservedChunk::streamChanges);
+        // Copy the chunks, new observers can be added while streaming
+        this.observedChunks.forEach((key, observedChunk) -> this.pulseChunks.add(observedChunk));
+        try {
+            this.pulseChunks.forEach(ObservedChunk::streamChanges);
+        } finally {
+            this.pulseChunks.clear();
+        }
     }
 
     @Override
@@ -137,19 +151,29 @@ public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction
         }
     }
 
-    void addObserver(Vector2i coords, LanternPlayer observer) {
-        final long key = LanternChunk.key(coords.getX(), coords.getY());
-        final ObservedChunk observedChunk = this.observedChunks.computeIfAbsent(key, key1 -> new ObservedChunk(coords));
-        observedChunk.addObserver(observer);
+    void addObserver(long key, LanternPlayer observer) {
+        while (true) {
+            final ObservedChunk observedChunk = this.observedChunks.computeIfAbsent(key,
+                    key0 -> new ObservedChunk(new Vector2i(LanternChunk.keyX(key0), LanternChunk.keyZ(key0))));
+            synchronized (observedChunk) {
+                // The last observer left in the mean time, try again with a new chunk
+                if (!observedChunk.removed) {
+                    observedChunk.addObserver(observer);
+                    return;
+                }
+            }
+        }
     }
 
-    void removeObserver(Vector2i coords, LanternPlayer observer, boolean updateClient) {
-        final long key = LanternChunk.key(coords.getX(), coords.getY());
+    void removeObserver(long key, LanternPlayer observer, boolean updateClient) {
         final ObservedChunk observedChunk = this.observedChunks.get(key);
         if (observedChunk != null) {
-            observedChunk.removeObserver(observer, updateClient);
-            if (observedChunk.observers.isEmpty()) {
-                this.observedChunks.remove(key);
+            synchronized (observedChunk) {
+                observedChunk.removeObserver(observer, updateClient);
+                if (observedChunk.observers.isEmpty()) {
+                    observedChunk.removed = true;
+                    this.observedChunks.remove(key, observedChunk);
+                }
             }
         }
     }
@@ -168,6 +192,36 @@ void removeObserver(Vector2i coords, LanternPlayer observer, boolean updateClien
     private static final MessagePlayOutChunkData.Section EMPTY_SECTION = new MessagePlayOutChunkData.Section(
             EMPTY_SECTION_TYPES, new int[1], EMPTY_SECTION_LIGHT, null, new Short2ObjectOpenHashMap<>());
 
+    /**
+     * Estimates the encoded size of the {@link MessagePlayOutChunkData}, without
+     * the compression that will be applied by the connection.
+     *
+     * @param message The chunk data message
+     * @return The estimated size in bytes
+     */
+    private static int estimateSize(MessagePlayOutChunkData message) {
+        int size = 16;
+        for (MessagePlayOutChunkData.Section section : message.getSections()) {
+            if (section == null) {
+                continue;
+            }
+            size += section.getTypes().getBacking().length * 8 + section.getBlockLight().length + 8;
+            final int[] palette = section.getPalette();
+            if (palette != null) {
+                size += palette.length * 2;
+            }
+            final byte[] skyLight = section.getSkyLight();
+            if (skyLight != null) {
+                size += skyLight.length;
+            }
+        }
+        final byte[] biomes = message.getBiomes();
+        if (biomes != null) {
+            size += biomes.length;
+        }
+        return size;
+    }
+
     private static Map<Vector3i, LanternTileEntity> getMappedTileEntities(LanternChunk chunk) {
         return chunk.getTileEntities().stream().collect(Collectors.toMap(
                 tileEntity -> tileEntity.getLocation().getBlockPosition(),
@@ -221,6 +275,37 @@ private QueuedBlockAction(BlockAction blockAction, MessagePlayOutBlockAction blo
          */
         private volatile boolean dirtyChunk;
 
+        /**
+         * Whether the chunk is loaded but it can't be send to the
+         * observers yet because its light isn't populated.
+         */
+        private volatile boolean pendingLoad;
+
+        /**
+         * The cached messages to load the complete chunk on the client. The chunk data
+         * message is only encoded once and shared between all the observers, until
+         * the chunk is modified.
+         */
+        @Nullable private List<Message> cachedLoadMessages;
+
+        /**
+         * The chunk and its modification counter at the moment
+         * that the cached load messages were created.
+         */
+        @Nullable private LanternChunk cachedChunk;
+        private int cachedModificationCount;
+
+        /**
+         * The estimated size of the chunk data in the cached load messages,
+         * this counts towards the chunk streaming budget of the observers.
+         */
+        private volatile int cachedLoadSize;
+
+        /**
+         * Whether this chunk was removed from the observed chunks, guarded by this chunk.
+         */
+        private boolean removed;
+
         ObservedChunk(Vector2i coords) {
             this.coords = coords;
         }
@@ -254,13 +339,20 @@ void addBlockChange(Supplier<Vector3i> coords) {
 
         void streamChanges() {
             final LanternChunk chunk = world.getChunkManager().getChunkIfLoaded(this.coords);
+            if (this.pendingLoad && chunk != null) {
+                streamChunkLoad(chunk);
+            }
             if (chunk == null || this.clientObservers.isEmpty()) {
+                // Tile entity changes cannot be tracked without
+                // observers, so the cache may become outdated
+                invalidateLoadMessages();
                 return;
             }
 
             if (this.dirtyChunk) {
-                final List<Message> messages = createLoadChunkMessages(chunk, ALL_SECTIONS_BIT_MASK, true);
-                this.clientObservers.forEach(player -> player.getConnection().send(messages));
+                invalidateLoadMessages();
+                final List<Message> messages = retainLoadMessages(chunk);
+                sendShared(this.clientObservers, messages);
                 this.dirtyChunk = false;
                 this.dirtyBlocks.clear();
                 return;
@@ -285,8 +377,12 @@ void streamChanges() {
 
                 final int clumpingThreshold = world.getProperties().getConfig().getChunkClumpingThreshold();
                 if (changes.size() >= clumpingThreshold) {
-                    messages = createLoadChunkMessages(chunk, dirtySections, false);
-                    this.clientObservers.forEach(player -> player.getConnection().send(messages));
+                    final List<Message> loadMessages = createLoadChunkMessages(chunk, dirtySections, false);
+                    // Only encode the chunk data once for all the observers
+                    loadMessages.set(0, new CachedMessage(loadMessages.get(0)));
+                    sendShared(this.clientObservers, loadMessages);
+                    // The load messages are already sent, don't send them again below
+                    messages = new ArrayList<>();
                     mappedTileEntities = Collections.emptyMap();
                 } else {
                     messages = new ArrayList<>();
@@ -319,12 +415,18 @@ void streamChanges() {
             }
 
             final TileEntityUpdateContext updateContext = new TileEntityUpdateContext(messages);
+            final int messagesCount = messages.size();
             for (Map.Entry<Vector3i, LanternTileEntity> entry : mappedTileEntities.entrySet()) {
                 final AbstractTileEntityProtocol protocol = entry.getValue().getProtocol();
                 if (protocol != null) {
                     TileEntityProtocolHelper.update(protocol, updateContext, 1);
                 }
             }
+            // A tile entity was updated, so the tile
+            // entity data in the cache is outdated
+            if (messages.size() != messagesCount) {
+                invalidateLoadMessages();
+            }
 
             if (!this.addedBlockActions.isEmpty()) {
                 for (Map.Entry<Vector3i, QueuedBlockAction> entry : this.addedBlockActions.entrySet()) {
@@ -342,14 +444,80 @@ void streamChanges() {
             this.clientObservers.forEach(player -> player.getConnection().send(messages));
         }
 
+        /**
+         * Gets the cached messages to load the complete chunk on the client, the
+         * cache will be rebuilt if the chunk was modified since it was created.
+         * <p>
+         * The cached chunk data message is retained before the cache is released
+         * by this monitor, so it cannot be invalidated by a different thread
+         * before it's send. The returned reference must be released by the caller.
+         *
+         * @param chunk The chunk
+         * @return The load messages
+         */
+        private synchronized List<Message> retainLoadMessages(LanternChunk chunk) {
+            // Get the counter before creating the messages, modifications
+            // while creating them will invalidate the cache next time
+            final int modificationCount = chunk.getModificationCount();
+            if (this.cachedLoadMessages == null || this.cachedChunk != chunk ||
+                    this.cachedModificationCount != modificationCount) {
+                invalidateLoadMessages();
+                final List<Message> messages = createLoadChunkMessages(chunk, ALL_SECTIONS_BIT_MASK, true);
+                this.cachedLoadSize = estimateSize((MessagePlayOutChunkData) messages.get(0));
+                messages.set(0, new CachedMessage(messages.get(0)));
+                this.cachedLoadMessages = Collections.unmodifiableList(messages);
+                this.cachedModificationCount = modificationCount;
+                this.cachedChunk = chunk;
+            }
+            ReferenceCountUtil.retain(this.cachedLoadMessages.get(0));
+            return this.cachedLoadMessages;
+        }
+
+        /**
+         * Invalidates the cached load messages.
+         */
+        private synchronized void invalidateLoadMessages() {
+            if (this.cachedLoadMessages != null) {
+                // Release the reference of the cache, sessions that are
+                // still sending the message hold their own reference
+                ReferenceCountUtil.release(this.cachedLoadMessages.get(0));
+                this.cachedLoadMessages = null;
+                this.cachedChunk = null;
+            }
+        }
+
+        /**
+         * Creates the messages to load the chunk on the client, the chunk
+         * data message is retained and must be released by the caller.
+         *
+         * @param chunk The chunk
+         * @return The load messages
+         */
         private List<Message> createChunkLoadMessages(LanternChunk chunk) {
-            final List<Message> messages = createLoadChunkMessages(chunk, ALL_SECTIONS_BIT_MASK, true);
+            final List<Message> messages = new ArrayList<>(retainLoadMessages(chunk));
             if (!this.activeBlockActions.isEmpty()) {
                 this.activeBlockActions.values().forEach(queuedBlockAction -> messages.add(queuedBlockAction.blockActionData));
             }
             return messages;
         }
 
+        /**
+         * Sends the messages to all the given observers. The chunk data message
+         * is shared between the sessions, so it's retained for every session and
+         * the reference that is held by the caller is released afterwards.
+         *
+         * @param observers The observers
+         * @param messages The messages
+         */
+        private void sendShared(Iterable<LanternPlayer> observers, List<Message> messages) {
+            final Message chunkData = messages.get(0);
+            for (LanternPlayer observer : observers) {
+                ReferenceCountUtil.retain(chunkData);
+                observer.getConnection().send(messages);
+            }
+            ReferenceCountUtil.release(chunkData);
+        }
+
         /**
          * Sends a chunk load message to all the observers
          * of this chunk.
@@ -357,19 +525,33 @@ private List<Message> createChunkLoadMessages(LanternChunk chunk) {
          * @param chunk The chunk
          */
         void streamChunkLoad(LanternChunk chunk) {
+            // Wait for the light engine, the client doesn't
+            // calculate the light of the chunks it receives
+            if (!chunk.isLightPopulated()) {
+                this.pendingLoad = true;
+                return;
+            }
+            this.pendingLoad = false;
             List<Message> messages = null;
             for (LanternPlayer observer : this.observers) {
                 if (this.clientObservers.add(observer)) {
                     if (messages == null) {
                         messages = createChunkLoadMessages(chunk);
                     }
+                    // Every session takes over a reference of the chunk data
+                    ReferenceCountUtil.retain(messages.get(0));
                     observer.getConnection().send(messages);
+                    observer.getChunkStreamingQueue().onChunkSent(this.cachedLoadSize);
                 }
             }
+            if (messages != null) {
+                ReferenceCountUtil.release(messages.get(0));
+            }
             // TODO: Also send tile entities
         }
 
         void streamChunkUnload(LanternChunk chunk) {
+            invalidateLoadMessages();
             Message message = null;
             for (LanternPlayer observer : this.observers) {
                 if (this.clientObservers.remove(observer)) {
@@ -393,51 +575,10 @@ private List<Message> createLoadChunkMessages(LanternChunk chunk, int sectionsBi
             for (int i = 0; i < sections.length; i++) {
                 if (sections[i] != null) {
                     final LanternChunk.ChunkSectionSnapshot section = sections[i];
-                    // The size of the palette
-                    int paletteSize = section.typesCountMap.size();
-                    // The amount of bits for every block state
-                    int bitsPerValue = Integer.highestOneBit(paletteSize);
-                    // The palette that will be send to the client
-                    int[] palette;
-                    // The lookup for global to local palette id
-                    Short2ShortMap globalToLocalPalette;
-                    // There seems to be a weird issue, some blocks are not rendered
-                    // on the client (bedrock with the flat generator) and it cannot
-                    // be placed in creative
-                    if (bitsPerValue <= 8) {
-                        // The vanilla client/server will not go lower then 4 bits
-                        if (bitsPerValue < 4) {
-                            bitsPerValue = 4;
-                        }
-                        globalToLocalPalette = new Short2ShortOpenHashMap(paletteSize);
-                        palette = new int[paletteSize];
-                        short currentId = 0;
-                        for (short type : section.typesCountMap.keySet().toShortArray()) {
-                            globalToLocalPalette.put(type, currentId);
-                            palette[currentId] = type;
-                            currentId++;
-                        }
-                    } else {
-                        // int statesCount = Registries.getBlockRegistry().getBlockStatesCount();
-                        // bitsPerValue = Integer.highestOneBit(statesCount);
-                        // The value should be the amount of bits per value of
-                        // the CLIENT palette, it will otherwise not work.
-                        // This is sadly enough hardcoded in the client
-                        bitsPerValue = 13;
-                        globalToLocalPalette = null;
-                        palette = null;
-                    }
-                    final short[] types = section.types;
-                    final VariableValueArray array = new VariableValueArray(bitsPerValue, types.length);
-                    if (globalToLocalPalette != null) {
-                        for (int j = 0; j < types.length; j++) {
-                            array.set(j, globalToLocalPalette.get(types[j]));
-                        }
-                    } else {
-                        for (int j = 0; j < types.length; j++) {
-                            array.set(j, types[j]);
-                        }
-                    }
+                    // The snapshot already contains a bit-packed copy of the
+                    // types, so it can be send directly to the client
+                    final VariableValueArray array = section.types.getNetworkValues();
+                    final int[] palette = section.types.copyPalette();
                     final Short2ObjectMap<DataView> tileEntityInitData = new Short2ObjectOpenHashMap<>();
                     final TileEntityChunkInitContext initContext = new TileEntityChunkInitContext(
                             messages, tileEntityInitData, chunk.getX(), chunk.getZ(), i);
@@ -493,6 +634,7 @@ public void removeObserver(LanternPlayer observer, boolean updateClient) {
             if (this.clientObservers.isEmpty()) {
                 this.dirtyBlocks.clear();
                 this.dirtyChunk = false;
+                invalidateLoadMessages();
             }
         }
 
@@ -508,8 +650,14 @@ public void addObserver(LanternPlayer observer) {
                 // The chunk is already loaded, we can directly send the messages
                 // to the player
                 if (chunk != null) {
-                    this.clientObservers.add(observer);
-                    observer.getConnection().send(createChunkLoadMessages(chunk));
+                    if (chunk.isLightPopulated()) {
+                        this.clientObservers.add(observer);
+                        // The session takes over the reference of the chunk data
+                        observer.getConnection().send(createChunkLoadMessages(chunk));
+                        observer.getChunkStreamingQueue().onChunkSent(this.cachedLoadSize);
+                    } else {
+                        this.pendingLoad = true;
+                    }
                 }
                 // Otherwise we will wait for the LoadChunkEvent to be called and
                 // send the messages at that point
@@ -38,8 +38,10 @@
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.lanternpowered.api.cause.CauseStack;
+import org.lanternpowered.api.event.ConcurrentListener;
 import org.lanternpowered.lmbda.LambdaFactory;
 import org.lanternpowered.lmbda.MethodHandlesX;
+import org.lanternpowered.server.cause.LanternCauseStack;
 import org.lanternpowered.server.cause.LanternCauseStackManager;
 import org.lanternpowered.server.data.key.KeyEventListener;
 import org.lanternpowered.server.event.filter.FilterFactory;
@@ -113,7 +115,8 @@ public class LanternEventManager implements EventManager {
     private final Map<Class<?>, ShouldFireField> shouldFireFields = new HashMap<>();
 
     /**
-     * A lock to synchronize events called from a {@link SyncLanternThread}.
+     * A lock to synchronize listeners called from a {@link SyncLanternThread},
+     * unless they are marked with {@link ConcurrentListener}.
      */
     private final Object syncPostLock = new Object();
 
@@ -351,7 +354,9 @@ public void registerListeners(Object plugin, Object listener) {
                         continue;
                     }
 
-                    handlers.add(createRegistration(pluginContainer, eventType, subscribe.order(), handler));
+                    final boolean concurrent = method.isAnnotationPresent(ConcurrentListener.class) ||
+                            handle.isAnnotationPresent(ConcurrentListener.class);
+                    handlers.add(createRegistration(pluginContainer, eventType, subscribe.order(), handler, concurrent));
                 } else {
                     methodErrors.put(method, error);
                 }
@@ -419,18 +424,21 @@ public <T extends Event> RegisteredListener<T> register(Object plugin, TypeToken
         checkNotNull(order, "order");
         checkNotNull(listener, "listener");
         registerListenerInstance(pluginContainer, listener);
-        final RegisteredListener<T> registeredListener = createRegistration(pluginContainer, eventType, order, listener);
+        // Check the actual handle, in case the listener is wrapped
+        final Object handle = listener instanceof LanternEventListener ? ((LanternEventListener<?>) listener).getHandle() : listener;
+        final boolean concurrent = handle.getClass().isAnnotationPresent(ConcurrentListener.class);
+        final RegisteredListener<T> registeredListener = createRegistration(pluginContainer, eventType, order, listener, concurrent);
         register(Collections.singletonList(registeredListener));
         return registeredListener;
     }
 
     private static <T extends Event> RegisteredListener<T> createRegistration(PluginContainer plugin, TypeToken<T> eventType,
-            Order order, EventListener<? super T> handler) {
+            Order order, EventListener<? super T> handler, boolean concurrent) {
         TypeToken<?> genericType = null;
         if (GenericEvent.class.isAssignableFrom(eventType.getRawType())) {
             genericType = eventType.resolveType(GENERIC_EVENT_TYPE);
         }
-        return new RegisteredListener(plugin, new EventType(eventType.getRawType(), genericType), order, handler);
+        return new RegisteredListener(plugin, new EventType(eventType.getRawType(), genericType), order, handler, concurrent);
     }
 
     private void unregister(Predicate<RegisteredListener<?>> unregister) {
@@ -533,33 +541,57 @@ private boolean post(Event event, Collection<RegisteredListener<?>> listeners,
             ThrowableConsumer<RegisteredListener, Exception> handler) {
         final Thread thread = Thread.currentThread();
         final CauseStack causeStack = LanternCauseStackManager.INSTANCE.getCauseStackOrEmpty(thread);
-        if (thread instanceof SyncLanternThread) {
-            synchronized (this.syncPostLock) {
-                return post(causeStack, event, listeners, handler);
-            }
-        }
-        return post(causeStack, event, listeners, handler);
+        return post(causeStack, event, listeners, handler, thread instanceof SyncLanternThread);
     }
 
-    private boolean post(CauseStack causeStack, Event event, Collection<RegisteredListener<?>> listeners,
-            ThrowableConsumer<RegisteredListener, Exception> handler) {
+    boolean post(CauseStack causeStack, Event event, Collection<RegisteredListener<?>> listeners,
+            ThrowableConsumer<RegisteredListener, Exception> handler, boolean sync) {
         for (RegisteredListener listener : listeners) {
             // Add the calling plugin to the cause stack
-            causeStack.pushCause(listener.getPlugin());
-            try (CauseStack.Frame ignored = causeStack.pushCauseFrame()) {
-                if (event instanceof AbstractEvent) {
-                    ((AbstractEvent) event).currentOrder = listener.getOrder();
+            final CauseStack.Frame frame = pushListenerFrame(causeStack, listener.getPlugin());
+            try {
+                try {
+                    if (event instanceof AbstractEvent) {
+                        ((AbstractEvent) event).currentOrder = listener.getOrder();
+                    }
+                    if (sync && !listener.isConcurrent()) {
+                        // Only synchronize the listeners that aren't safe to be
+                        // called by multiple world threads at the same time
+                        synchronized (this.syncPostLock) {
+                            handler.accept(listener);
+                        }
+                    } else {
+                        handler.accept(listener);
+                    }
+                } finally {
+                    popListenerFrame(causeStack, frame);
                 }
-                handler.accept(listener);
             } catch (Throwable e) {
                 this.logger.error("Could not pass {} to {}", event.getClass().getSimpleName(),
                         listener.getPlugin(), e);
             }
-            causeStack.popCause();
         }
         if (event instanceof AbstractEvent) {
             ((AbstractEvent) event).currentOrder = null;
         }
         return event instanceof Cancellable && ((Cancellable) event).isCancelled();
     }
+
+    private static CauseStack.Frame pushListenerFrame(CauseStack causeStack, Object plugin) {
+        if (causeStack instanceof LanternCauseStack) {
+            // Reuses the frames, no need to allocate them for every listener
+            return ((LanternCauseStack) causeStack).pushListenerFrame(plugin);
+        }
+        causeStack.pushCause(plugin);
+        return causeStack.pushCauseFrame();
+    }
+
+    private static void popListenerFrame(CauseStack causeStack, CauseStack.Frame frame) {
+        if (causeStack instanceof LanternCauseStack) {
+            ((LanternCauseStack) causeStack).popListenerFrame(frame);
+        } else {
+            frame.close();
+            causeStack.popCause();
+        }
+    }
 }
@@ -38,8 +38,11 @@
 
     private final EventType<T> eventType;
     private final Order order;
+    private final boolean concurrent;
 
-    RegisteredListener(PluginContainer plugin, EventType<T> eventType, Order order, EventListener<? super T> handler) {
+    RegisteredListener(PluginContainer plugin, EventType<T> eventType, Order order, EventListener<? super T> handler,
+            boolean concurrent) {
+        this.concurrent = concurrent;
         this.plugin = plugin;
         this.eventType = eventType;
         this.order = order;
@@ -58,6 +61,16 @@ public Order getOrder() {
         return this.order;
     }
 
+    /**
+     * Gets whether this listener can be called concurrently
+     * by multiple world threads.
+     *
+     * @return Is concurrent
+     */
+    public boolean isConcurrent() {
+        return this.concurrent;
+    }
+
     public EventListener<? super T> getHandler() {
         return this.handler;
     }
@@ -86,6 +99,7 @@ public String toString() {
                 .add("plugin", this.plugin.getId())
                 .add("eventType", this.eventType)
                 .add("order", this.order.toString())
+                .add("concurrent", this.concurrent)
                 .toString();
     }
 }
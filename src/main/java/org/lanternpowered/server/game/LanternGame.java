@@ -97,8 +97,13 @@
 import org.spongepowered.api.world.TeleportHelper;
 
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
@@ -260,6 +265,9 @@ public void initialize() throws IOException {
             throw new RuntimeException("An error occurred while loading the plugins.", e);
         }
 
+        // Open the startup cache, now that all the plugin sources are known
+        openStartupCache();
+
         this.gameRegistry.registerDefaults();
         this.gameRegistry.earlyRegistry();
 
@@ -338,10 +346,32 @@ public void initialize() throws IOException {
         // Load-complete phase
         postGameStateChange(SpongeEventFactory.createGameLoadCompleteEvent(gameCause));
 
+        // Everything is generated by now, store it for the next startup
+        StartupCache.get().save();
+
         // Pop off the game instance
         causeStack.popCause();
     }
 
+    private void openStartupCache() {
+        final Set<Path> sources = new HashSet<>();
+        for (PluginContainer plugin : this.pluginManager.getPlugins()) {
+            plugin.getSource().ifPresent(sources::add);
+        }
+        // The implementation and the api, these may be the same jar
+        for (Class<?> theClass : new Class<?>[] { LanternGame.class, Game.class }) {
+            final CodeSource codeSource = theClass.getProtectionDomain().getCodeSource();
+            if (codeSource != null) {
+                try {
+                    sources.add(Paths.get(codeSource.getLocation().toURI()));
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    this.logger.warn("Unable to resolve the source of {}", theClass.getName(), e);
+                }
+            }
+        }
+        StartupCache.get().open(this.gameFolder.resolve("cache").resolve("startup.dat"), StartupCache.computeHash(sources));
+    }
+
     public <T extends GameStateEvent> void postGameStateChange(T event) {
         checkNotNull(event, "gameState");
         final GameState[] gameStates = GameState.values();
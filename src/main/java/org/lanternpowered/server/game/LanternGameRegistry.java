@@ -105,6 +105,7 @@
 import org.lanternpowered.server.game.registry.AdditionalPluginCatalogRegistryModule;
 import org.lanternpowered.server.game.registry.CatalogMappingData;
 import org.lanternpowered.server.game.registry.CatalogMappingDataHolder;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.lanternpowered.server.game.registry.EarlyRegistration;
 import org.lanternpowered.server.game.registry.EnumValueRegistryModule;
 import org.lanternpowered.server.game.registry.factory.ResourcePackFactoryModule;
@@ -443,7 +444,6 @@
 import org.spongepowered.api.item.recipe.crafting.ShapedCraftingRecipe;
 import org.spongepowered.api.item.recipe.crafting.ShapelessCraftingRecipe;
 import org.spongepowered.api.item.recipe.smelting.SmeltingRecipe;
-import org.spongepowered.api.item.recipe.smelting.SmeltingRecipeRegistry;
 import org.spongepowered.api.network.status.Favicon;
 import org.spongepowered.api.registry.AdditionalCatalogRegistryModule;
 import org.spongepowered.api.registry.AlternateCatalogRegistryModule;
@@ -515,17 +515,25 @@
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
@@ -544,12 +552,15 @@ public class LanternGameRegistry implements XGameRegistry {
     private final Map<Class<? extends RegistryModule>, RegistryModule> classMap = new IdentityHashMap<>();
     private final Map<Class<?>, Supplier<?>> builderSupplierMap = new IdentityHashMap<>();
     private final List<Class<? extends RegistryModule>> orderedModules = new ArrayList<>();
+    private final Map<Class<? extends RegistryModule>, Set<Class<? extends RegistryModule>>> moduleDependencies = new IdentityHashMap<>();
     private final Set<RegistryModule> registryModules = new HashSet<>();
 
     // The phase of the registrations, this starts at null to define the early state.
     @Nullable private RegistrationPhase phase = null;
     // Whether all the modules are synced
     private boolean modulesSynced = true;
+    // The pool that is used to register the modules concurrently, only available during startup
+    @Nullable private ForkJoinPool registrationPool;
 
     @Inject
     private LanternGameRegistry(LanternGame game) {
@@ -964,6 +975,10 @@ public void postInit() {
         this.phase = RegistrationPhase.POST_INIT;
         registerModulePhase();
         this.phase = RegistrationPhase.LOADED;
+        if (this.registrationPool != null) {
+            this.registrationPool.shutdown();
+            this.registrationPool = null;
+        }
     }
 
     private void syncModules() {
@@ -971,6 +986,7 @@ private void syncModules() {
             return;
         }
         final DirectedGraph<Class<? extends RegistryModule>> graph = new DirectedGraph<>();
+        this.moduleDependencies.clear();
         for (RegistryModule aModule : this.registryModules) {
             if (!this.classMap.containsKey(aModule.getClass())) {
                 this.classMap.put(aModule.getClass(), aModule);
@@ -1100,37 +1116,147 @@ private boolean isProperPhase(Method method) {
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * A registration of a {@link RegistryModule} within the current phase.
+     */
+    private static final class ModuleRegistration {
+
+        private final Class<? extends RegistryModule> moduleClass;
+        // Is completed once the module is registered
+        private final CompletableFuture<Void> registered;
+        // Is completed once the register event of the module is posted
+        private final CompletableFuture<Void> posted = new CompletableFuture<>();
+
+        private ModuleRegistration(Class<? extends RegistryModule> moduleClass, CompletableFuture<Void> registered) {
+            this.moduleClass = moduleClass;
+            this.registered = registered;
+        }
+    }
+
     private void registerModulePhase() {
         syncModules();
+        final long start = System.nanoTime();
+        final Map<Class<? extends RegistryModule>, ModuleRegistration> registrations = new IdentityHashMap<>();
+        // The registrations of which the register events still need to be posted, in registration order
+        final Deque<ModuleRegistration> pendingEvents = new ArrayDeque<>();
+        int concurrentModules = 0;
         for (Class<? extends RegistryModule> moduleClass : this.orderedModules) {
-            if (!this.classMap.containsKey(moduleClass)) {
+            final RegistryModule module = this.classMap.get(moduleClass);
+            if (module == null) {
                 throw new IllegalStateException("Something funky happened! The module "
                         + moduleClass + " is required but seems to be missing.");
             }
-            tryModulePhaseRegistration(this.classMap.get(moduleClass));
-            if (this.phase == RegistrationPhase.INIT) {
-                Map.Entry<Class<? extends CatalogType>, CatalogRegistryModule<?>> selectedEntry = null;
-                for (Map.Entry<Class<? extends CatalogType>, CatalogRegistryModule<?>> entry : this.catalogRegistryMap.entrySet()) {
-                    if (entry.getValue().getClass() == moduleClass) {
-                        selectedEntry = entry;
-                        break;
-                    }
-                }
-                if (selectedEntry == null) {
-                    continue;
+            final List<ModuleRegistration> dependencies = this.moduleDependencies
+                    .getOrDefault(moduleClass, Collections.emptySet()).stream()
+                    .map(registrations::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            final ModuleRegistration registration;
+            if (moduleClass.getAnnotation(ConcurrentRegistration.class) != null) {
+                if (this.registrationPool == null) {
+                    this.registrationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
                 }
-                final CatalogRegistryModule module = selectedEntry.getValue();
-                if (module instanceof AdditionalCatalogRegistryModule &&
-                        module.getClass().getAnnotation(CustomRegistrationPhase.class) == null) {
-                    this.game.getEventManager().post(new LanternGameRegistryRegisterEvent(CauseStack.current().getCurrentCause(),
-                            selectedEntry.getKey(), (AdditionalCatalogRegistryModule) module));
+                // The registration starts once the register events of all the dependencies are posted
+                final CompletableFuture<?>[] posted = dependencies.stream()
+                        .map(dependency -> dependency.posted)
+                        .toArray(CompletableFuture<?>[]::new);
+                registration = new ModuleRegistration(moduleClass, CompletableFuture.allOf(posted)
+                        .thenRunAsync(() -> timedModulePhaseRegistration(module), this.registrationPool));
+                concurrentModules++;
+            } else {
+                // Dependencies that are registered concurrently may still be running
+                for (ModuleRegistration dependency : dependencies) {
+                    postRegisterEvents(pendingEvents, dependency);
                 }
+                timedModulePhaseRegistration(module);
+                registration = new ModuleRegistration(moduleClass, CompletableFuture.completedFuture(null));
             }
+            registrations.put(moduleClass, registration);
+            pendingEvents.add(registration);
+            // Post the events of the modules that are already done
+            postRegisterEvents(pendingEvents, null);
+        }
+        if (!pendingEvents.isEmpty()) {
+            postRegisterEvents(pendingEvents, pendingEvents.getLast());
         }
+        this.game.getLogger().debug("Registration phase {} took {}ms ({} concurrent modules)", getPhaseName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), concurrentModules);
         registerAdditionalPhase();
     }
 
+    /**
+     * Posts the register events of the pending {@link ModuleRegistration}s on the
+     * current thread, in registration order. If a target is specified, the
+     * registrations will be waited for until the event of the target is posted,
+     * otherwise only the events of the modules that are already done are posted.
+     *
+     * @param pendingEvents The pending registrations
+     * @param target The registration to wait for, or null
+     */
+    private void postRegisterEvents(Deque<ModuleRegistration> pendingEvents, @Nullable ModuleRegistration target) {
+        ModuleRegistration registration;
+        while ((registration = pendingEvents.peekFirst()) != null) {
+            if (target == null ? !registration.registered.isDone() : target.posted.isDone()) {
+                break;
+            }
+            joinRegistrations(registration.registered);
+            pendingEvents.pollFirst();
+            postRegisterEvent(registration.moduleClass);
+            registration.posted.complete(null);
+        }
+    }
+
+    private static void joinRegistrations(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void timedModulePhaseRegistration(RegistryModule module) {
+        final long start = System.nanoTime();
+        tryModulePhaseRegistration(module);
+        final long time = System.nanoTime() - start;
+        if (time >= TimeUnit.MILLISECONDS.toNanos(1)) {
+            this.game.getLogger().debug("Registration of module {} in phase {} took {}ms",
+                    module.getClass().getSimpleName(), getPhaseName(), TimeUnit.NANOSECONDS.toMillis(time));
+        }
+    }
+
+    private String getPhaseName() {
+        return this.phase == null ? "EARLY" : this.phase.name();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void postRegisterEvent(Class<? extends RegistryModule> moduleClass) {
+        if (this.phase != RegistrationPhase.INIT) {
+            return;
+        }
+        Map.Entry<Class<? extends CatalogType>, CatalogRegistryModule<?>> selectedEntry = null;
+        for (Map.Entry<Class<? extends CatalogType>, CatalogRegistryModule<?>> entry : this.catalogRegistryMap.entrySet()) {
+            if (entry.getValue().getClass() == moduleClass) {
+                selectedEntry = entry;
+                break;
+            }
+        }
+        if (selectedEntry == null) {
+            return;
+        }
+        final CatalogRegistryModule module = selectedEntry.getValue();
+        if (module instanceof AdditionalCatalogRegistryModule &&
+                module.getClass().getAnnotation(CustomRegistrationPhase.class) == null) {
+            this.game.getEventManager().post(new LanternGameRegistryRegisterEvent(CauseStack.current().getCurrentCause(),
+                    selectedEntry.getKey(), (AdditionalCatalogRegistryModule) module));
+        }
+    }
+
     private void registerAdditionalPhase() {
         for (Class<? extends RegistryModule> moduleClass : this.orderedModules) {
             final RegistryModule module = this.classMap.get(moduleClass);
@@ -1142,8 +1268,11 @@ private void addToGraph(RegistryModule module, DirectedGraph<Class<? extends Reg
         graph.add(module.getClass());
         final RegistrationDependency dependency = module.getClass().getAnnotation(RegistrationDependency.class);
         if (dependency != null) {
+            final Set<Class<? extends RegistryModule>> dependencies = this.moduleDependencies.computeIfAbsent(
+                    module.getClass(), type -> new HashSet<>());
             for (Class<? extends RegistryModule> dependent : dependency.value()) {
                 graph.addEdge(checkNotNull(module.getClass(), "Dependency class was null!"), dependent);
+                dependencies.add(dependent);
             }
         }
     }
@@ -1262,7 +1391,7 @@ public ICraftingRecipeRegistry getCraftingRecipeRegistry() {
     }
 
     @Override
-    public SmeltingRecipeRegistry getSmeltingRecipeRegistry() {
+    public LanternSmeltingRecipeRegistry getSmeltingRecipeRegistry() {
         return this.smeltingRecipeRegistry;
     }
 
@@ -0,0 +1,243 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.game;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * A cache that persists data that is computed during the startup
+ * of the server, for example generated bytecode.
+ * <p>
+ * The cache is keyed by a hash of all the jars that are loaded by the
+ * server (the api, the implementation and the plugins), if the hash
+ * doesn't match the cache is discarded and the data should be computed
+ * again. Every entry also holds a description of the inputs it was
+ * computed from, which is validated when the entry is requested.
+ */
+public final class StartupCache {
+
+    private static final int MAGIC = 0x4C534331; // LSC1
+    private static final int VERSION = 2;
+
+    private static final StartupCache INSTANCE = new StartupCache();
+
+    public static StartupCache get() {
+        return INSTANCE;
+    }
+
+    private static final class Entry {
+
+        private final String inputs;
+        private final byte[] data;
+
+        private Entry(String inputs, byte[] data) {
+            this.inputs = inputs;
+            this.data = data;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    @Nullable private Path file;
+    @Nullable private String hash;
+
+    // Whether entries were added or replaced since the cache was loaded
+    private boolean dirty;
+
+    private StartupCache() {
+    }
+
+    /**
+     * Computes the hash for the given sources, the hash is based
+     * on the path, size and last modification time of the files.
+     * <p>
+     * Directories (in development environments) can't be validated
+     * this way, so the hash will never match if one is present.
+     *
+     * @param sources The sources
+     * @return The hash
+     */
+    public static String computeHash(Collection<Path> sources) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(VERSION);
+        // Sort the paths, the order of the plugins isn't guaranteed
+        for (Path source : new TreeSet<>(sources)) {
+            hasher.putString(source.toAbsolutePath().toString(), StandardCharsets.UTF_8);
+            if (Files.isDirectory(source)) {
+                hasher.putLong(System.nanoTime());
+                continue;
+            }
+            try {
+                hasher.putLong(Files.size(source));
+                hasher.putLong(Files.getLastModifiedTime(source).toMillis());
+            } catch (IOException e) {
+                // Files that can't be accessed, make sure that
+                // the cache won't be used on the next startup
+                hasher.putLong(System.nanoTime());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Opens the cache stored in the given file. The stored entries are
+     * only loaded if the stored hash matches the given hash.
+     *
+     * @param file The file
+     * @param hash The hash of the sources
+     */
+    public synchronized void open(Path file, String hash) {
+        this.file = checkNotNull(file, "file");
+        this.hash = checkNotNull(hash, "hash");
+        this.entries.clear();
+        this.dirty = false;
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (InputStream is = Files.newInputStream(file);
+                DataInputStream dis = new DataInputStream(new GZIPInputStream(is))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION || !hash.equals(dis.readUTF())) {
+                Lantern.getLogger().info("The startup cache is outdated and will be rebuilt.");
+                this.dirty = true;
+                return;
+            }
+            final int count = dis.readInt();
+            for (int i = 0; i < count; i++) {
+                final String key = readString(dis);
+                final String inputs = readString(dis);
+                final byte[] data = new byte[dis.readInt()];
+                dis.readFully(data);
+                this.entries.put(key, new Entry(inputs, data));
+            }
+        } catch (IOException e) {
+            Lantern.getLogger().warn("Failed to load the startup cache, it will be rebuilt.", e);
+            this.entries.clear();
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Writes the string as length prefixed UTF-8 bytes, unlike
+     * {@link DataOutputStream#writeUTF(String)} the length isn't limited.
+     */
+    private static void writeString(DataOutputStream dos, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    private static String readString(DataInputStream dis) throws IOException {
+        final byte[] bytes = new byte[dis.readInt()];
+        dis.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the data for the given key, if the cache has an entry
+     * that was computed from the same inputs.
+     *
+     * @param key The key
+     * @param inputs The description of the inputs
+     * @return The data, or {@code null} if not present
+     */
+    @Nullable
+    public synchronized byte[] get(String key, String inputs) {
+        final Entry entry = this.entries.get(key);
+        return entry == null || !entry.inputs.equals(inputs) ? null : entry.data;
+    }
+
+    /**
+     * Puts the data for the given key into the cache.
+     *
+     * @param key The key
+     * @param inputs The description of the inputs
+     * @param data The data
+     */
+    public synchronized void put(String key, String inputs, byte[] data) {
+        checkNotNull(key, "key");
+        checkNotNull(inputs, "inputs");
+        checkNotNull(data, "data");
+        this.entries.put(key, new Entry(inputs, data));
+        this.dirty = true;
+    }
+
+    /**
+     * Saves the cache if there were any modifications.
+     */
+    public synchronized void save() {
+        if (this.file == null || !this.dirty) {
+            return;
+        }
+        try {
+            final Path parent = this.file.getParent();
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+            // Write to a temporary file first, a partially written cache would just be discarded
+            // on the next startup, but this avoids the unnecessary regeneration
+            final Path tmpFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmpFile);
+                    DataOutputStream dos = new DataOutputStream(new GZIPOutputStream(os))) {
+                dos.writeInt(MAGIC);
+                dos.writeInt(VERSION);
+                //noinspection ConstantConditions
+                dos.writeUTF(this.hash);
+                dos.writeInt(this.entries.size());
+                for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+                    writeString(dos, entry.getKey());
+                    writeString(dos, entry.getValue().inputs);
+                    dos.writeInt(entry.getValue().data.length);
+                    dos.write(entry.getValue().data);
+                }
+            }
+            Files.move(tmpFile, this.file, StandardCopyOption.REPLACE_EXISTING);
+            this.dirty = false;
+        } catch (IOException e) {
+            Lantern.getLogger().warn("Failed to save the startup cache.", e);
+        }
+    }
+}
@@ -34,6 +34,7 @@
 import static org.lanternpowered.server.block.provider.property.PropertyProviders.flammableInfo;
 import static org.lanternpowered.server.block.provider.property.PropertyProviders.hardness;
 import static org.lanternpowered.server.block.provider.property.PropertyProviders.lightEmission;
+import static org.lanternpowered.server.block.provider.property.PropertyProviders.lightOpacity;
 import static org.lanternpowered.server.block.provider.property.PropertyProviders.replaceable;
 import static org.lanternpowered.server.block.provider.property.PropertyProviders.solidMaterial;
 import static org.lanternpowered.server.item.PropertyProviders.equipmentType;
@@ -94,6 +95,7 @@
 import org.lanternpowered.server.data.type.LanternTreeType;
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.game.registry.AdditionalPluginCatalogRegistryModule;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.lanternpowered.server.game.registry.type.data.InstrumentTypeRegistryModule;
 import org.lanternpowered.server.game.registry.type.data.KeyRegistryModule;
 import org.lanternpowered.server.game.registry.type.item.ItemRegistryModule;
@@ -122,6 +124,7 @@
         InstrumentTypeRegistryModule.class,
         BlockSoundGroupRegistryModule.class,
 })
+@ConcurrentRegistration
 public final class BlockRegistryModule extends AdditionalPluginCatalogRegistryModule<BlockType> implements BlockRegistry {
 
     private static final BlockRegistryModule INSTANCE = new BlockRegistryModule();
@@ -486,7 +489,8 @@ public void registerDefaults() {
                         .itemType()
                         .properties(builder -> builder
                                 .add(hardness(0.3))
-                                .add(blastResistance(1.5)))
+                                .add(blastResistance(1.5))
+                                .add(lightOpacity(0)))
                         .translation("tile.glass.name")
                         .build("minecraft", "glass"));
         ////////////////////
@@ -645,7 +649,8 @@ public void registerDefaults() {
                         .properties(builder -> builder
                                 .add(PASSABLE)
                                 .add(hardness(4.0))
-                                .add(blastResistance(20.0)))
+                                .add(blastResistance(20.0))
+                                .add(lightOpacity(1)))
                         .translation("tile.web.name")
                         .build("minecraft", "web"));
         //////////////////////
@@ -1042,7 +1047,8 @@ public void registerDefaults() {
         register(95, dyedBuilder("tile.stainedGlass.%s.name")
                         .properties(builder -> builder
                                 .add(hardness(0.3))
-                                .add(blastResistance(1.5)))
+                                .add(blastResistance(1.5))
+                                .add(lightOpacity(0)))
                         .build("minecraft", "stained_glass"),
                 this::dyedData);
         ///////////////////
@@ -1257,7 +1263,8 @@ public void registerDefaults() {
         register(160, dyedBuilder("tile.thinStainedGlass.%s.name")
                         .properties(builder -> builder
                                 .add(hardness(0.3))
-                                .add(blastResistance(1.5)))
+                                .add(blastResistance(1.5))
+                                .add(lightOpacity(0)))
                         .build("minecraft", "stained_glass_pane"),
                 this::dyedData);
         ////////////////////
@@ -1278,7 +1285,8 @@ public void registerDefaults() {
         register(166, simpleBuilder()
                         .itemType()
                         .properties(builder -> builder
-                                .add(PropertyProviderCollections.UNBREAKABLE))
+                                .add(PropertyProviderCollections.UNBREAKABLE)
+                                .add(lightOpacity(0)))
                         .translation("tile.barrier.name")
                         .build("minecraft", "barrier"));
         /////////////////////
@@ -1667,7 +1675,8 @@ private <E extends Enum<E> & TreeType> BlockTypeBuilder leavesBuilder(EnumTrait<
                 .properties(builder -> builder
                         .add(hardness(0.2))
                         .add(blastResistance(1.0))
-                        .add(flammableInfo(30, 60)))
+                        .add(flammableInfo(30, 60))
+                        .add(lightOpacity(1)))
                 .translation(TranslationProvider.of(enumTrait, type ->
                         tr("tile.leaves." + ((LanternTreeType) type).getTranslationKeyBase() + ".name")));
     }
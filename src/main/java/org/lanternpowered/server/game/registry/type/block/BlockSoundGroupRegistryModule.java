@@ -30,6 +30,7 @@
 import org.lanternpowered.server.block.LanternBlockSoundGroup;
 import org.lanternpowered.server.game.registry.CatalogMappingData;
 import org.lanternpowered.server.game.registry.CatalogMappingDataHolder;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.lanternpowered.server.game.registry.type.effect.sound.SoundTypeRegistryModule;
 import org.spongepowered.api.block.BlockSoundGroup;
 import org.spongepowered.api.effect.sound.SoundTypes;
@@ -41,6 +42,7 @@
 import java.util.Locale;
 import java.util.Map;
 
+@ConcurrentRegistration
 @RegistrationDependency(SoundTypeRegistryModule.class)
 public class BlockSoundGroupRegistryModule implements RegistryModule, CatalogMappingDataHolder {
 
@@ -27,7 +27,10 @@
 
 import org.lanternpowered.server.game.registry.DefaultCatalogRegistryModule;
 import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.registry.util.RegistrationDependency;
 
+// The states are registered by the block registry
+@RegistrationDependency(BlockRegistryModule.class)
 public final class BlockStateRegistryModule extends DefaultCatalogRegistryModule<BlockState> {
 
     public BlockStateRegistryModule() {
@@ -30,12 +30,14 @@
 import org.lanternpowered.api.catalog.CatalogKeys;
 import org.lanternpowered.server.effect.sound.LanternSoundType;
 import org.lanternpowered.server.game.registry.AdditionalPluginCatalogRegistryModule;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.spongepowered.api.effect.sound.SoundType;
 import org.spongepowered.api.effect.sound.SoundTypes;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 
+@ConcurrentRegistration
 public final class SoundTypeRegistryModule extends AdditionalPluginCatalogRegistryModule<SoundType> {
 
     public SoundTypeRegistryModule() {
@@ -33,6 +33,7 @@
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
 import org.lanternpowered.server.game.registry.AdditionalPluginCatalogRegistryModule;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.lanternpowered.server.world.biome.LanternBiomeType;
 import org.spongepowered.api.CatalogKey;
 import org.spongepowered.api.world.biome.BiomeType;
@@ -41,6 +42,7 @@
 import java.util.Optional;
 
 // TODO Lookup biome registry data from the worlds.
+@ConcurrentRegistration
 public final class BiomeRegistryModule extends AdditionalPluginCatalogRegistryModule<BiomeType> implements BiomeRegistry {
 
     private static final BiomeRegistryModule INSTANCE = new BiomeRegistryModule();
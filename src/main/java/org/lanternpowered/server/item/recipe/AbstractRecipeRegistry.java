@@ -26,11 +26,16 @@
 package org.lanternpowered.server.item.recipe;
 
 import org.lanternpowered.server.game.registry.DefaultCatalogRegistryModule;
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.recipe.Recipe;
 import org.spongepowered.api.item.recipe.RecipeRegistry;
 
+import java.util.Collection;
+
 public abstract class AbstractRecipeRegistry<T extends Recipe> extends DefaultCatalogRegistryModule<T> implements RecipeRegistry<T> {
 
+    private final RecipeIndex<T> index = new RecipeIndex<>(this::getKeyTypes);
+
     public AbstractRecipeRegistry(Class<?>... catalogClasses) {
         super(catalogClasses);
     }
@@ -39,4 +44,38 @@ public AbstractRecipeRegistry(Class<?>... catalogClasses) {
     protected <A extends T> A register(A catalogType) {
         return super.register(catalogType);
     }
+
+    @Override
+    protected void doRegistration(T catalogType, boolean disallowInbuiltPluginIds) {
+        super.doRegistration(catalogType, disallowInbuiltPluginIds);
+        this.index.add(catalogType);
+    }
+
+    /**
+     * Gets the {@link RecipeIndex} of all the registered recipes.
+     *
+     * @return The recipe index
+     */
+    protected RecipeIndex<T> getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Gets the version of this registry, the version changes
+     * every time that a recipe is registered.
+     *
+     * @return The version
+     */
+    public int getVersion() {
+        return this.index.getVersion();
+    }
+
+    /**
+     * Gets the {@link ItemType}s that the recipe should be indexed by.
+     *
+     * @param recipe The recipe
+     * @return The item types, or a empty collection if the recipe can't be indexed
+     * @see RecipeIndex#getRequiredTypes(org.spongepowered.api.item.recipe.crafting.Ingredient)
+     */
+    protected abstract Collection<ItemType> getKeyTypes(T recipe);
 }
@@ -32,6 +32,7 @@
 import org.spongepowered.api.item.inventory.ItemStackSnapshot;
 import org.spongepowered.api.item.recipe.crafting.Ingredient;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -79,6 +80,17 @@ default boolean test(ItemStackSnapshot itemStackSnapshot) {
         return test(itemStackSnapshot.createStack());
     }
 
+    /**
+     * Gets the {@link ItemType}s of all the items that can be accepted
+     * by this ingredient. {@link Optional#empty()} is returned if this
+     * isn't known, for example when a custom {@link Predicate} is used.
+     *
+     * @return The accepted item types
+     */
+    default Optional<Collection<ItemType>> getAcceptedTypes() {
+        return Optional.empty();
+    }
+
     /**
      * Gets the quantity of input items that are required to
      * smelt, for the given {@link ItemStackSnapshot}.
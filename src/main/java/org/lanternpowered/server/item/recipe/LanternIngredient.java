@@ -25,9 +25,11 @@
  */
 package org.lanternpowered.server.item.recipe;
 
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.item.inventory.ItemStackSnapshot;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
@@ -41,13 +43,21 @@ final class LanternIngredient implements IIngredient {
     final IIngredientQuantityProvider quantityProvider;
     private final List<ItemStackSnapshot> displayedItems;
     @Nullable final Function<ItemStack, ItemStack> remainingItemProvider;
+    @Nullable final Collection<ItemType> acceptedTypes;
 
     LanternIngredient(Predicate<ItemStack> matcher, IIngredientQuantityProvider quantityProvider,
-            List<ItemStackSnapshot> displayedItems, @Nullable Function<ItemStack, ItemStack> remainingItemProvider) {
+            List<ItemStackSnapshot> displayedItems, @Nullable Function<ItemStack, ItemStack> remainingItemProvider,
+            @Nullable Collection<ItemType> acceptedTypes) {
         this.matcher = matcher;
         this.quantityProvider = quantityProvider;
         this.displayedItems = displayedItems;
         this.remainingItemProvider = remainingItemProvider;
+        this.acceptedTypes = acceptedTypes;
+    }
+
+    @Override
+    public Optional<Collection<ItemType>> getAcceptedTypes() {
+        return Optional.ofNullable(this.acceptedTypes);
     }
 
     @Override
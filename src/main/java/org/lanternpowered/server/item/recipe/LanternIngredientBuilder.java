@@ -29,6 +29,7 @@
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.collect.ImmutableSet;
 import org.lanternpowered.server.inventory.LanternItemStack;
 import org.lanternpowered.server.util.function.Predicates;
 import org.spongepowered.api.GameDictionary;
@@ -38,7 +39,10 @@
 import org.spongepowered.api.item.recipe.crafting.Ingredient;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -52,11 +56,15 @@ public class LanternIngredientBuilder implements IIngredient.Builder {
     private List<ItemStackSnapshot> displayItems = new ArrayList<>();
     @Nullable private IIngredientQuantityProvider quantityProvider;
     @Nullable private Function<ItemStack, ItemStack> remainingItemProvider;
+    // The item types that can be matched, or null if this is unknown
+    @Nullable private Set<ItemType> acceptedTypes = new HashSet<>();
 
     @Override
     public Ingredient.Builder from(Ingredient value) {
         this.matchers.clear();
         this.matchers.add(((LanternIngredient) value).matcher);
+        final Collection<ItemType> acceptedTypes = ((LanternIngredient) value).acceptedTypes;
+        this.acceptedTypes = acceptedTypes == null ? null : new HashSet<>(acceptedTypes);
         this.displayItems.addAll(value.displayedItems());
         this.remainingItemProvider = ((LanternIngredient) value).remainingItemProvider;
         this.quantityProvider = ((LanternIngredient) value).quantityProvider;
@@ -67,6 +75,7 @@ public Ingredient.Builder from(Ingredient value) {
     public Ingredient.Builder reset() {
         this.matchers.clear();
         this.displayItems.clear();
+        this.acceptedTypes = new HashSet<>();
         this.remainingItemProvider = null;
         this.quantityProvider = null;
         return this;
@@ -118,6 +127,8 @@ public IIngredient.Builder withRemaining(Function<ItemStack, ItemStack> provider
     public IIngredient.Builder with(Predicate<ItemStack> predicate) {
         checkNotNull(predicate, "predicate");
         this.matchers.add(predicate);
+        // Any item type could be accepted by the predicate
+        this.acceptedTypes = null;
         return this;
     }
 
@@ -125,6 +136,7 @@ public IIngredient.Builder with(Predicate<ItemStack> predicate) {
     public IIngredient.Builder with(GameDictionary.Entry entry) {
         checkNotNull(entry, "entry");
         this.matchers.add(entry::matches);
+        this.acceptedTypes = null;
         return withDisplay(entry.getTemplate());
     }
 
@@ -135,6 +147,7 @@ public IIngredient.Builder with(ItemStackSnapshot... items) {
             checkNotNull(item, "item");
             final ItemStack item1 = item.createStack();
             this.matchers.add(itemStack -> LanternItemStack.areSimilar(itemStack, item1));
+            addAcceptedType(item.getType());
         }
         return withDisplay(items);
     }
@@ -146,6 +159,7 @@ public IIngredient.Builder with(ItemStack... items) {
             checkNotNull(item, "item");
             final ItemStack item1 = item.copy(); // Create a copy to be safe
             this.matchers.add(itemStack -> LanternItemStack.areSimilar(itemStack, item1));
+            addAcceptedType(item.getType());
         }
         return withDisplay(items);
     }
@@ -156,10 +170,17 @@ public IIngredient.Builder with(ItemType... types) {
         for (ItemType type : types) {
             checkNotNull(type, "type");
             this.matchers.add(type::matches);
+            addAcceptedType(type);
         }
         return withDisplay(types);
     }
 
+    private void addAcceptedType(ItemType type) {
+        if (this.acceptedTypes != null) {
+            this.acceptedTypes.add(type);
+        }
+    }
+
     @Override
     public IIngredient.Builder withDisplay(ItemType... types) {
         checkNotNull(types, "types");
@@ -199,6 +220,7 @@ public IIngredient build() {
             quantityProvider = DEFAULT_QUANTITY_PROVIDER;
         }
         return new LanternIngredient(Predicates.or(this.matchers), quantityProvider,
-                new ArrayList<>(this.displayItems), this.remainingItemProvider);
+                new ArrayList<>(this.displayItems), this.remainingItemProvider,
+                this.acceptedTypes == null ? null : ImmutableSet.copyOf(this.acceptedTypes));
     }
 }
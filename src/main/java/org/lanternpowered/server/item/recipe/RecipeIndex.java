@@ -0,0 +1,193 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.item.recipe;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.spongepowered.api.item.ItemType;
+import org.spongepowered.api.item.ItemTypes;
+import org.spongepowered.api.item.recipe.crafting.Ingredient;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * An index that narrows down the recipes that need to be tested against
+ * the input items. Every recipe is indexed by the {@link ItemType}s of one
+ * of its ingredients that can only be matched by a non empty item, recipes
+ * without such an ingredient are candidates for every input.
+ *
+ * <p>The candidates are always returned in the order in
+ * which the recipes were added to the index.</p>
+ *
+ * @param <R> The type of the recipes
+ */
+public final class RecipeIndex<R> {
+
+    /**
+     * Gets the {@link ItemType}s of which one item must be present to match the
+     * given {@link Ingredient}. An empty collection is returned if the ingredient
+     * could match any item or an empty item.
+     *
+     * @param ingredient The ingredient
+     * @return The required item types
+     */
+    public static Collection<ItemType> getRequiredTypes(@Nullable Ingredient ingredient) {
+        if (!(ingredient instanceof IIngredient)) {
+            return Collections.emptySet();
+        }
+        final Collection<ItemType> types = ((IIngredient) ingredient).getAcceptedTypes().orElse(null);
+        if (types == null || types.contains(ItemTypes.NONE)) {
+            return Collections.emptySet();
+        }
+        return types;
+    }
+
+    private final Function<R, Collection<ItemType>> keyTypesFunction;
+    private final List<R> recipes = new ArrayList<>();
+
+    // The lookup tables, these are rebuilt lazily once a recipe is added
+    @Nullable private volatile Tables<R> tables;
+
+    // The version is increased every time that a recipe is added
+    private volatile int version;
+
+    // The bit set that is used to collect the candidates of a lookup
+    private final ThreadLocal<BitSet> scratch = ThreadLocal.withInitial(BitSet::new);
+
+    /**
+     * Constructs a new {@link RecipeIndex}.
+     *
+     * @param keyTypesFunction The function that provides the item types that a recipe should
+     *                         be indexed by, or a empty collection if it can't be indexed
+     */
+    public RecipeIndex(Function<R, Collection<ItemType>> keyTypesFunction) {
+        this.keyTypesFunction = checkNotNull(keyTypesFunction, "keyTypesFunction");
+    }
+
+    /**
+     * Adds the recipe to this index.
+     *
+     * @param recipe The recipe
+     */
+    public synchronized void add(R recipe) {
+        checkNotNull(recipe, "recipe");
+        this.recipes.add(recipe);
+        this.tables = null;
+        this.version++;
+    }
+
+    /**
+     * Gets the version of this index, the version changes every time
+     * that a recipe is added. This allows lookup results to be cached.
+     *
+     * @return The version
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets the candidate recipes for a input with the given {@link ItemType}.
+     *
+     * @param type The item type
+     * @return The candidate recipes
+     */
+    public List<R> getCandidates(ItemType type) {
+        checkNotNull(type, "type");
+        return getCandidates(Collections.singleton(type));
+    }
+
+    /**
+     * Gets the candidate recipes for a input that contains
+     * items of all the given {@link ItemType}s.
+     *
+     * @param types The item types
+     * @return The candidate recipes
+     */
+    public List<R> getCandidates(Collection<ItemType> types) {
+        checkNotNull(types, "types");
+        final Tables<R> tables = getTables();
+        final BitSet candidates = this.scratch.get();
+        candidates.clear();
+        candidates.or(tables.unindexed);
+        for (ItemType type : types) {
+            final BitSet indexed = tables.byType.get(type);
+            if (indexed != null) {
+                candidates.or(indexed);
+            }
+        }
+        final List<R> result = new ArrayList<>(candidates.cardinality());
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            result.add(tables.recipes.get(i));
+        }
+        return result;
+    }
+
+    private Tables<R> getTables() {
+        Tables<R> tables = this.tables;
+        if (tables == null) {
+            synchronized (this) {
+                tables = this.tables;
+                if (tables == null) {
+                    this.tables = tables = new Tables<>(new ArrayList<>(this.recipes), this.keyTypesFunction);
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static final class Tables<R> {
+
+        private final List<R> recipes;
+        // The indexes of the recipes that are mapped by their key types
+        private final Map<ItemType, BitSet> byType = new HashMap<>();
+        // The indexes of the recipes that don't have any key types
+        private final BitSet unindexed = new BitSet();
+
+        Tables(List<R> recipes, Function<R, Collection<ItemType>> keyTypesFunction) {
+            this.recipes = recipes;
+            for (int i = 0; i < recipes.size(); i++) {
+                final Collection<ItemType> types = keyTypesFunction.apply(recipes.get(i));
+                if (types.isEmpty()) {
+                    this.unindexed.set(i);
+                } else {
+                    for (ItemType type : types) {
+                        this.byType.computeIfAbsent(type, type1 -> new BitSet()).set(i);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -25,14 +25,19 @@
  */
 package org.lanternpowered.server.item.recipe.crafting;
 
+import com.google.common.collect.MapMaker;
 import org.lanternpowered.api.cause.CauseStack;
 import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.lanternpowered.server.game.registry.type.item.ItemRegistryModule;
+import org.lanternpowered.server.inventory.LanternItemStack;
 import org.lanternpowered.server.item.recipe.AbstractRecipeRegistry;
 import org.lanternpowered.server.item.recipe.IIngredient;
+import org.lanternpowered.server.item.recipe.RecipeIndex;
 import org.lanternpowered.server.util.ReflectionHelper;
 import org.lanternpowered.server.util.UncheckedThrowables;
 import org.spongepowered.api.data.key.Keys;
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.item.inventory.crafting.CraftingGridInventory;
@@ -46,15 +51,152 @@
 import org.spongepowered.api.text.format.TextColors;
 import org.spongepowered.api.world.World;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
 
 @RegistrationDependency({ ItemRegistryModule.class })
+@ConcurrentRegistration
 public class LanternCraftingRecipeRegistry extends AbstractRecipeRegistry<CraftingRecipe> implements ICraftingRecipeRegistry {
 
+    // The last match of every crafting grid, the same grid
+    // is usually looked up multiple times without changes
+    private final Map<CraftingGridInventory, CachedMatch> cachedMatches = new MapMaker().weakKeys().makeMap();
+
+    private static final class CachedMatch {
+
+        private final int version;
+        @Nullable private final UUID worldId;
+        private final ItemStack[][] items;
+        @Nullable private final CraftingRecipe recipe;
+
+        private CachedMatch(int version, @Nullable UUID worldId, CraftingMatrix craftingMatrix, @Nullable CraftingRecipe recipe) {
+            this.items = new ItemStack[craftingMatrix.width()][craftingMatrix.height()];
+            for (int x = 0; x < this.items.length; x++) {
+                for (int y = 0; y < this.items[x].length; y++) {
+                    this.items[x][y] = craftingMatrix.get(x, y).copy();
+                }
+            }
+            this.version = version;
+            this.worldId = worldId;
+            this.recipe = recipe;
+        }
+
+        private boolean matches(int version, @Nullable UUID worldId, CraftingMatrix craftingMatrix) {
+            if (this.version != version || !Objects.equals(this.worldId, worldId) ||
+                    this.items.length != craftingMatrix.width() || this.items[0].length != craftingMatrix.height()) {
+                return false;
+            }
+            for (int x = 0; x < this.items.length; x++) {
+                for (int y = 0; y < this.items[x].length; y++) {
+                    if (!((LanternItemStack) this.items[x][y]).equalTo(craftingMatrix.get(x, y))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
     @Override
-    public Optional<CraftingRecipe> findMatchingRecipe(CraftingGridInventory grid, World world) {
-        final CraftingMatrix craftingMatrix = CraftingMatrix.of(grid);
-        for (CraftingRecipe recipe : getAll()) {
+    protected Collection<ItemType> getKeyTypes(CraftingRecipe recipe) {
+        final List<Ingredient> ingredients = new ArrayList<>();
+        if (recipe instanceof IShapedCraftingRecipe) {
+            final IShapedCraftingRecipe shapedRecipe = (IShapedCraftingRecipe) recipe;
+            for (int x = 0; x < shapedRecipe.getWidth(); x++) {
+                for (int y = 0; y < shapedRecipe.getHeight(); y++) {
+                    ingredients.add(shapedRecipe.getIngredient(x, y));
+                }
+            }
+        } else if (recipe instanceof IShapelessCraftingRecipe) {
+            ingredients.addAll(((IShapelessCraftingRecipe) recipe).getIngredientPredicates());
+        }
+        // Use the ingredient that accepts the least item types
+        Collection<ItemType> keyTypes = Collections.emptySet();
+        for (Ingredient ingredient : ingredients) {
+            final Collection<ItemType> types = RecipeIndex.getRequiredTypes(ingredient);
+            if (!types.isEmpty() && (keyTypes.isEmpty() || types.size() < keyTypes.size())) {
+                keyTypes = types;
+            }
+        }
+        return keyTypes;
+    }
+
+    /**
+     * Gets whether the shape of the recipe can fit the items within the crafting
+     * grid, the occupied width and height are the size of the area that contains
+     * all the non empty items.
+     */
+    private static boolean fitsShape(CraftingRecipe recipe, int occupiedWidth, int occupiedHeight, int occupiedSlots) {
+        if (recipe instanceof IShapedCraftingRecipe) {
+            // All the items must be covered by the recipe
+            final IShapedCraftingRecipe shapedRecipe = (IShapedCraftingRecipe) recipe;
+            return shapedRecipe.getWidth() >= occupiedWidth && shapedRecipe.getHeight() >= occupiedHeight;
+        } else if (recipe instanceof IShapelessCraftingRecipe) {
+            // Every item is consumed by exactly one ingredient
+            return ((IShapelessCraftingRecipe) recipe).getIngredientPredicates().size() == occupiedSlots;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the recipes that could match the items within the crafting
+     * matrix, in the order in which they were registered.
+     */
+    private List<CraftingRecipe> getCandidates(CraftingMatrix craftingMatrix) {
+        final int w = craftingMatrix.width();
+        final int h = craftingMatrix.height();
+
+        final Set<ItemType> types = new HashSet<>();
+        int minX = w;
+        int minY = h;
+        int maxX = -1;
+        int maxY = -1;
+        int occupiedSlots = 0;
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                final ItemStack itemStack = craftingMatrix.get(x, y);
+                if (itemStack.isEmpty()) {
+                    continue;
+                }
+                types.add(itemStack.getType());
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                occupiedSlots++;
+            }
+        }
+        final int occupiedWidth = maxX - minX + 1;
+        final int occupiedHeight = maxY - minY + 1;
+
+        final List<CraftingRecipe> candidates = getIndex().getCandidates(types);
+        final int slots = occupiedSlots;
+        candidates.removeIf(recipe -> !fitsShape(recipe, occupiedWidth, occupiedHeight, slots));
+        return candidates;
+    }
+
+    @Nullable
+    private CraftingRecipe findMatchingRecipe(CraftingGridInventory grid, CraftingMatrix craftingMatrix, World world) {
+        final int version = getVersion();
+        //noinspection ConstantConditions
+        final UUID worldId = world == null ? null : world.getUniqueId();
+        final CachedMatch cachedMatch = this.cachedMatches.get(grid);
+        if (cachedMatch != null && cachedMatch.matches(version, worldId, craftingMatrix)) {
+            return cachedMatch.recipe;
+        }
+
+        CraftingRecipe match = null;
+        for (CraftingRecipe recipe : getCandidates(craftingMatrix)) {
             final boolean result;
             if (recipe instanceof ICraftingRecipe) {
                 result = ((ICraftingRecipe) recipe).isValid(craftingMatrix, world);
@@ -62,7 +204,44 @@ public Optional<CraftingRecipe> findMatchingRecipe(CraftingGridInventory grid, W
                 result = recipe.isValid(grid, world);
             }
             if (result) {
-                return Optional.of(recipe);
+                match = recipe;
+                break;
+            }
+        }
+        this.cachedMatches.put(grid, new CachedMatch(version, worldId, craftingMatrix, match));
+        return match;
+    }
+
+    @Override
+    public Optional<CraftingRecipe> findMatchingRecipe(CraftingGridInventory grid, World world) {
+        return Optional.ofNullable(findMatchingRecipe(grid, CraftingMatrix.of(grid), world));
+    }
+
+    private interface ResultFunction<T> {
+
+        Optional<T> apply(CraftingRecipe recipe);
+    }
+
+    /**
+     * Gets the result of the first recipe that provides one. The matching recipe
+     * is tried first, if it doesn't provide a result then the remaining candidates
+     * are tried in order, like when every recipe was tested.
+     */
+    private <T> Optional<T> getResult(CraftingGridInventory grid, CraftingMatrix craftingMatrix, World world,
+            ResultFunction<T> resultFunction) {
+        final CraftingRecipe recipe = findMatchingRecipe(grid, craftingMatrix, world);
+        if (recipe == null) {
+            return Optional.empty();
+        }
+        Optional<T> result = resultFunction.apply(recipe);
+        if (result.isPresent()) {
+            return result;
+        }
+        final List<CraftingRecipe> candidates = getCandidates(craftingMatrix);
+        for (int i = candidates.indexOf(recipe) + 1; i < candidates.size(); i++) {
+            result = resultFunction.apply(candidates.get(i));
+            if (result.isPresent()) {
+                return result;
             }
         }
         return Optional.empty();
@@ -71,53 +250,44 @@ public Optional<CraftingRecipe> findMatchingRecipe(CraftingGridInventory grid, W
     @Override
     public Optional<CraftingResult> getResult(CraftingGridInventory grid, World world) {
         final CraftingMatrix craftingMatrix = CraftingMatrix.of(grid);
-        for (CraftingRecipe recipe : getAll()) {
-            final Optional<CraftingResult> optResult;
+        return getResult(grid, craftingMatrix, world, recipe -> {
             if (recipe instanceof ICraftingRecipe) {
-                optResult = ((ICraftingRecipe) recipe).getResult(craftingMatrix, world);
-            } else {
-                optResult = recipe.getResult(grid, world);
-            }
-            if (optResult.isPresent()) {
-                return optResult;
+                return ((ICraftingRecipe) recipe).getResult(craftingMatrix, world);
             }
-        }
-        return Optional.empty();
+            return recipe.getResult(grid, world);
+        });
     }
 
     @Override
     public Optional<ExtendedCraftingResult> getExtendedResult(CraftingGridInventory grid, World world, int timesLimit) {
         final CraftingMatrix craftingMatrix = CraftingMatrix.of(grid);
-        for (CraftingRecipe recipe : getAll()) {
-            final Optional<ExtendedCraftingResult> optResult;
-            if (recipe instanceof ICraftingRecipe) {
-                optResult = ((ICraftingRecipe) recipe).getExtendedResult(craftingMatrix, world, timesLimit);
-            } else {
-                optResult = recipe.getResult(grid, world).map(result -> {
-                    // Just assume that normal recipes only decrease one item per slot
-                    int maxTimes = -1;
-                    for (int x = 0; x < craftingMatrix.width(); x++) {
-                        for (int y = 0; y < craftingMatrix.height(); y++) {
-                            final ItemStack itemStack = craftingMatrix.get(x, y);
-                            if (!itemStack.isEmpty()) {
-                                final int times1 = itemStack.getQuantity();
-                                if (maxTimes == -1 || times1 < maxTimes) {
-                                    maxTimes = times1;
-                                }
-                            }
+        return getResult(grid, craftingMatrix, world, recipe -> getExtendedResult(recipe, grid, craftingMatrix, world, timesLimit));
+    }
+
+    private static Optional<ExtendedCraftingResult> getExtendedResult(CraftingRecipe recipe, CraftingGridInventory grid,
+            CraftingMatrix craftingMatrix, World world, int timesLimit) {
+        if (recipe instanceof ICraftingRecipe) {
+            return ((ICraftingRecipe) recipe).getExtendedResult(craftingMatrix, world, timesLimit);
+        }
+        return recipe.getResult(grid, world).map(result -> {
+            // Just assume that normal recipes only decrease one item per slot
+            int maxTimes = -1;
+            for (int x = 0; x < craftingMatrix.width(); x++) {
+                for (int y = 0; y < craftingMatrix.height(); y++) {
+                    final ItemStack itemStack = craftingMatrix.get(x, y);
+                    if (!itemStack.isEmpty()) {
+                        final int times1 = itemStack.getQuantity();
+                        if (maxTimes == -1 || times1 < maxTimes) {
+                            maxTimes = times1;
                         }
                     }
-                    if (maxTimes > timesLimit) {
-                        maxTimes = timesLimit;
-                    }
-                    return new ExtendedCraftingResult(result, craftingMatrix, maxTimes);
-                });
+                }
             }
-            if (optResult.isPresent()) {
-                return optResult;
+            if (maxTimes > timesLimit) {
+                maxTimes = timesLimit;
             }
-        }
-        return Optional.empty();
+            return new ExtendedCraftingResult(result, craftingMatrix, maxTimes);
+        });
     }
 
     @DelayedRegistration(RegistrationPhase.POST_INIT)
@@ -40,4 +40,12 @@ public interface IFuelRegistry {
     Optional<IFuel> findMatching(ItemStackSnapshot ingredient);
 
     OptionalInt getResult(ItemStackSnapshot ingredient);
+
+    /**
+     * Gets the version of this registry, the version changes
+     * every time that a fuel is registered.
+     *
+     * @return The version
+     */
+    int getVersion();
 }
@@ -30,6 +30,7 @@
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.game.registry.DefaultCatalogRegistryModule;
 import org.lanternpowered.server.item.recipe.IIngredient;
+import org.lanternpowered.server.item.recipe.RecipeIndex;
 import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStackSnapshot;
 import org.spongepowered.api.item.recipe.crafting.Ingredient;
@@ -42,6 +43,8 @@
 
 public class LanternFuelRegistryModule extends DefaultCatalogRegistryModule<IFuel> implements IFuelRegistry {
 
+    private final RecipeIndex<IFuel> index = new RecipeIndex<>(fuel -> RecipeIndex.getRequiredTypes(fuel.getIngredient()));
+
     public LanternFuelRegistryModule() {
         super();
     }
@@ -51,10 +54,21 @@ public <A extends IFuel> A register(A fuel) {
         return super.register(fuel);
     }
 
+    @Override
+    protected void doRegistration(IFuel catalogType, boolean disallowInbuiltPluginIds) {
+        super.doRegistration(catalogType, disallowInbuiltPluginIds);
+        this.index.add(catalogType);
+    }
+
+    @Override
+    public int getVersion() {
+        return this.index.getVersion();
+    }
+
     @Override
     public Optional<IFuel> findMatching(ItemStackSnapshot ingredient) {
         checkNotNull(ingredient, "ingredient");
-        for (IFuel fuel : getAll()) {
+        for (IFuel fuel : this.index.getCandidates(ingredient.getType())) {
             if (fuel.isValid(ingredient)) {
                 return Optional.of(fuel);
             }
@@ -65,7 +79,7 @@ public Optional<IFuel> findMatching(ItemStackSnapshot ingredient) {
     @Override
     public OptionalInt getResult(ItemStackSnapshot ingredient) {
         checkNotNull(ingredient, "ingredient");
-        for (IFuel fuel : getAll()) {
+        for (IFuel fuel : this.index.getCandidates(ingredient.getType())) {
             final OptionalInt result = fuel.getBurnTime(ingredient);
             if (result.isPresent()) {
                 return result;
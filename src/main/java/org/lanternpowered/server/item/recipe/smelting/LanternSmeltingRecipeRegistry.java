@@ -29,10 +29,13 @@
 
 import org.lanternpowered.api.cause.CauseStack;
 import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.game.registry.ConcurrentRegistration;
 import org.lanternpowered.server.game.registry.type.item.ItemRegistryModule;
 import org.lanternpowered.server.item.recipe.AbstractRecipeRegistry;
 import org.lanternpowered.server.item.recipe.IIngredient;
+import org.lanternpowered.server.item.recipe.RecipeIndex;
 import org.spongepowered.api.data.key.Keys;
+import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.item.inventory.ItemStackSnapshot;
@@ -45,15 +48,26 @@
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.format.TextColors;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 
 @RegistrationDependency({ ItemRegistryModule.class })
+@ConcurrentRegistration
 public class LanternSmeltingRecipeRegistry extends AbstractRecipeRegistry<SmeltingRecipe> implements SmeltingRecipeRegistry {
 
+    @Override
+    protected Collection<ItemType> getKeyTypes(SmeltingRecipe recipe) {
+        if (recipe instanceof ISmeltingRecipe) {
+            return RecipeIndex.getRequiredTypes(((ISmeltingRecipe) recipe).getIngredient());
+        }
+        return Collections.emptySet();
+    }
+
     @Override
     public Optional<SmeltingRecipe> findMatchingRecipe(ItemStackSnapshot ingredient) {
         checkNotNull(ingredient, "ingredient");
-        for (SmeltingRecipe recipe : getAll()) {
+        for (SmeltingRecipe recipe : getIndex().getCandidates(ingredient.getType())) {
             if (recipe.isValid(ingredient)) {
                 return Optional.of(recipe);
             }
@@ -64,7 +78,7 @@ public Optional<SmeltingRecipe> findMatchingRecipe(ItemStackSnapshot ingredient)
     @Override
     public Optional<SmeltingResult> getResult(ItemStackSnapshot ingredient) {
         checkNotNull(ingredient, "ingredient");
-        for (SmeltingRecipe recipe : getAll()) {
+        for (SmeltingRecipe recipe : getIndex().getCandidates(ingredient.getType())) {
             final Optional<SmeltingResult> result = recipe.getResult(ingredient);
             if (result.isPresent()) {
                 return result;
@@ -35,9 +35,12 @@
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.lanternpowered.server.LanternServer;
+import org.lanternpowered.server.config.GlobalConfig;
+import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.network.buffer.LanternByteBufferAllocator;
 import org.lanternpowered.server.network.message.codec.CodecContext;
 import org.lanternpowered.server.network.message.codec.SimpleCodecContext;
@@ -53,6 +56,7 @@
 import java.util.Set;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.annotation.Nullable;
 
@@ -71,6 +75,22 @@ public final class NetworkManager extends AbstractServer {
 
     @Nullable private SocketAddress socketAddress;
 
+    // Whether the messages that are sent in the play state are batched per tick
+    private boolean writeBatching;
+
+    // The amount of send calls that were batched during the current tick
+    private final LongAdder batchedWrites = new LongAdder();
+    // The amount of flushes of batches during the current tick
+    private final LongAdder batchFlushes = new LongAdder();
+
+    // The amount of flushes that were saved during the last tick
+    private volatile long flushesSavedLastTick;
+
+    private static final int METRICS_REPORT_INTERVAL = 1200;
+
+    private int metricsTicks;
+    private long metricsFlushesSaved;
+
     @Inject
     public NetworkManager(LanternServer server) {
         this.server = server;
@@ -101,6 +121,61 @@ public void pulseSessions() {
         this.sessions.forEach(NetworkSession::pulse);
     }
 
+    /**
+     * Gets whether the messages that are sent during a tick are only
+     * written and flushed once at the end of the tick.
+     *
+     * @return Whether write batching is enabled
+     */
+    public boolean isWriteBatching() {
+        return this.writeBatching;
+    }
+
+    /**
+     * Gets the amount of flushes that were saved by
+     * write batching during the last tick.
+     *
+     * @return The saved flushes
+     */
+    public long getFlushesSavedLastTick() {
+        return this.flushesSavedLastTick;
+    }
+
+    /**
+     * Called when a send call of a {@link NetworkSession}
+     * was batched instead of being flushed.
+     */
+    void onBatchedWrite() {
+        this.batchedWrites.increment();
+    }
+
+    /**
+     * Called when a batch of a {@link NetworkSession} is flushed.
+     */
+    void onBatchFlush() {
+        this.batchFlushes.increment();
+    }
+
+    /**
+     * Flushes the batched messages of all the sessions, this
+     * should be called at the end of every tick.
+     */
+    public void flushSessions() {
+        if (!this.writeBatching) {
+            return;
+        }
+        this.sessions.forEach(NetworkSession::flushBatch);
+        final long flushesSaved = Math.max(0, this.batchedWrites.sumThenReset() - this.batchFlushes.sumThenReset());
+        this.flushesSavedLastTick = flushesSaved;
+        this.metricsFlushesSaved += flushesSaved;
+        if (++this.metricsTicks == METRICS_REPORT_INTERVAL) {
+            Lantern.getLogger().debug("Write batching saved {} flushes per tick on average over the last {} ticks.",
+                    String.format("%.2f", (double) this.metricsFlushesSaved / this.metricsTicks), this.metricsTicks);
+            this.metricsTicks = 0;
+            this.metricsFlushesSaved = 0;
+        }
+    }
+
     /**
      * Called when the {@link NetworkSession} becomes active.
      *
@@ -128,6 +203,14 @@ protected ChannelFuture init(SocketAddress address, TransportType channelType) {
         this.bossGroup = createEventLoopGroup(channelType, threadFactory);
         this.workerGroup = createEventLoopGroup(channelType, threadFactory);
         this.socketAddress = address;
+        final GlobalConfig globalConfig = this.server.getGame().getGlobalConfig();
+        this.writeBatching = globalConfig.isNetworkWriteBatching();
+        if (this.writeBatching) {
+            // The channel becomes unwritable once the pending bytes exceed the
+            // high water mark, the batch will be flushed early at that point
+            final int threshold = Math.max(1024, globalConfig.getNetworkBatchFlushThreshold());
+            this.bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(threshold / 2, threshold));
+        }
         return this.bootstrap
                 .group(this.bossGroup, this.workerGroup)
                 .channel(getServerSocketChannelClass(channelType))
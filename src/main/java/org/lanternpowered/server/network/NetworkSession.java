@@ -45,6 +45,7 @@
 import io.netty.handler.timeout.TimeoutException;
 import io.netty.util.AttributeKey;
 import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
 import io.netty.util.concurrent.ScheduledFuture;
 import org.lanternpowered.api.cause.CauseStack;
 import org.lanternpowered.server.LanternServer;
@@ -101,6 +102,7 @@
 import java.net.SocketAddress;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -110,6 +112,7 @@
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 
@@ -143,6 +146,11 @@ public final class NetworkSession extends SimpleChannelInboundHandler<Message> i
     private final LanternServer server;
     private final Channel channel;
 
+    /**
+     * Whether there are batched messages that still need to be flushed.
+     */
+    private final AtomicBoolean pendingFlush = new AtomicBoolean();
+
     /**
      * The network context that is used by the handlers.
      */
@@ -399,6 +407,16 @@ public void channelInactive(ChannelHandlerContext ctx) {
         this.connectionTask = null;
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // The pending batch exceeded the flush threshold, flush it early
+        if (!ctx.channel().isWritable() && this.pendingFlush.getAndSet(false)) {
+            this.channel.flush();
+            this.networkManager.onBatchFlush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         // Pipeline error, just log it
@@ -604,6 +622,9 @@ private void closeChannel(Text reason) {
 
     /**
      * Sends a {@link Message} and returns the {@link ChannelFuture}.
+     * <p>
+     * The reference of a {@link ReferenceCounted} message is passed to
+     * the session, the message will be released once it's written.
      *
      * @param message The message
      * @return The channel future
@@ -613,7 +634,6 @@ public ChannelFuture sendWithFuture(Message message) {
         if (!this.channel.isActive()) {
             return this.channel.newPromise();
         }
-        ReferenceCountUtil.retain(message);
         // Write the message and add a exception handler
         return this.channel.writeAndFlush(message).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
     }
@@ -640,17 +660,9 @@ public ChannelFuture sendWithFuture(Message... messages) {
             this.channel.writeAndFlush(messages[0], promise);
         } else {
             final EventLoop eventLoop = this.channel.eventLoop();
-            // Retain the messages
-            for (Message message : messages) {
-                ReferenceCountUtil.retain(message);
-            }
-            final ChannelPromise voidPromise = this.channel.voidPromise();
             if (eventLoop.inEventLoop()) {
-                final int last = messages.length - 1;
-                for (int i = 0; i < last; i++) {
-                    this.channel.write(messages[i], voidPromise);
-                }
-                this.channel.writeAndFlush(messages[last], promise);
+                writeAll(Arrays.asList(messages), promise);
+                this.channel.flush();
             } else {
                 // If there are more then one message, combine them inside the
                 // event loop to reduce overhead of wakeup calls and object creation
@@ -658,12 +670,7 @@ public ChannelFuture sendWithFuture(Message... messages) {
                 // Create a copy of the list, to avoid concurrent modifications
                 final List<Message> messages0 = ImmutableList.copyOf(messages);
                 eventLoop.submit(() -> {
-                    final Iterator<Message> it0 = messages0.iterator();
-                    do {
-                        final Message message0 = it0.next();
-                        // Only use a normal channel promise for the last message
-                        this.channel.write(message0, it0.hasNext() ? voidPromise : promise);
-                    } while (it0.hasNext());
+                    writeAll(messages0, promise);
                     this.channel.flush();
                 });
             }
@@ -687,25 +694,15 @@ public ChannelFuture sendWithFuture(Iterable<Message> messages) {
             return promise;
         }
         promise.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
-        Message message = it.next();
+        final Message message = it.next();
         // Don't bother checking if we are in the event loop,
         // there is only one message.
         if (!it.hasNext()) {
             this.channel.writeAndFlush(message, promise);
         } else {
             final EventLoop eventLoop = this.channel.eventLoop();
-            messages.forEach(ReferenceCountUtil::retain);
-            final ChannelPromise voidPromise = this.channel.voidPromise();
             if (eventLoop.inEventLoop()) {
-                while (true) {
-                    final boolean next = it.hasNext();
-                    // Only use a normal channel promise for the last message
-                    this.channel.write(message, next ? voidPromise : promise);
-                    if (!next) {
-                        break;
-                    }
-                    message = it.next();
-                }
+                writeAll(messages, promise);
                 this.channel.flush();
             } else {
                 // If there are more then one message, combine them inside the
@@ -714,12 +711,7 @@ public ChannelFuture sendWithFuture(Iterable<Message> messages) {
                 // Create a copy of the list, to avoid concurrent modifications
                 final List<Message> messages0 = ImmutableList.copyOf(messages);
                 eventLoop.submit(() -> {
-                    final Iterator<Message> it0 = messages0.iterator();
-                    do {
-                        final Message message0 = it0.next();
-                        // Only use a normal channel promise for the last message
-                        this.channel.writeAndFlush(message0, it0.hasNext() ? voidPromise : promise);
-                    } while (it0.hasNext());
+                    writeAll(messages0, promise);
                     this.channel.flush();
                 });
             }
@@ -729,6 +721,9 @@ public ChannelFuture sendWithFuture(Iterable<Message> messages) {
 
     /**
      * Sends a {@link Message}.
+     * <p>
+     * The reference of a {@link ReferenceCounted} message is passed to
+     * the session, the message will be released once it's written.
      *
      * @param message The message
      */
@@ -737,9 +732,8 @@ public void send(Message message) {
         if (!this.channel.isActive()) {
             return;
         }
-        ReferenceCountUtil.retain(message);
         // Thrown exceptions will be delegated through the exceptionCaught method
-        this.channel.writeAndFlush(message, this.channel.voidPromise());
+        writeAndFlushOrBatch(message, this.channel.voidPromise());
     }
 
     /**
@@ -752,33 +746,10 @@ public void send(Message... messages) {
         if (messages.length == 0 || !this.channel.isActive()) {
             return;
         }
-        final ChannelPromise voidPromise = this.channel.voidPromise();
         if (messages.length == 1) {
-            this.channel.writeAndFlush(messages[0], voidPromise);
+            writeAndFlushOrBatch(messages[0], this.channel.voidPromise());
         } else {
-            final EventLoop eventLoop = this.channel.eventLoop();
-            // Retain the messages
-            for (Message message : messages) {
-                ReferenceCountUtil.retain(message);
-            }
-            if (eventLoop.inEventLoop()) {
-                for (Message message : messages) {
-                    this.channel.write(message, voidPromise);
-                }
-                this.channel.flush();
-            } else {
-                // If there are more then one message, combine them inside the
-                // event loop to reduce overhead of wakeup calls and object creation
-
-                // Create a copy of the list, to avoid concurrent modifications
-                final List<Message> messages0 = ImmutableList.copyOf(messages);
-                eventLoop.submit(() -> {
-                    for (Message message0 : messages0) {
-                        this.channel.write(message0, voidPromise);
-                    }
-                    this.channel.flush();
-                });
-            }
+            writeAllAndFlushOrBatch(Arrays.asList(messages));
         }
     }
 
@@ -790,36 +761,116 @@ public void send(Message... messages) {
     public void send(Iterable<Message> messages) {
         checkNotNull(messages, "messages");
         final Iterator<Message> it = messages.iterator();
-        if (!it.hasNext()) {
+        if (!it.hasNext() || !this.channel.isActive()) {
             return;
         }
-        Message message = it.next();
+        final Message message = it.next();
         // Don't bother checking if we are in the event loop,
         // there is only one message.
-        final ChannelPromise voidPromise = this.channel.voidPromise();
         if (!it.hasNext()) {
-            this.channel.writeAndFlush(message, voidPromise);
+            writeAndFlushOrBatch(message, this.channel.voidPromise());
         } else {
-            final EventLoop eventLoop = this.channel.eventLoop();
-            messages.forEach(ReferenceCountUtil::retain);
-            if (eventLoop.inEventLoop()) {
-                for (Message message0 : messages) {
-                    this.channel.write(message0, voidPromise);
-                }
+            writeAllAndFlushOrBatch(messages);
+        }
+    }
+
+    /**
+     * Writes all the {@link Message}s, only the last message
+     * will complete the given {@link ChannelPromise}.
+     *
+     * @param messages The messages
+     * @param promise The promise
+     */
+    private void writeAll(Iterable<Message> messages, ChannelPromise promise) {
+        final ChannelPromise voidPromise = this.channel.voidPromise();
+        final Iterator<Message> it = messages.iterator();
+        do {
+            final Message message = it.next();
+            this.channel.write(message, it.hasNext() ? voidPromise : promise);
+        } while (it.hasNext());
+    }
+
+    /**
+     * Writes and flushes all the {@link Message}s, or only writes
+     * them if the messages are being batched.
+     *
+     * @param messages The messages
+     */
+    private void writeAllAndFlushOrBatch(Iterable<Message> messages) {
+        final ChannelPromise voidPromise = this.channel.voidPromise();
+        final EventLoop eventLoop = this.channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            writeAll(messages, voidPromise);
+            flushOrBatch();
+            return;
+        }
+        // If there are more then one message, combine them inside the
+        // event loop to reduce overhead of wakeup calls and object creation
+
+        // Create a copy of the list, to avoid concurrent modifications
+        final List<Message> messages0 = ImmutableList.copyOf(messages);
+        if (isBatching()) {
+            eventLoop.submit(() -> writeAll(messages0, voidPromise));
+            // The batch is only marked after the writes are submitted, the flush
+            // of the batch will be queued behind them in the event loop
+            markBatched();
+        } else {
+            eventLoop.submit(() -> {
+                writeAll(messages0, voidPromise);
                 this.channel.flush();
-            } else {
-                // If there are more then one message, combine them inside the
-                // event loop to reduce overhead of wakeup calls and object creation
+            });
+        }
+    }
 
-                // Create a copy of the list, to avoid concurrent modifications
-                final List<Message> messages0 = ImmutableList.copyOf(messages);
-                eventLoop.submit(() -> {
-                    for (Message message0 : messages0) {
-                        this.channel.write(message0, voidPromise);
-                    }
-                    this.channel.flush();
-                });
-            }
+    /**
+     * Gets whether the messages that are sent should only be
+     * written and flushed at the end of the tick.
+     *
+     * @return Whether the messages should be batched
+     */
+    private boolean isBatching() {
+        return this.networkManager.isWriteBatching() && this.protocolState == ProtocolState.PLAY;
+    }
+
+    /**
+     * Writes and flushes the {@link Message}, or only writes
+     * it if the messages are being batched.
+     *
+     * @param message The message
+     * @param promise The promise
+     */
+    private void writeAndFlushOrBatch(Message message, ChannelPromise promise) {
+        if (isBatching()) {
+            this.channel.write(message, promise);
+            markBatched();
+        } else {
+            this.channel.writeAndFlush(message, promise);
+        }
+    }
+
+    /**
+     * Flushes the written messages, unless the messages are being batched.
+     */
+    private void flushOrBatch() {
+        if (isBatching()) {
+            markBatched();
+        } else {
+            this.channel.flush();
+        }
+    }
+
+    private void markBatched() {
+        this.pendingFlush.set(true);
+        this.networkManager.onBatchedWrite();
+    }
+
+    /**
+     * Flushes all the messages that were batched since the last flush.
+     */
+    void flushBatch() {
+        if (this.pendingFlush.getAndSet(false)) {
+            this.channel.flush();
+            this.networkManager.onBatchFlush();
         }
     }
 
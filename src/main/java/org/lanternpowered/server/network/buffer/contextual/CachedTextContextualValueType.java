@@ -0,0 +1,68 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.buffer.contextual;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.netty.handler.codec.CodecException;
+import org.lanternpowered.server.network.buffer.ByteBuffer;
+import org.lanternpowered.server.network.message.codec.CodecContext;
+import org.spongepowered.api.text.Text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Text} serializer that renders and encodes every
+ * {@link Text} instance only once per distinct {@link Locale}.
+ * <p>
+ * Broadcasts share the same {@link Text} (and often the same message)
+ * between all the receivers, so the encoded bytes can be shared by all
+ * the sessions with the same locale. The entries are weakly keyed and
+ * expire shortly after they are created, texts like score texts are
+ * mutable, so they shouldn't be cached forever.
+ */
+final class CachedTextContextualValueType implements ContextualValueType<Text> {
+
+    private final LoadingCache<Text, Map<Locale, byte[]>> cache = Caffeine.newBuilder()
+            .weakKeys().expireAfterWrite(1, TimeUnit.SECONDS).build(text -> new ConcurrentHashMap<>());
+
+    @Override
+    public void write(CodecContext ctx, Text object, ByteBuffer buf) throws CodecException {
+        final Map<Locale, byte[]> encoded = this.cache.get(object);
+        //noinspection ConstantConditions
+        buf.writeByteArray(encoded.computeIfAbsent(ctx.getSession().getLocale(),
+                locale -> TextContextualValueType.toJson(object, locale).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public Text read(CodecContext ctx, ByteBuffer buf) throws CodecException {
+        return ContextualValueTypes.TEXT.read(ctx, buf);
+    }
+}
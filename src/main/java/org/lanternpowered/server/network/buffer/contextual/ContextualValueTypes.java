@@ -40,6 +40,16 @@ public final class ContextualValueTypes {
      */
     public static final ContextualValueType<Text> TEXT = new TextContextualValueType();
 
+    /**
+     * A serializer for {@link Text} objects that are likely to be
+     * sent to many players, like chat messages, titles and boss bars.
+     * The encoded bytes are cached per {@link Text} instance and locale.
+     * NULL {@code null} values are NOT SUPPORTED.
+     * <p>
+     * Text -> JSON -> UTF-8 encoded string prefixed by the length as a var-int.
+     */
+    public static final ContextualValueType<Text> CACHED_TEXT = new CachedTextContextualValueType();
+
     /**
      * A serializer for {@link ItemStack} objects,
      * NULL {@code null} values are SUPPORTED.
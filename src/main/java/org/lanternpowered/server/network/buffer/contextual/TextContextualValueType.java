@@ -32,15 +32,13 @@
 import org.lanternpowered.server.text.translation.TranslationContext;
 import org.spongepowered.api.text.Text;
 
+import java.util.Locale;
+
 final class TextContextualValueType implements ContextualValueType<Text> {
 
     @Override
     public void write(CodecContext ctx, Text object, ByteBuffer buf) throws CodecException {
-        try (TranslationContext ignored = TranslationContext.enter()
-                .locale(ctx.getSession().getLocale())
-                .enableForcedTranslations()) {
-            buf.writeString(fixJson(JsonTextSerializer.getGson().toJson(object)));
-        }
+        buf.writeString(toJson(object, ctx.getSession().getLocale()));
     }
 
     @Override
@@ -52,6 +50,22 @@ public Text read(CodecContext ctx, ByteBuffer buf) throws CodecException {
         }
     }
 
+    /**
+     * Renders the {@link Text} as the json that is expected
+     * by the client for the given {@link Locale}.
+     *
+     * @param text The text
+     * @param locale The locale
+     * @return The json
+     */
+    static String toJson(Text text, Locale locale) {
+        try (TranslationContext ignored = TranslationContext.enter()
+                .locale(locale)
+                .enableForcedTranslations()) {
+            return fixJson(JsonTextSerializer.getGson().toJson(text));
+        }
+    }
+
     // We need to fix the json format yay, the minecraft client
     // can't handle primitives or arrays as root, just expect
     // things to break, so fix it...
@@ -34,6 +34,7 @@
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import io.netty.util.ReferenceCountUtil;
 import org.lanternpowered.server.entity.living.player.LanternPlayer;
 import org.lanternpowered.server.network.NetworkSession;
 import org.lanternpowered.server.network.buffer.ByteBuffer;
@@ -153,7 +154,9 @@ void sendPayloadToAll(String channel, Consumer<ByteBuffer> payload) {
             final ByteBuffer buf = ByteBufferAllocator.unpooled().buffer();
             payload.accept(buf);
             final Message msg = new MessagePlayInOutChannelPayload(channel, buf);
-            players.forEachRemaining(player -> ((LanternPlayer) player).getConnection().send(msg));
+            // Every session takes over its own reference of the message
+            players.forEachRemaining(player -> ((LanternPlayer) player).getConnection().send(ReferenceCountUtil.retain(msg)));
+            ReferenceCountUtil.release(msg);
         }
     }
 
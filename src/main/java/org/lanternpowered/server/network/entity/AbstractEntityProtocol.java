@@ -274,9 +274,7 @@ final class TrackerUpdateContextData {
     }
 
     @Nullable
-    TrackerUpdateContextData buildUpdateContextData(Set<LanternPlayer> players) {
-        players = new HashSet<>(players);
-
+    TrackerUpdateContextData buildUpdateContextData(PlayerInterestGrid interestGrid, List<LanternPlayer> candidates) {
         final Set<LanternPlayer> removed = new HashSet<>();
         final Set<LanternPlayer> added = new HashSet<>();
 
@@ -285,16 +283,18 @@ TrackerUpdateContextData buildUpdateContextData(Set<LanternPlayer> players) {
         final Iterator<LanternPlayer> trackerIt = this.trackers.iterator();
         while (trackerIt.hasNext()) {
             final LanternPlayer tracker = trackerIt.next();
-            final boolean flag = players.remove(tracker);
             if (tracker != this.entity &&
-                    (!flag || !isVisible(pos, tracker))) {
+                    (!interestGrid.contains(tracker) || !isVisible(pos, tracker))) {
                 trackerIt.remove();
                 removed.add(tracker);
             }
         }
 
-        for (LanternPlayer tracker : players) {
-            if (tracker == this.entity || isVisible(pos, tracker)) {
+        // Only the players in the neighbouring cells can be in range
+        candidates.clear();
+        interestGrid.addCandidates(pos, this.trackingRange, candidates);
+        for (LanternPlayer tracker : candidates) {
+            if (!this.trackers.contains(tracker) && (tracker == this.entity || isVisible(pos, tracker))) {
                 added.add(tracker);
             }
         }
@@ -227,6 +227,17 @@ public void release(int[] array) {
 
     private int pulseCounter;
 
+    /**
+     * The grid that tracks the players in the world to limit
+     * the players that need to be checked for every entity.
+     */
+    private final PlayerInterestGrid interestGrid = new PlayerInterestGrid();
+
+    /**
+     * A reusable list to collect the tracker candidates of a entity.
+     */
+    private final List<LanternPlayer> trackerCandidates = new ArrayList<>();
+
     Optional<AbstractEntityProtocol<?>> getEntityProtocolById(int id) {
         long stamp = allocatorLock.tryOptimisticRead();
         AbstractEntityProtocol<?> entityProtocol = stamp != 0L ? this.idToEntityProtocolMap.get(id) : null;
@@ -325,10 +336,13 @@ public void updateTrackers(Set<LanternPlayer> players) {
 
         final List<AbstractEntityProtocol.TrackerUpdateContextData> updateContextDataList = new ArrayList<>();
 
-        final Set<AbstractEntityProtocol<?>> protocols = new HashSet<>(this.entityProtocols.values());
-        for (AbstractEntityProtocol<?> protocol : protocols) {
+        // Move the players that crossed a cell border
+        this.interestGrid.update(players);
+
+        for (AbstractEntityProtocol<?> protocol : this.entityProtocols.values()) {
             synchronized (protocol.trackers) {
-                final AbstractEntityProtocol.TrackerUpdateContextData contextData = protocol.buildUpdateContextData(players);
+                final AbstractEntityProtocol.TrackerUpdateContextData contextData =
+                        protocol.buildUpdateContextData(this.interestGrid, this.trackerCandidates);
                 if (contextData != null) {
                     //noinspection unchecked
                     protocol.updateTrackers(contextData);
@@ -336,6 +350,7 @@ public void updateTrackers(Set<LanternPlayer> players) {
                 }
             }
         }
+        this.trackerCandidates.clear();
 
         for (AbstractEntityProtocol.TrackerUpdateContextData contextData : updateContextDataList) {
             synchronized (contextData.entityProtocol.trackers) {
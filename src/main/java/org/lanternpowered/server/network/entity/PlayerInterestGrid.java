@@ -0,0 +1,163 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.entity;
+
+import com.flowpowered.math.vector.Vector3d;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.lanternpowered.server.entity.living.player.LanternPlayer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A grid that keeps track of the players within every cell, a cell is an area
+ * of {@code 4x4} chunks. The grid is updated incrementally, only the players that
+ * crossed a cell border are moved. This allows the entity trackers to only
+ * evaluate the players that are within the neighbouring cells of the entity.
+ */
+final class PlayerInterestGrid {
+
+    /**
+     * The amount of bits that a block coordinate should be shifted to get the cell coordinate.
+     */
+    private static final int CELL_BITS = 6;
+
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    private final Long2ObjectMap<List<LanternPlayer>> cells = new Long2ObjectOpenHashMap<>();
+    private final Object2LongMap<LanternPlayer> playerCells = new Object2LongOpenHashMap<>();
+
+    {
+        this.playerCells.defaultReturnValue(NO_CELL);
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xffffffffL);
+    }
+
+    private static long getCell(Vector3d position) {
+        return key(position.getFloorX() >> CELL_BITS, position.getFloorZ() >> CELL_BITS);
+    }
+
+    /**
+     * Updates the cells of all the players that are present in the world, and
+     * removes the players that left the world since the last update.
+     *
+     * @param players The players in the world
+     */
+    void update(Set<LanternPlayer> players) {
+        for (LanternPlayer player : players) {
+            final long cell = getCell(player.getPosition());
+            final long oldCell = this.playerCells.put(player, cell);
+            if (oldCell != cell) {
+                if (oldCell != NO_CELL) {
+                    removeFromCell(player, oldCell);
+                }
+                List<LanternPlayer> cellPlayers = this.cells.get(cell);
+                if (cellPlayers == null) {
+                    cellPlayers = new ArrayList<>(4);
+                    this.cells.put(cell, cellPlayers);
+                }
+                cellPlayers.add(player);
+            }
+        }
+        // All the players are present at this point, so any
+        // additional entries belong to players that left
+        if (this.playerCells.size() > players.size()) {
+            final ObjectIterator<Object2LongMap.Entry<LanternPlayer>> it = this.playerCells.object2LongEntrySet().iterator();
+            while (it.hasNext()) {
+                final Object2LongMap.Entry<LanternPlayer> entry = it.next();
+                if (!players.contains(entry.getKey())) {
+                    removeFromCell(entry.getKey(), entry.getLongValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void removeFromCell(LanternPlayer player, long cell) {
+        final List<LanternPlayer> cellPlayers = this.cells.get(cell);
+        if (cellPlayers != null && cellPlayers.remove(player) && cellPlayers.isEmpty()) {
+            this.cells.remove(cell);
+        }
+    }
+
+    /**
+     * Gets whether the {@link LanternPlayer} is present in the world.
+     *
+     * @param player The player
+     * @return Whether the player is present
+     */
+    boolean contains(LanternPlayer player) {
+        return this.playerCells.containsKey(player);
+    }
+
+    /**
+     * Adds all the players that are located within the cells that
+     * intersect with the range around the given position.
+     *
+     * @param position The position
+     * @param range The range
+     * @param candidates The collection to add the players to
+     */
+    void addCandidates(Vector3d position, double range, Collection<LanternPlayer> candidates) {
+        if (this.cells.isEmpty()) {
+            return;
+        }
+        final int minX = (int) Math.floor(position.getX() - range) >> CELL_BITS;
+        final int maxX = (int) Math.floor(position.getX() + range) >> CELL_BITS;
+        final int minZ = (int) Math.floor(position.getZ() - range) >> CELL_BITS;
+        final int maxZ = (int) Math.floor(position.getZ() + range) >> CELL_BITS;
+        final long cellCount = (long) (maxX - minX + 1) * (maxZ - minZ + 1);
+        // Visit all the occupied cells directly if
+        // there are less of them than cells in range
+        if (cellCount > this.cells.size()) {
+            for (Long2ObjectMap.Entry<List<LanternPlayer>> entry : this.cells.long2ObjectEntrySet()) {
+                final long key = entry.getLongKey();
+                final int x = (int) (key >> 32);
+                final int z = (int) key;
+                if (x >= minX && x <= maxX && z >= minZ && z <= maxZ) {
+                    candidates.addAll(entry.getValue());
+                }
+            }
+        } else {
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    final List<LanternPlayer> cellPlayers = this.cells.get(key(x, z));
+                    if (cellPlayers != null) {
+                        candidates.addAll(cellPlayers);
+                    }
+                }
+            }
+        }
+    }
+}
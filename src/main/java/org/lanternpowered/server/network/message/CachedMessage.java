@@ -0,0 +1,115 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.message;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import org.lanternpowered.server.network.buffer.LanternByteBuffer;
+import org.lanternpowered.server.network.message.codec.Codec;
+import org.lanternpowered.server.network.message.codec.CodecContext;
+
+import javax.annotation.Nullable;
+
+/**
+ * Represents a message that wraps another {@link Message} and caches its
+ * encoded content. This allows the same message to be send to multiple
+ * sessions, while only being encoded once.
+ * <p>
+ * The wrapped message may only be encoded by codecs that don't depend
+ * on the session the message is being send to.
+ * <p>
+ * The encoded content and the wrapped message are released
+ * when the reference count of this message reaches zero. Every
+ * session that the message is send to takes over a reference,
+ * so it should be retained once for every session.
+ */
+public final class CachedMessage extends AbstractReferenceCounted implements Message {
+
+    private final Message message;
+
+    @Nullable private Codec<?> codec;
+    @Nullable private ByteBuf encoded;
+
+    public CachedMessage(Message message) {
+        this.message = checkNotNull(message, "message");
+    }
+
+    /**
+     * Gets the {@link Message} that is being cached.
+     *
+     * @return The message
+     */
+    public Message getMessage() {
+        return this.message;
+    }
+
+    /**
+     * Gets the encoded content of the message, the content will be
+     * encoded by the given {@link Codec} the first time that this is
+     * called. The returned {@link ByteBuf} must be released.
+     *
+     * @param context The codec context
+     * @param codec The codec that should be used to encode the message
+     * @return The encoded content
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized ByteBuf encode(CodecContext context, Codec codec) {
+        if (this.encoded == null) {
+            this.encoded = ((LanternByteBuffer) codec.encode(context, this.message)).getDelegate();
+            this.codec = codec;
+        } else if (this.codec != codec) {
+            // A different codec is being used, don't use the cached content
+            return ((LanternByteBuffer) codec.encode(context, this.message)).getDelegate();
+        }
+        return this.encoded.retainedDuplicate();
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        if (this.encoded != null) {
+            this.encoded.release();
+            this.encoded = null;
+        }
+        ReferenceCountUtil.release(this.message);
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("message", this.message)
+                .toString();
+    }
+}
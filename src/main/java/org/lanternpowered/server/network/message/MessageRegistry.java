@@ -38,11 +38,23 @@
 import java.util.Map;
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 public final class MessageRegistry {
 
     private final Map<Class<? extends Message>, MessageRegistration<?>> registrationByMessageType = new HashMap<>();
     private final Int2ObjectMap<CodecRegistration<?, ?>> registrationByOpcode = new Int2ObjectOpenHashMap<>();
 
+    // A lookup table for the codec registrations of message types, this
+    // avoids map lookups and optionals for every message that is encoded
+    private final ClassValue<CodecRegistration<?, ?>> codecRegistrationByMessageType = new ClassValue<CodecRegistration<?, ?>>() {
+        @Override
+        protected CodecRegistration<?, ?> computeValue(Class<?> type) {
+            final MessageRegistration<?> registration = registrationByMessageType.get(type);
+            return registration == null ? null : registration.getCodecRegistration().orElse(null);
+        }
+    };
+
     private int opcodeCounter;
 
     <M extends Message> MessageRegistration<M> checkCodecBinding(Class<M> messageType) {
@@ -270,6 +282,21 @@ public <M extends Message> Optional<MessageRegistration<M>> findByMessageType(Cl
         return Optional.ofNullable((MessageRegistration) this.registrationByMessageType.get(messageType));
     }
 
+    /**
+     * Searches the {@link CodecRegistration} that is bound to
+     * the specified message type. This should only be used once
+     * all the messages are registered, the results are cached.
+     *
+     * @param messageType The message type
+     * @param <M> The type of the message
+     * @return The codec registration, or {@code null} if not present
+     */
+    @Nullable
+    public <M extends Message> CodecRegistration<M, Codec<M>> findCodecByMessageType(Class<M> messageType) {
+        //noinspection unchecked
+        return (CodecRegistration) this.codecRegistrationByMessageType.get(messageType);
+    }
+
     /**
      * Binds a {@link Message} type to this registry.
      *
@@ -30,7 +30,6 @@
 
 import com.google.common.collect.Sets;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
@@ -40,6 +39,7 @@
 import org.lanternpowered.server.network.buffer.ByteBuffer;
 import org.lanternpowered.server.network.buffer.LanternByteBuffer;
 import org.lanternpowered.server.network.message.BulkMessage;
+import org.lanternpowered.server.network.message.CachedMessage;
 import org.lanternpowered.server.network.message.CodecRegistration;
 import org.lanternpowered.server.network.message.HandlerMessage;
 import org.lanternpowered.server.network.message.Message;
@@ -68,32 +68,35 @@ public MessageCodecHandler(CodecContext codecContext) {
     @Override
     protected void encode(ChannelHandlerContext ctx, Message message, List<Object> output) {
         final Protocol protocol = this.codecContext.getSession().getProtocol();
-        final MessageRegistration<Message> registration = (MessageRegistration<Message>) protocol.outbound()
-                .findByMessageType(message.getClass()).orElse(null);
-        if (registration == null) {
-            throw new EncoderException("Message type (" + message.getClass().getName() + ") is not registered!");
-        }
-
-        final CodecRegistration codecRegistration = registration.getCodecRegistration().orElse(null);
+        final Class<? extends Message> messageType = message instanceof CachedMessage ?
+                ((CachedMessage) message).getMessage().getClass() : message.getClass();
+        final CodecRegistration codecRegistration = protocol.outbound().findCodecByMessageType(messageType);
         if (codecRegistration == null) {
-            throw new EncoderException("Message type (" + message.getClass().getName() + ") is not registered to allow encoding!");
+            if (!protocol.outbound().findByMessageType(messageType).isPresent()) {
+                throw new EncoderException("Message type (" + messageType.getName() + ") is not registered!");
+            }
+            throw new EncoderException("Message type (" + messageType.getName() + ") is not registered to allow encoding!");
         }
 
-        final ByteBuf opcode = ctx.alloc().buffer();
-
-        // Write the opcode of the message
-        writeVarInt(opcode, codecRegistration.getOpcode());
-
         final Codec codec = codecRegistration.getCodec();
-        final LanternByteBuffer content;
+        final ByteBuf content;
         try {
-            content = (LanternByteBuffer) codec.encode(this.codecContext, message);
+            if (message instanceof CachedMessage) {
+                // Reuse the content if it was already encoded for another session
+                content = ((CachedMessage) message).encode(this.codecContext, codec);
+            } else {
+                content = ((LanternByteBuffer) codec.encode(this.codecContext, message)).getDelegate();
+            }
         } finally {
             ReferenceCountUtil.release(message);
         }
 
-        // Add the buffer to the output
-        output.add(Unpooled.wrappedBuffer(opcode, content.getDelegate()));
+        // Write the opcode of the message, at most 5 bytes are needed for the var-int
+        final ByteBuf opcode = ctx.alloc().buffer(5);
+        writeVarInt(opcode, codecRegistration.getOpcode());
+        // The opcode is put in front of the content without copying it, the
+        // content may be shared with other sessions if the message is cached
+        output.add(ctx.alloc().compositeBuffer(2).addComponents(true, opcode, content));
     }
 
     private static final Set<Integer> warnedMissingOpcodes = Sets.newConcurrentHashSet();
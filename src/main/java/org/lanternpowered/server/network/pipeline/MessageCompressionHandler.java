@@ -56,59 +56,114 @@
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageCodec;
+import org.lanternpowered.server.config.GlobalConfig;
+import org.lanternpowered.server.network.NetworkSession;
+import org.lanternpowered.server.network.message.CodecRegistration;
+import org.lanternpowered.server.network.protocol.ProtocolState;
+import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutChunkData;
 
 import java.util.List;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 public final class MessageCompressionHandler extends MessageToMessageCodec<ByteBuf, ByteBuf> {
 
+    /**
+     * The maximum size of a uncompressed message.
+     */
+    private static final int MAX_UNCOMPRESSED_SIZE = 2097152;
+
+    /**
+     * The size of the buffer that is used to copy the
+     * contents of buffers that aren't backed by an array.
+     */
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    /**
+     * The opcode of the chunk data message.
+     */
+    private static final int CHUNK_DATA_OPCODE = ProtocolState.PLAY.getProtocol().outbound()
+            .findByMessageType(MessagePlayOutChunkData.class)
+            .flatMap(registration -> registration.getCodecRegistration().map(CodecRegistration::getOpcode))
+            .orElse(-1);
+
     private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
     private final Inflater inflater = new Inflater();
+    private int level = Deflater.DEFAULT_COMPRESSION;
 
+    private final NetworkSession session;
+    private final GlobalConfig.NetworkCompressionLevels compressionLevels;
     private final int compressionThreshold;
 
-    public MessageCompressionHandler(int compressionThreshold) {
+    private byte[] copyBuffer;
+
+    public MessageCompressionHandler(NetworkSession session,
+            GlobalConfig.NetworkCompressionLevels compressionLevels, int compressionThreshold) {
+        this.compressionLevels = compressionLevels;
         this.compressionThreshold = compressionThreshold;
+        this.session = session;
+    }
+
+    private byte[] getCopyBuffer() {
+        if (this.copyBuffer == null) {
+            this.copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+        return this.copyBuffer;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        // Free the native zlib resources
+        this.deflater.end();
+        this.inflater.end();
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
         final ByteBuf prefixBuf = ctx.alloc().buffer(5);
-        final ByteBuf contentsBuf;
+        ByteBuf contentsBuf = null;
 
         if (msg.readableBytes() >= this.compressionThreshold) {
             // Message should be compressed
-            final int index = msg.readerIndex();
             final int length = msg.readableBytes();
 
-            final byte[] sourceData = new byte[length];
-            msg.readBytes(sourceData);
-            this.deflater.setInput(sourceData);
-            this.deflater.finish();
-
-            final byte[] compressedData = new byte[length];
-            final int compressedLength = this.deflater.deflate(compressedData);
-            this.deflater.reset();
+            updateLevel(msg);
+            // The compressed data must be smaller than the source data,
+            // so don't allow the buffer to grow beyond that size
+            final ByteBuf compressedBuf = ctx.alloc().heapBuffer(length, length);
+            final boolean compressed;
+            try {
+                compressed = deflate(msg, compressedBuf);
+            } catch (Throwable t) {
+                compressedBuf.release();
+                prefixBuf.release();
+                throw t;
+            } finally {
+                this.deflater.reset();
+            }
 
-            if (compressedLength == 0) {
+            if (compressed && compressedBuf.readableBytes() == 0) {
+                compressedBuf.release();
+                prefixBuf.release();
                 // Compression failed in some weird way
                 throw new EncoderException("Failed to compress message of size " + length);
-            } else if (compressedLength >= length) {
+            } else if (!compressed || compressedBuf.readableBytes() >= length) {
+                compressedBuf.release();
                 // Compression increased the size. threshold is probably too low
                 // Send as an uncompressed packet
                 writeVarInt(prefixBuf, 0);
-                msg.readerIndex(index);
-                msg.retain();
-                contentsBuf = msg;
             } else {
                 // All is well
                 writeVarInt(prefixBuf, length);
-                contentsBuf = Unpooled.wrappedBuffer(compressedData, 0, compressedLength);
+                contentsBuf = compressedBuf;
             }
         } else {
             // Message should be sent through
             writeVarInt(prefixBuf, 0);
+        }
+        if (contentsBuf == null) {
             msg.retain();
             contentsBuf = msg;
         }
@@ -116,6 +171,74 @@ protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out)
         out.add(Unpooled.wrappedBuffer(prefixBuf, contentsBuf));
     }
 
+    /**
+     * Updates the compression level of the deflater for the given message.
+     *
+     * @param msg The message
+     */
+    private void updateLevel(ByteBuf msg) {
+        final ProtocolState state = this.session.getProtocolState();
+        int level = this.compressionLevels.getLevel(state);
+        if (state == ProtocolState.PLAY) {
+            final int index = msg.readerIndex();
+            final int opcode = readVarInt(msg);
+            msg.readerIndex(index);
+            if (opcode == CHUNK_DATA_OPCODE) {
+                level = this.compressionLevels.getChunkDataLevel();
+            }
+        }
+        if (level != this.level) {
+            this.deflater.setLevel(level);
+            this.level = level;
+        }
+    }
+
+    /**
+     * Deflates the readable bytes of the input buffer into the output buffer
+     * without modifying the reader index of the input buffer.
+     *
+     * @param input The input buffer
+     * @param output The output buffer, must be backed by an array
+     * @return Whether the output buffer was large enough to contain all the compressed data
+     */
+    private boolean deflate(ByteBuf input, ByteBuf output) {
+        if (input.hasArray()) {
+            this.deflater.setInput(input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes());
+            this.deflater.finish();
+            return drainDeflater(output, true);
+        }
+        final byte[] copyBuffer = getCopyBuffer();
+        int index = input.readerIndex();
+        int remaining = input.readableBytes();
+        while (remaining > 0) {
+            final int length = Math.min(remaining, copyBuffer.length);
+            input.getBytes(index, copyBuffer, 0, length);
+            index += length;
+            remaining -= length;
+            this.deflater.setInput(copyBuffer, 0, length);
+            final boolean finish = remaining == 0;
+            if (finish) {
+                this.deflater.finish();
+            }
+            if (!drainDeflater(output, finish)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean drainDeflater(ByteBuf output, boolean finish) {
+        while (finish ? !this.deflater.finished() : !this.deflater.needsInput()) {
+            final int writable = output.writableBytes();
+            if (writable == 0) {
+                return false;
+            }
+            final int written = this.deflater.deflate(output.array(), output.arrayOffset() + output.writerIndex(), writable);
+            output.writerIndex(output.writerIndex() + written);
+        }
+        return true;
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
         final int index = msg.readerIndex();
@@ -132,27 +255,68 @@ protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out)
             buf.retain(); // Retain the sliced buffer, otherwise will MessageToMessageCodec clean it up
             out.add(buf);
         } else {
+            if (uncompressedSize > MAX_UNCOMPRESSED_SIZE) {
+                throw new DecoderException(String.format("Received compressed message claiming to be of size %s greater than maximum %s",
+                        uncompressedSize, MAX_UNCOMPRESSED_SIZE));
+            }
             // Message is compressed
-            final byte[] sourceData = new byte[msg.readableBytes()];
-            msg.readBytes(sourceData);
-            this.inflater.setInput(sourceData);
-
-            final byte[] destData = new byte[uncompressedSize];
-            final int resultLength = this.inflater.inflate(destData);
-            this.inflater.reset();
+            final ByteBuf destBuf = ctx.alloc().heapBuffer(uncompressedSize, uncompressedSize);
+            final int resultLength;
+            try {
+                resultLength = inflate(msg, destBuf);
+            } catch (Throwable t) {
+                destBuf.release();
+                throw t;
+            } finally {
+                this.inflater.reset();
+            }
 
             if (resultLength == 0) {
+                destBuf.release();
                 // Might be a leftover from before compression was enabled (no compression header)
                 // UncompressedSize is likely to be < threshold
                 msg.readerIndex(index);
                 msg.retain();
                 out.add(msg);
             } else if (resultLength != uncompressedSize) {
+                destBuf.release();
                 throw new DecoderException("Received compressed message claiming to be of size "
                         + uncompressedSize + " but actually " + resultLength);
             } else {
-                out.add(Unpooled.wrappedBuffer(destData));
+                out.add(destBuf);
+            }
+        }
+    }
+
+    /**
+     * Inflates the readable bytes of the input buffer into the output buffer.
+     *
+     * @param input The input buffer
+     * @param output The output buffer, must be backed by an array
+     * @return The amount of bytes that were inflated
+     * @throws DataFormatException If the compressed data is invalid
+     */
+    private int inflate(ByteBuf input, ByteBuf output) throws DataFormatException {
+        if (input.hasArray()) {
+            this.inflater.setInput(input.array(), input.arrayOffset() + input.readerIndex(), input.readableBytes());
+            input.skipBytes(input.readableBytes());
+        }
+        while (!this.inflater.finished()) {
+            if (this.inflater.needsInput()) {
+                final int length = Math.min(input.readableBytes(), COPY_BUFFER_SIZE);
+                if (length == 0) {
+                    break;
+                }
+                final byte[] copyBuffer = getCopyBuffer();
+                input.readBytes(copyBuffer, 0, length);
+                this.inflater.setInput(copyBuffer, 0, length);
+            } else if (!output.isWritable() || this.inflater.needsDictionary()) {
+                break;
             }
+            final int written = this.inflater.inflate(output.array(),
+                    output.arrayOffset() + output.writerIndex(), output.writableBytes());
+            output.writerIndex(output.writerIndex() + written);
         }
+        return output.readableBytes();
     }
 }
@@ -30,6 +30,7 @@
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.EncoderException;
 import io.netty.util.ReferenceCountUtil;
+import org.lanternpowered.server.network.message.CachedMessage;
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.message.MessageRegistration;
 import org.lanternpowered.server.network.message.UnknownMessage;
@@ -55,10 +56,14 @@ public MessageProcessorHandler(CodecContext codecContext) {
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg0, ChannelPromise promise) {
-        final Message msg = (Message) msg0;
+        Message msg = (Message) msg0;
         if (msg == UnknownMessage.INSTANCE) {
             return;
         }
+        final Message cachedMsg = msg;
+        if (msg instanceof CachedMessage) {
+            msg = ((CachedMessage) msg).getMessage();
+        }
         final Protocol protocol = this.codecContext.getSession().getProtocol();
         final MessageRegistration registration = protocol.outbound().findByMessageType(msg.getClass()).orElse(null);
         // There must be a registration
@@ -69,9 +74,16 @@ public void write(ChannelHandlerContext ctx, Object msg0, ChannelPromise promise
 
         final List<Processor> processors = registration.getProcessors();
         if (processors.isEmpty()) {
-            // Just forward the message
-            ctx.write(msg, promise);
+            // Just forward the message, cached messages will
+            // be encoded by the codec handler
+            ctx.write(cachedMsg, promise);
         } else {
+            // Processors need the actual message, so cached
+            // messages cannot be reused in this case
+            if (cachedMsg != msg) {
+                ReferenceCountUtil.retain(msg);
+                ReferenceCountUtil.release(cachedMsg);
+            }
             final List<Object> messages = new ArrayList<>();
             for (Processor processor : processors) {
                 // The processor should handle the output messages
@@ -44,7 +44,7 @@ public ByteBuffer encode(CodecContext context, MessagePlayOutBossBar message) th
         if (message instanceof MessagePlayOutBossBar.Add) {
             final MessagePlayOutBossBar.Add message0 = (MessagePlayOutBossBar.Add) message;
             buf.writeVarInt(0);
-            context.write(buf, ContextualValueTypes.TEXT, message0.getTitle());
+            context.write(buf, ContextualValueTypes.CACHED_TEXT, message0.getTitle());
             buf.writeFloat(message0.getHealth());
             buf.writeVarInt(((LanternBossBarColor) message0.getColor()).getInternalId());
             buf.writeVarInt(((LanternBossBarOverlay) message0.getOverlay()).getInternalId());
@@ -56,7 +56,7 @@ public ByteBuffer encode(CodecContext context, MessagePlayOutBossBar message) th
             buf.writeFloat(((MessagePlayOutBossBar.UpdatePercent) message).getPercent());
         } else if (message instanceof MessagePlayOutBossBar.UpdateTitle) {
             buf.writeVarInt(3);
-            context.write(buf, ContextualValueTypes.TEXT, ((MessagePlayOutBossBar.UpdateTitle) message).getTitle());
+            context.write(buf, ContextualValueTypes.CACHED_TEXT, ((MessagePlayOutBossBar.UpdateTitle) message).getTitle());
         } else if (message instanceof MessagePlayOutBossBar.UpdateStyle) {
             final MessagePlayOutBossBar.UpdateStyle message0 = (MessagePlayOutBossBar.UpdateStyle) message;
             buf.writeVarInt(4);
@@ -38,7 +38,7 @@ public final class CodecPlayOutChatMessage implements Codec<MessagePlayOutChatMe
     @Override
     public ByteBuffer encode(CodecContext context, MessagePlayOutChatMessage message) throws CodecException {
         final ByteBuffer buf = context.byteBufAlloc().buffer();
-        context.write(buf, ContextualValueTypes.TEXT, message.getMessage());
+        context.write(buf, ContextualValueTypes.CACHED_TEXT, message.getMessage());
         buf.writeByte((byte) message.getType().ordinal());
         return buf;
     }
@@ -50,13 +50,13 @@ public ByteBuffer encode(CodecContext context, MessagePlayOutTitle message) thro
             buf.writeVarInt(RESET);
         } else if (message instanceof MessagePlayOutTitle.SetTitle) {
             buf.writeVarInt(SET_TITLE);
-            context.write(buf, ContextualValueTypes.TEXT, ((MessagePlayOutTitle.SetTitle) message).getTitle());
+            context.write(buf, ContextualValueTypes.CACHED_TEXT, ((MessagePlayOutTitle.SetTitle) message).getTitle());
         } else if (message instanceof MessagePlayOutTitle.SetSubtitle) {
             buf.writeVarInt(SET_SUBTITLE);
-            context.write(buf, ContextualValueTypes.TEXT, ((MessagePlayOutTitle.SetSubtitle) message).getTitle());
+            context.write(buf, ContextualValueTypes.CACHED_TEXT, ((MessagePlayOutTitle.SetSubtitle) message).getTitle());
         } else if (message instanceof MessagePlayOutTitle.SetActionbarTitle) {
             buf.writeVarInt(SET_ACTIONBAR_TITLE);
-            context.write(buf, ContextualValueTypes.TEXT, ((MessagePlayOutTitle.SetActionbarTitle) message).getTitle());
+            context.write(buf, ContextualValueTypes.CACHED_TEXT, ((MessagePlayOutTitle.SetActionbarTitle) message).getTitle());
         } else {
             final MessagePlayOutTitle.SetTimes message0 = (MessagePlayOutTitle.SetTimes) message;
             buf.writeVarInt(SET_TIMES);
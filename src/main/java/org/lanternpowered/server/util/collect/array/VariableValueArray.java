@@ -48,6 +48,22 @@ public VariableValueArray(int bitsPerValue, int capacity) {
         this.capacity = capacity;
     }
 
+    private VariableValueArray(VariableValueArray other) {
+        this.backing = other.backing.clone();
+        this.bitsPerValue = other.bitsPerValue;
+        this.valueMask = other.valueMask;
+        this.capacity = other.capacity;
+    }
+
+    /**
+     * Creates a copy of this array.
+     *
+     * @return The copy
+     */
+    public VariableValueArray copy() {
+        return new VariableValueArray(this);
+    }
+
     public long[] getBacking() {
         return this.backing;
     }
@@ -25,12 +25,18 @@
  */
 package org.lanternpowered.server.util.gen.block;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.flowpowered.math.vector.Vector3i;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
 import org.lanternpowered.server.world.extent.MutableBlockViewDownsize;
 import org.lanternpowered.server.world.extent.MutableBlockViewTransform;
 import org.lanternpowered.server.world.extent.UnmodifiableBlockVolumeWrapper;
 import org.lanternpowered.server.world.extent.worker.LanternMutableBlockVolumeWorker;
+import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.block.BlockTypes;
 import org.spongepowered.api.util.DiscreteTransform3;
 import org.spongepowered.api.world.extent.MutableBlockVolume;
 import org.spongepowered.api.world.extent.UnmodifiableBlockVolume;
@@ -57,6 +63,99 @@ public boolean setBlockType(int x, int y, int z, BlockType type) {
         return setBlock(x, y, z, type.getDefaultState());
     }
 
+    /**
+     * Sets the block state with the given internal id at the given coordinates,
+     * see {@link BlockRegistryModule#getStateInternalIdAndData(BlockState)}.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param id The internal id of the block state
+     */
+    public void setBlockById(int x, int y, int z, short id) {
+        setBlock(x, y, z, BlockRegistryModule.get().getStateByInternalIdAndData(id)
+                .orElse(BlockTypes.AIR.getDefaultState()));
+    }
+
+    /**
+     * Fills the box between the given minimum and maximum
+     * coordinates (inclusive) with the block state.
+     *
+     * @param min The minimum coordinates
+     * @param max The maximum coordinates
+     * @param block The block state
+     */
+    public void fill(Vector3i min, Vector3i max, BlockState block) {
+        checkNotNull(block, "block");
+        fillById(min.getX(), min.getY(), min.getZ(), max.getX(), max.getY(), max.getZ(),
+                BlockRegistryModule.get().getStateInternalIdAndData(block));
+    }
+
+    /**
+     * Fills the horizontal layer at the given y coordinate with the block state.
+     *
+     * @param y The y coordinate
+     * @param block The block state
+     */
+    public void fillLayer(int y, BlockState block) {
+        checkNotNull(block, "block");
+        fillLayerById(y, BlockRegistryModule.get().getStateInternalIdAndData(block));
+    }
+
+    /**
+     * Fills the horizontal layer at the given y coordinate with
+     * the block state with the given internal id.
+     *
+     * @param y The y coordinate
+     * @param id The internal id of the block state
+     */
+    public void fillLayerById(int y, short id) {
+        fillById(this.start.getX(), y, this.start.getZ(), this.end.getX(), y, this.end.getZ(), id);
+    }
+
+    /**
+     * Fills the box between the given minimum and maximum coordinates
+     * (inclusive) with the block state with the given internal id.
+     *
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @param id The internal id of the block state
+     */
+    public void fillById(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, short id) {
+        checkRange(minX, minY, minZ);
+        checkRange(maxX, maxY, maxZ);
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    setBlockById(x, y, z, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the internal block state ids into the column at the given x and z
+     * coordinates, the first id is placed at the given minimum y coordinate.
+     *
+     * @param x The x coordinate
+     * @param z The z coordinate
+     * @param minY The minimum y coordinate
+     * @param ids The internal ids of the block states, from bottom to top
+     */
+    public void setColumnById(int x, int z, int minY, short[] ids) {
+        checkNotNull(ids, "ids");
+        checkArgument(ids.length > 0, "ids may not be empty");
+        checkRange(x, minY, z);
+        checkRange(x, minY + ids.length - 1, z);
+        for (int i = 0; i < ids.length; i++) {
+            setBlockById(x, minY + i, z, ids[i]);
+        }
+    }
+
     @Override
     public MutableBlockVolume getBlockView(Vector3i newMin, Vector3i newMax) {
         checkRange(newMin);
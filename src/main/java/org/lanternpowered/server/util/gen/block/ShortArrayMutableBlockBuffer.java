@@ -25,6 +25,9 @@
  */
 package org.lanternpowered.server.util.gen.block;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.flowpowered.math.vector.Vector3i;
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
 import org.spongepowered.api.block.BlockState;
@@ -33,6 +36,8 @@
 import org.spongepowered.api.world.extent.MutableBlockVolume;
 import org.spongepowered.api.world.extent.StorageType;
 
+import java.util.Arrays;
+
 public class ShortArrayMutableBlockBuffer extends AbstractMutableBlockBuffer {
 
     private final BlockState air = BlockTypes.AIR.getDefaultState();
@@ -54,6 +59,34 @@ public boolean setBlock(int x, int y, int z, BlockState block) {
         return true;
     }
 
+    @Override
+    public void setBlockById(int x, int y, int z, short id) {
+        checkRange(x, y, z);
+        this.blocks[index(x, y, z)] = id;
+    }
+
+    @Override
+    public void fillById(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, short id) {
+        checkRange(minX, minY, minZ);
+        checkRange(maxX, maxY, maxZ);
+        // The y coordinates of a column are stored next to each other
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                final int index = index(x, minY, z);
+                Arrays.fill(this.blocks, index, index + maxY - minY + 1, id);
+            }
+        }
+    }
+
+    @Override
+    public void setColumnById(int x, int z, int minY, short[] ids) {
+        checkNotNull(ids, "ids");
+        checkArgument(ids.length > 0, "ids may not be empty");
+        checkRange(x, minY, z);
+        checkRange(x, minY + ids.length - 1, z);
+        System.arraycopy(ids, 0, this.blocks, index(x, minY, z), ids.length);
+    }
+
     @Override
     public BlockState getBlock(int x, int y, int z) {
         checkRange(x, y, z);
@@ -0,0 +1,273 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import com.flowpowered.math.vector.Vector3d;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.lanternpowered.server.entity.LanternEntity;
+import org.spongepowered.api.util.AABB;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A broad-phase index of the entities within a world, the entities are
+ * stored in a loose grid of cells based on their position. Intersection
+ * queries only have to visit the cells that surround the queried box
+ * instead of every entity in the surrounding chunks.
+ */
+public final class EntitySpatialIndex {
+
+    /**
+     * The amount of bits that a block coordinate should be shifted to get the cell coordinate.
+     */
+    private static final int CELL_BITS = 3;
+
+    /**
+     * The maximum distance that the bounding box of an entity may extend from its
+     * position, entities with larger bounding boxes are checked by every query.
+     */
+    private static final double MAX_EXTENT = 4.0;
+
+    /**
+     * The cell key of entities that aren't present in the index.
+     */
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    /**
+     * The cell key of entities that are too large to be stored in a cell. This
+     * key will never be generated by {@link #key(int, int, int)} within the
+     * bounds of a world.
+     */
+    private static final long OVERSIZED_CELL = Long.MAX_VALUE;
+
+    private final Long2ObjectMap<List<LanternEntity>> cells = new Long2ObjectOpenHashMap<>();
+    private final Object2LongMap<LanternEntity> entityCells = new Object2LongOpenHashMap<>();
+    private final Set<LanternEntity> oversizedEntities = new HashSet<>();
+    private final StampedLock lock = new StampedLock();
+
+    {
+        this.entityCells.defaultReturnValue(NO_CELL);
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) x & 0x3ffffff) << 38 | ((long) y & 0xfff) << 26 | ((long) z & 0x3ffffff);
+    }
+
+    private static long getCell(LanternEntity entity) {
+        final Vector3d position = entity.getPosition();
+        final Optional<AABB> optBoundingBox = entity.getBoundingBox();
+        if (optBoundingBox.isPresent()) {
+            final AABB boundingBox = optBoundingBox.get();
+            final Vector3d min = boundingBox.getMin();
+            final Vector3d max = boundingBox.getMax();
+            if (position.getX() - min.getX() > MAX_EXTENT || max.getX() - position.getX() > MAX_EXTENT ||
+                    position.getY() - min.getY() > MAX_EXTENT || max.getY() - position.getY() > MAX_EXTENT ||
+                    position.getZ() - min.getZ() > MAX_EXTENT || max.getZ() - position.getZ() > MAX_EXTENT) {
+                return OVERSIZED_CELL;
+            }
+        }
+        return key(position.getFloorX() >> CELL_BITS, position.getFloorY() >> CELL_BITS, position.getFloorZ() >> CELL_BITS);
+    }
+
+    /**
+     * Adds the {@link LanternEntity} to this index, or updates
+     * its cell if it was already present.
+     *
+     * @param entity The entity
+     */
+    public void add(LanternEntity entity) {
+        final long cell = getCell(entity);
+        final long stamp = this.lock.writeLock();
+        try {
+            put(entity, cell, this.entityCells.getLong(entity));
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Updates the cell of the {@link LanternEntity} after its position or
+     * bounding box changed. Does nothing if the entity isn't present.
+     *
+     * @param entity The entity
+     */
+    public void update(LanternEntity entity) {
+        final long cell = getCell(entity);
+        final long stamp = this.lock.writeLock();
+        try {
+            final long oldCell = this.entityCells.getLong(entity);
+            if (oldCell != NO_CELL && oldCell != cell) {
+                put(entity, cell, oldCell);
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the {@link LanternEntity} from this index.
+     *
+     * @param entity The entity
+     */
+    public void remove(LanternEntity entity) {
+        final long stamp = this.lock.writeLock();
+        try {
+            final long oldCell = this.entityCells.removeLong(entity);
+            if (oldCell != NO_CELL) {
+                removeFromCell(entity, oldCell);
+            }
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    private void put(LanternEntity entity, long cell, long oldCell) {
+        if (oldCell == cell) {
+            return;
+        }
+        if (oldCell != NO_CELL) {
+            removeFromCell(entity, oldCell);
+        }
+        this.entityCells.put(entity, cell);
+        if (cell == OVERSIZED_CELL) {
+            this.oversizedEntities.add(entity);
+        } else {
+            List<LanternEntity> entities = this.cells.get(cell);
+            if (entities == null) {
+                entities = new ArrayList<>(4);
+                this.cells.put(cell, entities);
+            }
+            entities.add(entity);
+        }
+    }
+
+    private void removeFromCell(LanternEntity entity, long cell) {
+        if (cell == OVERSIZED_CELL) {
+            this.oversizedEntities.remove(entity);
+        } else {
+            final List<LanternEntity> entities = this.cells.get(cell);
+            if (entities != null && entities.remove(entity) && entities.isEmpty()) {
+                this.cells.remove(cell);
+            }
+        }
+    }
+
+    /**
+     * Gets whether there is a {@link LanternEntity} that intersects
+     * with the {@link AABB} and matches the filter.
+     *
+     * @param box The box
+     * @param filter The filter
+     * @return Whether there is a intersecting entity
+     */
+    public boolean hasIntersectingEntities(AABB box, Predicate<? super LanternEntity> filter) {
+        for (LanternEntity entity : getCandidates(box)) {
+            if (intersects(entity, box) && filter.test(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the consumer to every {@link LanternEntity}
+     * that intersects with the {@link AABB}.
+     *
+     * @param box The box
+     * @param consumer The consumer
+     */
+    public void forEachIntersectingEntity(AABB box, Consumer<? super LanternEntity> consumer) {
+        for (LanternEntity entity : getCandidates(box)) {
+            if (intersects(entity, box)) {
+                consumer.accept(entity);
+            }
+        }
+    }
+
+    private static boolean intersects(LanternEntity entity, AABB box) {
+        if (entity.isRemoved()) {
+            return false;
+        }
+        final Optional<AABB> boundingBox = entity.getBoundingBox();
+        return boundingBox.isPresent() ? boundingBox.get().intersects(box) : box.contains(entity.getPosition());
+    }
+
+    /**
+     * Collects all the entities that could intersect with the {@link AABB}. The
+     * candidates are copied so that the exact tests and filters are executed
+     * outside of the lock, filters are allowed to move entities.
+     *
+     * @param box The box
+     * @return The candidates
+     */
+    private List<LanternEntity> getCandidates(AABB box) {
+        final Vector3d min = box.getMin();
+        final Vector3d max = box.getMax();
+        final int minX = (int) Math.floor(min.getX() - MAX_EXTENT) >> CELL_BITS;
+        final int minY = (int) Math.floor(min.getY() - MAX_EXTENT) >> CELL_BITS;
+        final int minZ = (int) Math.floor(min.getZ() - MAX_EXTENT) >> CELL_BITS;
+        final int maxX = (int) Math.floor(max.getX() + MAX_EXTENT) >> CELL_BITS;
+        final int maxY = (int) Math.floor(max.getY() + MAX_EXTENT) >> CELL_BITS;
+        final int maxZ = (int) Math.floor(max.getZ() + MAX_EXTENT) >> CELL_BITS;
+        final long cellCount = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        final List<LanternEntity> candidates = new ArrayList<>();
+        final long stamp = this.lock.readLock();
+        try {
+            candidates.addAll(this.oversizedEntities);
+            // Huge boxes cover more cells than there are occupied,
+            // just visit all the occupied cells in that case
+            if (cellCount > this.cells.size()) {
+                for (List<LanternEntity> entities : this.cells.values()) {
+                    candidates.addAll(entities);
+                }
+            } else {
+                for (int x = minX; x <= maxX; x++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        for (int y = minY; y <= maxY; y++) {
+                            final List<LanternEntity> entities = this.cells.get(key(x, y, z));
+                            if (entities != null) {
+                                candidates.addAll(entities);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+        return candidates;
+    }
+}
@@ -45,10 +45,13 @@
 import org.lanternpowered.server.behavior.ContextKeys;
 import org.lanternpowered.server.behavior.pipeline.BehaviorPipeline;
 import org.lanternpowered.server.block.LanternBlockType;
+import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.behavior.types.BreakBlockBehavior;
 import org.lanternpowered.server.block.behavior.types.InteractWithBlockBehavior;
 import org.lanternpowered.server.block.behavior.types.PlaceBlockBehavior;
+import org.lanternpowered.server.block.behavior.types.ScheduledTickBehavior;
+import org.lanternpowered.server.block.tile.LanternTileEntity;
 import org.lanternpowered.server.config.world.WorldConfig;
 import org.lanternpowered.server.data.io.ChunkIOService;
 import org.lanternpowered.server.data.io.ScoreboardIO;
@@ -74,6 +77,7 @@
 import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.lanternpowered.server.world.chunk.LanternChunkManager;
 import org.lanternpowered.server.world.chunk.LanternChunkTicketManager;
+import org.lanternpowered.server.world.chunk.LightEngine;
 import org.lanternpowered.server.world.dimension.LanternDimensionType;
 import org.lanternpowered.server.world.extent.AbstractExtent;
 import org.lanternpowered.server.world.extent.ExtentViewDownsize;
@@ -213,7 +217,16 @@ public class LanternWorld implements AbstractExtent, org.lanternpowered.api.worl
     /**
      * The entities mapped by their unique id.
      */
-    private final Map<UUID, LanternEntity> entitiesByUniqueId = new ConcurrentHashMap<>();
+    final Map<UUID, LanternEntity> entitiesByUniqueId = new ConcurrentHashMap<>();
+
+    // The broad-phase index used for the entity intersection queries
+    private final EntitySpatialIndex entityIndex = new EntitySpatialIndex();
+
+    // All the tile entities within the loaded chunks that need to be pulsed
+    private final TickingTileEntityList tickingTileEntities = new TickingTileEntityList();
+
+    // The ticker that pulses the islands of this world in parallel, if enabled
+    @Nullable private RegionizedTicker regionizedTicker;
 
     /**
      * The chunk manager that will allows observers to track
@@ -221,6 +234,12 @@ public class LanternWorld implements AbstractExtent, org.lanternpowered.api.worl
      */
     private final ObservedChunkManager observedChunkManager = new ObservedChunkManager(this);
 
+    // The light engine that calculates the light of the loaded chunks
+    private final LightEngine lightEngine;
+
+    // The scheduled block updates of all the loaded chunks
+    private final ScheduledBlockUpdateWheel scheduledBlockUpdates = new ScheduledBlockUpdateWheel(this);
+
     /**
      * The {@link Scoreboard} that is attached to this {@link World}.
      */
@@ -289,7 +308,11 @@ public LanternWorld(LanternGame game, WorldConfig worldConfig, Path directory,
         this.chunkManager = new LanternChunkManager(Lantern.getMinecraftPlugin(), this.game, this, this.worldConfig, chunkLoadService,
                 chunkIOService, worldGenerator, directory);
         this.worldContext = new Context(Context.WORLD_KEY, getName());
+        this.lightEngine = new LightEngine(Lantern.getServer().getWorldManager().getLightingExecutor(), this.dimension.hasSky());
+        // The light engine should receive the changes before they are observed
+        this.worldEventListener.add(this.lightEngine);
         this.worldEventListener.add(this.observedChunkManager);
+        this.worldEventListener.add(this.scheduledBlockUpdates);
         getWorldBorder().updateCurrentTime();
     }
 
@@ -393,9 +416,28 @@ public void addPlayer(LanternPlayer player) {
         checkArgument(addEntity(player) == null);
     }
 
+    /**
+     * Gets the {@link EntitySpatialIndex} of this world.
+     *
+     * @return The entity spatial index
+     */
+    public EntitySpatialIndex getEntityIndex() {
+        return this.entityIndex;
+    }
+
+    /**
+     * Gets the {@link TickingTileEntityList} of this world.
+     *
+     * @return The ticking tile entities
+     */
+    public TickingTileEntityList getTickingTileEntities() {
+        return this.tickingTileEntities;
+    }
+
     public void removePlayer(LanternPlayer player) {
         this.players.remove(player);
         this.entitiesByUniqueId.remove(player.getUniqueId());
+        this.entityIndex.remove(player);
         final Vector3i lastChunkSection = player.getLastChunkSectionCoords();
         LanternChunk chunk;
         if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
@@ -424,25 +466,97 @@ public Location<World> getLocation(Vector3d position) {
         return getLocation(position.getX(), position.getY(), position.getZ());
     }
 
+    /**
+     * Gets the {@link ScheduledBlockUpdateWheel} of this world.
+     *
+     * @return The scheduled block updates
+     */
+    public ScheduledBlockUpdateWheel getScheduledBlockUpdates() {
+        return this.scheduledBlockUpdates;
+    }
+
     @Override
     public Collection<ScheduledBlockUpdate> getScheduledUpdates(int x, int y, int z) {
-        LanternChunk chunk = this.chunkManager.getChunk(x >> 4, z >> 4);
-        if (chunk != null) {
-            return chunk.getScheduledUpdates(x, y, z);
-        }
-        return ImmutableSet.of();
+        checkVolumeBounds(x, y, z);
+        return this.scheduledBlockUpdates.getUpdates(x, y, z);
     }
 
     @Override
     public ScheduledBlockUpdate addScheduledUpdate(int x, int y, int z, int priority, int ticks) {
-        // TODO Auto-generated method stub
-        return null;
+        checkVolumeBounds(x, y, z);
+        return this.scheduledBlockUpdates.add(x, y, z, priority, ticks);
     }
 
     @Override
     public void removeScheduledUpdate(int x, int y, int z, ScheduledBlockUpdate update) {
-        // TODO Auto-generated method stub
-        
+        checkVolumeBounds(x, y, z);
+        this.scheduledBlockUpdates.remove(update);
+    }
+
+    /**
+     * Marks the chunk at the given block coordinates dirty, if it's loaded.
+     *
+     * @param x The block x coordinate
+     * @param z The block z coordinate
+     */
+    void markChunkDirty(int x, int z) {
+        final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(x >> 4, z >> 4);
+        if (chunk != null) {
+            chunk.markDirty();
+        }
+    }
+
+    /**
+     * Gets whether the chunk at the given coordinates is being
+     * loaded, or whether it can be reused without loading it.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return Whether the chunk is loading or reusable
+     */
+    boolean isChunkLoadingOrReusable(int chunkX, int chunkZ) {
+        return this.chunkManager.isChunkLoadingOrReusable(chunkX, chunkZ);
+    }
+
+    /**
+     * Executes the {@link LanternScheduledBlockUpdate}.
+     *
+     * @param update The update
+     * @param causeStack The cause stack
+     * @return Whether the update could be executed, false if the chunk isn't loaded
+     */
+    boolean pulseScheduledUpdate(LanternScheduledBlockUpdate update, CauseStack causeStack) {
+        final Location<World> location = update.getLocation();
+        final int x = location.getBlockX();
+        final int y = location.getBlockY();
+        final int z = location.getBlockZ();
+        final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(x >> 4, z >> 4);
+        if (chunk == null) {
+            return false;
+        }
+        final LanternBlockType blockType = (LanternBlockType) chunk.getBlockType(x, y, z);
+        // The block was changed since the update was scheduled
+        if (blockType != update.getBlockType()) {
+            return true;
+        }
+        final BehaviorPipeline<Behavior> pipeline = blockType.getPipeline();
+        final BehaviorPipeline<ScheduledTickBehavior> tickPipeline = pipeline.pipeline(ScheduledTickBehavior.class);
+        if (tickPipeline.getBehaviors().isEmpty()) {
+            return true;
+        }
+        try (CauseStack.Frame frame = causeStack.pushCauseFrame()) {
+            frame.addContext(ContextKeys.BLOCK_LOCATION, location);
+            frame.addContext(ContextKeys.BLOCK_TYPE, blockType);
+            final BehaviorContextImpl context = new BehaviorContextImpl(causeStack);
+            if (context.process(tickPipeline, (ctx, behavior) -> behavior.tryScheduledTick(pipeline, ctx)).isSuccess()) {
+                context.accept();
+            } else {
+                context.revert();
+            }
+        } catch (Throwable t) {
+            this.logger.error("Failed to execute the scheduled update {}", update, t);
+        }
+        return true;
     }
 
     @Override
@@ -520,19 +634,7 @@ public Set<AABB> getIntersectingBlockCollisionBoxes(AABB box) {
     public boolean hasIntersectingEntities(AABB box, Predicate<Entity> filter) {
         checkNotNull(box, "box");
         checkNotNull(filter, "filter");
-        final int maxX = ((int) Math.ceil(box.getMax().getX() + 2.0)) >> 4;
-        final int minX = ((int) Math.floor(box.getMin().getX() - 2.0)) >> 4;
-        final int maxZ = ((int) Math.ceil(box.getMax().getZ() + 2.0)) >> 4;
-        final int minZ = ((int) Math.floor(box.getMin().getZ() - 2.0)) >> 4;
-        for (int x = minX; x <= maxX; x++) {
-            for (int z = minZ; z <= maxZ; z++) {
-                final LanternChunk chunk = getChunkManager().getChunkIfLoaded(x, z);
-                if (chunk != null && chunk.hasIntersectingEntities(box, filter)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return this.entityIndex.hasIntersectingEntities(box, filter);
     }
 
     public Set<AABB> getIntersectingBlockCollisionBoxes(AABB box, @Nullable Predicate<Entity> filter) {
@@ -549,8 +651,6 @@ public Set<AABB> getIntersectingBlockCollisionBoxes(AABB box, @Nullable Predicat
         final int minChunkX = minX >> 4;
         final int maxChunkZ = maxZ >> 4;
         final int minChunkZ = minZ >> 4;
-        final int maxChunkSection = maxY >> 4;
-        final int minChunkSection = minY >> 4;
         for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
             for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
                 final LanternChunk chunk = getChunkManager().getChunkIfLoaded(chunkX, chunkZ);
@@ -571,11 +671,15 @@ public Set<AABB> getIntersectingBlockCollisionBoxes(AABB box, @Nullable Predicat
                         }
                     }
                 }
-                if (filter != null) {
-                    chunk.addIntersectingEntitiesBoxes(boxes, maxChunkSection, minChunkSection, box, filter);
-                }
             }
         }
+        if (filter != null) {
+            this.entityIndex.forEachIntersectingEntity(box, entity -> {
+                if (filter.test(entity)) {
+                    entity.getBoundingBox().ifPresent(boxes::add);
+                }
+            });
+        }
         return boxes.build();
     }
 
@@ -584,20 +688,11 @@ public Set<Entity> getIntersectingEntities(AABB box, Predicate<Entity> filter) {
         checkNotNull(box, "box");
         checkNotNull(filter, "filter");
         final ImmutableSet.Builder<Entity> entities = ImmutableSet.builder();
-        final int maxX = ((int) Math.ceil(box.getMax().getX() + 2.0)) >> 4;
-        final int minX = ((int) Math.floor(box.getMin().getX() - 2.0)) >> 4;
-        final int maxYSection = fixEntityYSection(((int) Math.round(box.getMax().getY() + 2.0)) >> 4);
-        final int minYSection = fixEntityYSection(((int) Math.round(box.getMin().getY() - 2.0)) >> 4);
-        final int maxZ = ((int) Math.ceil(box.getMax().getZ() + 2.0)) >> 4;
-        final int minZ = ((int) Math.floor(box.getMin().getZ() - 2.0)) >> 4;
-        for (int x = minX; x <= maxX; x++) {
-            for (int z = minZ; z <= maxZ; z++) {
-                final LanternChunk chunk = getChunkManager().getChunkIfLoaded(x, z);
-                if (chunk != null) {
-                    chunk.addIntersectingEntities(entities, maxYSection, minYSection, box, filter);
-                }
+        this.entityIndex.forEachIntersectingEntity(box, entity -> {
+            if (filter.test(entity)) {
+                entities.add(entity);
             }
-        }
+        });
         return entities.build();
     }
 
@@ -1394,39 +1489,82 @@ private LanternEntity addEntity(LanternEntity entity) {
             this.entityProtocolManager.add(entity, entityProtocolType);
         }
         entity.setPositionAndWorld(this, entity.getPosition());
+        this.entityIndex.add(entity);
         return null;
     }
 
     private void pulseEntities() {
         // Pulse the entities
         for (LanternEntity entity : new ArrayList<>(this.entitiesByUniqueId.values())) {
-            if (entity.isRemoved()) {
-                final Vector3i lastChunk = entity.getLastChunkSectionCoords();
-                if (lastChunk != null && entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
-                    final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(lastChunk.getX(), lastChunk.getZ());
-                    if (chunk != null) {
-                        chunk.removeEntity(entity, lastChunk.getY());
-                    }
-                }
-                this.entityProtocolManager.remove(entity);
-                this.entitiesByUniqueId.remove(entity.getUniqueId());
-            } else {
-                final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
-                entity.pulse();
-                final Vector3i pos = entity.getPosition().toInt();
-                final Vector3i newChunk = new Vector3i(pos.getX() >> 4, fixEntityYSection(pos.getY() >> 4), pos.getZ() >> 4);
-                if (lastChunkSection == null || !lastChunkSection.equals(newChunk)) {
-                    LanternChunk chunk;
-                    if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
-                            lastChunkSection.getX(), lastChunkSection.getZ())) != null) {
-                        chunk.removeEntity(entity, lastChunkSection.getY());
-                    }
-                    chunk = this.chunkManager.getOrLoadChunk(newChunk.getX(), newChunk.getZ());
-                    chunk.addEntity(entity, newChunk.getY());
-                    entity.setLastChunkCoords(newChunk);
-                }
+            pulseEntity(entity);
+        }
+    }
+
+    void pulseTileEntity(LanternTileEntity tileEntity, CauseStack causeStack) {
+        // Tile entities that were removed during this tick are no longer pulsed
+        if (!tileEntity.isValid()) {
+            return;
+        }
+        causeStack.pushCause(tileEntity); // Add the tile entity to the cause
+        try {
+            tileEntity.pulse();
+        } catch (Throwable t) {
+            final Vector3i pos = tileEntity.getLocation().getBlockPosition();
+            this.logger.error("Failed to pulse TileEntity at ({};{};{})", pos.getX(), pos.getY(), pos.getZ(), t);
+        } finally {
+            causeStack.popCause(); // Pop the tile entity
+        }
+    }
+
+    void pulseEntity(LanternEntity entity) {
+        if (entity.isRemoved()) {
+            removePulsedEntity(entity);
+        } else {
+            final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
+            entity.pulse();
+            updateEntityChunk(entity, lastChunkSection);
+        }
+    }
+
+    /**
+     * Removes the {@link LanternEntity} that was marked
+     * as removed from this world.
+     *
+     * @param entity The entity
+     */
+    void removePulsedEntity(LanternEntity entity) {
+        final Vector3i lastChunk = entity.getLastChunkSectionCoords();
+        if (lastChunk != null && entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
+            final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(lastChunk.getX(), lastChunk.getZ());
+            if (chunk != null) {
+                chunk.removeEntity(entity, lastChunk.getY());
             }
         }
+        this.entityProtocolManager.remove(entity);
+        this.entitiesByUniqueId.remove(entity.getUniqueId());
+        this.entityIndex.remove(entity);
+    }
+
+    /**
+     * Moves the {@link LanternEntity} to the chunk section
+     * it's currently located in, if it changed.
+     *
+     * @param entity The entity
+     * @param lastChunkSection The chunk section the entity was located in
+     */
+    void updateEntityChunk(LanternEntity entity, @Nullable Vector3i lastChunkSection) {
+        final Vector3i pos = entity.getPosition().toInt();
+        final Vector3i newChunk = new Vector3i(pos.getX() >> 4, fixEntityYSection(pos.getY() >> 4), pos.getZ() >> 4);
+        if (lastChunkSection == null || !lastChunkSection.equals(newChunk)) {
+            LanternChunk chunk;
+            if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
+                    lastChunkSection.getX(), lastChunkSection.getZ())) != null) {
+                chunk.removeEntity(entity, lastChunkSection.getY());
+            }
+            chunk = this.chunkManager.getOrLoadChunk(newChunk.getX(), newChunk.getZ());
+            chunk.addEntity(entity, newChunk.getY());
+            entity.setLastChunkCoords(newChunk);
+        }
     }
 
     @Override
@@ -1536,14 +1674,33 @@ public void pulse() {
             this.weatherUniverse.pulse(causeStack);
         }
 
-        // Pulse the entities
-        pulseEntities();
+        if (this.worldConfig.isRegionizedTicking()) {
+            if (this.regionizedTicker == null) {
+                this.regionizedTicker = new RegionizedTicker(this, Lantern.getServer().getWorldManager().getRegionTickExecutor());
+                // Rebuild the islands when chunks are loaded or unloaded
+                this.worldEventListener.add(this.regionizedTicker);
+            }
+            // Pulse the entities and tile entities per island
+            this.regionizedTicker.pulse();
+        } else {
+            // Pulse the entities
+            pulseEntities();
+
+            // Pulse the tile entities
+            this.tickingTileEntities.update();
+            for (int i = 0; i < this.tickingTileEntities.size(); i++) {
+                pulseTileEntity(this.tickingTileEntities.get(i), causeStack);
+            }
+        }
 
-        // Pulse the tile entities
-        getLoadedChunks().forEach(chunk -> ((LanternChunk) chunk).pulse());
+        // Execute the scheduled block updates
+        this.scheduledBlockUpdates.pulse(causeStack);
 
         causeStack.popCause();
 
+        // Submit the light updates of the block changes of this tick
+        this.lightEngine.pulse();
+
         // TODO: Maybe async?
         this.observedChunkManager.pulse();
         this.entityProtocolManager.updateTrackers(this.players);
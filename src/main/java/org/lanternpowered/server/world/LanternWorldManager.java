@@ -98,6 +98,23 @@ public final class LanternWorldManager {
     private final ExecutorService executor = Executors.newCachedThreadPool(
             ThreadHelper.newThreadFactory(() -> "worlds-" + this.counter.getAndIncrement()));
 
+    // The counter for the region tick threads
+    private final AtomicInteger regionTickCounter = new AtomicInteger();
+    // The executor that pulses the islands of worlds with regionized ticking, the
+    // threads are sync threads so they are treated the same way as world threads
+    private final ExecutorService regionTickExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            runnable -> new SyncLanternThread(() -> {
+                LanternCauseStackManager.INSTANCE.setCurrentCauseStack(new LanternCauseStack());
+                runnable.run();
+            }, "region-ticker-" + this.regionTickCounter.getAndIncrement()));
+
+    // The counter for the lighting threads
+    private final AtomicInteger lightingCounter = new AtomicInteger();
+    // The executor that calculates the light of the chunk columns of all the worlds
+    private final ExecutorService lightingExecutor = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            ThreadHelper.newThreadFactory(() -> "lighting-" + this.lightingCounter.getAndIncrement()));
+
     // The name of the world configs
     private static final String WORLD_CONFIG = "world.conf";
 
@@ -702,6 +719,26 @@ private WorldConfigResult getOrCreateWorldConfig(String worldName) throws IOExce
         return new WorldConfigResult(config, newCreated);
     }
 
+    /**
+     * Gets the {@link ExecutorService} that is used to pulse
+     * the islands of worlds with regionized ticking.
+     *
+     * @return The region tick executor
+     */
+    ExecutorService getRegionTickExecutor() {
+        return this.regionTickExecutor;
+    }
+
+    /**
+     * Gets the {@link ExecutorService} that is used to
+     * calculate the light of the chunk columns.
+     *
+     * @return The lighting executor
+     */
+    ExecutorService getLightingExecutor() {
+        return this.lightingExecutor;
+    }
+
     /**
      * Adds the task for the world to tick it.
      */
@@ -757,6 +794,8 @@ private void tickEnd() {
             this.logger.warn("Tick end barrier {} has advanced differently from tick begin barrier: {}",
                     endPhase, nextTick);
         }
+        // Flush the messages that were batched during the tick
+        this.game.getServer().getNetworkManager().flushSessions();
     }
 
     /**
@@ -788,6 +827,8 @@ public void shutdown() {
         this.tickEnd.forceTermination();
         this.worldThreads.clear();
         this.executor.shutdown();
+        this.regionTickExecutor.shutdown();
+        this.lightingExecutor.shutdown();
     }
 
     /**
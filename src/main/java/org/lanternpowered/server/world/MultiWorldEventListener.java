@@ -32,12 +32,13 @@
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public final class MultiWorldEventListener implements WorldEventListener {
 
-    private final List<WorldEventListener> listeners = new ArrayList<>();
+    // Listeners may be added while chunks are being loaded by other threads
+    private final List<WorldEventListener> listeners = new CopyOnWriteArrayList<>();
 
     public void add(WorldEventListener listener) {
         this.listeners.add(checkNotNull(listener, "listener"));
@@ -0,0 +1,314 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.fixEntityYSection;
+
+import com.flowpowered.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import org.lanternpowered.api.cause.CauseStack;
+import org.lanternpowered.server.block.action.BlockAction;
+import org.lanternpowered.server.block.tile.LanternTileEntity;
+import org.lanternpowered.server.entity.LanternEntity;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.world.Chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pulses the entities and tile entities of a {@link LanternWorld} in parallel. The loaded
+ * chunks are split into islands, groups of chunks that are connected to each other, no
+ * island can reach the chunks of another island without passing through unloaded chunks.
+ * Every island is pulsed on a separate thread.
+ * <p>
+ * All the effects that may cross the border of an island, moving entities between chunks
+ * and removing entities from the world, are collected while the islands are being pulsed
+ * and are applied by the world thread once all the islands arrived at the barrier.
+ * <p>
+ * The islands are only rebuilt after chunks were loaded or unloaded.
+ */
+final class RegionizedTicker implements WorldEventListener {
+
+    private static final int NO_ISLAND = -1;
+
+    private final LanternWorld world;
+    private final Executor executor;
+
+    // The barrier where the islands arrive once they are pulsed, the
+    // world thread is the only party that is permanently registered
+    private final Phaser phaser = new Phaser(1);
+
+    private final List<Island> islands = new ArrayList<>();
+    private final Long2IntMap islandsByChunk = new Long2IntOpenHashMap();
+
+    // Whether chunks were loaded or unloaded since the islands were built
+    private volatile boolean islandsDirty = true;
+
+    RegionizedTicker(LanternWorld world, Executor executor) {
+        this.world = world;
+        this.executor = executor;
+        this.islandsByChunk.defaultReturnValue(NO_ISLAND);
+    }
+
+    /**
+     * A group of chunks that are connected to each other.
+     */
+    private final class Island implements Runnable {
+
+        private final List<LanternEntity> entities = new ArrayList<>();
+        private final List<LanternTileEntity> tileEntities = new ArrayList<>();
+
+        // The entities that should be removed from the world
+        private final List<LanternEntity> removedEntities = new ArrayList<>();
+        // The entities that moved to a different chunk section
+        private final List<LanternEntity> movedEntities = new ArrayList<>();
+        private final List<Vector3i> movedFromSections = new ArrayList<>();
+
+        @Override
+        public void run() {
+            try {
+                pulse();
+            } catch (Throwable t) {
+                RegionizedTicker.this.world.logger.error("Failed to pulse an island", t);
+            } finally {
+                // Always arrive, the world thread is waiting for all the islands
+                RegionizedTicker.this.phaser.arriveAndDeregister();
+            }
+        }
+
+        private void pulse() {
+            final CauseStack causeStack = CauseStack.current();
+            causeStack.pushCause(RegionizedTicker.this.world);
+            try {
+                for (LanternEntity entity : this.entities) {
+                    try {
+                        pulseEntity(entity);
+                    } catch (Throwable t) {
+                        RegionizedTicker.this.world.logger.error("Failed to pulse entity {}", entity, t);
+                    }
+                }
+                for (LanternTileEntity tileEntity : this.tileEntities) {
+                    RegionizedTicker.this.world.pulseTileEntity(tileEntity, causeStack);
+                }
+            } finally {
+                causeStack.popCause();
+            }
+        }
+
+        private void pulseEntity(LanternEntity entity) {
+            if (entity.isRemoved()) {
+                this.removedEntities.add(entity);
+                return;
+            }
+            final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
+            try {
+                entity.pulse();
+            } catch (Throwable t) {
+                RegionizedTicker.this.world.logger.error("Failed to pulse entity {}", entity, t);
+            }
+            final Vector3i pos = entity.getPosition().toInt();
+            final Vector3i newChunk = new Vector3i(pos.getX() >> 4, fixEntityYSection(pos.getY() >> 4), pos.getZ() >> 4);
+            if (lastChunkSection == null || !lastChunkSection.equals(newChunk)) {
+                this.movedEntities.add(entity);
+                this.movedFromSections.add(lastChunkSection);
+            }
+        }
+
+        /**
+         * Applies all the effects that were collected while pulsing this island.
+         */
+        private void merge() {
+            for (LanternEntity entity : this.removedEntities) {
+                RegionizedTicker.this.world.removePulsedEntity(entity);
+            }
+            for (int i = 0; i < this.movedEntities.size(); i++) {
+                RegionizedTicker.this.world.updateEntityChunk(this.movedEntities.get(i), this.movedFromSections.get(i));
+            }
+        }
+
+        /**
+         * Clears all the state of the previous pulse.
+         */
+        private void reset() {
+            this.entities.clear();
+            this.tileEntities.clear();
+            this.removedEntities.clear();
+            this.movedEntities.clear();
+            this.movedFromSections.clear();
+        }
+    }
+
+    @Override
+    public void onLoadChunk(LanternChunk chunk) {
+        this.islandsDirty = true;
+    }
+
+    @Override
+    public void onUnloadChunk(LanternChunk chunk) {
+        this.islandsDirty = true;
+    }
+
+    @Override
+    public void onPopulateChunk(LanternChunk chunk) {
+    }
+
+    @Override
+    public void onBlockChange(int x, int y, int z, BlockState oldBlockState, BlockState newBlockState) {
+    }
+
+    @Override
+    public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
+    }
+
+    /**
+     * Pulses all the entities and tile entities of the world.
+     */
+    void pulse() {
+        if (this.islandsDirty) {
+            // Clear the flag first, chunks that are loaded while
+            // building will trigger a rebuild next pulse
+            this.islandsDirty = false;
+            buildIslands();
+        }
+        final List<Island> islands = this.islands;
+        final Long2IntMap islandsByChunk = this.islandsByChunk;
+        for (Island island : islands) {
+            island.reset();
+        }
+
+        // Entities that aren't located within a loaded chunk are pulsed on the world thread
+        final List<LanternEntity> remainingEntities = new ArrayList<>();
+        for (LanternEntity entity : new ArrayList<>(this.world.entitiesByUniqueId.values())) {
+            final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
+            final int island;
+            if (lastChunkSection != null) {
+                island = islandsByChunk.get(LanternChunk.key(lastChunkSection.getX(), lastChunkSection.getZ()));
+            } else {
+                final Vector3i pos = entity.getPosition().toInt();
+                island = islandsByChunk.get(LanternChunk.key(pos.getX() >> 4, pos.getZ() >> 4));
+            }
+            if (island == NO_ISLAND) {
+                remainingEntities.add(entity);
+            } else {
+                islands.get(island).entities.add(entity);
+            }
+        }
+
+        // Tile entities that aren't located within a loaded chunk are pulsed on the world thread
+        final List<LanternTileEntity> remainingTileEntities = new ArrayList<>();
+        final TickingTileEntityList tickingTileEntities = this.world.getTickingTileEntities();
+        tickingTileEntities.update();
+        for (int i = 0; i < tickingTileEntities.size(); i++) {
+            final LanternTileEntity tileEntity = tickingTileEntities.get(i);
+            final Vector3i pos = tileEntity.getLocation().getBlockPosition();
+            final int island = islandsByChunk.get(LanternChunk.key(pos.getX() >> 4, pos.getZ() >> 4));
+            if (island == NO_ISLAND) {
+                remainingTileEntities.add(tileEntity);
+            } else {
+                islands.get(island).tileEntities.add(tileEntity);
+            }
+        }
+
+        // Pulse all the islands, the last one is pulsed by the world thread itself
+        if (!islands.isEmpty()) {
+            this.phaser.bulkRegister(islands.size());
+            for (int i = 0; i < islands.size() - 1; i++) {
+                final Island island = islands.get(i);
+                try {
+                    this.executor.execute(island);
+                } catch (RejectedExecutionException e) {
+                    island.run();
+                }
+            }
+            islands.get(islands.size() - 1).run();
+        }
+        this.phaser.arriveAndAwaitAdvance();
+
+        // Apply the effects that cross the island borders
+        for (Island island : islands) {
+            island.merge();
+        }
+        for (LanternEntity entity : remainingEntities) {
+            try {
+                this.world.pulseEntity(entity);
+            } catch (Throwable t) {
+                this.world.logger.error("Failed to pulse entity {}", entity, t);
+            }
+        }
+        final CauseStack causeStack = CauseStack.current();
+        for (LanternTileEntity tileEntity : remainingTileEntities) {
+            this.world.pulseTileEntity(tileEntity, causeStack);
+        }
+    }
+
+    /**
+     * Splits the loaded chunks of the world into islands.
+     */
+    private void buildIslands() {
+        final Long2ObjectMap<LanternChunk> chunks = new Long2ObjectOpenHashMap<>();
+        for (Chunk chunk : this.world.getLoadedChunks()) {
+            final LanternChunk chunk0 = (LanternChunk) chunk;
+            chunks.put(chunk0.getKey(), chunk0);
+        }
+        final List<Island> islands = this.islands;
+        final Long2IntMap islandsByChunk = this.islandsByChunk;
+        islands.clear();
+        islandsByChunk.clear();
+        final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        for (LanternChunk start : chunks.values()) {
+            if (islandsByChunk.containsKey(start.getKey())) {
+                continue;
+            }
+            final int index = islands.size();
+            islands.add(new Island());
+            islandsByChunk.put(start.getKey(), index);
+            queue.enqueue(start.getKey());
+            while (!queue.isEmpty()) {
+                final LanternChunk chunk = chunks.get(queue.dequeueLong());
+                // Entities can interact across the corners of chunks, so diagonal chunks are connected as well
+                for (int x = -1; x <= 1; x++) {
+                    for (int z = -1; z <= 1; z++) {
+                        final long key = LanternChunk.key(chunk.getX() + x, chunk.getZ() + z);
+                        if (chunks.containsKey(key) && !islandsByChunk.containsKey(key)) {
+                            islandsByChunk.put(key, index);
+                            queue.enqueue(key);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
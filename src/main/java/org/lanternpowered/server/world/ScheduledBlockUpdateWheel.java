@@ -0,0 +1,457 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.lanternpowered.api.cause.CauseStack;
+import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
+import org.lanternpowered.server.block.action.BlockAction;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.block.ScheduledBlockUpdate;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Manages all the {@link ScheduledBlockUpdate}s of a {@link LanternWorld}.
+ * <p>
+ * The updates are stored in a hashed timing wheel, the update is put in the slot
+ * of the tick it should be executed at, wrapped around the size of the wheel. Updates
+ * that are scheduled more than a full rotation ahead stay in their slot until their
+ * tick is reached. The updates are also indexed by block position and chunk, so that
+ * they can be looked up, removed and saved without scanning the wheel.
+ * <p>
+ * At most {@link #MAX_UPDATES_PER_TICK} updates are executed every tick, the
+ * remaining due updates are carried over to the next tick.
+ * <p>
+ * Updates of chunks that aren't loaded are parked per chunk and will be
+ * scheduled again once the chunk is loaded. The parked updates are saved
+ * with the chunk and are discarded once the chunk can no longer be reused.
+ */
+public final class ScheduledBlockUpdateWheel implements WorldEventListener {
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * The maximum amount of updates that will be executed per tick.
+     */
+    public static final int MAX_UPDATES_PER_TICK = 65536;
+
+    private final LanternWorld world;
+
+    private final List<LanternScheduledBlockUpdate>[] slots;
+    private final Long2ObjectMap<List<LanternScheduledBlockUpdate>> updatesByPosition = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<List<LanternScheduledBlockUpdate>> updatesByChunk = new Long2ObjectOpenHashMap<>();
+
+    // The updates of chunks that were unloaded, these are also saved with
+    // the chunk and only needed if the chunk is reused from the graveyard
+    private final Long2ObjectMap<List<LanternScheduledBlockUpdate>> unloadedByChunk = new Long2ObjectOpenHashMap<>();
+    // The due updates that couldn't be executed because the chunk wasn't loaded
+    private final Long2ObjectMap<List<LanternScheduledBlockUpdate>> pendingByChunk = new Long2ObjectOpenHashMap<>();
+
+    // The due updates that didn't fit in the budget of a previous tick
+    private final ArrayDeque<LanternScheduledBlockUpdate> carriedOver = new ArrayDeque<>();
+    // The updates that will be executed this tick
+    private final List<LanternScheduledBlockUpdate> due = new ArrayList<>();
+
+    private long currentTick;
+    private int entryIdCounter;
+
+    @SuppressWarnings("unchecked")
+    ScheduledBlockUpdateWheel(LanternWorld world) {
+        this.world = world;
+        this.slots = new List[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            this.slots[i] = new ArrayList<>();
+        }
+    }
+
+    private static long positionKey(int x, int y, int z) {
+        return ((long) x & 0x3ffffff) << 38 | ((long) z & 0x3ffffff) << 12 | (long) y & 0xfff;
+    }
+
+    private static long positionKey(Location<World> location) {
+        return positionKey(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    private static long chunkKey(Location<World> location) {
+        return LanternChunk.key(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    /**
+     * Gets all the {@link ScheduledBlockUpdate}s at the given block position.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The scheduled updates
+     */
+    public synchronized Collection<ScheduledBlockUpdate> getUpdates(int x, int y, int z) {
+        final List<LanternScheduledBlockUpdate> updates = this.updatesByPosition.get(positionKey(x, y, z));
+        return updates == null ? Collections.emptyList() : ImmutableList.copyOf(updates);
+    }
+
+    /**
+     * Gets all the {@link LanternScheduledBlockUpdate}s within the given chunk, including
+     * the updates that are parked until the chunk is loaded. These are the updates that
+     * should be saved with the chunk.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The scheduled updates
+     */
+    public synchronized Collection<LanternScheduledBlockUpdate> getUpdatesInChunk(int chunkX, int chunkZ) {
+        final long key = LanternChunk.key(chunkX, chunkZ);
+        final List<LanternScheduledBlockUpdate> updates = this.updatesByChunk.get(key);
+        final List<LanternScheduledBlockUpdate> pending = this.pendingByChunk.get(key);
+        if (pending == null) {
+            return updates == null ? Collections.emptyList() : ImmutableList.copyOf(updates);
+        }
+        final ImmutableList.Builder<LanternScheduledBlockUpdate> builder = ImmutableList.builder();
+        if (updates != null) {
+            builder.addAll(updates);
+        }
+        return builder.addAll(pending).build();
+    }
+
+    /**
+     * Schedules a update for the block at the given position.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param priority The priority
+     * @param ticks The amount of ticks until the update should be executed
+     * @return The scheduled update
+     */
+    public LanternScheduledBlockUpdate add(int x, int y, int z, int priority, int ticks) {
+        return add(x, y, z, this.world.getBlockType(x, y, z), priority, ticks);
+    }
+
+    /**
+     * Schedules a update for the block at the given position. The update
+     * will be ignored if the block type at the position doesn't match
+     * the given {@link BlockType} when it should be executed.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param blockType The block type
+     * @param priority The priority
+     * @param ticks The amount of ticks until the update should be executed
+     * @return The scheduled update
+     */
+    public synchronized LanternScheduledBlockUpdate add(int x, int y, int z, BlockType blockType, int priority, int ticks) {
+        checkNotNull(blockType, "blockType");
+        final Location<World> location = new Location<>(this.world, x, y, z);
+        final LanternScheduledBlockUpdate update = new LanternScheduledBlockUpdate(this, this.entryIdCounter++,
+                location, blockType, this.currentTick + Math.max(1, ticks), priority);
+        this.updatesByPosition.computeIfAbsent(positionKey(x, y, z), key -> new ArrayList<>(1)).add(update);
+        this.updatesByChunk.computeIfAbsent(chunkKey(location), key -> new ArrayList<>()).add(update);
+        insert(update);
+        markChunkDirty(location);
+        return update;
+    }
+
+    private void markChunkDirty(Location<World> location) {
+        // The scheduled updates are saved with the chunk
+        this.world.markChunkDirty(location.getBlockX(), location.getBlockZ());
+    }
+
+    private void insert(LanternScheduledBlockUpdate update) {
+        final int slot = (int) (update.getEndTick() & WHEEL_MASK);
+        // Updates that were rescheduled to the same slot are already present
+        if (update.getSlot() != slot) {
+            update.setSlot(slot);
+            this.slots[slot].add(update);
+        }
+    }
+
+    /**
+     * Removes the {@link ScheduledBlockUpdate}.
+     *
+     * @param update The update to remove
+     */
+    public synchronized void remove(ScheduledBlockUpdate update) {
+        checkNotNull(update, "update");
+        if (!(update instanceof LanternScheduledBlockUpdate)) {
+            return;
+        }
+        final LanternScheduledBlockUpdate update0 = (LanternScheduledBlockUpdate) update;
+        if (update0.isRemoved()) {
+            return;
+        }
+        // The wheel and the carry over queue are cleaned up lazily
+        update0.setRemoved(true);
+        removeFromIndex(update0);
+        markChunkDirty(update0.getLocation());
+    }
+
+    private void removeFromIndex(LanternScheduledBlockUpdate update) {
+        final Location<World> location = update.getLocation();
+        final long positionKey = positionKey(location);
+        final List<LanternScheduledBlockUpdate> positionUpdates = this.updatesByPosition.get(positionKey);
+        if (positionUpdates != null && positionUpdates.remove(update) && positionUpdates.isEmpty()) {
+            this.updatesByPosition.remove(positionKey);
+        }
+        final long chunkKey = chunkKey(location);
+        final List<LanternScheduledBlockUpdate> chunkUpdates = this.updatesByChunk.get(chunkKey);
+        if (chunkUpdates != null && chunkUpdates.remove(update) && chunkUpdates.isEmpty()) {
+            this.updatesByChunk.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Gets the amount of ticks until the {@link LanternScheduledBlockUpdate}
+     * will be executed.
+     *
+     * @param update The update
+     * @return The remaining ticks
+     */
+    public synchronized int getRemainingTicks(LanternScheduledBlockUpdate update) {
+        return (int) Math.max(0, update.getEndTick() - this.currentTick);
+    }
+
+    /**
+     * Reschedules the {@link LanternScheduledBlockUpdate}.
+     *
+     * @param update The update
+     * @param ticks The amount of ticks until the update should be executed
+     */
+    public synchronized void reschedule(LanternScheduledBlockUpdate update, int ticks) {
+        update.setEndTick(this.currentTick + Math.max(1, ticks));
+        if (!update.isRemoved()) {
+            insert(update);
+            markChunkDirty(update.getLocation());
+        }
+    }
+
+    /**
+     * Gets the priority of the {@link LanternScheduledBlockUpdate}.
+     *
+     * @param update The update
+     * @return The priority
+     */
+    public synchronized int getPriority(LanternScheduledBlockUpdate update) {
+        return update.getPriority0();
+    }
+
+    /**
+     * Sets the priority of the {@link LanternScheduledBlockUpdate}.
+     *
+     * @param update The update
+     * @param priority The priority
+     */
+    public synchronized void setPriority(LanternScheduledBlockUpdate update, int priority) {
+        update.setPriority0(priority);
+        if (!update.isRemoved()) {
+            markChunkDirty(update.getLocation());
+        }
+    }
+
+    /**
+     * Pulses the wheel and executes all the updates that are due.
+     *
+     * @param causeStack The cause stack
+     */
+    void pulse(CauseStack causeStack) {
+        final List<LanternScheduledBlockUpdate> due = this.due;
+        synchronized (this) {
+            this.currentTick++;
+            // Start with the updates that didn't fit in the budget of previous ticks
+            int budget = MAX_UPDATES_PER_TICK;
+            LanternScheduledBlockUpdate update;
+            while (budget > 0 && (update = this.carriedOver.poll()) != null) {
+                // Skip the updates that were removed or rescheduled in the mean time
+                if (!update.isRemoved() && update.getSlot() == -1) {
+                    due.add(update);
+                    budget--;
+                }
+            }
+            final int slotIndex = (int) (this.currentTick & WHEEL_MASK);
+            final List<LanternScheduledBlockUpdate> slot = this.slots[slotIndex];
+            // Collect the due updates, the other valid entries are compacted in the slot
+            final int dueStart = due.size();
+            int size = 0;
+            for (int i = 0; i < slot.size(); i++) {
+                update = slot.get(i);
+                if (update.isRemoved() || update.getSlot() != slotIndex) {
+                    continue;
+                }
+                if (update.getEndTick() <= this.currentTick) {
+                    update.setSlot(-1);
+                    due.add(update);
+                } else {
+                    slot.set(size++, update);
+                }
+            }
+            slot.subList(size, slot.size()).clear();
+            // Execute the updates of this slot in order, the ones that
+            // exceed the budget are carried over to the next tick
+            final List<LanternScheduledBlockUpdate> slotDue = due.subList(dueStart, due.size());
+            Collections.sort(slotDue);
+            if (slotDue.size() > budget) {
+                final List<LanternScheduledBlockUpdate> excess = slotDue.subList(budget, slotDue.size());
+                this.carriedOver.addAll(excess);
+                excess.clear();
+            }
+            for (LanternScheduledBlockUpdate update0 : due) {
+                update0.setRemoved(true);
+                removeFromIndex(update0);
+            }
+        }
+        try {
+            for (LanternScheduledBlockUpdate update : due) {
+                if (!this.world.pulseScheduledUpdate(update, causeStack)) {
+                    final Location<World> location = update.getLocation();
+                    // The chunk isn't loaded, park the update until it is. Updates in chunks
+                    // that can't be reused are dropped, just like vanilla does
+                    if (this.world.isChunkLoadingOrReusable(location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+                        park(update);
+                    }
+                }
+            }
+        } finally {
+            due.clear();
+        }
+    }
+
+    /**
+     * Parks the {@link LanternScheduledBlockUpdate} until its chunk is loaded. The
+     * update will be saved with the chunk, but it won't be executed until then.
+     *
+     * @param update The update
+     */
+    public synchronized void park(LanternScheduledBlockUpdate update) {
+        this.pendingByChunk.computeIfAbsent(chunkKey(update.getLocation()), key -> new ArrayList<>()).add(update);
+    }
+
+    /**
+     * Creates a update for the block at the given position and parks it until
+     * its chunk is loaded. Should be used for the updates of chunks that
+     * are loaded, but not attached to the world.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param blockType The block type
+     * @param priority The priority
+     * @param ticks The amount of ticks until the update should be executed
+     * @return The parked update
+     */
+    public synchronized LanternScheduledBlockUpdate park(int x, int y, int z, BlockType blockType, int priority, int ticks) {
+        checkNotNull(blockType, "blockType");
+        final Location<World> location = new Location<>(this.world, x, y, z);
+        final LanternScheduledBlockUpdate update = new LanternScheduledBlockUpdate(this, this.entryIdCounter++,
+                location, blockType, this.currentTick + Math.max(1, ticks), priority);
+        // The update isn't part of the wheel until it's scheduled again
+        update.setRemoved(true);
+        park(update);
+        return update;
+    }
+
+    /**
+     * Discards all the parked updates of the chunk at the given key, these
+     * were saved with the chunk. Should be called when the unloaded chunk
+     * can no longer be reused.
+     *
+     * @param chunkKey The chunk key
+     */
+    public synchronized void discardParkedUpdates(long chunkKey) {
+        this.unloadedByChunk.remove(chunkKey);
+        this.pendingByChunk.remove(chunkKey);
+    }
+
+    @Override
+    public synchronized void onLoadChunk(LanternChunk chunk) {
+        final long key = chunk.getKey();
+        rearm(this.unloadedByChunk.remove(key));
+        rearm(this.pendingByChunk.remove(key));
+    }
+
+    private void rearm(@Nullable List<LanternScheduledBlockUpdate> updates) {
+        if (updates == null) {
+            return;
+        }
+        for (LanternScheduledBlockUpdate update : updates) {
+            final Location<World> location = update.getLocation();
+            // The update may already be loaded from the saved chunk data
+            final List<LanternScheduledBlockUpdate> positionUpdates = this.updatesByPosition.get(positionKey(location));
+            if (positionUpdates != null && positionUpdates.stream()
+                    .anyMatch(other -> other.getBlockType() == update.getBlockType())) {
+                continue;
+            }
+            add(location.getBlockX(), location.getBlockY(), location.getBlockZ(), update.getBlockType(),
+                    update.getPriority0(), (int) (update.getEndTick() - this.currentTick));
+        }
+    }
+
+    @Override
+    public synchronized void onUnloadChunk(LanternChunk chunk) {
+        // The updates are saved with the chunk, so remove them and
+        // keep them around in case that the chunk is reused
+        final List<LanternScheduledBlockUpdate> updates = this.updatesByChunk.remove(chunk.getKey());
+        if (updates == null) {
+            return;
+        }
+        for (LanternScheduledBlockUpdate update : updates) {
+            update.setRemoved(true);
+            final long positionKey = positionKey(update.getLocation());
+            final List<LanternScheduledBlockUpdate> positionUpdates = this.updatesByPosition.get(positionKey);
+            if (positionUpdates != null && positionUpdates.remove(update) && positionUpdates.isEmpty()) {
+                this.updatesByPosition.remove(positionKey);
+            }
+        }
+        this.unloadedByChunk.put(chunk.getKey(), updates);
+    }
+
+    @Override
+    public void onPopulateChunk(LanternChunk chunk) {
+    }
+
+    @Override
+    public void onBlockChange(int x, int y, int z, BlockState oldBlockState, BlockState newBlockState) {
+    }
+
+    @Override
+    public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
+    }
+}
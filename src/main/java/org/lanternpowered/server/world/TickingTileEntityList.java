@@ -0,0 +1,139 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.lanternpowered.server.block.tile.LanternTileEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A flat list of all the {@link LanternTileEntity}s of a world that need to be pulsed.
+ * Chunks add and remove their tile entities when they are placed, replaced, loaded or
+ * unloaded. These changes can happen on any thread, so they are queued and only applied
+ * by the world thread, which allows the list to be iterated without copying it.
+ */
+public final class TickingTileEntityList {
+
+    private static final int NO_INDEX = -1;
+
+    // The tile entities and their index in the list, only accessed by the world thread
+    private final List<LanternTileEntity> tileEntities = new ArrayList<>();
+    private final Object2IntMap<LanternTileEntity> indexes = new Object2IntOpenHashMap<>();
+
+    // The changes that still need to be applied, in the order they were made
+    private final Queue<Change> pendingChanges = new ConcurrentLinkedQueue<>();
+
+    private static final class Change {
+
+        private final LanternTileEntity tileEntity;
+        private final boolean add;
+
+        private Change(LanternTileEntity tileEntity, boolean add) {
+            this.tileEntity = tileEntity;
+            this.add = add;
+        }
+    }
+
+    TickingTileEntityList() {
+        this.indexes.defaultReturnValue(NO_INDEX);
+    }
+
+    /**
+     * Adds the {@link LanternTileEntity} to this list if it needs to be pulsed.
+     *
+     * @param tileEntity The tile entity
+     */
+    public void add(LanternTileEntity tileEntity) {
+        checkNotNull(tileEntity, "tileEntity");
+        if (tileEntity.isTicking()) {
+            this.pendingChanges.add(new Change(tileEntity, true));
+        }
+    }
+
+    /**
+     * Removes the {@link LanternTileEntity} from this list.
+     *
+     * @param tileEntity The tile entity
+     */
+    public void remove(LanternTileEntity tileEntity) {
+        checkNotNull(tileEntity, "tileEntity");
+        if (tileEntity.isTicking()) {
+            this.pendingChanges.add(new Change(tileEntity, false));
+        }
+    }
+
+    /**
+     * Applies all the pending changes. This may only
+     * be called from the world thread.
+     */
+    void update() {
+        Change change;
+        while ((change = this.pendingChanges.poll()) != null) {
+            if (change.add) {
+                if (!this.indexes.containsKey(change.tileEntity)) {
+                    this.indexes.put(change.tileEntity, this.tileEntities.size());
+                    this.tileEntities.add(change.tileEntity);
+                }
+            } else {
+                final int index = this.indexes.removeInt(change.tileEntity);
+                if (index != NO_INDEX) {
+                    // Move the last tile entity into the free slot
+                    final LanternTileEntity last = this.tileEntities.remove(this.tileEntities.size() - 1);
+                    if (last != change.tileEntity) {
+                        this.tileEntities.set(index, last);
+                        this.indexes.put(last, index);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of tile entities in this list.
+     *
+     * @return The size
+     */
+    int size() {
+        return this.tileEntities.size();
+    }
+
+    /**
+     * Gets the {@link LanternTileEntity} at the given index.
+     *
+     * @param index The index
+     * @return The tile entity
+     */
+    LanternTileEntity get(int index) {
+        return this.tileEntities.get(index);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+import javax.annotation.Nullable;
+
+/**
+ * A concurrent open-addressing map that is keyed by packed chunk
+ * keys, see {@link LanternChunk#key(int, int)}.
+ * <p>
+ * Lookups don't lock and don't allocate, all the modifications are
+ * synchronized on the map. A removed entry leaves a tombstone behind
+ * which keeps its key, so the key of a slot never changes while the
+ * table is in use. Tombstones are dropped when the table is rebuilt.
+ * <p>
+ * Iteration is weakly consistent, similar to a
+ * {@link java.util.concurrent.ConcurrentHashMap}.
+ *
+ * @param <V> The value type
+ */
+public final class ConcurrentChunkMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final Object TOMBSTONE = new Object();
+
+    private static final class Table {
+
+        // The keys are written before the value of the slot is
+        // published, and are never changed afterwards
+        private final long[] keys;
+        private final AtomicReferenceArray<Object> values;
+        private final int mask;
+
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+    }
+
+    /**
+     * Represents a consumer of the entries of the map.
+     *
+     * @param <V> The value type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+
+        void accept(long key, V value);
+    }
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+
+    // The amount of live entries
+    private volatile int size;
+
+    // The amount of slots that have a key, including tombstones,
+    // only accessed while synchronized
+    private int used;
+
+    private static int slot(long key, int mask) {
+        return (int) HashCommon.mix(key) & mask;
+    }
+
+    /**
+     * Gets the value for the given key.
+     *
+     * @param key The chunk key
+     * @return The value, or {@code null} if not present
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(long key) {
+        final Table table = this.table;
+        final long[] keys = table.keys;
+        final AtomicReferenceArray<Object> values = table.values;
+        int index = slot(key, table.mask);
+        Object value;
+        while ((value = values.get(index)) != null) {
+            if (keys[index] == key) {
+                return value == TOMBSTONE ? null : (V) value;
+            }
+            index = (index + 1) & table.mask;
+        }
+        return null;
+    }
+
+    /**
+     * Gets whether there's a value for the given key.
+     *
+     * @param key The chunk key
+     * @return Whether the key is present
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Gets the amount of entries in the map.
+     *
+     * @return The size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets whether the map is empty.
+     *
+     * @return Whether the map is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Puts the value for the given key.
+     *
+     * @param key The chunk key
+     * @param value The value
+     * @return The previous value, or {@code null} if not present
+     */
+    @Nullable
+    public synchronized V put(long key, V value) {
+        checkNotNull(value, "value");
+        return put0(key, value);
+    }
+
+    /**
+     * Gets the value for the given key, or computes and puts it if it
+     * isn't present. The function is called while the map is locked.
+     *
+     * @param key The chunk key
+     * @param function The function to compute the value
+     * @return The present or computed value
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        final V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        synchronized (this) {
+            V current = get(key);
+            if (current == null) {
+                current = checkNotNull(function.apply(key), "value");
+                put0(key, current);
+            }
+            return current;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private V put0(long key, V value) {
+        Table table = this.table;
+        int index = slot(key, table.mask);
+        Object current;
+        while ((current = table.values.get(index)) != null) {
+            if (table.keys[index] == key) {
+                table.values.set(index, value);
+                if (current == TOMBSTONE) {
+                    this.size++;
+                    return null;
+                }
+                return (V) current;
+            }
+            index = (index + 1) & table.mask;
+        }
+        // Keep the table at most half full, so that probing
+        // ends quickly and there's always an empty slot
+        if ((this.used + 1) * 2 > table.keys.length) {
+            table = rebuild(table);
+            index = slot(key, table.mask);
+            while (table.values.get(index) != null) {
+                index = (index + 1) & table.mask;
+            }
+        }
+        table.keys[index] = key;
+        table.values.set(index, value);
+        this.used++;
+        this.size++;
+        return null;
+    }
+
+    /**
+     * Rebuilds the table without tombstones, growing it if needed. The old
+     * table isn't modified, so readers that are still using it stay valid.
+     */
+    private Table rebuild(Table table) {
+        int capacity = table.keys.length;
+        // Only grow if the live entries fill at least a quarter,
+        // otherwise removing the tombstones is enough
+        if ((this.size + 1) * 4 > capacity) {
+            capacity <<= 1;
+        }
+        final Table newTable = new Table(capacity);
+        int used = 0;
+        for (int i = 0; i < table.keys.length; i++) {
+            final Object value = table.values.get(i);
+            if (value == null || value == TOMBSTONE) {
+                continue;
+            }
+            int index = slot(table.keys[i], newTable.mask);
+            while (newTable.values.get(index) != null) {
+                index = (index + 1) & newTable.mask;
+            }
+            newTable.keys[index] = table.keys[i];
+            newTable.values.lazySet(index, value);
+            used++;
+        }
+        this.used = used;
+        // Publishing the table through the volatile field
+        // makes all the slots visible to the readers
+        this.table = newTable;
+        return newTable;
+    }
+
+    /**
+     * Removes the value for the given key.
+     *
+     * @param key The chunk key
+     * @return The removed value, or {@code null} if not present
+     */
+    @Nullable
+    public synchronized V remove(long key) {
+        return remove0(key, null);
+    }
+
+    /**
+     * Removes the value for the given key, only if it's
+     * mapped to the given value.
+     *
+     * @param key The chunk key
+     * @param value The expected value
+     * @return Whether the value was removed
+     */
+    public synchronized boolean remove(long key, V value) {
+        checkNotNull(value, "value");
+        return remove0(key, value) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private V remove0(long key, @Nullable V expected) {
+        final Table table = this.table;
+        int index = slot(key, table.mask);
+        Object current;
+        while ((current = table.values.get(index)) != null) {
+            if (table.keys[index] == key) {
+                if (current == TOMBSTONE || (expected != null && current != expected)) {
+                    return null;
+                }
+                table.values.set(index, TOMBSTONE);
+                this.size--;
+                return (V) current;
+            }
+            index = (index + 1) & table.mask;
+        }
+        return null;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        this.table = new Table(MIN_CAPACITY);
+        this.used = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Visits all the entries of the map.
+     *
+     * @param consumer The entry consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        final Table table = this.table;
+        for (int i = 0; i < table.keys.length; i++) {
+            final Object value = table.values.get(i);
+            if (value != null && value != TOMBSTONE) {
+                consumer.accept(table.keys[i], (V) value);
+            }
+        }
+    }
+
+    /**
+     * Creates a list with all the values that are currently in the map.
+     *
+     * @return The values
+     */
+    public List<V> values() {
+        final List<V> values = new ArrayList<>(this.size);
+        forEach((key, value) -> values.add(value));
+        return values;
+    }
+}
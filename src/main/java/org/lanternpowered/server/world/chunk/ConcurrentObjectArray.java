@@ -51,6 +51,17 @@ public O[] getRawObjects() {
         return this.objects;
     }
 
+    /**
+     * Gets the lock that guards the object at the index. Holding the read lock
+     * guarantees that the object at the index won't be replaced in the meantime.
+     *
+     * @param index The index of the object
+     * @return The lock
+     */
+    public StampedLock getLock(int index) {
+        return this.locks[index];
+    }
+
     /**
      * Sets the chunk section at the index.
      *
@@ -40,12 +40,9 @@
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
 import org.lanternpowered.api.cause.CauseStack;
 import org.lanternpowered.server.block.LanternBlockSnapshot;
 import org.lanternpowered.server.block.LanternBlockType;
-import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
 import org.lanternpowered.server.block.TileEntityProvider;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.provider.CachedSimpleObjectProvider;
@@ -118,7 +115,6 @@
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -136,6 +132,14 @@ public static long key(int cx, int cz) {
         return ((long) cx & 0x3ffffff) << 38 | ((long) cz & 0x3ffffff);
     }
 
+    public static int keyX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int keyZ(long key) {
+        return (int) (key << 38 >> 38);
+    }
+
     // The size of a chunk section in the x, y and z directions
     public static final int CHUNK_SECTION_SIZE = 16;
     // The volume of a chunk and a chunk section (xz plane)
@@ -179,13 +183,7 @@ public static class ChunkSection {
         /**
          * The block types array.
          */
-        final short[] types;
-
-        /**
-         * The amount of blocks per block type/state in
-         * this chunk section.
-         */
-        final Short2ShortMap typesCountMap = new Short2ShortOpenHashMap();
+        final PalettedBlockArray types;
 
         /**
          * The light level arrays.
@@ -195,11 +193,6 @@ public static class ChunkSection {
 
         final Short2ObjectMap<LanternTileEntity> tileEntities;
 
-        /**
-         * The amount of non air blocks in this chunk section.
-         */
-        int nonAirCount;
-
         ChunkSection() {
             this(null);
         }
@@ -208,11 +201,9 @@ public static class ChunkSection {
             if (types != null) {
                 checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
                         + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
-                this.types = new short[CHUNK_SECTION_VOLUME];
-                System.arraycopy(types, 0, this.types, 0, CHUNK_SECTION_VOLUME);
-                recountTypes();
+                this.types = new PalettedBlockArray(types);
             } else {
-                this.types = new short[CHUNK_SECTION_VOLUME];
+                this.types = new PalettedBlockArray(CHUNK_SECTION_VOLUME);
             }
             this.tileEntities = new Short2ObjectOpenHashMap<>();
             this.lightFromBlock = new NibbleArray(CHUNK_SECTION_VOLUME);
@@ -221,8 +212,13 @@ public static class ChunkSection {
 
         public ChunkSection(short[] types, NibbleArray lightFromSky, NibbleArray lightFromBlock,
                 Short2ObjectMap<LanternTileEntity> tileEntities) {
-            checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
-                    + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
+            this(new PalettedBlockArray(checkTypes(types)), lightFromSky, lightFromBlock, tileEntities);
+        }
+
+        public ChunkSection(PalettedBlockArray types, NibbleArray lightFromSky, NibbleArray lightFromBlock,
+                Short2ObjectMap<LanternTileEntity> tileEntities) {
+            checkArgument(types.getCapacity() == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
+                    + types.getCapacity() + ", but expected " + CHUNK_SECTION_VOLUME);
             checkArgument(lightFromSky.length() == CHUNK_SECTION_VOLUME, "Sky light nibble array length mismatch: Got "
                     + lightFromSky.length() + ", but expected " + CHUNK_SECTION_VOLUME);
             checkArgument(lightFromSky.length() == CHUNK_SECTION_VOLUME, "Block light nibble array length mismatch: Got "
@@ -231,9 +227,12 @@ public ChunkSection(short[] types, NibbleArray lightFromSky, NibbleArray lightFr
             this.lightFromSky = lightFromSky;
             this.tileEntities = tileEntities;
             this.types = types;
+        }
 
-            // Count the non air blocks.
-            recountTypes();
+        private static short[] checkTypes(short[] types) {
+            checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
+                    + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
+            return types;
         }
 
         public static int index(Vector3i position) {
@@ -253,36 +252,25 @@ public static int index(int x, int y, int z) {
         }
 
         /**
-         * Recounts the amount of non air blocks.
+         * Gets the amount of non air blocks in this chunk section.
+         *
+         * @return The non air count
          */
-        private void recountTypes() {
-            this.nonAirCount = 0;
-            this.typesCountMap.clear();
-            for (short type : this.types) {
-                if (type != 0) {
-                    this.nonAirCount++;
-                    this.typesCountMap.put(type, (short) (this.typesCountMap.get(type) + 1));
-                }
-            }
+        int getNonAirCount() {
+            return this.types.getNonAirCount();
         }
 
         private ChunkSectionSnapshot asSnapshot(boolean skylight) {
-            final Short2ShortMap typeCounts = new Short2ShortOpenHashMap(this.typesCountMap);
-            final int count = this.types.length - this.nonAirCount;
-            if (count > 0) {
-                typeCounts.put((short) 0, (short) count);
-            }
-            return new ChunkSectionSnapshot(this.types.clone(), typeCounts, new Short2ObjectOpenHashMap<>(this.tileEntities),
+            return new ChunkSectionSnapshot(this.types.copy(), new Short2ObjectOpenHashMap<>(this.tileEntities),
                     this.lightFromBlock.getPackedArray(), skylight ? this.lightFromSky.getPackedArray() : null);
         }
     }
 
     public static class ChunkSectionSnapshot {
 
-        // The block types array.
-        public final short[] types;
-        // The types count map.
-        public final Short2ShortMap typesCountMap;
+        // The block types array, this is a copy that
+        // can be send directly to the client.
+        public final PalettedBlockArray types;
         // The tile entities
         public final Short2ObjectMap<LanternTileEntity> tileEntities;
 
@@ -290,20 +278,15 @@ public static class ChunkSectionSnapshot {
         @Nullable public final byte[] lightFromSky;
         public final byte[] lightFromBlock;
 
-        private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2ObjectMap<LanternTileEntity> tileEntities,
+        private ChunkSectionSnapshot(PalettedBlockArray types, Short2ObjectMap<LanternTileEntity> tileEntities,
                 byte[] lightFromBlock, @Nullable byte[] lightFromSky) {
             this.tileEntities = tileEntities;
             this.lightFromBlock = lightFromBlock;
-            this.typesCountMap = typesCountMap;
             this.lightFromSky = lightFromSky;
             this.types = types;
         }
     }
 
-    private final PriorityBlockingQueue<LanternScheduledBlockUpdate> scheduledBlockUpdateQueue =
-            new PriorityBlockingQueue<>();
-    private final AtomicInteger scheduledBlockUpdateCounter = new AtomicInteger();
-
     private final ConcurrentObjectArray<Short2ObjectMap<TrackerData>> trackerData;
 
     // The chunk sections column
@@ -311,6 +294,14 @@ private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2
 
     private volatile long inhabitedTime;
 
+    // The modification counter of this chunk, this is increased
+    // every time that the blocks, light or biomes are modified
+    private final AtomicInteger modificationCounter = new AtomicInteger();
+
+    // Whether this chunk contains changes that aren't saved yet, chunks
+    // start dirty so that newly generated chunks will always be saved
+    private volatile boolean dirty = true;
+
     // The height map of the chunk
     // This is lazily updated, meaning that it won't
     // updated every time a block changes (to avoid
@@ -367,6 +358,10 @@ private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2
     // Whether this chunk is finished loading
     volatile boolean loaded;
 
+    // Whether this chunk is loaded by a pre generation batch and
+    // isn't attached to the world, nothing of it will be ticked
+    volatile boolean detached;
+
     // Whether this is populated by the world generator
     volatile boolean populated;
 
@@ -379,7 +374,7 @@ private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2
     private boolean dirtyBlockActions;
 
     // Whether the light in this chunk is populated
-    private boolean lightPopulated;
+    private volatile boolean lightPopulated;
 
     // The set which contains all the entities in this chunk
     @SuppressWarnings("unchecked")
@@ -448,6 +443,49 @@ public ConcurrentObjectArray<Short2ObjectMap<TrackerData>> getTrackerData() {
         return this.trackerData;
     }
 
+    /**
+     * Gets the modification counter of this chunk. The counter is increased every time
+     * that the blocks, light or biomes of this chunk are modified, so it can be used to
+     * check whether data that was derived from this chunk is still up to date.
+     *
+     * @return The modification counter
+     */
+    public int getModificationCount() {
+        return this.modificationCounter.get();
+    }
+
+    void markModified() {
+        this.modificationCounter.incrementAndGet();
+        this.dirty = true;
+    }
+
+    /**
+     * Marks this chunk as dirty, which means that
+     * it contains changes that aren't saved yet.
+     */
+    public void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Clears the dirty state of this chunk, this should be
+     * called right before the chunk data is captured to be saved.
+     */
+    void clearDirty() {
+        this.dirty = false;
+    }
+
+    /**
+     * Gets whether this chunk contains changes that aren't saved yet. Entities
+     * and tile entities mark the chunk dirty when they are added, removed,
+     * moved or when their data changes.
+     *
+     * @return Whether the chunk should be saved
+     */
+    public boolean hasUnsavedChanges() {
+        return this.dirty;
+    }
+
     /**
      * Initializes a empty chunk.
      * (Only used for initializing the chunk.)
@@ -461,6 +499,7 @@ void initializeEmpty() {
         this.chunkSections = new ConcurrentObjectArray<>(new ChunkSection[CHUNK_SECTIONS]);
         this.biomes = new short[CHUNK_AREA];
         this.loaded = true;
+        markModified();
     }
 
     /**
@@ -474,6 +513,47 @@ public void initializeSections(ChunkSection[] sections) {
                 + sections.length + ", but expected " + CHUNK_SECTIONS);
         this.chunkSections = new ConcurrentObjectArray<>(sections);
         this.loaded = true;
+        markModified();
+        if (!this.detached) {
+            addTickingTileEntities();
+        }
+    }
+
+    /**
+     * Gets whether this chunk is loaded without being attached to
+     * the world. The scheduled updates of detached chunks should be
+     * parked until the chunk gets attached.
+     *
+     * @return Whether the chunk is detached
+     */
+    public boolean isDetached() {
+        return this.detached;
+    }
+
+    /**
+     * Adds all the tile entities of this chunk to the
+     * ticking tile entities of the world.
+     */
+    void addTickingTileEntities() {
+        forEachTileEntity(this.world.getTickingTileEntities()::add);
+    }
+
+    /**
+     * Removes all the tile entities of this chunk from
+     * the ticking tile entities of the world.
+     */
+    void removeTickingTileEntities() {
+        forEachTileEntity(this.world.getTickingTileEntities()::remove);
+    }
+
+    private void forEachTileEntity(Consumer<LanternTileEntity> consumer) {
+        for (int i = 0; i < CHUNK_SECTIONS; i++) {
+            this.chunkSections.work(i, section -> {
+                if (section != null) {
+                    section.tileEntities.values().forEach(consumer);
+                }
+            }, false);
+        }
     }
 
     /**
@@ -486,6 +566,7 @@ public void initializeBiomes(short[] biomes) {
         checkArgument(biomes.length == CHUNK_AREA, "Biomes array length mismatch: Got "
                 + biomes.length + ", but expected " + CHUNK_AREA);
         this.biomes = biomes;
+        markModified();
     }
 
     public void initializeHeightMap(@Nullable int[] heightMap) {
@@ -505,28 +586,24 @@ public void initializeHeightMap(@Nullable int[] heightMap) {
         }
     }
 
-    public void initializeLight() {
-        if (this.lightPopulated) { // Fast fail
-            return;
-        }
-        for (int y = 0; y < CHUNK_SECTIONS; y++) {
-            ChunkSection section = this.chunkSections.getRawObjects()[y];
-            if (section != null) {
-                // Just fill the light array for now
-                this.chunkSections.getRawObjects()[y].lightFromSky.fill((byte) 15);
-            }
-        }
-        this.lightPopulated = true;
-    }
-
     public void setLightPopulated(boolean lightPopulated) {
         this.lightPopulated = lightPopulated;
+        this.dirty = true;
     }
 
     public boolean isLightPopulated() {
         return this.lightPopulated;
     }
 
+    /**
+     * Gets the concurrent array that holds the chunk sections, missing sections are {@code null}.
+     *
+     * @return The chunk sections
+     */
+    ConcurrentObjectArray<ChunkSection> getSectionArray() {
+        return this.chunkSections;
+    }
+
     public ChunkSectionSnapshot[] getSectionSnapshots(boolean skylight) {
         return this.getSectionSnapshots(skylight, ALL_SECTIONS_BIT_MASK);
     }
@@ -610,7 +687,7 @@ public int getHighestYAt(int x, int z) {
                         // Loop down in the section until we may find a
                         // non empty block
                         while (--y >= 0) {
-                            if (section.types[(y << 8) | index] != 0) {
+                            if (section.types.get((y << 8) | index) != 0) {
                                 values0[0] = j << 4 | y;
                                 values1[0] = true;
                                 break;
@@ -684,7 +761,7 @@ private void automaticHeightMap() {
                         // Loop down in the section until we may find a
                         // non empty block
                         while (--y >= 0) {
-                            if (section.types[(y << 8) | index] != 0) {
+                            if (section.types.get((y << 8) | index) != 0) {
                                 finished[index] = true;
                                 heightMap[index] = (byte) y;
                                 if (++values0[0] >= CHUNK_AREA) {
@@ -718,6 +795,7 @@ private void automaticHeightMap() {
 
     public void setPopulated(boolean populated) {
         this.populated = populated;
+        this.dirty = true;
     }
 
     /**
@@ -781,6 +859,7 @@ public void setBiomes(short[] biomes) {
         } finally {
             this.biomesLock.unlockWrite(stamp);
         }
+        markModified();
     }
 
     /**
@@ -828,6 +907,7 @@ public void setBiomeId(int x, int y, int z, short biome) {
         } finally {
             this.biomesLock.unlockWrite(stamp);
         }
+        markModified();
     }
 
     public short getType(Vector3i coordinates) {
@@ -849,7 +929,7 @@ public short getType(int x, int y, int z) {
         }
         return this.chunkSections.work(y >> 4, section -> {
             if (section != null) {
-                return section.types[ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)];
+                return section.types.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
             }
             return (short) 0;
         }, false);
@@ -882,6 +962,9 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
 
         final int rx = x & 0xf;
         final int rz = z & 0xf;
+        // The height map cannot be locked while the section is locked, so
+        // capture it up front in case that a new section will be created
+        final int[] heightMap = type1 != 0 && this.chunkSections.getRawObjects()[y >> 4] == null ? getHeightMap() : null;
         this.chunkSections.work(y >> 4, section -> {
             if (section == null) {
                 // The section is already filled with air,
@@ -891,34 +974,18 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
                 }
                 // Create a new section
                 section = new ChunkSection();
+                initSkyLight(section, y >> 4, heightMap);
             }
             final int index = ChunkSection.index(rx, y & 0xf, rz);
-            final short oldType = section.types[index];
+            final short oldType = section.types.set(index, type1);
             if (oldType == type1) {
                 return section;
             }
-            if (oldType != 0) {
-                short count = section.typesCountMap.get(oldType);
-                if (count > 0) {
-                    if (--count <= 0) {
-                        section.typesCountMap.remove(oldType);
-                    } else {
-                        section.typesCountMap.put(oldType, count);
-                    }
-                }
-            }
-            if (type1 != 0) {
-                section.typesCountMap.put(type1, (short) (section.typesCountMap.get(type1) + 1));
-                if (oldType == 0) {
-                    section.nonAirCount++;
-                }
-            } else {
-                section.nonAirCount--;
-            }
             final BlockState oldState = BlockRegistryModule.get().getStateByInternalIdAndData(oldType).get();
             changeData[0] = oldState;
             // The section is empty, destroy it
-            if (section.nonAirCount <= 0) {
+            if (section.getNonAirCount() <= 0) {
+                section.tileEntities.values().forEach(this.world.getTickingTileEntities()::remove);
                 return null;
             }
             final LanternTileEntity tileEntity = section.tileEntities.get((short) index);
@@ -947,6 +1014,7 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
             }
             if (remove) {
                 tileEntity.setValid(false);
+                this.world.getTickingTileEntities().remove(tileEntity);
             }
             if (refresh) {
                 final Location<World> location = tileEntity != null ? tileEntity.getLocation() : new Location<>(this.world, x, y, z);
@@ -955,12 +1023,14 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
                 newTileEntity.setLocation(location);
                 newTileEntity.setBlock(block);
                 newTileEntity.setValid(true);
+                if (!this.detached) {
+                    this.world.getTickingTileEntities().add(newTileEntity);
+                }
             } else if (remove) {
                 section.tileEntities.remove((short) index);
             } else if (tileEntity != null) {
                 tileEntity.setBlock(block);
             }
-            section.types[index] = type1;
             return section;
         });
 
@@ -979,12 +1049,45 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
         }
 
         if (changeData[0] != null) {
+            markModified();
             this.world.getEventListener().onBlockChange(x, y, z, changeData[0], block);
         }
 
         return true;
     }
 
+    /**
+     * Initializes the sky light of a new section, all the positions above the height map
+     * receive the full sky light. The light engine will recalculate the light of the section
+     * once it notices it, this only avoids that the section is dark until then.
+     *
+     * @param section The new section
+     * @param sectionY The y coordinate of the section
+     * @param heightMap The height map, or null if it wasn't captured
+     */
+    private void initSkyLight(ChunkSection section, int sectionY, @Nullable int[] heightMap) {
+        if (isAboveHighestSection(sectionY)) {
+            section.lightFromSky.fill((byte) 15);
+        } else if (heightMap != null) {
+            final int minY = sectionY << 4;
+            for (int index = 0; index < heightMap.length; index++) {
+                for (int y = Math.max(0, (heightMap[index] & 0xff) + 1 - minY); y < CHUNK_SECTION_SIZE; y++) {
+                    section.lightFromSky.set(y << 8 | index, (byte) 15);
+                }
+            }
+        }
+    }
+
+    private boolean isAboveHighestSection(int sectionY) {
+        final ChunkSection[] sections = this.chunkSections.getRawObjects();
+        for (int i = sectionY + 1; i < sections.length; i++) {
+            if (sections[i] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void addBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
         checkVolumeBounds(x, y, z);
         if (!this.loaded) {
@@ -1087,61 +1190,25 @@ public Set<EntityHit> getIntersectingEntities(Vector3d start, Vector3d direction
         return Collections.emptySet();
     }
 
-    public PriorityBlockingQueue<LanternScheduledBlockUpdate> getScheduledBlockUpdateQueue() {
-        return this.scheduledBlockUpdateQueue;
-    }
-
     @Override
     public Collection<ScheduledBlockUpdate> getScheduledUpdates(int x, int y, int z) {
         checkVolumeBounds(x, y, z);
         if (!this.loaded) {
             return Collections.emptyList();
         }
-        final Vector3i position = new Vector3i(x, y, z);
-        return this.scheduledBlockUpdateQueue.stream()
-                .filter(update -> update.getLocation().getBlockPosition().equals(position))
-                .collect(ImmutableSet.toImmutableSet());
+        return this.world.getScheduledBlockUpdates().getUpdates(x, y, z);
     }
 
     @Override
     public ScheduledBlockUpdate addScheduledUpdate(int x, int y, int z, int priority, int ticks) {
         checkVolumeBounds(x, y, z);
-        final int entryId = this.scheduledBlockUpdateCounter.getAndIncrement();
-        final Location<World> location = new Location<>(this.world, new Vector3i(x, y, z));
-        final LanternScheduledBlockUpdate update = new LanternScheduledBlockUpdate(entryId, location, ticks, priority);
-        this.scheduledBlockUpdateQueue.add(update);
-        return update;
+        return this.world.getScheduledBlockUpdates().add(x, y, z, priority, ticks);
     }
 
     @Override
     public void removeScheduledUpdate(int x, int y, int z, ScheduledBlockUpdate update) {
         checkVolumeBounds(x, y, z);
-        this.scheduledBlockUpdateQueue.remove(update);
-    }
-
-    public void pulse() {
-        // The update entry
-        LanternScheduledBlockUpdate update;
-        while ((update = this.scheduledBlockUpdateQueue.peek()) != null && update.getTicks() <= 0) {
-            // Remove the entry from the queue
-            this.scheduledBlockUpdateQueue.poll();
-            // TODO: Update
-        }
-
-        final CauseStack causeStack = CauseStack.Companion.current();
-        causeStack.pushCause(this); // Add the chunk that is being pulsed
-        getTileEntities().forEach(tileEntity -> {
-            causeStack.pushCause(tileEntity); // Add the tile entity to the cause
-            try {
-                ((LanternTileEntity) tileEntity).pulse();
-            } catch (Throwable t) {
-                final Vector3i pos = tileEntity.getLocation().getBlockPosition();
-                Lantern.getLogger().error("Failed to pulse TileEntity at ({};{};{})", pos.getX(), pos.getY(), pos.getZ(), t);
-            } finally {
-                causeStack.popCause(); // Pop the tile entity
-            }
-        });
-        causeStack.popCause(); // Pop the chunk
+        this.world.getScheduledBlockUpdates().remove(update);
     }
 
     @Override
@@ -1460,11 +1527,15 @@ void buryEntities() {
     }
 
     public void addEntity(LanternEntity entity, int section) {
-        this.entities[section].add(entity);
+        if (this.entities[section].add(entity)) {
+            this.dirty = true;
+        }
     }
 
     public void removeEntity(LanternEntity entity, int section) {
-        this.entities[section].remove(entity);
+        if (this.entities[section].remove(entity)) {
+            this.dirty = true;
+        }
     }
 
     @Override
@@ -1541,6 +1612,7 @@ public Collection<TileEntity> getTileEntities() {
                         tileEntities.add(tileEntity);
                     } else {
                         it.remove();
+                        this.world.getTickingTileEntities().remove(tileEntity);
                     }
                 }
             }, true);
@@ -1565,6 +1637,8 @@ public Optional<TileEntity> getTileEntity(int x, int y, int z) {
             // Remove invalid tile entities
             if (tileEntity != null && !tileEntity.isValid()) {
                 chunkSection.tileEntities.remove(index);
+                this.world.getTickingTileEntities().remove(tileEntity);
+                this.dirty = true;
                 return Optional.empty();
             }
             return Optional.ofNullable(tileEntity);
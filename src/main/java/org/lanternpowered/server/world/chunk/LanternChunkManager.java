@@ -25,6 +25,7 @@
  */
 package org.lanternpowered.server.world.chunk;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.lanternpowered.server.util.Conditions.checkPlugin;
 import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_AREA;
@@ -41,11 +42,13 @@
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.MapMaker;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLists;
 import org.lanternpowered.api.cause.CauseStack;
 import org.lanternpowered.api.util.concurrent.SoftThreadLocal;
 import org.lanternpowered.server.config.world.WorldConfig;
@@ -63,6 +66,7 @@
 import org.lanternpowered.server.util.gen.block.ShortArrayImmutableBlockBuffer;
 import org.lanternpowered.server.util.gen.block.ShortArrayMutableBlockBuffer;
 import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.ScheduledBlockUpdateWheel;
 import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
 import org.lanternpowered.server.world.extent.ExtentBufferHelper;
 import org.lanternpowered.server.world.extent.SoftBufferExtentViewDownsize;
@@ -95,15 +99,19 @@
 import org.spongepowered.api.world.gen.WorldGenerator;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
@@ -111,13 +119,20 @@
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -130,60 +145,104 @@ public final class LanternChunkManager {
     // The core amount of threads that can load chunks asynchronously
     private static final int CHUNK_LOADING_CORE_POOL_SIZE = 4;
 
+    // The maximum amount of chunks that a pre generation batch processes at the same time
+    private static final int PRE_GENERATION_CONCURRENCY = CHUNK_LOADING_CORE_POOL_SIZE;
+
     // The delay to unload chunks that are not forced,
     // loaded through loadChunk methods
     private static final long UNLOAD_DELAY = TimeUnit.SECONDS.toMillis(1);
 
     // All the attached tickets mapped by the forced chunk coordinates
-    private final Map<Vector2i, Set<ChunkLoadingTicket>> ticketsByPos = new ConcurrentHashMap<>();
+    private final ConcurrentChunkMap<Set<ChunkLoadingTicket>> ticketsByPos = new ConcurrentChunkMap<>();
 
     // All the loading tickets that are still usable
     private final Set<LanternLoadingTicket> tickets = Sets.newConcurrentHashSet();
 
     // All the chunks that are loaded into the server
-    private final Map<Vector2i, LanternChunk> loadedChunks = new ConcurrentHashMap<>();
+    private final ConcurrentChunkMap<LanternChunk> loadedChunks = new ConcurrentChunkMap<>();
+
+    // Is increased every time that a chunk is removed from the loaded chunks,
+    // this invalidates the last accessed chunks of all the threads
+    private final AtomicInteger loadedChunksGeneration = new AtomicInteger();
+
+    private static final class LastAccessedChunk {
+
+        @Nullable private LanternChunk chunk;
+        private int generation;
+        // The pre generation batch that the thread is working on, the
+        // detached chunks of the batch are only visible to its threads
+        @Nullable private PreGenerationBatch batch;
+    }
+
+    // The last chunk that was looked up through getChunkIfLoaded per thread,
+    // entities and block access mostly stay within the same chunk. The cached
+    // chunk is only valid as long as the generation didn't change
+    private final ThreadLocal<LastAccessedChunk> lastAccessedChunk = ThreadLocal.withInitial(LastAccessedChunk::new);
 
     // A cache that can be used to get chunks that weren't unloaded
     // so much after all, because of active references to the chunk
-    private final Map<Vector2i, LanternChunk> reusableChunks = new MapMaker().weakValues().makeMap();
+    private final ConcurrentChunkMap<ReusableChunkReference> reusableChunks = new ConcurrentChunkMap<>();
+
+    // The queue of the reusable chunks that were garbage collected
+    private final ReferenceQueue<LanternChunk> reusableChunksQueue = new ReferenceQueue<>();
+
+    private final class ReusableChunkReference extends WeakReference<LanternChunk> {
+
+        private final long key;
+
+        private ReusableChunkReference(LanternChunk chunk) {
+            super(chunk, reusableChunksQueue);
+            this.key = chunk.getKey();
+        }
+    }
 
     // A set which contains chunks that are pending for removal,
     // chunks loaded by loadChunk may not have been locked in the process,
     // and using a queue for removal should prevent the chunks from unloading too early
     private final Queue<UnloadingChunkEntry> pendingForUnload = new ConcurrentLinkedQueue<>();
 
+    // The loaded chunks that still need to be checked by the background
+    // saver, only accessed by the world thread
+    private final Queue<LanternChunk> pendingForSave = new ArrayDeque<>();
+
+    // The amount of ticks since all the loaded chunks were queued for the background saver
+    private int ticksSinceSaveRound;
+
     private final PluginContainer minecraftPluginContainer;
 
     private class UnloadingChunkEntry {
 
-        final Vector2i coords;
+        final long key;
         final long time;
 
-        private UnloadingChunkEntry(Vector2i coords) {
+        private UnloadingChunkEntry(long key) {
             this.time = System.currentTimeMillis();
-            this.coords = coords;
+            this.key = key;
         }
 
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof UnloadingChunkEntry && ((UnloadingChunkEntry) obj).coords.equals(this.coords);
+            return obj instanceof UnloadingChunkEntry && ((UnloadingChunkEntry) obj).key == this.key;
         }
 
         @Override
         public int hashCode() {
-            return this.coords.hashCode();
+            return Long.hashCode(this.key);
         }
     }
 
     // All the futures that will cause chunk loading/unloading, they are stored
     // here to allow them to be cancelled
-    private final Map<Vector2i, LanternChunkQueueTask> chunkQueueTasks = new ConcurrentHashMap<>();
+    private final ConcurrentChunkMap<LanternChunkQueueTask> chunkQueueTasks = new ConcurrentChunkMap<>();
 
     // The chunk load executor
     private final ThreadPoolExecutor chunkTaskExecutor = new ThreadPoolExecutor(
             CHUNK_LOADING_CORE_POOL_SIZE, CHUNK_LOADING_MAX_POOL_SIZE, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
             ThreadHelper.newThreadFactory());
 
+    // The pre generation batches that are currently running
+    private final Set<PreGenerationBatch> preGenerationBatches = Sets.newConcurrentHashSet();
+
     // Some objects that can be used in {@link Chunk} population.
     private class PopulationData {
 
@@ -191,23 +250,23 @@ private class PopulationData {
         private final ChunkLoadingTicket lockTicket = new InternalLoadingTicket();
     }
 
-    private LanternChunkQueueTask queueTask(Vector2i coords, Runnable runnable) {
-        final LanternChunkQueueTask task = new LanternChunkQueueTask(coords, runnable);
+    private LanternChunkQueueTask queueTask(long key, Runnable runnable) {
+        final LanternChunkQueueTask task = new LanternChunkQueueTask(key, runnable);
         task.setFuture(this.chunkTaskExecutor.submit(task));
         return task;
     }
 
     private class LanternChunkQueueTask implements Callable<Void> {
 
-        private final Vector2i coords;
+        private final long key;
         // The runnable that should be executed
         private final Runnable runnable;
         // The future attached to this callable
         @Nullable private Future<Void> future;
 
-        LanternChunkQueueTask(Vector2i coords, Runnable runnable) {
+        LanternChunkQueueTask(long key, Runnable runnable) {
             this.runnable = runnable;
-            this.coords = coords;
+            this.key = key;
         }
 
         public void setFuture(Future<Void> future) {
@@ -248,12 +307,12 @@ boolean cancel() {
 
         @Override
         public boolean equals(Object other) {
-            return other instanceof LanternChunkQueueTask && ((LanternChunkQueueTask) other).coords.equals(this.coords);
+            return other instanceof LanternChunkQueueTask && ((LanternChunkQueueTask) other).key == this.key;
         }
 
         @Override
         public int hashCode() {
-            return this.coords.hashCode();
+            return Long.hashCode(this.key);
         }
     }
 
@@ -268,27 +327,27 @@ private LanternChunkUnloadTask(LanternChunkQueueTask callable) {
 
         @Override
         public void run() {
-            unload0(this.callable.coords, CauseStack.currentOrEmpty(), false);
+            unload0(this.callable.key, CauseStack.currentOrEmpty(), false);
         }
     }
 
     private class LanternChunkLoadTask implements Runnable {
 
-        // The coordinates of the chunk
-        private final Vector2i coords;
+        // The key of the chunk
+        private final long key;
 
-        private LanternChunkLoadTask(Vector2i coords) {
-            this.coords = coords;
+        private LanternChunkLoadTask(long key) {
+            this.key = key;
         }
 
         @Override
         public void run() {
-            doChunkLoad(this.coords);
+            doChunkLoad(this.key);
         }
     }
 
-    private void doChunkLoad(Vector2i coords) {
-        Set<ChunkLoadingTicket> tickets = this.ticketsByPos.get(coords);
+    private void doChunkLoad(long key) {
+        Set<ChunkLoadingTicket> tickets = this.ticketsByPos.get(key);
         if (tickets == null) {
             return;
         }
@@ -296,7 +355,7 @@ private void doChunkLoad(Vector2i coords) {
         final CauseStack causeStack = CauseStack.current();
         tickets.forEach(causeStack::pushCause);
         // Chunk may be null if's already being loaded by a different thread.
-        getOrCreateChunk(coords, causeStack, true, false);
+        getOrCreateChunk(key, causeStack, true, false);
         causeStack.popCauses(tickets.size());
     }
 
@@ -384,7 +443,8 @@ public WorldGenerator getWorldGenerator() {
      * @return has ticket
      */
     public boolean hasTicket(Vector2i coords) {
-        return this.ticketsByPos.containsKey(checkNotNull(coords, "coords"));
+        checkNotNull(coords, "coords");
+        return hasTicket(coords.getX(), coords.getY());
     }
 
     /**
@@ -396,7 +456,7 @@ public boolean hasTicket(Vector2i coords) {
      * @return has ticket
      */
     public boolean hasTicket(int x, int z) {
-        return this.ticketsByPos.containsKey(new Vector2i(x, z));
+        return this.ticketsByPos.containsKey(LanternChunk.key(x, z));
     }
 
     /**
@@ -407,13 +467,12 @@ public boolean hasTicket(int x, int z) {
     public ImmutableSetMultimap<Vector3i, LoadingTicket> getForced() {
         final ImmutableSetMultimap.Builder<Vector3i, LoadingTicket> builder =
                 ImmutableSetMultimap.builder();
-        for (Entry<Vector2i, Set<ChunkLoadingTicket>> en : this.ticketsByPos.entrySet()) {
-            final Vector2i pos0 = en.getKey();
-            final Vector3i pos = new Vector3i(pos0.getX(), 0, pos0.getY());
-            for (ChunkLoadingTicket ticket : en.getValue()) {
+        this.ticketsByPos.forEach((key, tickets) -> {
+            final Vector3i pos = new Vector3i(LanternChunk.keyX(key), 0, LanternChunk.keyZ(key));
+            for (ChunkLoadingTicket ticket : tickets) {
                 builder.put(pos, ticket);
             }
-        }
+        });
         return builder.build();
     }
 
@@ -590,21 +649,84 @@ public LanternChunk getChunk(Vector2i coords) {
 
     @Nullable
     public LanternChunk getChunkIfLoaded(Vector2i coords) {
-        final LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
-        if (chunk != null && !chunk.loaded) {
+        checkNotNull(coords, "coords");
+        return getChunkIfLoaded(coords.getX(), coords.getY());
+    }
+
+    @Nullable
+    public LanternChunk getChunkIfLoaded(int x, int z) {
+        final LastAccessedChunk lastAccessed = this.lastAccessedChunk.get();
+        LanternChunk chunk;
+        // The detached chunks are never cached
+        if (lastAccessed.batch != null && (chunk = lastAccessed.batch.chunks.get(LanternChunk.key(x, z))) != null) {
+            return chunk.loaded ? chunk : null;
+        }
+        chunk = lastAccessed.chunk;
+        // The generation must be read before the lookup, an unload
+        // in the meantime will invalidate the cached chunk
+        final int generation = this.loadedChunksGeneration.get();
+        if (chunk != null && lastAccessed.generation == generation &&
+                chunk.getX() == x && chunk.getZ() == z && chunk.loaded) {
+            return chunk;
+        }
+        chunk = this.loadedChunks.get(LanternChunk.key(x, z));
+        if (chunk == null || !chunk.loaded) {
             return null;
         }
+        lastAccessed.chunk = chunk;
+        lastAccessed.generation = generation;
         return chunk;
     }
 
-    @Nullable
-    public LanternChunk getChunkIfLoaded(int x, int z) {
-        return getChunkIfLoaded(new Vector2i(x, z));
+    /**
+     * Gets whether the chunk at the given coordinates is currently being loaded,
+     * or whether it was unloaded but can still be reused because it wasn't
+     * garbage collected yet.
+     *
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @return Whether the chunk is loading or reusable
+     */
+    public boolean isChunkLoadingOrReusable(int x, int z) {
+        final long key = LanternChunk.key(x, z);
+        if (this.loadedChunks.get(key) != null) {
+            return true;
+        }
+        // The detached chunks may still be attached to the world
+        for (PreGenerationBatch batch : this.preGenerationBatches) {
+            if (batch.chunks.get(key) != null) {
+                return true;
+            }
+        }
+        final ReusableChunkReference reference = this.reusableChunks.get(key);
+        return reference != null && reference.get() != null;
     }
 
     @Nullable
     private LanternChunk getChunk(Vector2i coords, boolean wait) {
-        final LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+        checkNotNull(coords, "coords");
+        return getChunk(LanternChunk.key(coords.getX(), coords.getY()), wait);
+    }
+
+    /**
+     * Gets the detached chunk for the given key if the
+     * current thread is working on a pre generation batch.
+     *
+     * @param key The chunk key
+     * @return The detached chunk, if present
+     */
+    @Nullable
+    private LanternChunk getDetachedChunk(long key) {
+        final PreGenerationBatch batch = this.lastAccessedChunk.get().batch;
+        return batch == null ? null : batch.chunks.get(key);
+    }
+
+    @Nullable
+    private LanternChunk getChunk(long key, boolean wait) {
+        LanternChunk chunk = getDetachedChunk(key);
+        if (chunk == null) {
+            chunk = this.loadedChunks.get(key);
+        }
         if (wait && chunk != null && !chunk.loaded &&
                 chunk.lockState == LanternChunk.LockState.LOADING) {
             // Wait for the chunk to finish loading
@@ -622,7 +744,7 @@ private LanternChunk getChunk(Vector2i coords, boolean wait) {
      */
     @Nullable
     public LanternChunk getChunk(int x, int z) {
-        return getChunk(new Vector2i(x, z));
+        return getChunk(LanternChunk.key(x, z), true);
     }
 
     /**
@@ -660,7 +782,8 @@ public LanternChunk getOrCreateChunk(int x, int z, boolean generate) {
      * @return the chunk
      */
     public LanternChunk getOrCreateChunk(int x, int z, CauseStack causeStack, boolean generate) {
-        return getOrCreateChunk(new Vector2i(x, z), causeStack, generate);
+        checkNotNull(causeStack, "causeStack");
+        return getOrCreateChunk(LanternChunk.key(x, z), causeStack, generate, true);
     }
 
     /**
@@ -676,46 +799,57 @@ public LanternChunk getOrCreateChunk(Vector2i coords, CauseStack cause, boolean
         return getOrCreateChunk(coords, cause, generate, true);
     }
 
+    private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, boolean generate, boolean wait) {
+        checkNotNull(coords, "coords");
+        checkNotNull(causeStack, "causeStack");
+        return getOrCreateChunk(LanternChunk.key(coords.getX(), coords.getY()), causeStack, generate, wait);
+    }
+
     /**
      *
-     * @param coords the coordinates of the chunk to load
+     * @param key the key of the chunk to load
      * @param causeStack a supplier of the cause that triggered the chunk load
      * @param generate whether the chunk should be generated if not found
      * @param wait whether the current thread should wait for the loading to finish, this should only
      *             be internally used inside the chunk manager
      * @return the chunk
      */
-    private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, boolean generate, boolean wait) {
-        checkNotNull(causeStack, "causeStack");
-        LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+    private LanternChunk getOrCreateChunk(long key, CauseStack causeStack, boolean generate, boolean wait) {
+        LanternChunk chunk = getDetachedChunk(key);
+        // The chunk is loaded by the pre generation batch of the current thread
+        if (chunk != null) {
+            return chunk;
+        }
+        chunk = this.loadedChunks.get(key);
         // Chunk is already loaded
         if (chunk != null) {
-            if (!this.ticketsByPos.containsKey(coords)) {
-                this.pendingForUnload.add(new UnloadingChunkEntry(coords));
+            if (!this.ticketsByPos.containsKey(key)) {
+                this.pendingForUnload.add(new UnloadingChunkEntry(key));
             }
             return chunk;
         }
         // Lets try to visit the graveyard, try to retrieve chunks that where
         // not gc yet, allowing us to reuse them to avoid loading a new chunk
-        chunk = this.reusableChunks.get(coords);
+        final ReusableChunkReference reference = this.reusableChunks.remove(key);
+        chunk = reference == null ? null : reference.get();
         if (chunk != null) {
-            this.loadedChunks.put(coords, chunk);
-            this.reusableChunks.remove(coords);
-            if (!this.ticketsByPos.containsKey(coords)) {
-                this.pendingForUnload.add(new UnloadingChunkEntry(coords));
+            this.loadedChunks.put(key, chunk);
+            if (!this.ticketsByPos.containsKey(key)) {
+                this.pendingForUnload.add(new UnloadingChunkEntry(key));
             }
             this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(causeStack.getCurrentCause(), chunk));
             this.world.getEventListener().onLoadChunk(chunk);
             // Resurrect all the entities in the chunk
             chunk.resurrectEntities();
+            chunk.addTickingTileEntities();
             this.world.addEntities(chunk.getEntities());
             return chunk;
         }
         boolean[] newChunk = new boolean[1];
         // Finally, create a new chunk if needed
-        chunk = this.loadedChunks.computeIfAbsent(coords, coords0 -> {
+        chunk = this.loadedChunks.computeIfAbsent(key, key0 -> {
             newChunk[0] = true;
-            return new LanternChunk(this.world, coords0.getX(), coords0.getY());
+            return new LanternChunk(this.world, LanternChunk.keyX(key0), LanternChunk.keyZ(key0));
         });
         // This method call was too late
         if (!newChunk[0]) {
@@ -737,8 +871,8 @@ private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, bo
         // Try to load the chunk
         load(chunk, causeStack, generate);
         this.world.addEntities(chunk.getEntities());
-        if (!this.ticketsByPos.containsKey(coords)) {
-            this.pendingForUnload.add(new UnloadingChunkEntry(coords));
+        if (!this.ticketsByPos.containsKey(key)) {
+            this.pendingForUnload.add(new UnloadingChunkEntry(key));
         }
         return chunk;
     }
@@ -752,16 +886,16 @@ private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, bo
     private static final int LEFT_UP = 6;
     private static final int LEFT_DOWN = 7;
 
-    private static Vector2i[] getSides(Vector2i center) {
-        final Vector2i[] sides = new Vector2i[8];
-        sides[UP] = center.add(0, 1);
-        sides[DOWN] = center.add(0, -1);
-        sides[RIGHT] = center.add(1, 0);
-        sides[RIGHT_UP] = center.add(1, 1);
-        sides[RIGHT_DOWN] = center.add(1, -1);
-        sides[LEFT] = center.add(-1, 0);
-        sides[LEFT_UP] = center.add(-1, 1);
-        sides[LEFT_DOWN] = center.add(-1, -1);
+    private static long[] getSides(int x, int z) {
+        final long[] sides = new long[8];
+        sides[UP] = LanternChunk.key(x, z + 1);
+        sides[DOWN] = LanternChunk.key(x, z - 1);
+        sides[RIGHT] = LanternChunk.key(x + 1, z);
+        sides[RIGHT_UP] = LanternChunk.key(x + 1, z + 1);
+        sides[RIGHT_DOWN] = LanternChunk.key(x + 1, z - 1);
+        sides[LEFT] = LanternChunk.key(x - 1, z);
+        sides[LEFT_UP] = LanternChunk.key(x - 1, z + 1);
+        sides[LEFT_DOWN] = LanternChunk.key(x - 1, z - 1);
         return sides;
     }
 
@@ -784,12 +918,11 @@ private static Vector2i[] getSides(Vector2i center) {
      * @param chunk the chunk
      */
     private void tryPopulateSurroundingChunks(LanternChunk chunk, Cause cause) {
-        final Vector2i pos = chunk.chunkPos;
-        final Vector2i[] sides = getSides(pos);
+        final long[] sides = getSides(chunk.getX(), chunk.getZ());
         final PopulationData populationData = this.populationData.get();
         final Random random = populationData.random;
         // TODO: Populating must be done in the sync thread???
-        for (Vector2i side : sides) {
+        for (long side : sides) {
             lockInternally(side, populationData.lockTicket);
         }
         LanternChunk up = isChunkLoaded(sides[UP]);
@@ -832,7 +965,7 @@ private void tryPopulateSurroundingChunks(LanternChunk chunk, Cause cause) {
                 populateChunk(down, cause, random);
             }
         }
-        for (Vector2i side : sides) {
+        for (long side : sides) {
             unlockInternally(side, populationData.lockTicket);
         }
     }
@@ -898,11 +1031,12 @@ private void populateChunk(LanternChunk chunk, Cause cause, Random random) {
         // We are done
         chunk.populated = true;
         chunk.populating = false;
+        chunk.markDirty();
     }
 
     @Nullable
-    private LanternChunk isChunkLoaded(Vector2i pos) {
-        final LanternChunk chunk = getChunk(pos, false);
+    private LanternChunk isChunkLoaded(long key) {
+        final LanternChunk chunk = getChunk(key, false);
         return chunk != null && chunk.loaded ? chunk : null;
     }
 
@@ -948,7 +1082,7 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
         boolean success = true;
         try {
             chunk.lockState = LanternChunk.LockState.LOADING;
-            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(chunk.getCoords());
+            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(chunk.getKey());
             // Try to cancel the task, the task will probably be ignored
             // because we are already locked
             if (task != null) {
@@ -957,6 +1091,8 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
             try {
                 // Try to load the chunk
                 if (this.chunkIOService.read(chunk)) {
+                    // The chunk matches the saved data
+                    chunk.clearDirty();
                     this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(causeStack.getCurrentCause(), chunk));
                     this.world.getEventListener().onLoadChunk(chunk);
                     return true;
@@ -1051,11 +1187,416 @@ private void generate(LanternChunk chunk, Cause cause) {
         // Initialize the chunk
         chunk.initializeSections(sections);
         chunk.initializeHeightMap(null);
-        chunk.initializeLight();
 
         eventManager.post(SpongeEventFactory.createGenerateChunkEventPost(cause, chunk));
     }
 
+    /**
+     * Pre generates all the chunks within the specified chunk bounds (inclusive)
+     * without blocking the current thread. The chunks are loaded or generated
+     * concurrently by the chunk task executor and are populated once all the
+     * chunks of the batch are available. Afterwards, all the chunks that weren't
+     * loaded before the batch started will be written and released.
+     *
+     * <p>The chunks that are loaded by the batch aren't attached to the world, no
+     * load or unload events are fired for them and nothing of them is ticked. They
+     * are only available through lookups of the threads that are working on the
+     * batch, so that they can be populated. Chunks that are requested by a ticket
+     * in the mean time will be attached to the world once they are released.</p>
+     *
+     * <p>The chunks at the positive x and z sides of the bounds will be generated
+     * as well, these are required to populate the chunks at the edges.</p>
+     *
+     * <p>Cancelling the returned future stops the generation, the chunks that
+     * were already loaded by the batch will still be written and released.</p>
+     *
+     * @param minX The minimum chunk x coordinate
+     * @param minZ The minimum chunk z coordinate
+     * @param maxX The maximum chunk x coordinate
+     * @param maxZ The maximum chunk z coordinate
+     * @param cause The cause
+     * @return The future that completes with the keys of the chunks that were generated
+     */
+    public CompletableFuture<LongList> preGenerate(int minX, int minZ, int maxX, int maxZ, Cause cause) {
+        checkNotNull(cause, "cause");
+        checkArgument(minX <= maxX && minZ <= maxZ, "The minimum bounds cannot be greater than the maximum bounds");
+        return new PreGenerationBatch(minX, minZ, maxX, maxZ, cause).start();
+    }
+
+    /**
+     * Gets the population phase of the chunk at the given coordinates. The population
+     * area of a chunk covers the chunk and its neighbors at the positive x and z sides,
+     * so the areas of chunks within the same phase never overlap.
+     *
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @return The population phase, between 0 and 3
+     */
+    static int getPopulationPhase(int x, int z) {
+        return (x & 1) << 1 | (z & 1);
+    }
+
+    private final class PreGenerationBatch {
+
+        private final int minX;
+        private final int minZ;
+        private final int sizeX;
+        private final int sizeZ;
+        private final Cause cause;
+        // The ticket that prevents the chunks from being unloaded while the batch is running
+        private final ChunkLoadingTicket ticket = new InternalLoadingTicket();
+        // The keys of all the chunks, including the chunks at the positive sides
+        private final long[] keys;
+        // Whether the chunk didn't exist before the batch started
+        private final boolean[] missing;
+        // The chunks that were loaded by the batch, these chunks aren't attached to the world
+        private final ConcurrentChunkMap<LanternChunk> chunks = new ConcurrentChunkMap<>();
+        // Whether the chunk was generated by the batch
+        private final boolean[] generated;
+        private final CompletableFuture<LongList> result = new CompletableFuture<>();
+
+        private volatile boolean cancelled;
+
+        private PreGenerationBatch(int minX, int minZ, int maxX, int maxZ, Cause cause) {
+            this.minX = minX;
+            this.minZ = minZ;
+            this.sizeX = maxX - minX + 2;
+            this.sizeZ = maxZ - minZ + 2;
+            this.cause = cause;
+            this.keys = new long[this.sizeX * this.sizeZ];
+            this.missing = new boolean[this.keys.length];
+            this.generated = new boolean[this.keys.length];
+            for (int x = 0; x < this.sizeX; x++) {
+                for (int z = 0; z < this.sizeZ; z++) {
+                    this.keys[x * this.sizeZ + z] = LanternChunk.key(minX + x, minZ + z);
+                }
+            }
+        }
+
+        private CompletableFuture<LongList> start() {
+            preGenerationBatches.add(this);
+            this.result.whenComplete((value, throwable) -> {
+                if (throwable instanceof CancellationException) {
+                    cancel();
+                }
+            });
+            final CompletableFuture<Boolean> checkFuture = new CompletableFuture<>();
+            final Runnable check = () -> {
+                try {
+                    checkFuture.complete(!this.cancelled && checkMissing());
+                } catch (Throwable t) {
+                    checkFuture.completeExceptionally(t);
+                }
+            };
+            if (!execute(check)) {
+                check.run();
+            }
+            checkFuture.thenCompose(anyMissing -> {
+                // Everything is already generated, the chunks don't even need to be loaded
+                if (!anyMissing) {
+                    return CompletableFuture.<LongList>completedFuture(LongLists.EMPTY_LIST);
+                }
+                CompletableFuture<Void> future = runAll(this::load, index -> true);
+                // Chunks within the same phase never touch each others
+                // population area, so each phase can be populated concurrently
+                for (int phase = 0; phase < 4; phase++) {
+                    final int phase0 = phase;
+                    future = future.thenCompose(v -> runAll(this::populate, index -> isPopulationPhase(index, phase0)));
+                }
+                // Always release the chunks, even if something went wrong
+                return future.handle((v, throwable) -> throwable)
+                        .thenCompose(throwable -> runAll(this::release, index -> true).thenApply(v -> {
+                            if (throwable != null) {
+                                throw throwable instanceof CompletionException ? (CompletionException) throwable :
+                                        new CompletionException(throwable);
+                            }
+                            final LongList generated = new LongArrayList();
+                            for (int i = 0; i < this.keys.length; i++) {
+                                if (this.generated[i]) {
+                                    generated.add(this.keys[i]);
+                                }
+                            }
+                            return generated;
+                        }));
+            }).whenComplete((generated, throwable) -> {
+                preGenerationBatches.remove(this);
+                if (throwable != null) {
+                    this.result.completeExceptionally(throwable);
+                } else {
+                    this.result.complete(generated);
+                }
+            });
+            return this.result;
+        }
+
+        /**
+         * Stops the generation of the chunks, the chunks
+         * that are already loaded will still be released.
+         */
+        private void cancel() {
+            this.cancelled = true;
+        }
+
+        /**
+         * Submits the task to the chunk task executor.
+         *
+         * @param task The task
+         * @return Whether the task was submitted, false if the chunk manager is shutting down
+         */
+        private boolean execute(Runnable task) {
+            try {
+                chunkTaskExecutor.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                cancel();
+                return false;
+            }
+        }
+
+        /**
+         * Runs the action for every chunk that matches the filter. At most {@link #PRE_GENERATION_CONCURRENCY}
+         * chunks are processed at the same time and each chunk is a separate task, so that other chunk tasks
+         * don't have to wait for the complete batch. If the executor rejects the tasks, the remaining chunks
+         * are processed by the current thread.
+         *
+         * @param action The action
+         * @param filter The filter
+         * @return The future that completes once the action was applied to all the chunks
+         */
+        private CompletableFuture<Void> runAll(IntConsumer action, IntPredicate filter) {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            final AtomicInteger nextIndex = new AtomicInteger();
+            final AtomicInteger workers = new AtomicInteger(PRE_GENERATION_CONCURRENCY);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final Runnable worker = new Runnable() {
+                @Override
+                public void run() {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) < keys.length) {
+                        if (!filter.test(index)) {
+                            continue;
+                        }
+                        final LastAccessedChunk lastAccessed = lastAccessedChunk.get();
+                        lastAccessed.batch = PreGenerationBatch.this;
+                        try {
+                            action.accept(index);
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        } finally {
+                            lastAccessed.batch = null;
+                        }
+                        // Continue with the next chunk in a new task
+                        if (execute(this)) {
+                            return;
+                        }
+                    }
+                    if (workers.decrementAndGet() == 0) {
+                        final Throwable throwable = failure.get();
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                        } else {
+                            future.complete(null);
+                        }
+                    }
+                }
+            };
+            for (int i = 0; i < PRE_GENERATION_CONCURRENCY; i++) {
+                if (!execute(worker)) {
+                    worker.run();
+                }
+            }
+            return future;
+        }
+
+        private boolean checkMissing() {
+            boolean anyMissing = false;
+            for (int i = 0; i < this.keys.length; i++) {
+                final long key = this.keys[i];
+                try {
+                    this.missing[i] = !chunkIOService.exists(LanternChunk.keyX(key), LanternChunk.keyZ(key));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                anyMissing |= this.missing[i];
+            }
+            return anyMissing;
+        }
+
+        private boolean isPopulationPhase(int index, int phase) {
+            final int x = index / this.sizeZ;
+            final int z = index % this.sizeZ;
+            // The chunks at the positive sides are only used as neighbors
+            if (x == this.sizeX - 1 || z == this.sizeZ - 1) {
+                return false;
+            }
+            return getPopulationPhase(this.minX + x, this.minZ + z) == phase;
+        }
+
+        private void load(int index) {
+            final long key = this.keys[index];
+            lockInternally(key, this.ticket);
+            if (this.cancelled) {
+                return;
+            }
+            final LanternChunk loaded = loadedChunks.get(key);
+            if (loaded == null) {
+                // The chunks in the graveyard were saved when they were unloaded,
+                // so they are loaded again from the saved data
+                if (reusableChunks.remove(key) != null) {
+                    world.getScheduledBlockUpdates().discardParkedUpdates(key);
+                }
+                final LanternChunk chunk = new LanternChunk(world, LanternChunk.keyX(key), LanternChunk.keyZ(key));
+                chunk.detached = true;
+                this.chunks.put(key, chunk);
+                this.generated[index] = loadDetached(chunk, this.cause) && this.missing[index];
+            } else if (!loaded.loaded) {
+                // The chunk is being loaded by the world, wait for it
+                final CauseStack causeStack = CauseStack.current();
+                causeStack.pushCause(this.cause.root());
+                try {
+                    getOrCreateChunk(key, causeStack, true, true);
+                } finally {
+                    causeStack.popCause();
+                }
+            }
+        }
+
+        private void populate(int index) {
+            if (this.cancelled) {
+                return;
+            }
+            final LanternChunk chunk = getGeneratedChunk(this.keys[index]);
+            if (chunk == null || chunk.populating || chunk.populated) {
+                return;
+            }
+            // The population area overlaps with the chunks at the positive sides
+            if (getGeneratedChunk(this.keys[index + this.sizeZ]) == null ||
+                    getGeneratedChunk(this.keys[index + 1]) == null ||
+                    getGeneratedChunk(this.keys[index + this.sizeZ + 1]) == null) {
+                return;
+            }
+            //noinspection ConstantConditions
+            populateChunk(chunk, this.cause, populationData.get().random);
+        }
+
+        @Nullable
+        private LanternChunk getGeneratedChunk(long key) {
+            final LanternChunk chunk = isChunkLoaded(key);
+            return chunk != null && chunk.loadingSuccess ? chunk : null;
+        }
+
+        private void release(int index) {
+            final long key = this.keys[index];
+            unlockInternally(key, this.ticket);
+            // The detached chunks will be saved by the shutdown
+            if (chunkTaskExecutor.isShutdown()) {
+                return;
+            }
+            final LanternChunk chunk = this.chunks.get(key);
+            if (chunk != null && this.chunks.remove(key, chunk)) {
+                releaseDetached(chunk, this.cause);
+            }
+        }
+
+        /**
+         * Saves all the detached chunks that weren't released yet, no
+         * unload events are fired because the chunks were never attached.
+         */
+        private void saveDetached() {
+            this.chunks.forEach((key, chunk) -> {
+                if (this.chunks.remove(key, chunk) && chunk.loadingSuccess) {
+                    save(chunk);
+                    world.getScheduledBlockUpdates().discardParkedUpdates(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads or generates the chunk for pre generation, without attaching it to
+     * the world. No load events will be fired, the entities won't be added and
+     * the tile entities and scheduled updates won't be ticked.
+     *
+     * @param chunk The chunk
+     * @param cause The cause
+     * @return Whether the chunk was generated
+     */
+    private boolean loadDetached(LanternChunk chunk, Cause cause) {
+        chunk.lock.lock();
+        boolean success = true;
+        try {
+            chunk.lockState = LanternChunk.LockState.LOADING;
+            try {
+                if (this.chunkIOService.read(chunk)) {
+                    // The chunk matches the saved data
+                    chunk.clearDirty();
+                    return false;
+                }
+            } catch (Exception e) {
+                this.game.getLogger().error("Error while loading chunk ({};{})",
+                        chunk.getX(), chunk.getZ(), e);
+            }
+            try {
+                generate(chunk, cause);
+            } catch (Throwable e) {
+                this.game.getLogger().error("Error while generating chunk ({};{})", chunk.getX(), chunk.getZ(), e);
+                success = false;
+                return false;
+            }
+            return true;
+        } finally {
+            chunk.lockState = LanternChunk.LockState.NONE;
+            chunk.loaded = true;
+            chunk.loadingSuccess = success;
+            chunk.lockCondition.signalAll();
+            chunk.lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a chunk that was loaded through {@link #loadDetached(LanternChunk, Cause)}. The
+     * chunk is written through the chunk io service and removed, unless it was requested by a
+     * ticket in the mean time, in which case it will be attached to the world.
+     *
+     * @param chunk The chunk
+     * @param cause The cause
+     */
+    private void releaseDetached(LanternChunk chunk, Cause cause) {
+        final long key = chunk.getKey();
+        chunk.lock.lock();
+        try {
+            if (this.ticketsByPos.containsKey(key) && this.loadedChunks.computeIfAbsent(key, key0 -> chunk) == chunk) {
+                chunk.detached = false;
+                chunk.addTickingTileEntities();
+                this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(cause, chunk));
+                // Lights the chunk and schedules the parked updates
+                this.world.getEventListener().onLoadChunk(chunk);
+                this.world.addEntities(chunk.getEntities());
+                return;
+            }
+            chunk.lockState = LanternChunk.LockState.UNLOADING;
+            final ScheduledBlockUpdateWheel scheduledBlockUpdates = this.world.getScheduledBlockUpdates();
+            // The world may have loaded its own copy of the chunk in the
+            // mean time, that copy is leading so this one is just dropped
+            if (this.loadedChunks.get(key) == null) {
+                // The scheduled updates that were loaded with the chunk are saved as well
+                if (chunk.loadingSuccess) {
+                    this.chunkIOService.writeAsync(chunk, this.chunkTaskExecutor).exceptionally(throwable -> {
+                        this.game.getLogger().error("Error while saving " + chunk, throwable);
+                        return null;
+                    });
+                }
+                // Population may have scheduled updates within the chunk
+                scheduledBlockUpdates.onUnloadChunk(chunk);
+            }
+            scheduledBlockUpdates.discardParkedUpdates(key);
+        } finally {
+            chunk.lockState = LanternChunk.LockState.NONE;
+            chunk.lockCondition.signalAll();
+            chunk.lock.unlock();
+        }
+    }
+
     private static final Vector3i CHUNK_SIZE = new Vector3i(
             CHUNK_SECTION_SIZE, CHUNK_HEIGHT, CHUNK_SECTION_SIZE);
 
@@ -1122,26 +1663,67 @@ void reuse(Vector3i start) {
             this.start = checkNotNull(start, "start");
             this.end = this.start.add(this.size).sub(Vector3i.ONE);
             for (int i = 0; i < CHUNK_SECTIONS; i++) {
-                Arrays.fill(this.types[i], (short) 0);
+                // Sections without any blocks are already cleared
+                if (this.nonAirCount[i] != 0) {
+                    Arrays.fill(this.types[i], (short) 0);
+                    this.nonAirCount[i] = 0;
+                }
             }
-            Arrays.fill(this.nonAirCount, 0);
         }
 
         @Override
         public boolean setBlock(int x, int y, int z, BlockState block) {
             checkNotNull(block, "blockState");
+            setBlockById(x, y, z, BlockRegistryModule.get().getStateInternalIdAndData(block));
+            return true;
+        }
+
+        @Override
+        public void setBlockById(int x, int y, int z, short id) {
             checkRange(x, y, z);
             final int sy = y >> 4;
             final int index = ((y & 0xf) << 8) | ((z & 0xf) << 4) | x & 0xf;
             final short[] types = this.types[sy];
-            final short type = BlockRegistryModule.get().getStateInternalIdAndData(block);
-            if (type == 0 && types[index] != 0) {
+            if (id == 0 && types[index] != 0) {
                 this.nonAirCount[sy]--;
-            } else if (type != 0 && types[index] == 0) {
+            } else if (id != 0 && types[index] == 0) {
                 this.nonAirCount[sy]++;
             }
-            types[index] = type;
-            return true;
+            types[index] = id;
+        }
+
+        @Override
+        public void fillById(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, short id) {
+            checkRange(minX, minY, minZ);
+            checkRange(maxX, maxY, maxZ);
+            final int rowLength = maxX - minX + 1;
+            // The x coordinates of a row are stored next to each other,
+            // a complete layer of the chunk is a single range
+            final boolean fullLayer = rowLength == CHUNK_SECTION_SIZE && maxZ - minZ + 1 == CHUNK_SECTION_SIZE;
+            for (int y = minY; y <= maxY; y++) {
+                final int sy = y >> 4;
+                final short[] types = this.types[sy];
+                final int layer = (y & 0xf) << 8;
+                if (fullLayer) {
+                    fillRange(sy, types, layer, layer + CHUNK_AREA, id);
+                    continue;
+                }
+                for (int z = minZ; z <= maxZ; z++) {
+                    final int from = layer | ((z & 0xf) << 4) | minX & 0xf;
+                    fillRange(sy, types, from, from + rowLength, id);
+                }
+            }
+        }
+
+        private void fillRange(int sy, short[] types, int from, int to, short id) {
+            int nonAir = 0;
+            for (int i = from; i < to; i++) {
+                if (types[i] != 0) {
+                    nonAir++;
+                }
+            }
+            Arrays.fill(types, from, to, id);
+            this.nonAirCount[sy] += (id != 0 ? to - from : 0) - nonAir;
         }
 
         @Override
@@ -1193,15 +1775,54 @@ public boolean save(LanternChunk chunk) {
     }
 
     private boolean save0(LanternChunk chunk) {
+        // Changes that are made while the chunk is being
+        // written will mark the chunk dirty again
+        chunk.clearDirty();
         try {
             this.chunkIOService.write(chunk);
             return true;
         } catch (IOException e) {
+            chunk.markDirty();
             this.game.getLogger().error("Error while saving " + chunk, e);
         }
         return false;
     }
 
+    /**
+     * Attempts to save the specified chunk without waiting for the write. Only
+     * the data of the chunk is captured on the current thread, it will be encoded
+     * and written by the chunk task executor. Chunks that are currently locked by
+     * a different thread will be skipped, unless {@code waitForLock} is specified.
+     *
+     * @param chunk The chunk
+     * @param waitForLock Whether the current thread should wait for the chunk lock
+     * @return Whether the chunk will be saved
+     */
+    private boolean trySaveAsync(LanternChunk chunk, boolean waitForLock) {
+        if (waitForLock) {
+            chunk.lock.lock();
+        } else if (!chunk.lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (!chunk.loaded) {
+                return false;
+            }
+            chunk.lockState = LanternChunk.LockState.SAVING;
+            chunk.clearDirty();
+            this.chunkIOService.writeAsync(chunk, this.chunkTaskExecutor).exceptionally(throwable -> {
+                chunk.markDirty();
+                this.game.getLogger().error("Error while saving " + chunk, throwable);
+                return null;
+            });
+            return true;
+        } finally {
+            chunk.lockState = LanternChunk.LockState.NONE;
+            chunk.lockCondition.signalAll();
+            chunk.lock.unlock();
+        }
+    }
+
     /**
      * Attempts to unload the chunk at the specified coordinates.
      * 
@@ -1211,7 +1832,8 @@ private boolean save0(LanternChunk chunk) {
      * @return true if it was successful
      */
     public boolean unload(int x, int z, CauseStack causeStack) {
-        return unload(new Vector2i(x, z), causeStack);
+        checkNotNull(causeStack, "causeStack");
+        return unload0(LanternChunk.key(x, z), causeStack, true);
     }
 
     /**
@@ -1222,12 +1844,13 @@ public boolean unload(int x, int z, CauseStack causeStack) {
      * @return true if it was successful
      */
     public boolean unload(Vector2i coords, CauseStack causeStack) {
-        return unload0(coords, causeStack, true);
+        checkNotNull(coords, "coords");
+        checkNotNull(causeStack, "causeStack");
+        return unload0(LanternChunk.key(coords.getX(), coords.getY()), causeStack, true);
     }
 
-    private boolean unload0(Vector2i coords, CauseStack causeStack, boolean wait) {
-        checkNotNull(causeStack, "causeStack");
-        final LanternChunk chunk = getChunk(checkNotNull(coords, "coords"));
+    private boolean unload0(long key, CauseStack causeStack, boolean wait) {
+        final LanternChunk chunk = getChunk(key, true);
         if (chunk != null) {
             return unload0(chunk, causeStack, wait);
         }
@@ -1248,9 +1871,9 @@ public boolean unload(LanternChunk chunk, CauseStack causeStack) {
     }
 
     private boolean unload0(LanternChunk chunk, CauseStack causeStack, boolean wait) {
-        final Vector2i coords = chunk.getCoords();
+        final long key = chunk.getKey();
         // Forced chunks cannot be unloaded
-        if (this.ticketsByPos.containsKey(coords)) {
+        if (this.ticketsByPos.containsKey(key)) {
             chunk.unloadingSuccess = false;
             return false;
         }
@@ -1275,21 +1898,29 @@ private boolean unload0(LanternChunk chunk, CauseStack causeStack, boolean wait)
             if (!chunk.loaded) {
                 return true;
             }
-            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(coords);
+            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(key);
             // Try to cancel all the current tasks
             if (task != null) {
                 task.cancel();
             }
             // Post the chunk unload event
             this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(causeStack.getCurrentCause(), chunk));
+            // The chunk data is serialized while the chunk is still locked, before the
+            // listeners can release any of its state (e.g. scheduled block updates),
+            // writing it to the region file doesn't need to block this thread
+            this.chunkIOService.writeAsync(chunk, this.chunkTaskExecutor).exceptionally(throwable -> {
+                this.game.getLogger().error("Error while saving " + chunk, throwable);
+                return null;
+            });
             this.world.getEventListener().onUnloadChunk(chunk);
             // Remove from the loaded chunks
-            this.loadedChunks.remove(coords);
+            this.loadedChunks.remove(key);
+            this.loadedChunksGeneration.incrementAndGet();
             // Move the chunk to the graveyard
-            this.reusableChunks.put(coords, chunk);
+            this.reusableChunks.put(key, new ReusableChunkReference(chunk));
             // Bury the entities
             chunk.buryEntities();
-            save0(chunk);
+            chunk.removeTickingTileEntities();
             return true;
         } finally {
             chunk.lockState = LanternChunk.LockState.NONE;
@@ -1304,23 +1935,23 @@ private boolean unload0(LanternChunk chunk, CauseStack causeStack, boolean wait)
      * method does not trigger the loading of a chunk but locks the chunk from
      * unloading.
      *
-     * @param coords the coordinates
+     * @param key the chunk key
      * @return whether it was previously empty
      */
-    private boolean lockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
+    private boolean lockInternally(long key, ChunkLoadingTicket ticket) {
         final boolean[] empty = new boolean[1];
-        this.ticketsByPos.computeIfAbsent(coords, coords0 -> {
+        this.ticketsByPos.computeIfAbsent(key, key0 -> {
             empty[0] = true;
             return Sets.newConcurrentHashSet();
         }).add(ticket);
         return empty[0];
     }
 
-    private boolean unlockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
-        final Set<ChunkLoadingTicket> set = this.ticketsByPos.get(coords);
+    private boolean unlockInternally(long key, ChunkLoadingTicket ticket) {
+        final Set<ChunkLoadingTicket> set = this.ticketsByPos.get(key);
         if (set != null && set.remove(ticket)) {
             if (set.isEmpty()) {
-                this.ticketsByPos.remove(coords);
+                this.ticketsByPos.remove(key, set);
             }
             return true;
         }
@@ -1345,12 +1976,13 @@ void force(LanternLoadingTicket ticket, Vector2i coords) {
      * @param callEvents whether the force chunk events should be called
      */
     void force(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
-        final LanternChunk chunk = getChunk(coords, false);
+        final long key = LanternChunk.key(coords.getX(), coords.getY());
+        final LanternChunk chunk = getChunk(key, false);
         // The chunk at this coords is already loaded,
         // wa can call the event directly
-        lockInternally(coords, ticket);
+        lockInternally(key, ticket);
         // Remove from unload through loadChunk
-        this.pendingForUnload.removeIf(e -> e.coords.equals(coords));
+        this.pendingForUnload.removeIf(e -> e.key == key);
         // Whether the chunk should be queued for loading
         boolean queueLoad = false;
         if (chunk != null) {
@@ -1362,10 +1994,10 @@ void force(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
             queueLoad = true;
         }
         if (queueLoad) {
-            LanternChunkQueueTask task = this.chunkQueueTasks.get(coords);
+            LanternChunkQueueTask task = this.chunkQueueTasks.get(key);
             if (task == null || !(task.runnable instanceof LanternChunkLoadTask)) {
-                this.chunkQueueTasks.computeIfAbsent(coords, coords1 ->
-                        queueTask(coords1, new LanternChunkLoadTask(coords1)));
+                this.chunkQueueTasks.computeIfAbsent(key, key1 ->
+                        queueTask(key1, new LanternChunkLoadTask(key1)));
             }
         }
         if  (callEvents) {
@@ -1390,17 +2022,18 @@ private void postForcedChunkEvent(CauseStack causeStack, LanternLoadingTicket ti
      * @param coords the coordinates
      */
     void unforce(LanternLoadingTicket ticket, Vector2i coords, @Nullable CauseStack causeStack) {
-        if (unlockInternally(coords, ticket)) {
-            final LanternChunk chunk = getChunk(coords, false);
+        final long key = LanternChunk.key(coords.getX(), coords.getY());
+        if (unlockInternally(key, ticket)) {
+            final LanternChunk chunk = getChunk(key, false);
             // Try to cancel any queued chunk loadings
             if (chunk != null && chunk.lock.isLocked() && chunk.lockState == LanternChunk.LockState.LOADING) {
-                final LanternChunkQueueTask task = this.chunkQueueTasks.get(coords);
+                final LanternChunkQueueTask task = this.chunkQueueTasks.get(key);
                 if (task != null && task.runnable instanceof LanternChunkLoadTask) {
                     task.cancel();
                 }
             // Queue the chunk for unload, will be some ticks later
             } else {
-                final UnloadingChunkEntry entry = new UnloadingChunkEntry(coords);
+                final UnloadingChunkEntry entry = new UnloadingChunkEntry(key);
                 if (!this.pendingForUnload.contains(entry)) {
                     this.pendingForUnload.offer(entry);
                 }
@@ -1431,9 +2064,13 @@ public void save() {
         } catch (IOException e) {
             this.game.getLogger().warn("An error occurred while saving the chunk loading tickets", e);
         }
-        for (Entry<Vector2i, LanternChunk> entry : this.loadedChunks.entrySet()) {
-            // Save the chunk
-            save(entry.getValue());
+        for (LanternChunk chunk : this.loadedChunks.values()) {
+            // Only the chunks with unsaved changes are written, the writing
+            // itself is done in the background to avoid stalling the tick,
+            // chunks that are locked are waited for so none are skipped
+            if (chunk.hasUnsavedChanges()) {
+                trySaveAsync(chunk, true);
+            }
         }
     }
 
@@ -1447,17 +2084,23 @@ public void shutdown() {
         } catch (IOException e) {
             this.game.getLogger().warn("An error occurred while saving the chunk loading tickets", e);
         }
+        // Stop the pre generation and save the chunks that it loaded
+        this.preGenerationBatches.forEach(PreGenerationBatch::cancel);
+        this.preGenerationBatches.forEach(PreGenerationBatch::saveDetached);
         final CauseStack causeStack = CauseStack.current();
         final Cause cause = causeStack.getCurrentCause();
-        for (Entry<Vector2i, LanternChunk> entry : this.loadedChunks.entrySet()) {
-            final LanternChunk chunk = entry.getValue();
+        for (LanternChunk chunk : this.loadedChunks.values()) {
             // Post the chunk unload event
             this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(cause, chunk));
             // Save the chunk
-            save(chunk);
+            if (chunk.hasUnsavedChanges()) {
+                save(chunk);
+            }
         }
         // Cleanup
+        this.pendingForSave.clear();
         this.loadedChunks.clear();
+        this.loadedChunksGeneration.incrementAndGet();
         this.reusableChunks.clear();
         this.chunkTaskExecutor.shutdown();
         try {
@@ -1475,11 +2118,61 @@ public void pulse(CauseStack causeStack) {
         while ((entry = this.pendingForUnload.peek()) != null &&
                 (System.currentTimeMillis() - entry.time) > UNLOAD_DELAY) {
             this.pendingForUnload.poll();
-            if (!this.ticketsByPos.containsKey(entry.coords)) {
+            if (!this.ticketsByPos.containsKey(entry.key)) {
                 // TODO: Create unload tasks
-                unload(entry.coords, causeStack);
+                unload0(entry.key, causeStack, true);
             }
         }
+        // Cleanup the reusable chunks that were garbage collected
+        Reference<? extends LanternChunk> reference;
+        while ((reference = this.reusableChunksQueue.poll()) != null) {
+            final long key = ((ReusableChunkReference) reference).key;
+            if (this.reusableChunks.remove(key, (ReusableChunkReference) reference)) {
+                // The chunk can no longer be reused, its updates will be loaded from the saved data
+                this.world.getScheduledBlockUpdates().discardParkedUpdates(key);
+            }
+        }
+        pulseBackgroundSaves();
+    }
+
+    /**
+     * Saves a limited amount of the loaded chunks with unsaved changes. All
+     * the loaded chunks are checked once every save interval, but the saving
+     * is spread over multiple ticks.
+     */
+    private void pulseBackgroundSaves() {
+        final int interval = this.worldConfig.getChunkSaveInterval();
+        if (interval <= 0) {
+            return;
+        }
+        if (this.pendingForSave.isEmpty()) {
+            if (++this.ticksSinceSaveRound < interval) {
+                return;
+            }
+            this.ticksSinceSaveRound = 0;
+            this.pendingForSave.addAll(this.loadedChunks.values());
+        }
+        int saves = this.worldConfig.getMaxChunkSavesPerTick();
+        List<LanternChunk> locked = null;
+        LanternChunk chunk;
+        while (saves > 0 && (chunk = this.pendingForSave.poll()) != null) {
+            // Chunks that were unloaded in the meantime are already saved
+            if (this.loadedChunks.get(chunk.getKey()) != chunk || !chunk.hasUnsavedChanges()) {
+                continue;
+            }
+            if (trySaveAsync(chunk, false)) {
+                saves--;
+            } else if (chunk.loaded) {
+                // The chunk is locked by a different thread, try again later
+                if (locked == null) {
+                    locked = new ArrayList<>();
+                }
+                locked.add(chunk);
+            }
+        }
+        if (locked != null) {
+            this.pendingForSave.addAll(locked);
+        }
     }
 
     public void loadTickets() throws IOException {
@@ -0,0 +1,994 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_HEIGHT;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_SIZE;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.lanternpowered.server.block.action.BlockAction;
+import org.lanternpowered.server.block.property.LightOpacityProperty;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.util.collect.array.NibbleArray;
+import org.lanternpowered.server.world.WorldEventListener;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.data.property.block.LightEmissionProperty;
+import org.spongepowered.api.data.property.block.MatterProperty;
+import org.spongepowered.api.data.property.block.SolidCubeProperty;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntUnaryOperator;
+
+import javax.annotation.Nullable;
+
+/**
+ * Calculates the block and sky light of the loaded chunks of a world off the world thread.
+ * <p>
+ * Light is propagated through breadth first searches over queues of positions that are
+ * packed together with a light level into primitive longs. The work is scheduled per chunk
+ * column, a column is only processed by one worker at the time and that worker is the only
+ * one that writes to the light arrays of its sections. Light that crosses the border of a
+ * column is handed over to the queues of the neighbor column, which is scheduled in turn.
+ * The sections are resolved for every access while holding their read lock, so the world
+ * thread can create and remove sections while a column is being processed.
+ * <p>
+ * Missing sections below the highest section cannot store light. While a column is processed
+ * their light is tracked in temporary arrays, so the light can pass through them. Sections
+ * that are created after the column was processed get their light calculated from scratch.
+ * <p>
+ * Block changes are collected while the world is being pulsed and are submitted as one batch
+ * per column by {@link #pulse()}. Chunks that didn't have their light populated yet are only
+ * marked as populated once the initial calculation of their column finished, observers wait
+ * for that before the chunk is send to the client.
+ */
+public final class LightEngine implements WorldEventListener {
+
+    private static final int BLOCK = 0;
+    private static final int SKY = 1;
+
+    // The offsets of the neighbor positions, the first four
+    // directions are the horizontal ones: -x, +x, -z and +z
+    private static final int[] OFFSET_X = { -1, 1, 0, 0, 0, 0 };
+    private static final int[] OFFSET_Y = { 0, 0, 0, 0, -1, 1 };
+    private static final int[] OFFSET_Z = { 0, 0, -1, 1, 0, 0 };
+
+    private static final int HORIZONTAL_SIDES = 4;
+    private static final int DOWN = 4;
+    private static final int ALL_SIDES_MASK = (1 << HORIZONTAL_SIDES) - 1;
+
+    // Bit 8 of the light data marks that the entry is computed
+    private static final int COMPUTED = 0x100;
+
+    // The light data for every packed block state, the bits 0-3 hold the
+    // light emission, the bits 4-7 the opacity and bit 8 the computed flag
+    private final short[] lightData = new short[1 << 16];
+    private final IntUnaryOperator lightDataFunction;
+
+    private final Long2ObjectMap<Column> columns = new Long2ObjectOpenHashMap<>();
+    private final Queue<Column> changedColumns = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    private final Executor executor;
+    private final boolean skyLight;
+
+    /**
+     * Creates a new light engine.
+     *
+     * @param executor The executor that will process the chunk columns
+     * @param skyLight Whether the sky light should be calculated
+     */
+    public LightEngine(Executor executor, boolean skyLight) {
+        this(executor, skyLight, LightEngine::computeLightData);
+    }
+
+    /**
+     * Creates a new light engine.
+     *
+     * @param executor The executor that will process the chunk columns
+     * @param skyLight Whether the sky light should be calculated
+     * @param lightDataFunction The function that provides the light emission (bits 0-3)
+     *                          and opacity (bits 4-7) of a packed block state
+     */
+    LightEngine(Executor executor, boolean skyLight, IntUnaryOperator lightDataFunction) {
+        this.executor = executor;
+        this.skyLight = skyLight;
+        this.lightDataFunction = lightDataFunction;
+    }
+
+    /**
+     * Submits all the block changes that were collected since
+     * the last pulse, each changed column is scheduled once.
+     */
+    public void pulse() {
+        Column column;
+        while ((column = this.changedColumns.poll()) != null) {
+            synchronized (column) {
+                column.queued = false;
+            }
+            column.schedule();
+        }
+    }
+
+    @Override
+    public void onLoadChunk(LanternChunk chunk) {
+        load(new Column(chunk.getX(), chunk.getZ(), chunk.getSectionArray(), chunk), chunk.isLightPopulated());
+    }
+
+    /**
+     * Loads a column that isn't backed by a chunk, its light will be calculated from scratch.
+     *
+     * @param x The x coordinate of the column
+     * @param z The z coordinate of the column
+     * @param sections The sections of the column
+     */
+    void load(int x, int z, ConcurrentObjectArray<ChunkSection> sections) {
+        load(new Column(x, z, sections, null), false);
+    }
+
+    private void load(Column column, boolean lightPopulated) {
+        synchronized (this.columns) {
+            final Column old = this.columns.put(LanternChunk.key(column.x, column.z), column);
+            if (old != null) {
+                old.removed = true;
+            }
+        }
+        column.knownSections = getSectionMask(column.sections.getRawObjects());
+        synchronized (column) {
+            column.initialize = !lightPopulated;
+            // Exchange the light at the borders with the neighbors, changes
+            // may have happened there while this chunk wasn't loaded
+            column.exportSides = ALL_SIDES_MASK;
+            column.importSides = true;
+        }
+        column.schedule();
+    }
+
+    @Override
+    public void onUnloadChunk(LanternChunk chunk) {
+        unload(chunk.getX(), chunk.getZ());
+    }
+
+    /**
+     * Unloads the column at the coordinates.
+     *
+     * @param x The x coordinate of the column
+     * @param z The z coordinate of the column
+     */
+    void unload(int x, int z) {
+        final Column column;
+        synchronized (this.columns) {
+            column = this.columns.remove(LanternChunk.key(x, z));
+        }
+        if (column != null) {
+            column.removed = true;
+        }
+    }
+
+    @Override
+    public void onPopulateChunk(LanternChunk chunk) {
+        // The populators changed the blocks through the world,
+        // so all the changes were already collected
+    }
+
+    @Override
+    public void onBlockChange(int x, int y, int z, BlockState oldBlockState, BlockState newBlockState) {
+        final BlockRegistryModule registry = BlockRegistryModule.get();
+        queueChange(x, y, z, getLightData(registry.getStateInternalIdAndData(oldBlockState)) !=
+                getLightData(registry.getStateInternalIdAndData(newBlockState)));
+    }
+
+    /**
+     * Queues the block change at the coordinates, it will be submitted by the next {@link #pulse()}.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param lightChanged Whether the light emission or opacity at the coordinates changed
+     */
+    void queueChange(int x, int y, int z, boolean lightChanged) {
+        final Column column = getColumn(x >> 4, z >> 4);
+        if (column == null) {
+            return;
+        }
+        if (!lightChanged) {
+            // The change can still have created or removed a section
+            final int section = y >> 4;
+            final boolean exists = column.sections.getRawObjects()[section] != null;
+            if (((column.knownSections >> section) & 1) == (exists ? 1 : 0)) {
+                return;
+            }
+        }
+        final boolean queue;
+        synchronized (column) {
+            if (lightChanged) {
+                column.changes.add(pack(x, y, z, 0));
+            } else {
+                column.sectionsChanged = true;
+            }
+            queue = !column.queued;
+            column.queued = true;
+        }
+        if (queue) {
+            this.changedColumns.add(column);
+        }
+    }
+
+    @Override
+    public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
+    }
+
+    @Nullable
+    private Column getColumn(int x, int z) {
+        synchronized (this.columns) {
+            return this.columns.get(LanternChunk.key(x, z));
+        }
+    }
+
+    private static long pack(int x, int y, int z, int level) {
+        return ((long) (x & 0x3ffffff) << 38) | ((long) (z & 0x3ffffff) << 12) | ((y & 0xff) << 4) | (level & 0xf);
+    }
+
+    private static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    private static int unpackY(long packed) {
+        return (int) (packed >>> 4) & 0xff;
+    }
+
+    private static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    private static int unpackLevel(long packed) {
+        return (int) packed & 0xf;
+    }
+
+    /**
+     * Gets the light data of the packed block state.
+     *
+     * @param type The packed block state
+     * @return The light data
+     */
+    private int getLightData(short type) {
+        final int index = type & 0xffff;
+        int data = this.lightData[index];
+        if (data == 0) {
+            // Multiple threads may compute the same entry, but
+            // the result will be the same, so this isn't an issue
+            data = COMPUTED | (this.lightDataFunction.applyAsInt(index) & 0xff);
+            this.lightData[index] = (short) data;
+        }
+        return data;
+    }
+
+    private static int computeLightData(int type) {
+        final BlockState blockState = BlockRegistryModule.get().getStateByInternalIdAndData((short) type).orElse(null);
+        if (blockState == null) {
+            return 0;
+        }
+        final int emission = blockState.getProperty(LightEmissionProperty.class)
+                .map(LightEmissionProperty::getValue).orElse(0);
+        final int opacity;
+        final Optional<LightOpacityProperty> opacityProperty = blockState.getProperty(LightOpacityProperty.class);
+        if (opacityProperty.isPresent()) {
+            opacity = opacityProperty.get().getValue();
+        } else if (blockState.getProperty(MatterProperty.class)
+                .map(property -> property.getValue() == MatterProperty.Matter.LIQUID).orElse(false)) {
+            opacity = 3;
+        } else {
+            // By default will full cubes block all the light
+            opacity = blockState.getProperty(SolidCubeProperty.class).map(SolidCubeProperty::getValue).orElse(false) ? 15 : 0;
+        }
+        return (Math.max(0, Math.min(15, opacity)) << 4) | Math.max(0, Math.min(15, emission));
+    }
+
+    private static int getHighestSection(ChunkSection[] sections) {
+        for (int i = sections.length - 1; i >= 0; i--) {
+            if (sections[i] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getSectionMask(ChunkSection[] sections) {
+        int mask = 0;
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * A chunk column with all the light work that is pending for it.
+     */
+    private final class Column implements Runnable {
+
+        private final int x;
+        private final int z;
+        private final ConcurrentObjectArray<ChunkSection> sections;
+        @Nullable private final LanternChunk chunk;
+
+        // The pending work, guarded by the column itself
+        private final LongArrayList changes = new LongArrayList();
+        private final LongArrayFIFOQueue[] incomingIncreases = { new LongArrayFIFOQueue(), new LongArrayFIFOQueue() };
+        private final LongArrayFIFOQueue[] incomingChecks = { new LongArrayFIFOQueue(), new LongArrayFIFOQueue() };
+        private int exportSides;
+        private boolean importSides;
+        private boolean initialize;
+        private boolean sectionsChanged;
+        private boolean queued;
+
+        // The sections that existed the last time that the column was processed
+        private volatile int knownSections;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean removed;
+
+        private Column(int x, int z, ConcurrentObjectArray<ChunkSection> sections, @Nullable LanternChunk chunk) {
+            this.x = x;
+            this.z = z;
+            this.sections = sections;
+            this.chunk = chunk;
+        }
+
+        private void schedule() {
+            if (!this.removed && this.scheduled.compareAndSet(false, true)) {
+                try {
+                    LightEngine.this.executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // The server is shutting down
+                    this.scheduled.set(false);
+                }
+            }
+        }
+
+        private synchronized boolean hasWork() {
+            return this.initialize || this.exportSides != 0 || this.importSides || this.sectionsChanged || !this.changes.isEmpty() ||
+                    !this.incomingIncreases[BLOCK].isEmpty() || !this.incomingIncreases[SKY].isEmpty() ||
+                    !this.incomingChecks[BLOCK].isEmpty() || !this.incomingChecks[SKY].isEmpty();
+        }
+
+        private synchronized void addIncoming(int type, LongArrayFIFOQueue checks, LongArrayFIFOQueue increases) {
+            while (!checks.isEmpty()) {
+                this.incomingChecks[type].enqueue(checks.dequeueLong());
+            }
+            while (!increases.isEmpty()) {
+                this.incomingIncreases[type].enqueue(increases.dequeueLong());
+            }
+        }
+
+        private synchronized void addExportSide(int side) {
+            this.exportSides |= 1 << side;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!this.removed) {
+                    LightEngine.this.workers.get().process(this);
+                }
+            } catch (Throwable t) {
+                Lantern.getLogger().error("An error occurred while updating the light of chunk ({};{})", this.x, this.z, t);
+            } finally {
+                this.scheduled.set(false);
+            }
+            // Neighbors may have handed over work while this column was being processed
+            if (hasWork()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * The state of a thread that processes columns.
+     */
+    private final class Worker {
+
+        private final LongArrayList changes = new LongArrayList();
+        private final LongArrayFIFOQueue[] incomingIncreases = { new LongArrayFIFOQueue(), new LongArrayFIFOQueue() };
+        private final LongArrayFIFOQueue[] incomingChecks = { new LongArrayFIFOQueue(), new LongArrayFIFOQueue() };
+
+        private final LongArrayFIFOQueue increases = new LongArrayFIFOQueue();
+        private final LongArrayFIFOQueue decreases = new LongArrayFIFOQueue();
+
+        // The entries that should be handed over to the neighbor columns, per light type and side
+        private final LongArrayFIFOQueue[][] outgoingIncreases = new LongArrayFIFOQueue[2][HORIZONTAL_SIDES];
+        private final LongArrayFIFOQueue[][] outgoingChecks = new LongArrayFIFOQueue[2][HORIZONTAL_SIDES];
+
+        // The lowest y coordinate that still receives the full sky light, per column
+        private final int[] skyHeights = new int[CHUNK_SECTION_SIZE * CHUNK_SECTION_SIZE];
+
+        // The temporary light of the missing sections below the highest section, per light type
+        private final NibbleArray[][] gapLight = new NibbleArray[2][CHUNK_SECTIONS];
+
+        // The column that is currently being processed
+        private ConcurrentObjectArray<ChunkSection> sectionArray;
+        private ChunkSection[] sections;
+        private int chunkX;
+        private int chunkZ;
+        private int highestSection;
+        private int gaps;
+        private boolean modified;
+
+        private Worker() {
+            for (int type = 0; type < 2; type++) {
+                for (int side = 0; side < HORIZONTAL_SIDES; side++) {
+                    this.outgoingIncreases[type][side] = new LongArrayFIFOQueue();
+                    this.outgoingChecks[type][side] = new LongArrayFIFOQueue();
+                }
+            }
+        }
+
+        private void process(Column column) {
+            this.sectionArray = column.sections;
+            this.sections = column.sections.getRawObjects();
+            this.chunkX = column.x;
+            this.chunkZ = column.z;
+            this.highestSection = getHighestSection(this.sections);
+            this.modified = false;
+
+            final boolean initialize;
+            boolean importSides;
+            int exportSides;
+            synchronized (column) {
+                initialize = column.initialize;
+                importSides = column.importSides;
+                exportSides = column.exportSides;
+                column.initialize = false;
+                column.importSides = false;
+                column.sectionsChanged = false;
+                column.exportSides = 0;
+                if (!initialize) {
+                    this.changes.addAll(column.changes);
+                }
+                column.changes.clear();
+                for (int type = 0; type < 2; type++) {
+                    drain(column.incomingIncreases[type], this.incomingIncreases[type]);
+                    drain(column.incomingChecks[type], this.incomingChecks[type]);
+                }
+            }
+            // The sections that were created since the last time that the column
+            // was processed don't have valid light yet, so they will be seeded
+            final int sectionMask = getSectionMask(this.sections);
+            final int newSections = initialize ? 0 : sectionMask & ~column.knownSections;
+            column.knownSections = sectionMask;
+            if (newSections != 0) {
+                // Let the neighbors spread their light into the new sections
+                importSides = true;
+            }
+            prepareGaps();
+
+            if (initialize) {
+                initialize();
+                exportSides = ALL_SIDES_MASK;
+            }
+            final int types = LightEngine.this.skyLight ? 2 : 1;
+            for (int type = 0; type < types; type++) {
+                // Remove the light that depended on the changed blocks
+                for (int i = 0; i < this.changes.size(); i++) {
+                    final long change = this.changes.getLong(i);
+                    seed(type, unpackX(change), unpackY(change), unpackZ(change));
+                }
+                for (int sy = 0; sy < CHUNK_SECTIONS; sy++) {
+                    if ((newSections & (1 << sy)) != 0) {
+                        initSection(type, sy);
+                    }
+                }
+                final LongArrayFIFOQueue checks = this.incomingChecks[type];
+                while (!checks.isEmpty()) {
+                    final long entry = checks.dequeueLong();
+                    check(type, unpackX(entry), unpackY(entry), unpackZ(entry), unpackLevel(entry), false);
+                }
+                processDecreases(type);
+                // Spread the light, including the light that entered from the neighbors
+                for (int sy = 0; sy < CHUNK_SECTIONS; sy++) {
+                    if ((newSections & (1 << sy)) != 0) {
+                        spreadSection(type, sy);
+                    }
+                }
+                final LongArrayFIFOQueue incoming = this.incomingIncreases[type];
+                while (!incoming.isEmpty()) {
+                    final long entry = incoming.dequeueLong();
+                    offer(type, unpackX(entry), unpackY(entry), unpackZ(entry), unpackLevel(entry), false);
+                }
+                processIncreases(type);
+            }
+            this.changes.clear();
+            // The incoming queues aren't used for the sky light if it's disabled
+            this.incomingIncreases[SKY].clear();
+            this.incomingChecks[SKY].clear();
+
+            for (int side = 0; side < HORIZONTAL_SIDES; side++) {
+                if ((exportSides & (1 << side)) != 0) {
+                    export(side);
+                }
+            }
+            handOver(importSides);
+
+            final LanternChunk chunk = column.chunk;
+            if (chunk != null && !column.removed) {
+                if (this.modified) {
+                    chunk.markModified();
+                }
+                if (initialize) {
+                    chunk.setLightPopulated(true);
+                }
+            }
+            this.gaps = 0;
+            this.sections = null;
+            this.sectionArray = null;
+        }
+
+        private void drain(LongArrayFIFOQueue from, LongArrayFIFOQueue to) {
+            while (!from.isEmpty()) {
+                to.enqueue(from.dequeueLong());
+            }
+        }
+
+        /**
+         * Prepares the temporary light of the missing sections below the highest section.
+         * There is no block light in them, the sky light falls down from the section above.
+         */
+        private void prepareGaps() {
+            this.gaps = 0;
+            final int baseX = this.chunkX << 4;
+            final int baseZ = this.chunkZ << 4;
+            for (int sy = this.highestSection - 1; sy >= 0; sy--) {
+                if (this.sections[sy] != null) {
+                    continue;
+                }
+                for (int type = 0; type < 2; type++) {
+                    if (this.gapLight[type][sy] == null) {
+                        this.gapLight[type][sy] = new NibbleArray(CHUNK_SECTION_VOLUME);
+                    }
+                }
+                final NibbleArray blockLight = this.gapLight[BLOCK][sy];
+                final NibbleArray skyLight = this.gapLight[SKY][sy];
+                blockLight.fill((byte) 0);
+                if (LightEngine.this.skyLight) {
+                    // The section above is already prepared or an existing section
+                    final int top = (sy + 1) << 4;
+                    for (int index = 0; index < CHUNK_SECTION_SIZE * CHUNK_SECTION_SIZE; index++) {
+                        int level = getLight(SKY, baseX + (index & 0xf), top, baseZ + (index >> 4));
+                        for (int y = CHUNK_SECTION_SIZE - 1; y >= 0; y--) {
+                            if (level != 15) {
+                                level = Math.max(0, level - 1);
+                            }
+                            skyLight.set(y << 8 | index, (byte) level);
+                        }
+                    }
+                } else {
+                    skyLight.fill((byte) 0);
+                }
+                this.gaps |= 1 << sy;
+            }
+        }
+
+        /**
+         * Calculates the light of the column from scratch.
+         */
+        private void initialize() {
+            for (int sy = 0; sy < CHUNK_SECTIONS; sy++) {
+                this.sectionArray.work(sy, section -> {
+                    if (section != null) {
+                        section.lightFromBlock.fill((byte) 0);
+                        section.lightFromSky.fill((byte) 0);
+                    }
+                }, false, true);
+                if ((this.gaps & (1 << sy)) != 0) {
+                    this.gapLight[BLOCK][sy].fill((byte) 0);
+                    this.gapLight[SKY][sy].fill((byte) 0);
+                }
+            }
+            this.modified = true;
+
+            final int baseX = this.chunkX << 4;
+            final int baseZ = this.chunkZ << 4;
+            if (LightEngine.this.skyLight) {
+                // Let the sky light fall straight down first
+                final int top = (this.highestSection + 1) << 4;
+                for (int z = 0; z < CHUNK_SECTION_SIZE; z++) {
+                    for (int x = 0; x < CHUNK_SECTION_SIZE; x++) {
+                        int level = 15;
+                        int height = top;
+                        for (int y = top - 1; y >= 0 && level > 0; y--) {
+                            final int opacity = (getLightData(baseX + x, y, baseZ + z) >> 4) & 0xf;
+                            if (level == 15 && opacity == 0) {
+                                height = y;
+                            } else {
+                                level = Math.max(0, level - Math.max(1, opacity));
+                            }
+                            setLight(SKY, baseX + x, y, baseZ + z, level);
+                        }
+                        this.skyHeights[z << 4 | x] = height;
+                    }
+                }
+                // Only the positions that are higher than the sky height of one of the
+                // neighbors can spread their light sideways, the borders are exported
+                for (int z = 0; z < CHUNK_SECTION_SIZE; z++) {
+                    for (int x = 0; x < CHUNK_SECTION_SIZE; x++) {
+                        int maxHeight = 0;
+                        if (x > 0) {
+                            maxHeight = Math.max(maxHeight, this.skyHeights[z << 4 | (x - 1)]);
+                        }
+                        if (x < CHUNK_SECTION_SIZE - 1) {
+                            maxHeight = Math.max(maxHeight, this.skyHeights[z << 4 | (x + 1)]);
+                        }
+                        if (z > 0) {
+                            maxHeight = Math.max(maxHeight, this.skyHeights[(z - 1) << 4 | x]);
+                        }
+                        if (z < CHUNK_SECTION_SIZE - 1) {
+                            maxHeight = Math.max(maxHeight, this.skyHeights[(z + 1) << 4 | x]);
+                        }
+                        for (int y = Math.min(maxHeight, top) - 1; y >= 0; y--) {
+                            final int level = getLight(SKY, baseX + x, y, baseZ + z);
+                            if (level <= 1) {
+                                break;
+                            }
+                            this.increases.enqueue(pack(baseX + x, y, baseZ + z, level));
+                        }
+                    }
+                }
+                processIncreases(SKY);
+            }
+            for (int sy = 0; sy <= this.highestSection; sy++) {
+                final int minY = sy << 4;
+                this.sectionArray.work(sy, section -> {
+                    if (section == null) {
+                        return;
+                    }
+                    for (int index = 0; index < CHUNK_SECTION_VOLUME; index++) {
+                        final int emission = LightEngine.this.getLightData(section.types.get(index)) & 0xf;
+                        if (emission > 0) {
+                            section.lightFromBlock.set(index, (byte) emission);
+                            this.increases.enqueue(pack(baseX + (index & 0xf), minY | index >> 8, baseZ + ((index >> 4) & 0xf), emission));
+                        }
+                    }
+                }, false, true);
+            }
+            processIncreases(BLOCK);
+        }
+
+        /**
+         * Calculates the light of a section that was created since the column was processed
+         * the last time, without considering the light that spreads from the sides. The sky
+         * light falls down from the position above the section.
+         */
+        private void initSection(int type, int sy) {
+            final int baseX = this.chunkX << 4;
+            final int baseZ = this.chunkZ << 4;
+            final int minY = sy << 4;
+            final int maxY = minY + CHUNK_SECTION_SIZE - 1;
+            for (int z = baseZ; z < baseZ + CHUNK_SECTION_SIZE; z++) {
+                for (int x = baseX; x < baseX + CHUNK_SECTION_SIZE; x++) {
+                    if (type == BLOCK) {
+                        for (int y = minY; y <= maxY; y++) {
+                            setLight(BLOCK, x, y, z, getLightData(x, y, z) & 0xf);
+                        }
+                        continue;
+                    }
+                    int level = maxY + 1 >= CHUNK_HEIGHT ? 15 : getLight(SKY, x, maxY + 1, z);
+                    for (int y = maxY; y >= minY; y--) {
+                        final int opacity = (getLightData(x, y, z) >> 4) & 0xf;
+                        if (level != 15 || opacity != 0) {
+                            level = Math.max(0, level - Math.max(1, opacity));
+                        }
+                        setLight(SKY, x, y, z, level);
+                    }
+                    // The full sky light below the section fell through the missing
+                    // section, this is no longer the case if the new section blocks it
+                    if (level != 15 && minY > 0 && getLight(SKY, x, minY - 1, z) == 15 && setLight(SKY, x, minY - 1, z, 0)) {
+                        this.decreases.enqueue(pack(x, minY - 1, z, 15));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Spreads the light of a section that was initialized by
+         * {@link #initSection(int, int)} and the light around it.
+         */
+        private void spreadSection(int type, int sy) {
+            final int baseX = this.chunkX << 4;
+            final int baseZ = this.chunkZ << 4;
+            final int minY = sy << 4;
+            for (int z = baseZ; z < baseZ + CHUNK_SECTION_SIZE; z++) {
+                for (int x = baseX; x < baseX + CHUNK_SECTION_SIZE; x++) {
+                    for (int y = Math.max(0, minY - 1); y <= Math.min(CHUNK_HEIGHT - 1, minY + CHUNK_SECTION_SIZE); y++) {
+                        final int level = getLight(type, x, y, z);
+                        if (level > 1) {
+                            this.increases.enqueue(pack(x, y, z, level));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes the light at the position of a changed block and
+         * queues the new light emitted by the block.
+         */
+        private void seed(int type, int x, int y, int z) {
+            final int old = getLight(type, x, y, z);
+            setLight(type, x, y, z, 0);
+            // The neighbors that depended on the old light will be cleared,
+            // the other ones will spread their light into the position again
+            this.decreases.enqueue(pack(x, y, z, old));
+            final int level = type == BLOCK ? getLightData(x, y, z) & 0xf : getLight(type, x, y, z);
+            if (level > 0 && (type != BLOCK || setLight(type, x, y, z, level))) {
+                this.increases.enqueue(pack(x, y, z, level));
+            }
+        }
+
+        /**
+         * Checks whether the light at the position depended on the
+         * light level of a neighbor position that was removed.
+         */
+        private void check(int type, int x, int y, int z, int removedLevel, boolean down) {
+            final int current = getLight(type, x, y, z);
+            if (current == 0) {
+                return;
+            }
+            if (current < removedLevel || (type == SKY && down && removedLevel == 15 && current == 15)) {
+                if (!setLight(type, x, y, z, 0)) {
+                    // Light in missing sections can't be changed, so it will
+                    // be treated as a light source for its neighbors
+                    this.increases.enqueue(pack(x, y, z, current));
+                    return;
+                }
+                this.decreases.enqueue(pack(x, y, z, current));
+                if (type == BLOCK) {
+                    final int emission = getLightData(x, y, z) & 0xf;
+                    if (emission > 0) {
+                        setLight(type, x, y, z, emission);
+                        this.increases.enqueue(pack(x, y, z, emission));
+                    }
+                }
+            } else {
+                this.increases.enqueue(pack(x, y, z, current));
+            }
+        }
+
+        /**
+         * Offers the light level of a neighbor position to the position.
+         */
+        private void offer(int type, int x, int y, int z, int sourceLevel, boolean down) {
+            final int opacity = (getLightData(x, y, z) >> 4) & 0xf;
+            final int level = type == SKY && down && sourceLevel == 15 && opacity == 0 ? 15 : sourceLevel - Math.max(1, opacity);
+            if (level > getLight(type, x, y, z) && setLight(type, x, y, z, level) && level > 1) {
+                this.increases.enqueue(pack(x, y, z, level));
+            }
+        }
+
+        private void processDecreases(int type) {
+            final LongArrayFIFOQueue decreases = this.decreases;
+            while (!decreases.isEmpty()) {
+                final long entry = decreases.dequeueLong();
+                final int x = unpackX(entry);
+                final int y = unpackY(entry);
+                final int z = unpackZ(entry);
+                final int level = unpackLevel(entry);
+                for (int side = 0; side < OFFSET_X.length; side++) {
+                    final int ny = y + OFFSET_Y[side];
+                    if (ny < 0 || ny >= CHUNK_HEIGHT) {
+                        continue;
+                    }
+                    final int nx = x + OFFSET_X[side];
+                    final int nz = z + OFFSET_Z[side];
+                    if (side < HORIZONTAL_SIDES && (nx >> 4 != this.chunkX || nz >> 4 != this.chunkZ)) {
+                        this.outgoingChecks[type][side].enqueue(pack(nx, ny, nz, level));
+                    } else {
+                        check(type, nx, ny, nz, level, side == DOWN);
+                    }
+                }
+            }
+        }
+
+        private void processIncreases(int type) {
+            final LongArrayFIFOQueue increases = this.increases;
+            while (!increases.isEmpty()) {
+                final long entry = increases.dequeueLong();
+                final int x = unpackX(entry);
+                final int y = unpackY(entry);
+                final int z = unpackZ(entry);
+                final int level = unpackLevel(entry);
+                // The light was changed after the entry was queued
+                if (getLight(type, x, y, z) != level) {
+                    continue;
+                }
+                for (int side = 0; side < OFFSET_X.length; side++) {
+                    final int ny = y + OFFSET_Y[side];
+                    if (ny < 0 || ny >= CHUNK_HEIGHT) {
+                        continue;
+                    }
+                    final int nx = x + OFFSET_X[side];
+                    final int nz = z + OFFSET_Z[side];
+                    if (side < HORIZONTAL_SIDES && (nx >> 4 != this.chunkX || nz >> 4 != this.chunkZ)) {
+                        if (level > 1) {
+                            this.outgoingIncreases[type][side].enqueue(pack(nx, ny, nz, level));
+                        }
+                    } else {
+                        offer(type, nx, ny, nz, level, side == DOWN);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Offers all the light at the border of the given side to the neighbor column.
+         */
+        private void export(int side) {
+            final Column neighbor = getColumn(this.chunkX + OFFSET_X[side], this.chunkZ + OFFSET_Z[side]);
+            if (neighbor == null) {
+                return;
+            }
+            // The sky light above the highest section of the neighbor cannot
+            // be changed, so there is no need to export it
+            final int neighborTop = (getHighestSection(neighbor.sections.getRawObjects()) + 1) << 4;
+            final int types = LightEngine.this.skyLight ? 2 : 1;
+            for (int type = 0; type < types; type++) {
+                final int top = type == SKY ? neighborTop : Math.min(neighborTop, (this.highestSection + 1) << 4);
+                final LongArrayFIFOQueue outgoing = this.outgoingIncreases[type][side];
+                for (int i = 0; i < CHUNK_SECTION_SIZE; i++) {
+                    final int x = (this.chunkX << 4) + (side == 0 ? 0 : side == 1 ? 15 : i);
+                    final int z = (this.chunkZ << 4) + (side == 2 ? 0 : side == 3 ? 15 : i);
+                    for (int y = 0; y < top; y++) {
+                        final int level = getLight(type, x, y, z);
+                        if (level > 1) {
+                            outgoing.enqueue(pack(x + OFFSET_X[side], y, z + OFFSET_Z[side], level));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Hands the collected border entries over to the neighbor columns.
+         *
+         * @param importSides Whether the neighbors should export their borders to this column
+         */
+        private void handOver(boolean importSides) {
+            for (int side = 0; side < HORIZONTAL_SIDES; side++) {
+                boolean hasWork = importSides;
+                for (int type = 0; type < 2; type++) {
+                    hasWork |= !this.outgoingIncreases[type][side].isEmpty() || !this.outgoingChecks[type][side].isEmpty();
+                }
+                if (!hasWork) {
+                    continue;
+                }
+                final Column neighbor = getColumn(this.chunkX + OFFSET_X[side], this.chunkZ + OFFSET_Z[side]);
+                for (int type = 0; type < 2; type++) {
+                    if (neighbor != null) {
+                        neighbor.addIncoming(type, this.outgoingChecks[type][side], this.outgoingIncreases[type][side]);
+                    } else {
+                        this.outgoingChecks[type][side].clear();
+                        this.outgoingIncreases[type][side].clear();
+                    }
+                }
+                if (neighbor != null) {
+                    if (importSides) {
+                        // The opposite side of the neighbor faces this column
+                        neighbor.addExportSide(side ^ 1);
+                    }
+                    neighbor.schedule();
+                }
+            }
+        }
+
+        private int getLightData(int x, int y, int z) {
+            final int sy = y >> 4;
+            final int index = ChunkSection.index(x & 0xf, y & 0xf, z & 0xf);
+            final StampedLock lock = this.sectionArray.getLock(sy);
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                final ChunkSection section = this.sections[sy];
+                final short type = section == null ? 0 : section.types.get(index);
+                if (lock.validate(stamp)) {
+                    return LightEngine.this.getLightData(type);
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                final ChunkSection section = this.sections[sy];
+                return LightEngine.this.getLightData(section == null ? 0 : section.types.get(index));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int getLight(int type, int x, int y, int z) {
+            final int sy = y >> 4;
+            final int index = ChunkSection.index(x & 0xf, y & 0xf, z & 0xf);
+            final StampedLock lock = this.sectionArray.getLock(sy);
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                final int light = getLight0(type, sy, index);
+                if (lock.validate(stamp)) {
+                    return light;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return getLight0(type, sy, index);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int getLight0(int type, int sy, int index) {
+            final ChunkSection section = this.sections[sy];
+            if (section != null) {
+                return (type == SKY ? section.lightFromSky : section.lightFromBlock).get(index);
+            }
+            if ((this.gaps & (1 << sy)) != 0) {
+                return this.gapLight[type][sy].get(index);
+            }
+            // Missing sections above the highest section are fully lit by the sky
+            return type == SKY && sy > this.highestSection ? 15 : 0;
+        }
+
+        private boolean setLight(int type, int x, int y, int z, int level) {
+            final int sy = y >> 4;
+            final int index = ChunkSection.index(x & 0xf, y & 0xf, z & 0xf);
+            // Hold the read lock, the section may not be replaced while it's being written to
+            final StampedLock lock = this.sectionArray.getLock(sy);
+            final long stamp = lock.readLock();
+            try {
+                final ChunkSection section = this.sections[sy];
+                if (section != null) {
+                    (type == SKY ? section.lightFromSky : section.lightFromBlock).set(index, (byte) level);
+                    this.modified = true;
+                    return true;
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            if ((this.gaps & (1 << sy)) != 0) {
+                this.gapLight[type][sy].set(index, (byte) level);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
+import org.lanternpowered.server.util.collect.array.VariableValueArray;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A block type array that stores its values as indexes into a local
+ * palette, bit-packed into a {@link VariableValueArray}. The amount of bits
+ * per value grows on demand, until the palette becomes too big and all the
+ * values are stored directly (the global palette).
+ * <p>
+ * The value {@code 0} represents air, a new array is completely filled with it.
+ * <p>
+ * Reads and writes don't allocate, unless the palette needs to be resized.
+ */
+public final class PalettedBlockArray {
+
+    /**
+     * The minimum amount of bits per value, the client
+     * will round up to this value anyway.
+     */
+    public static final int MIN_BITS_PER_VALUE = 4;
+
+    /**
+     * The maximum amount of bits per value that
+     * will still be using a local palette.
+     */
+    public static final int MAX_LOCAL_BITS_PER_VALUE = 8;
+
+    /**
+     * The amount of bits per value when the global palette is used,
+     * this is enough to store every internal id and data value.
+     */
+    public static final int GLOBAL_BITS_PER_VALUE = 16;
+
+    /**
+     * The amount of bits per value the client expects when the
+     * global palette is used. This is hardcoded on the client.
+     */
+    public static final int NETWORK_GLOBAL_BITS_PER_VALUE = 13;
+
+    private final int capacity;
+
+    // The bit-packed palette indexes, or the raw types if the global palette is used
+    private VariableValueArray values;
+
+    // Maps the local ids to the global types, this array is always
+    // (1 << bitsPerValue) long, is null when the global palette is used
+    @Nullable private short[] palette;
+
+    // The amount of values that use each local id
+    @Nullable private int[] paletteCounts;
+
+    // Maps the global types to the local ids
+    @Nullable private Short2ShortOpenHashMap globalToLocal;
+
+    // The amount of local ids that are assigned, including free ones
+    private int paletteSize;
+
+    // The amount of local ids below the palette size that are no longer in use
+    private int freeEntries;
+
+    // The amount of non air values
+    private int nonAirCount;
+
+    /**
+     * Constructs a new {@link PalettedBlockArray} that
+     * is completely filled with air.
+     *
+     * @param capacity The capacity
+     */
+    public PalettedBlockArray(int capacity) {
+        this.capacity = capacity;
+        this.values = new VariableValueArray(MIN_BITS_PER_VALUE, capacity);
+        this.palette = new short[1 << MIN_BITS_PER_VALUE];
+        this.paletteCounts = new int[1 << MIN_BITS_PER_VALUE];
+        this.paletteCounts[0] = capacity;
+        this.globalToLocal = createGlobalToLocal(1 << MIN_BITS_PER_VALUE);
+        this.globalToLocal.put((short) 0, (short) 0);
+        this.paletteSize = 1;
+    }
+
+    /**
+     * Constructs a new {@link PalettedBlockArray} from the given raw types.
+     *
+     * @param types The types
+     */
+    public PalettedBlockArray(short[] types) {
+        this.capacity = types.length;
+        final Short2ShortOpenHashMap globalToLocal = createGlobalToLocal(1 << MIN_BITS_PER_VALUE);
+        // Generated sections mostly contain long runs of the same
+        // type, only look up the palette when the type changes
+        int lastType = Integer.MIN_VALUE;
+        for (short type : types) {
+            if (type != lastType) {
+                if (!globalToLocal.containsKey(type)) {
+                    globalToLocal.put(type, (short) globalToLocal.size());
+                }
+                lastType = type;
+            }
+            if (type != 0) {
+                this.nonAirCount++;
+            }
+        }
+        final int bitsPerValue = Math.max(MIN_BITS_PER_VALUE, bitsFor(globalToLocal.size()));
+        if (bitsPerValue > MAX_LOCAL_BITS_PER_VALUE) {
+            this.values = new VariableValueArray(GLOBAL_BITS_PER_VALUE, this.capacity);
+            for (int i = 0; i < types.length; i++) {
+                this.values.set(i, types[i] & 0xffff);
+            }
+        } else {
+            final short[] palette = new short[1 << bitsPerValue];
+            final int[] paletteCounts = new int[palette.length];
+            for (Short2ShortOpenHashMap.Entry entry : globalToLocal.short2ShortEntrySet()) {
+                palette[entry.getShortValue()] = entry.getShortKey();
+            }
+            this.values = new VariableValueArray(bitsPerValue, this.capacity);
+            int lastType = Integer.MIN_VALUE;
+            int localId = 0;
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] != lastType) {
+                    lastType = types[i];
+                    localId = globalToLocal.get(types[i]);
+                }
+                this.values.set(i, localId);
+                paletteCounts[localId]++;
+            }
+            this.palette = palette;
+            this.paletteCounts = paletteCounts;
+            this.globalToLocal = globalToLocal;
+            this.paletteSize = globalToLocal.size();
+        }
+    }
+
+    private PalettedBlockArray(PalettedBlockArray other) {
+        this.capacity = other.capacity;
+        this.values = other.values.copy();
+        this.palette = other.palette == null ? null : other.palette.clone();
+        this.paletteCounts = other.paletteCounts == null ? null : other.paletteCounts.clone();
+        this.globalToLocal = other.globalToLocal == null ? null : new Short2ShortOpenHashMap(other.globalToLocal);
+        if (this.globalToLocal != null) {
+            this.globalToLocal.defaultReturnValue((short) -1);
+        }
+        this.paletteSize = other.paletteSize;
+        this.freeEntries = other.freeEntries;
+        this.nonAirCount = other.nonAirCount;
+    }
+
+    private static Short2ShortOpenHashMap createGlobalToLocal(int expected) {
+        final Short2ShortOpenHashMap globalToLocal = new Short2ShortOpenHashMap(expected);
+        globalToLocal.defaultReturnValue((short) -1);
+        return globalToLocal;
+    }
+
+    private static int bitsFor(int paletteSize) {
+        return paletteSize <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+    }
+
+    /**
+     * Gets the capacity of this array.
+     *
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the amount of non air values in this array.
+     *
+     * @return The non air count
+     */
+    public int getNonAirCount() {
+        return this.nonAirCount;
+    }
+
+    /**
+     * Gets whether the global palette is being used.
+     *
+     * @return Is global palette
+     */
+    public boolean isGlobal() {
+        return this.palette == null;
+    }
+
+    /**
+     * Gets the amount of bits that is used per value.
+     *
+     * @return The bits per value
+     */
+    public int getBitsPerValue() {
+        return this.values.getBitsPerValue();
+    }
+
+    /**
+     * Gets the type at the given index.
+     *
+     * @param index The index
+     * @return The type
+     */
+    public short get(int index) {
+        // Read the fields only once, this method may be called
+        // by optimistic readers while the array is being resized
+        final short[] palette = this.palette;
+        final int value = this.values.get(index);
+        if (palette == null) {
+            return (short) value;
+        }
+        return value < palette.length ? palette[value] : 0;
+    }
+
+    /**
+     * Sets the type at the given index.
+     *
+     * @param index The index
+     * @param type The type
+     * @return The previous type
+     */
+    public short set(int index, short type) {
+        if (this.palette == null) {
+            final short oldType = (short) this.values.get(index);
+            if (oldType != type) {
+                this.values.set(index, type & 0xffff);
+                updateNonAirCount(oldType, type);
+            }
+            return oldType;
+        }
+        final int oldLocalId = this.values.get(index);
+        final short oldType = this.palette[oldLocalId];
+        if (oldType == type) {
+            return oldType;
+        }
+        // Release the old entry first, this allows
+        // the new type to reuse the entry
+        //noinspection ConstantConditions
+        if (--this.paletteCounts[oldLocalId] == 0) {
+            //noinspection ConstantConditions
+            this.globalToLocal.remove(oldType);
+            this.freeEntries++;
+        }
+        final int localId = getOrCreateLocalId(type);
+        if (localId == -1) {
+            // Switched to the global palette
+            this.values.set(index, type & 0xffff);
+        } else {
+            this.values.set(index, localId);
+            //noinspection ConstantConditions
+            this.paletteCounts[localId]++;
+        }
+        updateNonAirCount(oldType, type);
+        return oldType;
+    }
+
+    private void updateNonAirCount(short oldType, short newType) {
+        if (oldType == 0) {
+            this.nonAirCount++;
+        } else if (newType == 0) {
+            this.nonAirCount--;
+        }
+    }
+
+    /**
+     * Gets or creates a local id for the given type, returns
+     * {@code -1} if the global palette should be used instead.
+     *
+     * @param type The type
+     * @return The local id
+     */
+    @SuppressWarnings("ConstantConditions")
+    private int getOrCreateLocalId(short type) {
+        int localId = this.globalToLocal.get(type);
+        if (localId != -1) {
+            return localId;
+        }
+        if (this.freeEntries > 0) {
+            for (localId = 0; localId < this.paletteSize; localId++) {
+                if (this.paletteCounts[localId] == 0) {
+                    break;
+                }
+            }
+            this.freeEntries--;
+        } else {
+            if (this.paletteSize == this.palette.length) {
+                final int bitsPerValue = this.values.getBitsPerValue() + 1;
+                if (bitsPerValue > MAX_LOCAL_BITS_PER_VALUE) {
+                    toGlobal();
+                    return -1;
+                }
+                resize(bitsPerValue);
+            }
+            localId = this.paletteSize++;
+        }
+        this.palette[localId] = type;
+        this.globalToLocal.put(type, (short) localId);
+        return localId;
+    }
+
+    @SuppressWarnings("ConstantConditions")
+    private void resize(int bitsPerValue) {
+        final VariableValueArray oldValues = this.values;
+        final VariableValueArray newValues = new VariableValueArray(bitsPerValue, this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            newValues.set(i, oldValues.get(i));
+        }
+        // The palette should be updated first, readers
+        // will validate the local ids against it
+        this.palette = Arrays.copyOf(this.palette, 1 << bitsPerValue);
+        this.paletteCounts = Arrays.copyOf(this.paletteCounts, 1 << bitsPerValue);
+        this.values = newValues;
+    }
+
+    private void toGlobal() {
+        final short[] palette = this.palette;
+        final VariableValueArray oldValues = this.values;
+        final VariableValueArray newValues = new VariableValueArray(GLOBAL_BITS_PER_VALUE, this.capacity);
+        //noinspection ConstantConditions
+        for (int i = 0; i < this.capacity; i++) {
+            newValues.set(i, palette[oldValues.get(i)] & 0xffff);
+        }
+        this.palette = null;
+        this.paletteCounts = null;
+        this.globalToLocal = null;
+        this.paletteSize = 0;
+        this.freeEntries = 0;
+        this.values = newValues;
+    }
+
+    /**
+     * Gets the bit-packed values of this array, these are local palette
+     * ids or the raw types if the global palette is used.
+     *
+     * @return The values
+     */
+    public VariableValueArray getValues() {
+        return this.values;
+    }
+
+    /**
+     * Creates a copy of the local palette, trimmed to the amount of assigned
+     * entries. Returns {@code null} if the global palette is used.
+     *
+     * @return The palette
+     */
+    @Nullable
+    public int[] copyPalette() {
+        final short[] palette = this.palette;
+        if (palette == null) {
+            return null;
+        }
+        final int[] copy = new int[this.paletteSize];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = palette[i] & 0xffff;
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the {@link VariableValueArray} that can be send directly to the client, this is
+     * the backing array, unless the global palette is used. In that case will the values
+     * be repacked into a new array with {@link #NETWORK_GLOBAL_BITS_PER_VALUE} bits.
+     *
+     * @return The network values
+     */
+    public VariableValueArray getNetworkValues() {
+        if (this.palette != null) {
+            return this.values;
+        }
+        final VariableValueArray values = new VariableValueArray(NETWORK_GLOBAL_BITS_PER_VALUE, this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            values.set(i, this.values.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Copies all the types into a new short array.
+     *
+     * @return The types
+     */
+    public short[] toArray() {
+        final short[] types = new short[this.capacity];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = get(i);
+        }
+        return types;
+    }
+
+    /**
+     * Creates a copy of this array.
+     *
+     * @return The copy
+     */
+    public PalettedBlockArray copy() {
+        return new PalettedBlockArray(this);
+    }
+}
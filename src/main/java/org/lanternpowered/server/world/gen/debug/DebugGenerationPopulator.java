@@ -30,6 +30,8 @@
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Sets;
 import org.lanternpowered.server.block.state.LanternBlockState;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.util.gen.block.AbstractMutableBlockBuffer;
 import org.spongepowered.api.GameRegistry;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
@@ -54,6 +56,9 @@ public final class DebugGenerationPopulator implements GenerationPopulator {
     // All the block states that should be used
     private final BlockState[] blockStateCache;
 
+    // The internal ids of the cached block states
+    private final short[] blockStateIds;
+
     // The x/z size of the plane
     private final int size;
 
@@ -66,15 +71,25 @@ public DebugGenerationPopulator(GameRegistry registry) {
                     .collect(Collectors.toList()));
         }
         this.blockStateCache = blockStates.toArray(new BlockState[blockStates.size()]);
+        this.blockStateIds = toIds(this.blockStateCache);
         this.size = (int) Math.ceil(Math.sqrt((double) this.blockStateCache.length));
     }
 
     public DebugGenerationPopulator(Iterable<BlockState> blockStates) {
         final LinkedHashSet<BlockState> states = Sets.newLinkedHashSet(checkNotNull(blockStates, "blockStates"));
         this.blockStateCache = states.toArray(new BlockState[states.size()]);
+        this.blockStateIds = toIds(this.blockStateCache);
         this.size = (int) Math.ceil(Math.sqrt((double) this.blockStateCache.length));
     }
 
+    private static short[] toIds(BlockState[] blockStates) {
+        final short[] ids = new short[blockStates.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = BlockRegistryModule.get().getStateInternalIdAndData(blockStates[i]);
+        }
+        return ids;
+    }
+
     @Override
     public void populate(World world, MutableBlockVolume buffer, ImmutableBiomeVolume biomes) {
         final Vector3i min = buffer.getBlockMin();
@@ -83,6 +98,25 @@ public void populate(World world, MutableBlockVolume buffer, ImmutableBiomeVolum
         final boolean placeBarriers = min.getY() <= BARRIER_PLANE && max.getY() >= BARRIER_PLANE;
         final boolean placeBlocks = min.getY() <= BLOCKS_PLANE && max.getY() >= BLOCKS_PLANE;
 
+        if (buffer instanceof AbstractMutableBlockBuffer) {
+            final AbstractMutableBlockBuffer blockBuffer = (AbstractMutableBlockBuffer) buffer;
+            if (placeBarriers) {
+                blockBuffer.fillLayer(BARRIER_PLANE, BlockTypes.BARRIER.getDefaultState());
+            }
+            if (placeBlocks) {
+                // Only the odd coordinates contain blocks
+                for (int x = Math.max(1, min.getX() | 1); x <= max.getX(); x += 2) {
+                    for (int z = Math.max(1, min.getZ() | 1); z <= max.getZ(); z += 2) {
+                        final int index = (x / 2) * this.size + (z / 2);
+                        if (index < this.blockStateIds.length) {
+                            blockBuffer.setBlockById(x, BLOCKS_PLANE, z, this.blockStateIds[index]);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
         for (int x = min.getX(); x <= max.getX(); x++) {
             for (int z = min.getZ(); z <= max.getZ(); z++) {
                 if (placeBarriers) {
@@ -28,6 +28,8 @@
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.flowpowered.math.vector.Vector3i;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.util.gen.block.AbstractMutableBlockBuffer;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockTypes;
 import org.spongepowered.api.world.World;
@@ -43,6 +45,9 @@ public final class FlatGenerationPopulator implements GenerationPopulator {
     // Using a cache to increase generation performance
     private final BlockState[] blockStateCache;
 
+    // The internal ids of the cached block states
+    private final short[] blockStateIds;
+
     public FlatGenerationPopulator(FlatGeneratorSettings settings, int generatorHeight) {
         checkNotNull(settings, "settings");
 
@@ -59,6 +64,10 @@ public FlatGenerationPopulator(FlatGeneratorSettings settings, int generatorHeig
         }
 
         this.blockStateCache = blockStates.toArray(new BlockState[blockStates.size()]);
+        this.blockStateIds = new short[this.blockStateCache.length];
+        for (int i = 0; i < this.blockStateIds.length; i++) {
+            this.blockStateIds[i] = BlockRegistryModule.get().getStateInternalIdAndData(this.blockStateCache[i]);
+        }
     }
 
     @Override
@@ -66,9 +75,18 @@ public void populate(World world, MutableBlockVolume buffer, ImmutableBiomeVolum
         final Vector3i min = buffer.getBlockMin();
         final Vector3i max = buffer.getBlockMax();
 
-        final int height = this.blockStateCache.length;
+        final int height = Math.min(this.blockStateCache.length, max.getY() + 1);
+        if (buffer instanceof AbstractMutableBlockBuffer) {
+            final AbstractMutableBlockBuffer blockBuffer = (AbstractMutableBlockBuffer) buffer;
+            for (int y = min.getY(); y < height; y++) {
+                if (this.blockStateIds[y] != 0) {
+                    blockBuffer.fillLayerById(y, this.blockStateIds[y]);
+                }
+            }
+            return;
+        }
         for (int y = min.getY(); y < height; y++) {
-            if (this.blockStateCache[y] == BlockTypes.AIR) {
+            if (this.blockStateCache[y].getType() == BlockTypes.AIR) {
                 continue;
             }
             for (int x = min.getX(); x <= max.getX(); x++) {
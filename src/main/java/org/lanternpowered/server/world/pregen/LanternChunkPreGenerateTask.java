@@ -31,12 +31,16 @@
 import static org.lanternpowered.server.util.UncheckedThrowables.doUnchecked;
 
 import com.flowpowered.math.GenericMath;
+import com.flowpowered.math.vector.Vector2i;
 import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLists;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.lanternpowered.api.cause.CauseStack;
 import org.lanternpowered.server.data.io.ChunkIOService;
 import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.world.LanternWorld;
 import org.lanternpowered.server.world.chunk.LanternChunkLayout;
 import org.slf4j.Logger;
 import org.spongepowered.api.Sponge;
@@ -54,9 +58,14 @@
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
@@ -83,6 +92,13 @@ public class LanternChunkPreGenerateTask implements ChunkPreGenerate, Consumer<T
     private final Task spongeTask;
     private final int tickInterval;
     private final PluginContainer plugin;
+    private final boolean parallel;
+
+    // The chunk bounds (inclusive) of the area that should be generated
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int maxChunkX;
+    private final int maxChunkZ;
 
     // If null, no listeners have been assigned, so they don't need to be registered or unregistered.
     @Nullable private final EventListener<ChunkPreGenerationEvent> eventListener;
@@ -101,8 +117,17 @@ public class LanternChunkPreGenerateTask implements ChunkPreGenerate, Consumer<T
     private long generationEndTime = 0;
     private boolean isCancelled = false;
 
+    // The regions that still need to be generated in parallel mode, closest to the center first
+    private final Queue<Vector2i> pendingRegions = new ArrayDeque<>();
+    @Nullable private final PreGenerationProgress progress;
+
+    @Nullable private CompletableFuture<LongList> currentBatch;
+    @Nullable private Vector2i currentRegion;
+    private long batchStartTime;
+
     private LanternChunkPreGenerateTask(PluginContainer plugin, World world, Vector3d center, double diameter,
-            int chunkCount, float tickPercent, int tickInterval, Cause cause, List<Consumer<ChunkPreGenerationEvent>> eventListeners) {
+            int chunkCount, float tickPercent, int tickInterval, boolean parallel, Cause cause,
+            List<Consumer<ChunkPreGenerationEvent>> eventListeners) {
         final int preferredTickInterval = Lantern.getScheduler().getPreferredTickInterval();
 
         this.plugin = plugin;
@@ -114,6 +139,7 @@ private LanternChunkPreGenerateTask(PluginContainer plugin, World world, Vector3
         this.tickTimeLimit = Math.round(preferredTickInterval * tickPercent);
         this.cause = cause;
         this.tickInterval = tickInterval;
+        this.parallel = parallel;
         final Optional<Vector3i> currentPosition = LanternChunkLayout.INSTANCE.toChunk(center.toInt());
         if (currentPosition.isPresent()) {
             this.currentPosition = currentPosition.get();
@@ -127,6 +153,35 @@ private LanternChunkPreGenerateTask(PluginContainer plugin, World world, Vector3
 
         this.totalChunksToGenerate = (int) Math.pow(this.chunkRadius * 2 + 1, 2);
 
+        this.minChunkX = this.currentPosition.getX() - this.chunkRadius;
+        this.minChunkZ = this.currentPosition.getZ() - this.chunkRadius;
+        this.maxChunkX = this.currentPosition.getX() + this.chunkRadius;
+        this.maxChunkZ = this.currentPosition.getZ() + this.chunkRadius;
+        if (parallel) {
+            final int centerRegionX = this.currentPosition.getX() >> 5;
+            final int centerRegionZ = this.currentPosition.getZ() >> 5;
+            final List<Vector2i> regions = new ArrayList<>();
+            for (int x = this.minChunkX >> 5; x <= this.maxChunkX >> 5; x++) {
+                for (int z = this.minChunkZ >> 5; z <= this.maxChunkZ >> 5; z++) {
+                    regions.add(new Vector2i(x, z));
+                }
+            }
+            // Spiral outwards, just like the chunks in the sequential mode
+            regions.sort(Comparator.comparingInt((Vector2i region) -> {
+                final int dx = region.getX() - centerRegionX;
+                final int dz = region.getY() - centerRegionZ;
+                return Math.max(Math.abs(dx), Math.abs(dz));
+            }).thenComparingInt(region -> {
+                final int dx = region.getX() - centerRegionX;
+                final int dz = region.getY() - centerRegionZ;
+                return dx * dx + dz * dz;
+            }));
+            this.pendingRegions.addAll(regions);
+            this.progress = new PreGenerationProgress(this.minChunkX, this.minChunkZ, this.maxChunkX, this.maxChunkZ);
+        } else {
+            this.progress = null;
+        }
+
         this.spongeTask = Lantern.getScheduler()
                 .createTaskBuilder()
                 .intervalTicks(preferredTickInterval)
@@ -165,6 +220,32 @@ public int getTargetTotalChunks() {
         return this.totalChunksToGenerate;
     }
 
+    /**
+     * Gets the amount of chunks that were generated per second
+     * since the pre generation started.
+     *
+     * @return The chunks per second
+     */
+    public double getChunksPerSecond() {
+        final long millis = getTotalTime().toMillis();
+        return millis <= 0 ? 0 : this.chunksGenerated * 1000.0 / millis;
+    }
+
+    /**
+     * Gets the estimated time that is remaining until all the chunks are
+     * generated, based on the rate that chunks were processed so far.
+     *
+     * @return The estimated time remaining, if any chunks were processed
+     */
+    public Optional<Duration> getEstimatedTimeRemaining() {
+        final int processed = this.chunksGenerated + this.chunksSkipped;
+        if (processed == 0) {
+            return Optional.empty();
+        }
+        final int remaining = Math.max(0, this.totalChunksToGenerate - processed);
+        return Optional.of(Duration.ofMillis(getTotalTime().toMillis() * remaining / processed));
+    }
+
     @Override
     public Duration getTotalTime() {
         return Duration.of((isCancelled() ? this.generationEndTime : System.currentTimeMillis()) - this.generationStartTime, ChronoUnit.MILLIS);
@@ -193,6 +274,7 @@ public void cancel() {
             }
             this.spongeTask.cancel();
             this.isCancelled = true;
+            cancelBatch();
         }
     }
 
@@ -203,6 +285,11 @@ public void accept(Task task) {
             this.generationStartTime = stepStartTime;
         }
 
+        if (this.parallel) {
+            pulseParallel(task, stepStartTime);
+            return;
+        }
+
         // Create and fire event.
         final ChunkPreGenerationEvent.Pre preEvent = SpongeEventFactory.createChunkPreGenerationEventPre(
                 this.cause, this, this.world, false);
@@ -258,12 +345,86 @@ public void accept(Task task) {
         }
 
         if (!hasNextChunkPosition()) {
-            // Generation has completed.
-            Sponge.getEventManager().post(SpongeEventFactory.createChunkPreGenerationEventComplete(this.cause, this, this.world));
-            this.isCancelled = true;
-            unregisterListener();
-            task.cancel();
+            complete(task);
+        }
+    }
+
+    /**
+     * Pulses the parallel mode. The chunks are generated in region sized batches
+     * by the chunk task executor, so the main thread only has to start the
+     * batches and report the progress once they are done.
+     *
+     * @param task The task
+     * @param stepStartTime The start time of the current step
+     */
+    private void pulseParallel(Task task, long stepStartTime) {
+        final CompletableFuture<LongList> batch = this.currentBatch;
+        if (batch != null) {
+            // Still generating
+            if (!batch.isDone()) {
+                return;
+            }
+            this.currentBatch = null;
+            LongList generatedKeys;
+            try {
+                generatedKeys = batch.join();
+            } catch (CompletionException e) {
+                Lantern.getLogger().error("Error while pre generating the chunks of region ({};{})",
+                        this.currentRegion.getX(), this.currentRegion.getY(), e.getCause());
+                generatedKeys = LongLists.EMPTY_LIST;
+            }
+
+            //noinspection ConstantConditions
+            this.progress.completeBatch(this.currentRegion.getX(), this.currentRegion.getY(), generatedKeys);
+            final int count = this.progress.getGenerated();
+            final int skipped = this.progress.getSkipped();
+
+            this.chunksGenerated += count;
+            this.chunksSkipped += skipped;
+            this.generationEndTime = stepStartTime;
+
+            if (Sponge.getEventManager().post(SpongeEventFactory.createChunkPreGenerationEventPost(
+                    this.cause, this, this.world, Duration.ofMillis(stepStartTime - this.batchStartTime), count, skipped))) {
+                cancelTask(task);
+                return;
+            }
+
+            if (this.pendingRegions.isEmpty()) {
+                complete(task);
+                return;
+            }
+        }
+
+        final ChunkPreGenerationEvent.Pre preEvent = SpongeEventFactory.createChunkPreGenerationEventPre(
+                this.cause, this, this.world, false);
+
+        if (Sponge.getEventManager().post(preEvent)) {
+            cancelTask(task);
+            return;
         }
+
+        if (preEvent.getSkipStep()) {
+            return;
+        }
+
+        final Vector2i region = this.pendingRegions.poll();
+        //noinspection ConstantConditions
+        final int minX = this.progress.getMinX(region.getX());
+        final int minZ = this.progress.getMinZ(region.getY());
+        final int maxX = this.progress.getMaxX(region.getX());
+        final int maxZ = this.progress.getMaxZ(region.getY());
+
+        this.currentRegion = region;
+        this.batchStartTime = stepStartTime;
+        this.currentBatch = ((LanternWorld) this.world).getChunkManager().preGenerate(minX, minZ, maxX, maxZ, this.cause);
+    }
+
+    private void complete(Task task) {
+        // Generation has completed.
+        Sponge.getEventManager().post(SpongeEventFactory.createChunkPreGenerationEventComplete(this.cause, this, this.world));
+        this.isCancelled = true;
+        unregisterListener();
+        task.cancel();
     }
 
     private boolean areAllChunksLoaded(Vector3i chunk1, Vector3i chunk2, Vector3i chunk3, Vector3i chunk4) {
@@ -289,6 +450,15 @@ private void cancelTask(Task task) {
 
         this.isCancelled = true;
         unregisterListener();
+        cancelBatch();
+    }
+
+    private void cancelBatch() {
+        // Stops the batch, the chunks it already loaded will still be saved
+        if (this.currentBatch != null) {
+            this.currentBatch.cancel(false);
+            this.currentBatch = null;
+        }
     }
 
     private boolean hasNextChunkPosition() {
@@ -325,6 +495,10 @@ private boolean checkTickTime(long tickTime) {
         return this.tickPercent <= 0 || tickTime < this.tickTimeLimit;
     }
 
+    private static boolean isParallelByDefault() {
+        return Lantern.getGame().getGlobalConfig().isParallelChunkPreGeneration();
+    }
+
     public static class Builder implements ChunkPreGenerate.Builder {
 
         private static final String TIME_FORMAT = "s's 'S'ms'";
@@ -338,6 +512,7 @@ public static class Builder implements ChunkPreGenerate.Builder {
         private int tickInterval = DEFAULT_TICK_INTERVAL;
         private float tickPercent = DEFAULT_TICK_PERCENT;
         private int chunksPerTick = 0;
+        private boolean parallel = isParallelByDefault();
 
         public Builder(World world, Vector3d center, double diameter) {
             this.world = world;
@@ -361,11 +536,16 @@ public ChunkPreGenerate.Builder logger(@Nullable Logger logger) {
                 this.addListener(event -> {
                     if (event instanceof ChunkPreGenerationEvent.Post) {
                         ChunkPreGenerationEvent.Post post = (ChunkPreGenerationEvent.Post) event;
-                        logger.info("Generated {} chunks in {}, {}% complete", post.getChunksGeneratedThisStep(),
+                        final LanternChunkPreGenerateTask preGenerate = (LanternChunkPreGenerateTask) post.getChunkPreGenerate();
+                        logger.info("Generated {} chunks in {}, {}% complete, {} chunks/s, {} remaining", post.getChunksGeneratedThisStep(),
                                 DurationFormatUtils.formatDuration(post.getTimeTakenForStep().toMillis(), TIME_FORMAT, false),
                                 GenericMath.floor(
-                                        (post.getChunkPreGenerate().getTotalGeneratedChunks() + post.getChunkPreGenerate().getTotalSkippedChunks())
-                                                / post.getChunkPreGenerate().getTargetTotalChunks() * 100)
+                                        (preGenerate.getTotalGeneratedChunks() + preGenerate.getTotalSkippedChunks())
+                                                / (double) preGenerate.getTargetTotalChunks() * 100),
+                                GenericMath.floor(preGenerate.getChunksPerSecond()),
+                                preGenerate.getEstimatedTimeRemaining()
+                                        .map(duration -> DurationFormatUtils.formatDurationWords(duration.toMillis(), true, true))
+                                        .orElse("unknown")
                         );
                     } else if (event instanceof ChunkPreGenerationEvent.Complete) {
                         logger.info("Done! Generated a total of {} chunks in {}", event.getChunkPreGenerate().getTargetTotalChunks(),
@@ -398,6 +578,20 @@ public ChunkPreGenerate.Builder tickPercentLimit(float tickPercent) {
             return this;
         }
 
+        /**
+         * Sets whether the chunks should be generated in parallel. In this mode, the chunks are
+         * generated, populated and saved in region sized batches by the chunk task executor,
+         * instead of being loaded on the main thread. The chunks per tick and tick percent
+         * limits don't apply to this mode.
+         *
+         * @param parallel Whether the chunks should be generated in parallel
+         * @return This builder, for chaining
+         */
+        public ChunkPreGenerate.Builder parallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
         @Override
         public ChunkPreGenerate.Builder addListener(Consumer<ChunkPreGenerationEvent> listener) {
             checkNotNull(listener, "listener cannot be null");
@@ -418,7 +612,7 @@ public ChunkPreGenerate start() {
                 cause = causeStack.getCurrentCause();
             }
             return new LanternChunkPreGenerateTask(this.plugin, this.world, this.center, this.diameter, this.chunksPerTick, this.tickPercent,
-                    this.tickInterval, cause, this.eventListeners);
+                    this.tickInterval, this.parallel, cause, this.eventListeners);
         }
 
         @Override
@@ -430,6 +624,7 @@ public ChunkPreGenerate.Builder from(ChunkPreGenerate value) {
             final LanternChunkPreGenerateTask other = (LanternChunkPreGenerateTask) value;
             // Bypass null check
             this.plugin = other.plugin;
+            this.parallel = other.parallel;
             return tickInterval(other.tickInterval)
                     .chunksPerTick(other.chunkCount)
                     .tickPercentLimit(other.tickPercent);
@@ -441,6 +636,7 @@ public ChunkPreGenerate.Builder reset() {
             this.tickInterval = 0;
             this.chunksPerTick = 0;
             this.tickPercent = DEFAULT_TICK_PERCENT;
+            this.parallel = isParallelByDefault();
             this.eventListeners.clear();
             return this;
         }
@@ -0,0 +1,146 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.pregen;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+
+/**
+ * Tracks the progress of the parallel chunk pre generation, which generates
+ * the chunks in region sized batches. A batch also generates the chunks at its
+ * positive sides, these chunks may be located in a region that still has to be
+ * processed, so they are remembered to make sure that they are only counted once.
+ */
+final class PreGenerationProgress {
+
+    // The width of the batches, matches the size of a region file
+    static final int BATCH_SIZE = 32;
+
+    // The chunk bounds (inclusive) of the area that should be generated
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int maxChunkX;
+    private final int maxChunkZ;
+
+    // The chunks that were generated by a batch, but are located in a pending region
+    private final LongSet generatedAhead = new LongOpenHashSet();
+
+    private int generated;
+    private int skipped;
+
+    PreGenerationProgress(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.maxChunkX = maxChunkX;
+        this.maxChunkZ = maxChunkZ;
+    }
+
+    int getMinX(int regionX) {
+        return Math.max(this.minChunkX, regionX * BATCH_SIZE);
+    }
+
+    int getMinZ(int regionZ) {
+        return Math.max(this.minChunkZ, regionZ * BATCH_SIZE);
+    }
+
+    int getMaxX(int regionX) {
+        return Math.min(this.maxChunkX, regionX * BATCH_SIZE + BATCH_SIZE - 1);
+    }
+
+    int getMaxZ(int regionZ) {
+        return Math.min(this.maxChunkZ, regionZ * BATCH_SIZE + BATCH_SIZE - 1);
+    }
+
+    /**
+     * Updates the progress with the chunks that were generated by the batch of the
+     * given region. The results of the batch are available through {@link #getGenerated()}
+     * and {@link #getSkipped()} afterwards.
+     *
+     * @param regionX The region x coordinate
+     * @param regionZ The region z coordinate
+     * @param generatedKeys The keys of the chunks that were generated by the batch
+     */
+    void completeBatch(int regionX, int regionZ, LongList generatedKeys) {
+        final int minX = getMinX(regionX);
+        final int minZ = getMinZ(regionZ);
+        final int maxX = getMaxX(regionX);
+        final int maxZ = getMaxZ(regionZ);
+
+        int count = 0;
+        int generatedInBatch = 0;
+        for (int i = 0; i < generatedKeys.size(); i++) {
+            final long key = generatedKeys.getLong(i);
+            final int x = LanternChunk.keyX(key);
+            final int z = LanternChunk.keyZ(key);
+            if (isInBounds(x, z, this.minChunkX, this.minChunkZ, this.maxChunkX, this.maxChunkZ)) {
+                count++;
+                if (isInBounds(x, z, minX, minZ, maxX, maxZ)) {
+                    generatedInBatch++;
+                } else {
+                    this.generatedAhead.add(key);
+                }
+            }
+        }
+        // Chunks that were generated as neighbors of a previous batch aren't skipped
+        final LongIterator it = this.generatedAhead.iterator();
+        while (it.hasNext()) {
+            final long key = it.nextLong();
+            if (isInBounds(LanternChunk.keyX(key), LanternChunk.keyZ(key), minX, minZ, maxX, maxZ)) {
+                generatedInBatch++;
+                it.remove();
+            }
+        }
+        this.generated = count;
+        this.skipped = (maxX - minX + 1) * (maxZ - minZ + 1) - generatedInBatch;
+    }
+
+    /**
+     * Gets the amount of chunks within the pre generation area
+     * that were generated by the last completed batch.
+     *
+     * @return The generated chunks
+     */
+    int getGenerated() {
+        return this.generated;
+    }
+
+    /**
+     * Gets the amount of chunks of the region of the last completed
+     * batch that already existed before the pre generation.
+     *
+     * @return The skipped chunks
+     */
+    int getSkipped() {
+        return this.skipped;
+    }
+
+    private static boolean isInBounds(int x, int z, int minX, int minZ, int maxX, int maxZ) {
+        return x >= minX && x <= maxX && z >= minZ && z <= maxZ;
+    }
+}
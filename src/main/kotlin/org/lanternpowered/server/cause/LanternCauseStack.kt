@@ -46,18 +46,64 @@ class LanternCauseStack : CauseStack {
     private val ctx = HashMap<CauseContextKey<*>, Any>()
 
     private var minDepth = 0
-    private var cachedCause: Cause? = null
     private var cachedCtx: CauseContext? = null
 
+    /*
+     * The causes that were built for every depth of the stack. A cause stays valid
+     * as long as the objects below it and the context didn't change, so pushing
+     * and popping the same objects again doesn't require the cause to be rebuilt.
+     */
+    private var cachedCauses = arrayOfNulls<Cause>(INITIAL_CACHE_CAPACITY)
+    // The objects that were on the stack at each depth when the causes were cached
+    private var cachedObjects = arrayOfNulls<Any>(INITIAL_CACHE_CAPACITY)
+    // The highest depth that may contain a cached cause or object
+    private var cachedDepth = -1
+
+    // The frames that are used to call event listeners, they are
+    // never exposed to plugins so they can be safely reused
+    private val listenerFramePool = ArrayDeque<CauseStackFrameImpl>()
+
     override fun getCurrentCause(): Cause {
-        if (this.cachedCause == null || this.cachedCtx == null) {
-            if (this.cause.isEmpty()) {
-                this.cachedCause = Cause.of(currentContext, Lantern.getGame())
-            } else {
-                this.cachedCause = Cause.of(currentContext, this.cause)
+        val depth = this.cause.size
+        var cause = if (depth <= this.cachedDepth) this.cachedCauses[depth] else null
+        if (cause == null) {
+            cause = if (depth == 0) Cause.of(currentContext, Lantern.getGame()) else Cause.of(currentContext, this.cause)
+            ensureCacheCapacity(depth + 1)
+            this.cachedCauses[depth] = cause
+            if (depth > this.cachedDepth) {
+                this.cachedDepth = depth
             }
         }
-        return this.cachedCause!!
+        return cause!!
+    }
+
+    private fun ensureCacheCapacity(capacity: Int) {
+        if (capacity > this.cachedCauses.size) {
+            val newCapacity = Math.max(capacity, this.cachedCauses.size * 2)
+            this.cachedCauses = this.cachedCauses.copyOf(newCapacity)
+            this.cachedObjects = this.cachedObjects.copyOf(newCapacity)
+        }
+    }
+
+    /**
+     * Invalidates all the cached causes starting from the given depth.
+     */
+    private fun invalidateCauses(fromDepth: Int) {
+        for (depth in fromDepth..this.cachedDepth) {
+            this.cachedCauses[depth] = null
+            this.cachedObjects[depth] = null
+        }
+        if (fromDepth <= this.cachedDepth) {
+            this.cachedDepth = fromDepth - 1
+        }
+    }
+
+    /**
+     * Invalidates the cached context and all the causes that were built with it.
+     */
+    private fun invalidateContext() {
+        this.cachedCtx = null
+        invalidateCauses(0)
     }
 
     override fun getCurrentContext(): CauseContext {
@@ -68,8 +114,16 @@ class LanternCauseStack : CauseStack {
     }
 
     override fun pushCause(obj: Any): CauseStack = apply {
-        this.cachedCause = null
         this.cause.push(obj)
+        val depth = this.cause.size
+        // The causes that are cached for this depth and higher are only
+        // valid if the same object is pushed again at this depth
+        if (depth > this.cachedDepth || this.cachedObjects[depth] !== obj) {
+            invalidateCauses(depth)
+            ensureCacheCapacity(depth + 1)
+            this.cachedObjects[depth] = obj
+            this.cachedDepth = depth
+        }
     }
 
     override fun popCause(): Any {
@@ -77,7 +131,6 @@ class LanternCauseStack : CauseStack {
             throw IllegalStateException("Cause stack corruption, tried to pop more objects off than were pushed since last frame (Size was "
                     + this.cause.size + " but mid depth is " + this.minDepth + ")")
         }
-        this.cachedCause = null
         return this.cause.pop()
     }
 
@@ -120,8 +173,42 @@ class LanternCauseStack : CauseStack {
         return Optional.empty()
     }
 
-    override fun pushCauseFrame(): CauseStack.Frame {
-        val frame = CauseStackFrameImpl(this, this.minDepth)
+    override fun pushCauseFrame(): CauseStack.Frame = pushCauseFrame(CauseStackFrameImpl(this, this.minDepth))
+
+    /**
+     * Pushes the plugin of an event listener to the stack followed by a new frame. Unlike
+     * [pushCauseFrame], the frame is taken from a pool, so calling a listener that doesn't
+     * modify the stack or read the [Cause] doesn't allocate any objects.
+     *
+     * @param plugin The plugin that owns the listener
+     * @return The frame, should be popped with [popListenerFrame]
+     */
+    fun pushListenerFrame(plugin: Any): CauseStack.Frame {
+        pushCause(plugin)
+        val frame = this.listenerFramePool.poll()
+        if (frame == null) {
+            return pushCauseFrame(CauseStackFrameImpl(this, this.minDepth))
+        }
+        frame.oldMinDepth = this.minDepth
+        return pushCauseFrame(frame)
+    }
+
+    /**
+     * Pops a frame that was pushed by [pushListenerFrame] and the plugin below it.
+     *
+     * @param frame The frame
+     */
+    fun popListenerFrame(frame: CauseStack.Frame) {
+        try {
+            popCauseFrame(frame)
+        } finally {
+            popCause()
+            (frame as CauseStackFrameImpl).reset()
+            this.listenerFramePool.push(frame)
+        }
+    }
+
+    private fun pushCauseFrame(frame: CauseStackFrameImpl): CauseStack.Frame {
         this.frames.push(frame)
         this.minDepth = this.cause.size
         if (DEBUG_CAUSE_FRAMES) {
@@ -211,7 +298,7 @@ class LanternCauseStack : CauseStack {
             ctxInvalid = true
         }
         if (ctxInvalid) {
-            this.cachedCtx = null
+            invalidateContext()
         }
         // If there were any objects left on the stack then we pop them off
         while (this.cause.size > this.minDepth) {
@@ -221,7 +308,7 @@ class LanternCauseStack : CauseStack {
     }
 
     override fun <T> addContext(key: CauseContextKey<T>, value: T): CauseStack {
-        this.cachedCtx = null
+        invalidateContext()
         val existing = this.ctx.put(key, value as Any)
         if (!this.frames.isEmpty()) {
             val frame = this.frames.peek()
@@ -239,7 +326,7 @@ class LanternCauseStack : CauseStack {
     }
 
     override fun <T> removeContext(key: CauseContextKey<T>): Optional<T> {
-        this.cachedCtx = null
+        invalidateContext()
         val existing = key.allowedType.cast(this.ctx.remove(key))
         if (existing != null && !this.frames.isEmpty()) {
             val frame = this.frames.peek()
@@ -259,6 +346,15 @@ class LanternCauseStack : CauseStack {
 
         internal var debugStack: Exception? = null
 
+        /**
+         * Resets this frame so that it can be reused.
+         */
+        internal fun reset() {
+            this.storedCtxValues?.clear()
+            this.newCtxValues?.clear()
+            this.debugStack = null
+        }
+
         internal fun isStored(key: CauseContextKey<*>): Boolean {
             val storedCtxValues = this.storedCtxValues
             return storedCtxValues != null && key in storedCtxValues
@@ -311,6 +407,8 @@ class LanternCauseStack : CauseStack {
          */
         private val DEBUG_CAUSE_FRAMES = SystemProperties.get().getBooleanProperty("sponge.debugcauseframes")
 
+        private const val INITIAL_CACHE_CAPACITY = 16
+
         /**
          * A custom print [Throwable] method to ignore
          * the first entry in the stack.
@@ -0,0 +1,210 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_AREA;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.lanternpowered.server.util.collect.array.NibbleArray;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.ScheduledBlockUpdateWheel;
+import org.lanternpowered.server.world.TickingTileEntityList;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.Random;
+import java.util.UUID;
+
+public class AnvilChunkCodecTest {
+
+    private static final int CHUNK_X = 3;
+    private static final int CHUNK_Z = -2;
+
+    // The sections that contain data, the other ones are left empty
+    private static final int[] SECTIONS = { 0, 3, 15 };
+
+    private LanternWorld world;
+    private AnvilChunkCodec codec;
+
+    private static <T> T newInstance(Class<T> type, Class<?>[] parameterTypes, Object... args) throws Exception {
+        final Constructor<T> constructor = type.getDeclaredConstructor(parameterTypes);
+        constructor.setAccessible(true);
+        return constructor.newInstance(args);
+    }
+
+    @Before
+    public void setup() throws Exception {
+        this.world = mock(LanternWorld.class);
+        final TickingTileEntityList tickingTileEntities = newInstance(TickingTileEntityList.class, new Class<?>[0]);
+        final ScheduledBlockUpdateWheel scheduledBlockUpdates = newInstance(ScheduledBlockUpdateWheel.class,
+                new Class<?>[] { LanternWorld.class }, this.world);
+        when(this.world.getUniqueId()).thenReturn(new UUID(1L, 2L));
+        when(this.world.getName()).thenReturn("world");
+        when(this.world.getTickingTileEntities()).thenReturn(tickingTileEntities);
+        when(this.world.getScheduledBlockUpdates()).thenReturn(scheduledBlockUpdates);
+        this.codec = new AnvilChunkCodec(this.world, mock(Logger.class));
+    }
+
+    private LanternChunk createChunk(Random random) {
+        final ChunkSection[] sections = new ChunkSection[CHUNK_SECTIONS];
+        for (int y : SECTIONS) {
+            final short[] types = new short[CHUNK_SECTION_VOLUME];
+            final NibbleArray lightFromSky = new NibbleArray(CHUNK_SECTION_VOLUME);
+            final NibbleArray lightFromBlock = new NibbleArray(CHUNK_SECTION_VOLUME);
+            for (int i = 0; i < CHUNK_SECTION_VOLUME; i++) {
+                // Also covers the types that need the extra (add) array
+                types[i] = (short) random.nextInt(0x10000);
+                lightFromSky.set(i, (byte) random.nextInt(16));
+                lightFromBlock.set(i, (byte) random.nextInt(16));
+            }
+            sections[y] = new ChunkSection(types, lightFromSky, lightFromBlock, new Short2ObjectOpenHashMap<>());
+        }
+        final short[] biomes = new short[CHUNK_AREA];
+        final int[] heightMap = new int[CHUNK_AREA];
+        for (int i = 0; i < CHUNK_AREA; i++) {
+            biomes[i] = (short) random.nextInt(0x10000);
+            heightMap[i] = random.nextInt(128);
+        }
+        final LanternChunk chunk = new LanternChunk(this.world, CHUNK_X, CHUNK_Z);
+        chunk.initializeSections(sections);
+        chunk.initializeBiomes(biomes);
+        chunk.initializeHeightMap(heightMap);
+        chunk.setPopulated(true);
+        chunk.setLightPopulated(true);
+        chunk.setInhabitedTime(random.nextInt(100000));
+        return chunk;
+    }
+
+    private byte[] write(LanternChunk chunk) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            this.codec.write(dos, this.codec.snapshot(chunk));
+        }
+        return baos.toByteArray();
+    }
+
+    private LanternChunk read(byte[] data) throws IOException {
+        final LanternChunk chunk = new LanternChunk(this.world, CHUNK_X, CHUNK_Z);
+        final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
+        this.codec.read(dis, chunk);
+        // The chunk data must be consumed completely
+        assertEquals(-1, dis.read());
+        return chunk;
+    }
+
+    private static void assertChunkEquals(LanternChunk expected, LanternChunk actual) {
+        assertEquals(expected.isPopulated(), actual.isPopulated());
+        assertEquals(expected.isLightPopulated(), actual.isLightPopulated());
+        assertEquals(expected.getLongInhabitedTime(), actual.getLongInhabitedTime());
+        assertArrayEquals(expected.getBiomes(), actual.getBiomes());
+        assertArrayEquals(expected.getHeightMap(), actual.getHeightMap());
+        final int minX = CHUNK_X << 4;
+        final int minZ = CHUNK_Z << 4;
+        for (int y = 0; y < CHUNK_SECTIONS << 4; y++) {
+            for (int z = minZ; z < minZ + 16; z++) {
+                for (int x = minX; x < minX + 16; x++) {
+                    assertEquals(expected.getType(x, y, z), actual.getType(x, y, z));
+                    assertEquals(expected.getBlockLight(x, y, z), actual.getBlockLight(x, y, z));
+                    assertEquals(expected.getSkyLight(x, y, z), actual.getSkyLight(x, y, z));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final LanternChunk chunk = createChunk(new Random(0));
+        final byte[] data = write(chunk);
+        final LanternChunk readChunk = read(data);
+        assertChunkEquals(chunk, readChunk);
+
+        // Writing the chunk that was read must result in the same data
+        assertArrayEquals(data, write(readChunk));
+    }
+
+    @Test
+    public void testSkipUnknownTags() throws IOException {
+        final LanternChunk chunk = createChunk(new Random(1));
+        final byte[] data = write(chunk);
+
+        // Inject unknown tags of every type in front of the level compound, they
+        // are placed directly after the name of the root compound (empty string)
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        dos.write(data, 0, 3);
+        dos.writeByte(1);
+        dos.writeUTF("UnknownByte");
+        dos.writeByte(5);
+        dos.writeByte(8);
+        dos.writeUTF("UnknownString");
+        dos.writeUTF("Test");
+        dos.writeByte(12);
+        dos.writeUTF("UnknownLongArray");
+        dos.writeInt(3);
+        for (int i = 0; i < 3; i++) {
+            dos.writeLong(i);
+        }
+        dos.writeByte(9);
+        dos.writeUTF("UnknownList");
+        dos.writeByte(10);
+        dos.writeInt(2);
+        for (int i = 0; i < 2; i++) {
+            dos.writeByte(11);
+            dos.writeUTF("Ints");
+            dos.writeInt(2);
+            dos.writeInt(i);
+            dos.writeInt(i);
+            dos.writeByte(10);
+            dos.writeUTF("Nested");
+            dos.writeByte(6);
+            dos.writeUTF("Double");
+            dos.writeDouble(i);
+            dos.writeByte(0);
+            dos.writeByte(0);
+        }
+        dos.write(data, 3, data.length - 3);
+        dos.flush();
+
+        assertTrue(baos.size() > data.length);
+        assertChunkEquals(chunk, read(baos.toByteArray()));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+
+public class RegionFileTest {
+
+    private static final int SECTOR_BYTES = 4096;
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] randomBytes(long seed, int length) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void write(RegionFile regionFile, int x, int z, byte[] payload) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(os)) {
+            dos.write(payload);
+        }
+        final byte[] compressed = os.toByteArray();
+        regionFile.write(x, z, compressed, compressed.length);
+    }
+
+    private static byte[] read(RegionFile regionFile, int x, int z) throws IOException {
+        final DataInputStream dis = regionFile.getChunkDataInputStream(x, z);
+        assertNotNull(dis);
+        try {
+            return ByteStreams.toByteArray(dis);
+        } finally {
+            dis.close();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Path path = this.folder.getRoot().toPath().resolve("r.0.0.mca");
+        final byte[] first = randomBytes(0, 1000);
+        final byte[] last = randomBytes(1, 2000);
+
+        RegionFile regionFile = new RegionFile(path, 0, 0);
+        // Only the offset and timestamp tables
+        assertEquals(2 * SECTOR_BYTES, Files.size(path));
+        write(regionFile, 0, 0, first);
+        write(regionFile, 31, 31, last);
+        assertTrue(regionFile.hasChunk(0, 0));
+        assertTrue(regionFile.hasChunk(31, 31));
+        assertArrayEquals(first, read(regionFile, 0, 0));
+        assertArrayEquals(last, read(regionFile, 31, 31));
+        regionFile.close();
+
+        // The offset table must be restored when reopening the file
+        regionFile = new RegionFile(path, 0, 0);
+        assertArrayEquals(first, read(regionFile, 0, 0));
+        assertArrayEquals(last, read(regionFile, 31, 31));
+        regionFile.close();
+    }
+
+    @Test
+    public void testGrowth() throws IOException {
+        final Path path = this.folder.getRoot().toPath().resolve("r.0.0.mca");
+        final RegionFile regionFile = new RegionFile(path, 0, 0);
+        // Random data cannot be compressed, so this needs multiple sectors
+        final byte[] payload = randomBytes(2, 3 * SECTOR_BYTES);
+        write(regionFile, 5, 7, payload);
+        final long size = Files.size(path);
+        assertEquals(0, size % SECTOR_BYTES);
+        assertTrue(size >= 2 * SECTOR_BYTES + payload.length);
+        assertArrayEquals(payload, read(regionFile, 5, 7));
+        regionFile.close();
+    }
+
+    @Test
+    public void testRelocationAndOverwrite() throws IOException {
+        final Path path = this.folder.getRoot().toPath().resolve("r.0.0.mca");
+        RegionFile regionFile = new RegionFile(path, 0, 0);
+        final byte[] smallA = randomBytes(3, 100);
+        final byte[] smallB = randomBytes(4, 100);
+        write(regionFile, 0, 0, smallA);
+        write(regionFile, 1, 0, smallB);
+        final long initialSize = Files.size(path);
+
+        // Doesn't fit in the old sector anymore, so the chunk has to be moved
+        // behind the second chunk, the old sector becomes free
+        final byte[] bigA = randomBytes(5, 2 * SECTOR_BYTES);
+        write(regionFile, 0, 0, bigA);
+        final long grownSize = Files.size(path);
+        assertTrue(grownSize > initialSize);
+        assertArrayEquals(bigA, read(regionFile, 0, 0));
+        assertArrayEquals(smallB, read(regionFile, 1, 0));
+
+        // The sector that was released by the first chunk should be reused
+        final byte[] smallC = randomBytes(6, 100);
+        write(regionFile, 2, 0, smallC);
+        assertEquals(grownSize, Files.size(path));
+
+        // Overwrite the second chunk, the new data is written to a new sector
+        final byte[] smallB2 = randomBytes(7, 120);
+        write(regionFile, 1, 0, smallB2);
+        assertArrayEquals(smallB2, read(regionFile, 1, 0));
+        regionFile.close();
+
+        regionFile = new RegionFile(path, 0, 0);
+        assertArrayEquals(bigA, read(regionFile, 0, 0));
+        assertArrayEquals(smallB2, read(regionFile, 1, 0));
+        assertArrayEquals(smallC, read(regionFile, 2, 0));
+        regionFile.close();
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final Path path = this.folder.getRoot().toPath().resolve("r.0.0.mca");
+        final RegionFile regionFile = new RegionFile(path, 0, 0);
+        final byte[][] payloads = new byte[8][];
+        for (int i = 0; i < payloads.length; i++) {
+            // Different sizes, so the chunks get relocated
+            payloads[i] = randomBytes(10 + i, 500 + i * 1500);
+        }
+        write(regionFile, 3, 3, payloads[0]);
+        write(regionFile, 4, 3, payloads[1]);
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    final byte[] data = read(regionFile, 3, 3);
+                    if (Arrays.stream(payloads).noneMatch(payload -> Arrays.equals(payload, data))) {
+                        throw new AssertionError("Read a corrupted chunk");
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        for (int i = 0; reader.isAlive(); i++) {
+            write(regionFile, 3, 3, payloads[i % payloads.length]);
+            write(regionFile, 4, 3, payloads[(i + 3) % payloads.length]);
+        }
+        reader.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        regionFile.close();
+    }
+}
@@ -38,7 +38,9 @@
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -66,8 +68,9 @@ public class NbtDataContainerStreamsTest {
     private static final DataQuery R = DataQuery.of("R");
     private static final DataQuery S = DataQuery.of("S");
 
-    @Test
-    public void test() throws IOException {
+    private static final int MARKER = 0xcafebabe;
+
+    private static DataContainer createContainer() {
         final DataContainer container = new MemoryDataContainer(DataView.SafetyMode.NO_DATA_CLONED);
         container.set(A, (byte) 54);
         container.set(B, (short) 5493);
@@ -90,6 +93,12 @@ public void test() throws IOException {
         container.set(Q, true);
         container.set(R, new boolean[] { true, false, true, true });
         container.set(S, new String[] { "S", "s", "z" });
+        return container;
+    }
+
+    @Test
+    public void test() throws IOException {
+        final DataContainer container = createContainer();
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         DataOutputStream dos = new DataOutputStream(baos);
@@ -114,4 +123,150 @@ public void test() throws IOException {
 
         assertEquals(container, newContainer);
     }
+
+    @Test
+    public void testCompoundPayloadRoundTrip() throws IOException {
+        final DataContainer container = createContainer();
+        container.createView(G).createView(H)
+                .set(A, Lists.newArrayList(1, 2, 3))
+                .set(B, new long[] { 5L, 6L });
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        final NbtDataContainerOutputStream ndcos = new NbtDataContainerOutputStream(dos);
+        ndcos.writeCompoundPayload(container);
+        dos.writeInt(MARKER);
+        ndcos.close();
+
+        final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        final NbtDataContainerInputStream ndcis = new NbtDataContainerInputStream(dis);
+        assertEquals(container, ndcis.readCompoundPayload());
+        // The payload must be consumed completely
+        assertEquals(MARKER, dis.readInt());
+        ndcis.close();
+    }
+
+    private interface PayloadWriter {
+
+        void write(DataOutputStream dos) throws IOException;
+    }
+
+    private static void writeCompoundEntries(DataOutputStream dos) throws IOException {
+        dos.writeByte(3);
+        dos.writeUTF("int");
+        dos.writeInt(5);
+        dos.writeByte(9);
+        dos.writeUTF("strings");
+        dos.writeByte(8);
+        dos.writeInt(2);
+        dos.writeUTF("a");
+        dos.writeUTF("b");
+        dos.writeByte(10);
+        dos.writeUTF("nested");
+        dos.writeByte(11);
+        dos.writeUTF("ints");
+        dos.writeInt(2);
+        dos.writeInt(1);
+        dos.writeInt(2);
+        dos.writeByte(7);
+        dos.writeUTF("bytes");
+        dos.writeInt(3);
+        dos.write(new byte[] { 1, 2, 3 });
+        dos.writeByte(0);
+        dos.writeByte(0);
+    }
+
+    @Test
+    public void testSkipPayload() throws IOException {
+        final int[] types = new int[13];
+        final PayloadWriter[] writers = new PayloadWriter[types.length];
+        int index = 0;
+        types[index] = 1;
+        writers[index++] = dos -> dos.writeByte(5);
+        types[index] = 2;
+        writers[index++] = dos -> dos.writeShort(5493);
+        types[index] = 3;
+        writers[index++] = dos -> dos.writeInt(95601);
+        types[index] = 4;
+        writers[index++] = dos -> dos.writeLong(950698203987L);
+        types[index] = 5;
+        writers[index++] = dos -> dos.writeFloat(9.5789f);
+        types[index] = 6;
+        writers[index++] = dos -> dos.writeDouble(9820.98436d);
+        types[index] = 7;
+        writers[index++] = dos -> {
+            dos.writeInt(300);
+            dos.write(new byte[300]);
+        };
+        types[index] = 8;
+        writers[index++] = dos -> dos.writeUTF("Test");
+        // An empty list
+        types[index] = 9;
+        writers[index++] = dos -> {
+            dos.writeByte(0);
+            dos.writeInt(0);
+        };
+        // A list of lists of compounds
+        types[index] = 9;
+        writers[index++] = dos -> {
+            dos.writeByte(9);
+            dos.writeInt(2);
+            for (int i = 0; i < 2; i++) {
+                dos.writeByte(10);
+                dos.writeInt(2);
+                writeCompoundEntries(dos);
+                writeCompoundEntries(dos);
+            }
+        };
+        types[index] = 10;
+        writers[index++] = dos -> {
+            dos.writeByte(10);
+            dos.writeUTF("compound");
+            writeCompoundEntries(dos);
+            dos.writeByte(0);
+        };
+        types[index] = 11;
+        writers[index++] = dos -> {
+            dos.writeInt(3);
+            for (int i = 0; i < 3; i++) {
+                dos.writeInt(i);
+            }
+        };
+        types[index] = 12;
+        writers[index] = dos -> {
+            dos.writeInt(3);
+            for (int i = 0; i < 3; i++) {
+                dos.writeLong(i);
+            }
+        };
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        for (PayloadWriter writer : writers) {
+            writer.write(dos);
+            dos.writeInt(MARKER);
+        }
+        dos.flush();
+
+        // Only return a single byte at the time, like inflater streams are allowed to
+        final InputStream is = new FilterInputStream(new ByteArrayInputStream(baos.toByteArray())) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        final DataInputStream dis = new DataInputStream(is);
+        final NbtDataContainerInputStream ndcis = new NbtDataContainerInputStream(dis);
+        for (int type : types) {
+            ndcis.skipPayload(type);
+            assertEquals("Payload of type " + type + " wasn't skipped completely", MARKER, dis.readInt());
+        }
+        ndcis.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testSkipUnknownPayload() throws IOException {
+        final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(new byte[0]));
+        new NbtDataContainerInputStream(dis).skipPayload(13);
+    }
 }
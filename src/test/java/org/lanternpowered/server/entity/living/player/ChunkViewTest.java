@@ -0,0 +1,89 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.entity.living.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.junit.Test;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+
+public class ChunkViewTest {
+
+    private static LongSet square(int centerX, int centerZ, int radius) {
+        final LongSet chunks = new LongOpenHashSet();
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                chunks.add(LanternChunk.key(x, z));
+            }
+        }
+        return chunks;
+    }
+
+    private static void assertMove(ChunkView view, LongSet visible, int centerX, int centerZ, int radius) {
+        final LongSet expected = square(centerX, centerZ, radius);
+        final LongSet entering = new LongOpenHashSet();
+        final LongSet leaving = new LongOpenHashSet();
+        view.update(centerX, centerZ, radius, key -> assertTrue(entering.add(key)), key -> assertTrue(leaving.add(key)));
+        for (long key : entering) {
+            assertFalse(visible.contains(key));
+        }
+        for (long key : leaving) {
+            assertFalse(expected.contains(key));
+        }
+        visible.removeAll(leaving);
+        visible.addAll(entering);
+        assertEquals(expected, visible);
+    }
+
+    @Test
+    public void testUpdate() {
+        final ChunkView view = new ChunkView();
+        final LongSet visible = new LongOpenHashSet();
+        assertMove(view, visible, 0, 0, 4);
+        assertMove(view, visible, 1, 0, 4);
+        assertMove(view, visible, 3, -2, 4);
+        assertMove(view, visible, -20, 5, 4);
+        assertMove(view, visible, -20, 5, 2);
+        assertMove(view, visible, -19, 6, 6);
+        assertTrue(view.contains(-13, 0));
+        assertFalse(view.contains(-12, 0));
+        assertFalse(view.update(-19, 6, 6, key -> {}, key -> {}));
+    }
+
+    @Test
+    public void testClear() {
+        final ChunkView view = new ChunkView();
+        view.update(-3, 7, 3, key -> {}, key -> {});
+        final LongSet leaving = new LongOpenHashSet();
+        view.clear(leaving::add);
+        assertEquals(square(-3, 7, 3), leaving);
+        assertFalse(view.contains(-3, 7));
+    }
+}
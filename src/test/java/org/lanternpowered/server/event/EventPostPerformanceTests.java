@@ -0,0 +1,80 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.event;
+
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+import org.lanternpowered.server.cause.LanternCauseStack;
+import org.slf4j.LoggerFactory;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.EventListener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventPostPerformanceTests {
+
+    private final static String MESSAGE = "Posting with %s listeners (%s) for %s tests took: %s ms";
+    private final static int TESTS = 1000000;
+    private final static int[] LISTENER_COUNTS = { 0, 1, 10 };
+
+    @Test
+    public void testPostPerformance() {
+        final LanternEventManager eventManager = new LanternEventManager(LoggerFactory.getLogger(EventPostPerformanceTests.class));
+        final LanternCauseStack causeStack = new LanternCauseStack();
+        causeStack.pushCause(this);
+        for (int i = 0; i < 3; i++) {
+            for (int listenerCount : LISTENER_COUNTS) {
+                testPostPerformance0(eventManager, causeStack, listenerCount, false);
+                testPostPerformance0(eventManager, causeStack, listenerCount, true);
+            }
+        }
+    }
+
+    private void testPostPerformance0(LanternEventManager eventManager, LanternCauseStack causeStack,
+            int listenerCount, boolean readCause) {
+        final Event event = mock(Event.class);
+        final EventListener<Event> handler = readCause ? e -> causeStack.getCurrentCause() : e -> {};
+        final List<RegisteredListener<?>> listeners = new ArrayList<>();
+        for (int i = 0; i < listenerCount; i++) {
+            // Every listener belongs to a different plugin
+            final PluginContainer plugin = mock(PluginContainer.class);
+            final EventType<Event> eventType = new EventType<>(Event.class, null);
+            listeners.add(new RegisteredListener<>(plugin, eventType, Order.DEFAULT, handler, false));
+        }
+        final long time = System.currentTimeMillis();
+        for (int i = 0; i < TESTS; i++) {
+            // The cause of the event itself is requested before it's posted
+            causeStack.getCurrentCause();
+            eventManager.post(causeStack, event, listeners, listener -> listener.handle(event), false);
+        }
+        System.out.println(String.format(MESSAGE, listenerCount, readCause ? "reading the cause" : "ignoring the cause",
+                TESTS, System.currentTimeMillis() - time));
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lanternpowered.api.cause.CauseStack;
+import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.block.ScheduledBlockUpdate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class ScheduledBlockUpdateWheelTest {
+
+    private final CauseStack causeStack = mock(CauseStack.class);
+    private final BlockType blockType = mock(BlockType.class);
+    private final List<LanternScheduledBlockUpdate> executed = new ArrayList<>();
+
+    private LanternWorld world;
+    private ScheduledBlockUpdateWheel wheel;
+    private boolean chunkLoaded;
+    private boolean chunkReusable;
+    private int pulseAttempts;
+
+    @Before
+    public void setup() {
+        this.world = mock(LanternWorld.class);
+        this.wheel = new ScheduledBlockUpdateWheel(this.world);
+        this.chunkLoaded = true;
+        this.chunkReusable = true;
+        when(this.world.isChunkLoadingOrReusable(anyInt(), anyInt())).thenAnswer(invocation -> this.chunkReusable);
+        when(this.world.pulseScheduledUpdate(any(), any())).thenAnswer(invocation -> {
+            this.pulseAttempts++;
+            if (!this.chunkLoaded) {
+                return false;
+            }
+            this.executed.add(invocation.getArgument(0));
+            return true;
+        });
+    }
+
+    private void pulse(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            this.wheel.pulse(this.causeStack);
+        }
+    }
+
+    private static LanternChunk chunk(int x, int z) {
+        final LanternChunk chunk = mock(LanternChunk.class);
+        when(chunk.getKey()).thenReturn(LanternChunk.key(x, z));
+        return chunk;
+    }
+
+    @Test
+    public void testWrapAround() {
+        this.wheel.add(1, 2, 3, this.blockType, 0, 300);
+        // The slot of the update is visited once before the update is due
+        pulse(299);
+        assertTrue(this.executed.isEmpty());
+        pulse(1);
+        assertEquals(1, this.executed.size());
+        pulse(512);
+        assertEquals(1, this.executed.size());
+    }
+
+    @Test
+    public void testBudgetCarryOver() {
+        final int count = ScheduledBlockUpdateWheel.MAX_UPDATES_PER_TICK + 10;
+        for (int i = 0; i < count; i++) {
+            this.wheel.add(i & 0xff, 64, i >> 8, this.blockType, 0, 1);
+        }
+        pulse(1);
+        assertEquals(ScheduledBlockUpdateWheel.MAX_UPDATES_PER_TICK, this.executed.size());
+        pulse(1);
+        assertEquals(count, this.executed.size());
+    }
+
+    @Test
+    public void testRemove() {
+        final LanternScheduledBlockUpdate update = this.wheel.add(1, 2, 3, this.blockType, 0, 5);
+        this.wheel.add(1, 2, 4, this.blockType, 0, 5);
+        this.wheel.remove(update);
+        assertTrue(this.wheel.getUpdates(1, 2, 3).isEmpty());
+        pulse(5);
+        assertEquals(1, this.executed.size());
+        assertEquals(4, this.executed.get(0).getLocation().getBlockZ());
+    }
+
+    @Test
+    public void testReschedule() {
+        final LanternScheduledBlockUpdate update = this.wheel.add(1, 2, 3, this.blockType, 0, 5);
+        update.setTicks(400);
+        pulse(5);
+        assertTrue(this.executed.isEmpty());
+        assertEquals(395, update.getTicks());
+        pulse(395);
+        assertEquals(1, this.executed.size());
+    }
+
+    @Test
+    public void testChangesMarkChunkDirty() {
+        final LanternScheduledBlockUpdate update = this.wheel.add(17, 2, 33, this.blockType, 0, 5);
+        update.setPriority(3);
+        assertEquals(3, update.getPriority());
+        this.wheel.remove(update);
+        verify(this.world, atLeastOnce()).markChunkDirty(17, 33);
+    }
+
+    @Test
+    public void testParkedUntilChunkLoad() {
+        this.wheel.add(1, 2, 3, this.blockType, 0, 1);
+        this.chunkLoaded = false;
+        pulse(10);
+        // The update isn't retried every tick while the chunk is unloaded
+        assertEquals(1, this.pulseAttempts);
+        this.chunkLoaded = true;
+        this.wheel.onLoadChunk(chunk(0, 0));
+        pulse(1);
+        assertEquals(1, this.executed.size());
+    }
+
+    @Test
+    public void testSaveUnloadLoad() {
+        this.wheel.add(1, 2, 3, this.blockType, 4, 20);
+        pulse(5);
+        // Capture the updates like they are saved with the chunk
+        final Collection<LanternScheduledBlockUpdate> saved = this.wheel.getUpdatesInChunk(0, 0);
+        assertEquals(1, saved.size());
+        final LanternChunk chunk = chunk(0, 0);
+        this.wheel.onUnloadChunk(chunk);
+        assertTrue(this.wheel.getUpdatesInChunk(0, 0).isEmpty());
+        pulse(5);
+        assertTrue(this.executed.isEmpty());
+        // Load the chunk from the saved data
+        for (LanternScheduledBlockUpdate update : saved) {
+            this.wheel.add(update.getLocation().getBlockX(), update.getLocation().getBlockY(),
+                    update.getLocation().getBlockZ(), update.getBlockType(), update.getPriority(), 15);
+        }
+        this.wheel.onLoadChunk(chunk);
+        final Collection<ScheduledBlockUpdate> updates = this.wheel.getUpdates(1, 2, 3);
+        assertEquals(1, updates.size());
+        assertEquals(4, updates.iterator().next().getPriority());
+        pulse(14);
+        assertTrue(this.executed.isEmpty());
+        pulse(1);
+        assertEquals(1, this.executed.size());
+    }
+
+    @Test
+    public void testReuseUnloadedChunk() {
+        this.wheel.add(1, 2, 3, this.blockType, 0, 20);
+        final LanternChunk chunk = chunk(0, 0);
+        this.wheel.onUnloadChunk(chunk);
+        pulse(5);
+        // The chunk was reused from the graveyard, without loading the saved data
+        this.wheel.onLoadChunk(chunk);
+        assertEquals(15, this.wheel.getUpdatesInChunk(0, 0).iterator().next().getTicks());
+        pulse(15);
+        assertEquals(1, this.executed.size());
+    }
+
+    @Test
+    public void testDiscardUnloadedUpdates() {
+        this.wheel.add(1, 2, 3, this.blockType, 0, 20);
+        final LanternChunk chunk = chunk(0, 0);
+        this.wheel.onUnloadChunk(chunk);
+        this.wheel.discardParkedUpdates(chunk.getKey());
+        this.wheel.onLoadChunk(chunk);
+        assertTrue(this.wheel.getUpdatesInChunk(0, 0).isEmpty());
+    }
+
+    @Test
+    public void testParkedUpdatesAreSaved() {
+        this.wheel.add(1, 2, 3, this.blockType, 0, 1);
+        this.chunkLoaded = false;
+        pulse(1);
+        // The parked update is saved with the chunk
+        assertEquals(1, this.wheel.getUpdatesInChunk(0, 0).size());
+        this.wheel.discardParkedUpdates(LanternChunk.key(0, 0));
+        assertTrue(this.wheel.getUpdatesInChunk(0, 0).isEmpty());
+        this.chunkLoaded = true;
+        this.wheel.onLoadChunk(chunk(0, 0));
+        pulse(5);
+        assertTrue(this.executed.isEmpty());
+    }
+
+    @Test
+    public void testDropUpdatesOfUnknownChunks() {
+        this.wheel.add(1, 2, 3, this.blockType, 0, 1);
+        this.chunkLoaded = false;
+        this.chunkReusable = false;
+        pulse(1);
+        assertTrue(this.wheel.getUpdatesInChunk(0, 0).isEmpty());
+        this.chunkLoaded = true;
+        this.wheel.onLoadChunk(chunk(0, 0));
+        pulse(5);
+        assertTrue(this.executed.isEmpty());
+    }
+
+    @Test
+    public void testParkDetachedUpdates() {
+        this.wheel.park(1, 2, 3, this.blockType, 0, 5);
+        assertEquals(1, this.wheel.getUpdatesInChunk(0, 0).size());
+        assertTrue(this.wheel.getUpdates(1, 2, 3).isEmpty());
+        pulse(10);
+        assertTrue(this.executed.isEmpty());
+        // The chunk got attached to the world
+        this.wheel.onLoadChunk(chunk(0, 0));
+        pulse(1);
+        assertEquals(1, this.executed.size());
+    }
+}
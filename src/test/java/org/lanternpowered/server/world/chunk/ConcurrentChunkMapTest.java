@@ -0,0 +1,84 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class ConcurrentChunkMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        final ConcurrentChunkMap<String> map = new ConcurrentChunkMap<>();
+        final long key = LanternChunk.key(-5, 12);
+        assertNull(map.get(key));
+        assertNull(map.put(key, "a"));
+        assertEquals("a", map.get(key));
+        assertEquals("a", map.put(key, "b"));
+        assertEquals(1, map.size());
+        assertFalse(map.remove(key, "a"));
+        assertTrue(map.remove(key, "b"));
+        assertNull(map.get(key));
+        assertTrue(map.isEmpty());
+        assertNull(map.remove(key));
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        final ConcurrentChunkMap<Object> map = new ConcurrentChunkMap<>();
+        final long key = LanternChunk.key(3, -7);
+        final Object value = map.computeIfAbsent(key, key0 -> new Object());
+        assertSame(value, map.computeIfAbsent(key, key0 -> new Object()));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final ConcurrentChunkMap<Integer> map = new ConcurrentChunkMap<>();
+        final Map<Long, Integer> expected = new HashMap<>();
+        final Random random = new Random(1234);
+        for (int i = 0; i < 100000; i++) {
+            final long key = LanternChunk.key(random.nextInt(64) - 32, random.nextInt(64) - 32);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        final Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
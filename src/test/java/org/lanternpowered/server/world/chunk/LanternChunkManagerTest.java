@@ -0,0 +1,64 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.junit.Test;
+
+public class LanternChunkManagerTest {
+
+    @Test
+    public void testPopulationPhases() {
+        final LongSet[] populated = new LongSet[4];
+        for (int i = 0; i < populated.length; i++) {
+            populated[i] = new LongOpenHashSet();
+        }
+        for (int x = -8; x < 8; x++) {
+            for (int z = -8; z < 8; z++) {
+                final int phase = LanternChunkManager.getPopulationPhase(x, z);
+                assertTrue(phase >= 0 && phase < 4);
+                // The population area covers the chunks at the positive sides,
+                // these may not be touched by a different chunk in the same phase
+                assertTrue(populated[phase].add(LanternChunk.key(x, z)));
+                assertTrue(populated[phase].add(LanternChunk.key(x + 1, z)));
+                assertTrue(populated[phase].add(LanternChunk.key(x, z + 1)));
+                assertTrue(populated[phase].add(LanternChunk.key(x + 1, z + 1)));
+            }
+        }
+        // Every phase contains the same amount of chunks
+        int phaseSize = -1;
+        for (LongSet chunks : populated) {
+            if (phaseSize == -1) {
+                phaseSize = chunks.size();
+            }
+            assertEquals(phaseSize, chunks.size());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_SIZE;
+
+import org.junit.Test;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+public class LightEngineTest {
+
+    private static final short AIR = 0;
+    private static final short STONE = 1 << 4;
+    private static final short TORCH = 50 << 4;
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private LightEngine createEngine(boolean skyLight) {
+        // Stone blocks all the light and torches emit a light level of 14
+        return new LightEngine(this.tasks::add, skyLight, type -> type == STONE ? 0xf0 : type == TORCH ? 14 : 0);
+    }
+
+    private void runTasks(LightEngine engine) {
+        engine.pulse();
+        Runnable task;
+        while ((task = this.tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static ConcurrentObjectArray<ChunkSection> createColumn() {
+        return new ConcurrentObjectArray<>(new ChunkSection[CHUNK_SECTIONS]);
+    }
+
+    private static void setBlock(ConcurrentObjectArray<ChunkSection> column, int x, int y, int z, short type) {
+        column.work(y >> 4, section -> {
+            if (section == null) {
+                section = new ChunkSection();
+            }
+            section.types.set(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), type);
+            return section;
+        });
+    }
+
+    private static void fillLayer(ConcurrentObjectArray<ChunkSection> column, int y, short type) {
+        for (int x = 0; x < CHUNK_SECTION_SIZE; x++) {
+            for (int z = 0; z < CHUNK_SECTION_SIZE; z++) {
+                setBlock(column, x, y, z, type);
+            }
+        }
+    }
+
+    private static int getBlockLight(ConcurrentObjectArray<ChunkSection> column, int x, int y, int z) {
+        return column.getRawObjects()[y >> 4].lightFromBlock.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
+    }
+
+    private static int getSkyLight(ConcurrentObjectArray<ChunkSection> column, int x, int y, int z) {
+        return column.getRawObjects()[y >> 4].lightFromSky.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
+    }
+
+    @Test
+    public void testBlockLightPropagation() {
+        final LightEngine engine = createEngine(false);
+        final ConcurrentObjectArray<ChunkSection> column = createColumn();
+        setBlock(column, 8, 8, 8, TORCH);
+        engine.load(0, 0, column);
+        runTasks(engine);
+        assertEquals(14, getBlockLight(column, 8, 8, 8));
+        assertEquals(13, getBlockLight(column, 9, 8, 8));
+        assertEquals(12, getBlockLight(column, 9, 9, 8));
+        assertEquals(7, getBlockLight(column, 15, 8, 8));
+        assertEquals(0, getBlockLight(column, 0, 15, 0));
+
+        // Light doesn't pass through stone, so it has to go around the wall
+        setBlock(column, 10, 8, 8, STONE);
+        engine.queueChange(10, 8, 8, true);
+        runTasks(engine);
+        assertEquals(0, getBlockLight(column, 10, 8, 8));
+        assertEquals(9, getBlockLight(column, 11, 8, 8));
+    }
+
+    @Test
+    public void testBlockLightRemoval() {
+        final LightEngine engine = createEngine(false);
+        final ConcurrentObjectArray<ChunkSection> column = createColumn();
+        setBlock(column, 8, 8, 8, TORCH);
+        setBlock(column, 2, 8, 8, TORCH);
+        engine.load(0, 0, column);
+        runTasks(engine);
+        assertEquals(11, getBlockLight(column, 5, 8, 8));
+
+        setBlock(column, 8, 8, 8, AIR);
+        engine.queueChange(8, 8, 8, true);
+        runTasks(engine);
+        // Only the light of the remaining torch is left
+        assertEquals(8, getBlockLight(column, 8, 8, 8));
+        assertEquals(11, getBlockLight(column, 5, 8, 8));
+        assertEquals(2, getBlockLight(column, 14, 8, 8));
+        assertEquals(1, getBlockLight(column, 15, 8, 8));
+    }
+
+    @Test
+    public void testBlockLightAcrossChunkBorder() {
+        final LightEngine engine = createEngine(false);
+        final ConcurrentObjectArray<ChunkSection> column0 = createColumn();
+        final ConcurrentObjectArray<ChunkSection> column1 = createColumn();
+        setBlock(column0, 14, 8, 8, TORCH);
+        setBlock(column1, 31, 0, 0, STONE);
+        engine.load(0, 0, column0);
+        engine.load(1, 0, column1);
+        runTasks(engine);
+        assertEquals(12, getBlockLight(column1, 16, 8, 8));
+        assertEquals(11, getBlockLight(column1, 17, 8, 8));
+
+        setBlock(column0, 14, 8, 8, AIR);
+        engine.queueChange(14, 8, 8, true);
+        runTasks(engine);
+        assertEquals(0, getBlockLight(column0, 14, 8, 8));
+        assertEquals(0, getBlockLight(column1, 16, 8, 8));
+        assertEquals(0, getBlockLight(column1, 17, 8, 8));
+    }
+
+    @Test
+    public void testSkyLightAcrossSectionGap() {
+        final LightEngine engine = createEngine(true);
+        final ConcurrentObjectArray<ChunkSection> column = createColumn();
+        setBlock(column, 0, 0, 0, STONE);
+        // A roof in the third section, the second section is missing
+        fillLayer(column, 40, STONE);
+        engine.load(0, 0, column);
+        runTasks(engine);
+        assertEquals(15, getSkyLight(column, 8, 41, 8));
+        assertEquals(0, getSkyLight(column, 8, 39, 8));
+        assertEquals(0, getSkyLight(column, 8, 10, 8));
+
+        // Open the roof, the light falls through the gap
+        setBlock(column, 8, 40, 8, AIR);
+        engine.queueChange(8, 40, 8, true);
+        runTasks(engine);
+        assertEquals(15, getSkyLight(column, 8, 40, 8));
+        assertEquals(15, getSkyLight(column, 8, 32, 8));
+        assertEquals(15, getSkyLight(column, 8, 10, 8));
+        assertEquals(14, getSkyLight(column, 9, 10, 8));
+
+        // Close the roof again
+        setBlock(column, 8, 40, 8, STONE);
+        engine.queueChange(8, 40, 8, true);
+        runTasks(engine);
+        assertEquals(0, getSkyLight(column, 8, 39, 8));
+        assertEquals(0, getSkyLight(column, 8, 10, 8));
+        assertEquals(0, getSkyLight(column, 9, 10, 8));
+    }
+
+    @Test
+    public void testSkyLightAcrossChunkBorder() {
+        final LightEngine engine = createEngine(true);
+        final ConcurrentObjectArray<ChunkSection> column0 = createColumn();
+        final ConcurrentObjectArray<ChunkSection> column1 = createColumn();
+        fillLayer(column0, 15, STONE);
+        fillLayer(column1, 15, STONE);
+        engine.load(0, 0, column0);
+        engine.load(1, 0, column1);
+        runTasks(engine);
+        assertEquals(0, getSkyLight(column0, 15, 10, 8));
+        assertEquals(0, getSkyLight(column1, 16, 10, 8));
+
+        setBlock(column0, 15, 15, 8, AIR);
+        engine.queueChange(15, 15, 8, true);
+        runTasks(engine);
+        assertEquals(15, getSkyLight(column0, 15, 10, 8));
+        assertEquals(14, getSkyLight(column1, 16, 10, 8));
+        assertEquals(13, getSkyLight(column1, 17, 10, 8));
+
+        setBlock(column0, 15, 15, 8, STONE);
+        engine.queueChange(15, 15, 8, true);
+        runTasks(engine);
+        assertEquals(0, getSkyLight(column0, 15, 10, 8));
+        assertEquals(0, getSkyLight(column1, 16, 10, 8));
+        assertEquals(0, getSkyLight(column1, 17, 10, 8));
+    }
+
+    @Test
+    public void testNewSectionIsSeeded() {
+        final LightEngine engine = createEngine(true);
+        final ConcurrentObjectArray<ChunkSection> column = createColumn();
+        setBlock(column, 0, 0, 0, STONE);
+        setBlock(column, 0, 40, 0, STONE);
+        engine.load(0, 0, column);
+        runTasks(engine);
+        assertEquals(15, getSkyLight(column, 8, 10, 8));
+
+        // Create the missing section, its light isn't initialized
+        setBlock(column, 8, 20, 8, STONE);
+        engine.queueChange(8, 20, 8, true);
+        runTasks(engine);
+        assertEquals(15, getSkyLight(column, 5, 25, 5));
+        assertEquals(15, getSkyLight(column, 8, 21, 8));
+        assertEquals(0, getSkyLight(column, 8, 20, 8));
+        assertEquals(14, getSkyLight(column, 8, 19, 8));
+        assertEquals(14, getSkyLight(column, 8, 10, 8));
+        assertEquals(15, getSkyLight(column, 9, 10, 8));
+    }
+
+    @Test
+    public void testNewSectionWithoutLightChange() {
+        final LightEngine engine = createEngine(true);
+        final ConcurrentObjectArray<ChunkSection> column = createColumn();
+        setBlock(column, 0, 0, 0, STONE);
+        setBlock(column, 0, 40, 0, STONE);
+        engine.load(0, 0, column);
+        runTasks(engine);
+
+        // A block that doesn't change the light still creates the section
+        setBlock(column, 8, 20, 8, (short) (2 << 4));
+        engine.queueChange(8, 20, 8, false);
+        runTasks(engine);
+        assertEquals(15, getSkyLight(column, 5, 25, 5));
+        assertEquals(15, getSkyLight(column, 8, 20, 8));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PalettedBlockArrayTest {
+
+    private static final int CAPACITY = 4096;
+
+    @Test
+    public void testEmpty() {
+        final PalettedBlockArray array = new PalettedBlockArray(CAPACITY);
+        assertEquals(PalettedBlockArray.MIN_BITS_PER_VALUE, array.getBitsPerValue());
+        assertEquals(0, array.getNonAirCount());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(0, array.get(i));
+        }
+    }
+
+    @Test
+    public void testGrowToGlobal() {
+        final PalettedBlockArray array = new PalettedBlockArray(CAPACITY);
+        final short[] expected = new short[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            final short type = (short) ((i % 600) + 1);
+            assertEquals(0, array.set(i, type));
+            expected[i] = type;
+            if (i == 14) {
+                assertEquals(4, array.getBitsPerValue());
+            } else if (i == 15) {
+                assertEquals(5, array.getBitsPerValue());
+            }
+        }
+        assertTrue(array.isGlobal());
+        assertEquals(CAPACITY, array.getNonAirCount());
+        assertArrayEquals(expected, array.toArray());
+        assertEquals(PalettedBlockArray.NETWORK_GLOBAL_BITS_PER_VALUE, array.getNetworkValues().getBitsPerValue());
+    }
+
+    @Test
+    public void testReuseFreeEntries() {
+        final PalettedBlockArray array = new PalettedBlockArray(CAPACITY);
+        for (int i = 0; i < 1000; i++) {
+            // Only two different types are present at the same time
+            array.set(0, (short) (i + 1));
+            assertEquals((short) (i + 1), array.get(0));
+        }
+        assertEquals(PalettedBlockArray.MIN_BITS_PER_VALUE, array.getBitsPerValue());
+        assertEquals(1, array.getNonAirCount());
+        array.set(0, (short) 0);
+        assertEquals(0, array.getNonAirCount());
+    }
+
+    @Test
+    public void testFromArray() {
+        final short[] types = new short[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            types[i] = (short) (i % 3 == 0 ? 0 : (i % 20) << 4);
+        }
+        final PalettedBlockArray array = new PalettedBlockArray(types);
+        assertFalse(array.isGlobal());
+        assertArrayEquals(types, array.toArray());
+
+        final PalettedBlockArray copy = array.copy();
+        copy.set(0, (short) 1234);
+        assertEquals(0, array.get(0));
+        assertEquals(1234, copy.get(0));
+        assertEquals(array.getNonAirCount() + 1, copy.getNonAirCount());
+
+        final int[] palette = array.copyPalette();
+        for (int i = 0; i < CAPACITY; i++) {
+            //noinspection ConstantConditions
+            assertEquals(types[i], palette[array.getNetworkValues().get(i)]);
+        }
+    }
+}
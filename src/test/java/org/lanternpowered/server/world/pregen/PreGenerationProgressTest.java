@@ -0,0 +1,127 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.pregen;
+
+import static org.junit.Assert.assertEquals;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.junit.Test;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+
+import java.util.Random;
+
+public class PreGenerationProgressTest {
+
+    @Test
+    public void testRegionBounds() {
+        final PreGenerationProgress progress = new PreGenerationProgress(-40, -10, 40, 10);
+        assertEquals(-40, progress.getMinX(-2));
+        assertEquals(-33, progress.getMaxX(-2));
+        assertEquals(-32, progress.getMinX(-1));
+        assertEquals(-1, progress.getMaxX(-1));
+        assertEquals(32, progress.getMinX(1));
+        assertEquals(40, progress.getMaxX(1));
+        assertEquals(-10, progress.getMinZ(-1));
+        assertEquals(10, progress.getMaxZ(0));
+    }
+
+    @Test
+    public void testGeneratedAhead() {
+        final PreGenerationProgress progress = new PreGenerationProgress(0, 0, 63, 31);
+        // The first batch also generates the column at x = 32 and the row at z = 32
+        final LongList firstBatch = new LongArrayList();
+        for (int x = 0; x <= 32; x++) {
+            for (int z = 0; z <= 32; z++) {
+                firstBatch.add(LanternChunk.key(x, z));
+            }
+        }
+        progress.completeBatch(0, 0, firstBatch);
+        // The chunks at z = 32 are outside of the area
+        assertEquals(32 * 32 + 32, progress.getGenerated());
+        assertEquals(0, progress.getSkipped());
+        // The column at x = 32 already exists, so it isn't generated again
+        final LongList secondBatch = new LongArrayList();
+        for (int x = 33; x <= 64; x++) {
+            for (int z = 0; z <= 32; z++) {
+                secondBatch.add(LanternChunk.key(x, z));
+            }
+        }
+        progress.completeBatch(1, 0, secondBatch);
+        assertEquals(31 * 32, progress.getGenerated());
+        // The chunks that were generated ahead aren't counted as skipped
+        assertEquals(0, progress.getSkipped());
+    }
+
+    @Test
+    public void testTotals() {
+        final int minX = -45;
+        final int minZ = -20;
+        final int maxX = 50;
+        final int maxZ = 37;
+        final Random random = new Random(4321);
+        // Chunks that existed before the pre generation
+        final LongSet existing = new LongOpenHashSet();
+        for (int i = 0; i < 2000; i++) {
+            existing.add(LanternChunk.key(minX + random.nextInt(maxX - minX + 1), minZ + random.nextInt(maxZ - minZ + 1)));
+        }
+        int missing = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                if (!existing.contains(LanternChunk.key(x, z))) {
+                    missing++;
+                }
+            }
+        }
+        final PreGenerationProgress progress = new PreGenerationProgress(minX, minZ, maxX, maxZ);
+        int generated = 0;
+        int skipped = 0;
+        // Process the regions from the positive sides, so that the chunks at the
+        // positive sides of a batch are sometimes already generated
+        for (int regionX = maxX >> 5; regionX >= minX >> 5; regionX--) {
+            for (int regionZ = minZ >> 5; regionZ <= maxZ >> 5; regionZ++) {
+                final LongList batch = new LongArrayList();
+                // Like the chunk manager, generate the chunks at the positive sides as well
+                for (int x = progress.getMinX(regionX); x <= progress.getMaxX(regionX) + 1; x++) {
+                    for (int z = progress.getMinZ(regionZ); z <= progress.getMaxZ(regionZ) + 1; z++) {
+                        final long key = LanternChunk.key(x, z);
+                        if (existing.add(key)) {
+                            batch.add(key);
+                        }
+                    }
+                }
+                progress.completeBatch(regionX, regionZ, batch);
+                generated += progress.getGenerated();
+                skipped += progress.getSkipped();
+            }
+        }
+        final int total = (maxX - minX + 1) * (maxZ - minZ + 1);
+        assertEquals(missing, generated);
+        assertEquals(total, generated + skipped);
+    }
+}